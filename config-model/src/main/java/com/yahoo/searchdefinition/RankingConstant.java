@@ -83,6 +83,9 @@ public class RankingConstant {
         if (tensorType.dimensions().stream().anyMatch(d -> d.isIndexed() && d.size().isEmpty()))
             throw new IllegalArgumentException("Illegal type in field " + name + " type " + tensorType +
                                                ": Dense tensor dimensions must have a size");
+        if (tensorType.valueType() != TensorType.Value.DOUBLE && tensorType.valueType() != TensorType.Value.FLOAT)
+            throw new IllegalArgumentException("Illegal type in constant " + name + " type " + tensorType +
+                                               ": Only 'double' and 'float' cell value types are supported");
     }
 
     public String toString() {
@@ -62,6 +62,9 @@ public class VespaMetricSet {
         metrics.add(new Metric("jrt.transport.client.tls-connections-established"));
         metrics.add(new Metric("jrt.transport.server.unencrypted-connections-established"));
         metrics.add(new Metric("jrt.transport.client.unencrypted-connections-established"));
+        metrics.add(new Metric("jrt.transport.direct-buffers-allocated"));
+        metrics.add(new Metric("jrt.transport.direct-buffers-reused"));
+        metrics.add(new Metric("jrt.transport.heap-buffers-allocated"));
 
         // C++ TLS metrics
         metrics.add(new Metric("vds.server.network.tls-handshakes-failed"));
@@ -295,6 +298,17 @@ public class VespaMetricSet {
         metrics.add(new Metric("documents_total.count"));
         metrics.add(new Metric("dispatch_internal.rate"));
         metrics.add(new Metric("dispatch_fdispatch.rate"));
+        metrics.add(new Metric("dispatch_result_cache_hits.rate"));
+        metrics.add(new Metric("dispatch_result_cache_misses.rate"));
+        metrics.add(new Metric("dispatch_result_cache_evictions.rate"));
+        metrics.add(new Metric("dispatch_result_cache_bytes.last"));
+        metrics.add(new Metric("dispatch_docsum_cache_hits.rate"));
+        metrics.add(new Metric("dispatch_docsum_cache_misses.rate"));
+        metrics.add(new Metric("dispatch_docsum_cache_evictions.rate"));
+        metrics.add(new Metric("dispatch_docsum_cache_bytes.last"));
+        metrics.add(new Metric("dispatch_hedged_queries.rate"));
+        metrics.add(new Metric("dispatch_hedge_wins.rate"));
+        metrics.add(new Metric("dispatch_topk_insufficient.rate"));
 
         metrics.add(new Metric("totalhits_per_query.max"));
         metrics.add(new Metric("totalhits_per_query.sum"));
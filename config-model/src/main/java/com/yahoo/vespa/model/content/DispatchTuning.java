@@ -11,7 +11,7 @@ public class DispatchTuning {
 
     public static final DispatchTuning empty = new DispatchTuning.Builder().build();
 
-    public enum DispatchPolicy { ROUNDROBIN, ADAPTIVE}
+    public enum DispatchPolicy { ROUNDROBIN, ADAPTIVE, BEST_OF_RANDOM_2 }
 
     private final Integer maxHitsPerPartition;
     private DispatchPolicy dispatchPolicy;
@@ -77,6 +77,7 @@ public class DispatchTuning {
             switch (policy.toLowerCase()) {
                 case "adaptive": case "random": return DispatchPolicy.ADAPTIVE; // TODO: Deprecate 'random' on Java 8
                 case "round-robin": return DispatchPolicy.ROUNDROBIN;
+                case "best-of-random-2": return DispatchPolicy.BEST_OF_RANDOM_2;
                 default: throw new IllegalArgumentException("Unknown dispatch policy '" + policy + "'");
             }
         }
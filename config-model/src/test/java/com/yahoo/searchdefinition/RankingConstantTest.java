@@ -71,6 +71,23 @@ public class RankingConstantTest {
         ));
     }
 
+    @Test
+    public void tensor_constant_must_have_a_supported_value_type() throws Exception {
+        RankProfileRegistry rankProfileRegistry = new RankProfileRegistry();
+        SearchBuilder searchBuilder = new SearchBuilder(rankProfileRegistry);
+        thrown.expect(IllegalArgumentException.class);
+        thrown.expectMessage("Only 'double' and 'float' cell value types are supported");
+        searchBuilder.importString(joinLines(
+                "search test {",
+                "  document test { }",
+                "  constant foo {",
+                "    file: bar.baz",
+                "    type: tensor<int8>(x[2])",
+                "  }",
+                "}"
+        ));
+    }
+
     @Test
     public void tensor_constant_must_have_a_file() throws Exception {
         RankProfileRegistry rankProfileRegistry = new RankProfileRegistry();
@@ -31,6 +31,21 @@ public class TensorFieldTestCase {
         }
     }
 
+    @Test
+    public void requireThatTensorFieldCannotHaveCompactValueType() throws ParseException {
+        for (String valueType : new String[] { "bfloat16", "int8" }) {
+            try {
+                createFromString(getSd("field f1 type tensor<" + valueType + ">(x[3]) { indexing: attribute }"));
+                fail("Expected exception");
+            }
+            catch (IllegalArgumentException e) {
+                assertEquals("For search 'test', field 'f1': A tensor of type 'tensor<" + valueType + ">(x[3])' is not supported. " +
+                             "Only 'double' and 'float' cell value types are supported.",
+                             e.getMessage());
+            }
+        }
+    }
+
     @Test
     public void requireThatTensorFieldCannotBeIndexField() throws ParseException {
         try {
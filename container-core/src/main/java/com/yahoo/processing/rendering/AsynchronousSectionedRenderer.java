@@ -91,6 +91,16 @@ public abstract class AsynchronousSectionedRenderer<RESPONSE extends Response> e
      */
     public abstract void endResponse() throws IOException;
 
+    /**
+     * Called when rendering will likely suspend to wait for more data, before the stream is flushed.
+     * Renderers which buffer output themselves should write what is buffered to the stream here,
+     * such that what is rendered so far reaches the client while waiting. This default implementation does nothing.
+     *
+     * @throws IOException passed on from the stream
+     */
+    protected void beforeSuspending() throws IOException {
+    }
+
     private static final Logger logger = Logger.getLogger(AsynchronousSectionedRenderer.class.getName());
 
     // NOTE: Renderers are *prototype objects* - a new instance is created for each rendering by invoking 
@@ -356,7 +366,7 @@ public abstract class AsynchronousSectionedRenderer<RESPONSE extends Response> e
             if (list.complete().isDone()) // might not be when in before handover mode
                 endListLevel();
             else
-                stream.flush();
+                suspending();
         }
 
         private void endListLevel() throws IOException {
@@ -552,7 +562,12 @@ public abstract class AsynchronousSectionedRenderer<RESPONSE extends Response> e
 
         protected void flushIfLikelyToSuspend(DataList list) throws IOException {
             // If the listener is not complete, we will (likely) suspend rendering
-            if ( ! list.incoming().isComplete()) stream.flush();
+            if ( ! list.incoming().isComplete()) suspending();
+        }
+
+        protected void suspending() throws IOException {
+            beforeSuspending();
+            stream.flush();
         }
 
     }
@@ -30,6 +30,9 @@ class JrtMetrics {
         increment("jrt.transport.client.tls-connections-established", changesSincePrevious.clientTlsConnectionsEstablished());
         increment("jrt.transport.server.unencrypted-connections-established", changesSincePrevious.serverUnencryptedConnectionsEstablished());
         increment("jrt.transport.client.unencrypted-connections-established", changesSincePrevious.clientUnencryptedConnectionsEstablished());
+        increment("jrt.transport.direct-buffers-allocated", changesSincePrevious.directBuffersAllocated());
+        increment("jrt.transport.direct-buffers-reused", changesSincePrevious.directBuffersReused());
+        increment("jrt.transport.heap-buffers-allocated", changesSincePrevious.heapBuffersAllocated());
         previousSnapshot = snapshot;
     }
 
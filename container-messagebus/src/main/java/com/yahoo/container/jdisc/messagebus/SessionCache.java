@@ -2,6 +2,7 @@
 package com.yahoo.container.jdisc.messagebus;
 
 import com.yahoo.component.AbstractComponent;
+import com.yahoo.compress.CompressionType;
 import com.yahoo.config.subscription.ConfigGetter;
 import com.yahoo.container.jdisc.ContainerMbusConfig;
 import com.yahoo.document.DocumentTypeManager;
@@ -123,7 +124,9 @@ public final class SessionCache extends AbstractComponent {
                 .setListenPort(mbusConfig.port())
                 .setNumTargetsPerSpec(mbusConfig.numconnectionspertarget())
                 .setNumNetworkThreads(mbusConfig.numthreads())
-                .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()));
+                .setOptimization(RPCNetworkParams.Optimization.valueOf(mbusConfig.optimize_for().name()))
+                .setCompression(CompressionType.valueOf(mbusConfig.compress().type().name()),
+                                mbusConfig.compress().level(), mbusConfig.compress().limit());
         return SharedMessageBus.newInstance(mbusParams, netParams);
     }
 
@@ -10,6 +10,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * A docsum definition which knows how to decode a certain class of document
@@ -29,6 +31,12 @@ public class DocsumDefinition {
     // Mapping between field names and their index in this.fields
     private final ImmutableMap<String, Integer> fieldNameToIndex;
 
+    /** The max number of distinct sets of requested fields to cache the projection of this to */
+    private static final int maxCachedProjections = 1000;
+
+    /** Projections of this to sets of requested fields, see {@link #projection} */
+    private final Map<Set<String>, List<String>> projections = new ConcurrentHashMap<>();
+
     public DocsumDefinition(String name, List<DocsumField> fields) {
         this.name = name;
         this.dynamic = false;
@@ -87,6 +95,24 @@ public class DocsumDefinition {
         return fieldNameToIndex.keySet();
     }
 
+    /**
+     * Returns the names of the fields of this which are among the given requested fields, to be
+     * requested from content nodes instead of the complete summary.
+     * This returns an empty list if the complete summary should be requested, which is when all or none of
+     * the fields of this are requested.
+     */
+    public List<String> projection(Set<String> requestedFields) {
+        List<String> projection = projections.get(requestedFields);
+        if (projection != null) return projection;
+
+        projection = fields.stream().map(field -> field.name).filter(requestedFields::contains).collect(Collectors.toUnmodifiableList());
+        if (projection.size() == fields.size())
+            projection = List.of();
+        if (projections.size() < maxCachedProjections)
+            projections.put(Set.copyOf(requestedFields), projection);
+        return projection;
+    }
+
     @Override
     public String toString() {
         return "docsum definition '" + getName() + "'";
@@ -14,6 +14,8 @@ import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.cluster.ClusterMonitor;
 import com.yahoo.search.dispatch.SearchPath.InvalidSearchPathException;
+import com.yahoo.search.dispatch.rpc.DocsumCache;
+import com.yahoo.search.dispatch.rpc.ProtobufSerialization;
 import com.yahoo.search.dispatch.rpc.RpcInvokerFactory;
 import com.yahoo.search.dispatch.rpc.RpcPingFactory;
 import com.yahoo.search.dispatch.rpc.RpcResourcePool;
@@ -76,6 +78,12 @@ public class Dispatcher extends AbstractComponent {
 
     private final int maxHitsPerNode;
 
+    /** Whether to hedge queries to another group when the first is slow */
+    private final boolean hedgeGroups;
+
+    /** A cache of first-phase results, or empty if disabled */
+    private final Optional<ResultCache> resultCache;
+
     private static final QueryProfileType argumentType;
 
     static {
@@ -98,13 +106,20 @@ public class Dispatcher extends AbstractComponent {
                       VipStatus vipStatus,
                       Metric metric) {
         this(resourcePool, new SearchCluster(clusterId.stringValue(), dispatchConfig,clusterInfoConfig.nodeCount(),
-                                             vipStatus, new RpcPingFactory(resourcePool)),
+                                             vipStatus, new RpcPingFactory(resourcePool), metric),
              dispatchConfig, metric);
 
     }
 
     private Dispatcher(RpcResourcePool resourcePool, SearchCluster searchCluster, DispatchConfig dispatchConfig, Metric metric) {
-        this(new ClusterMonitor<>(searchCluster, true), searchCluster, dispatchConfig, new RpcInvokerFactory(resourcePool, searchCluster), metric);
+        this(new ClusterMonitor<>(searchCluster, true), searchCluster, dispatchConfig,
+             new RpcInvokerFactory(resourcePool, searchCluster, createDocsumCache(searchCluster, dispatchConfig, metric)), metric);
+    }
+
+    private static Optional<DocsumCache> createDocsumCache(SearchCluster searchCluster, DispatchConfig dispatchConfig, Metric metric) {
+        if (dispatchConfig.docsumCacheMaxBytes() <= 0) return Optional.empty();
+        return Optional.of(new DocsumCache(dispatchConfig.docsumCacheMaxBytes(), dispatchConfig.docsumCacheTtl(),
+                                           searchCluster::generation, metric));
     }
 
     /* Protected for simple mocking in tests. Beware that searchCluster is shutdown on in deconstruct() */
@@ -118,12 +133,15 @@ public class Dispatcher extends AbstractComponent {
 
         this.searchCluster = searchCluster;
         this.clusterMonitor = clusterMonitor;
-        this.loadBalancer = new LoadBalancer(searchCluster,
-                                  dispatchConfig.distributionPolicy() == DispatchConfig.DistributionPolicy.ROUNDROBIN);
+        this.loadBalancer = new LoadBalancer(searchCluster, dispatchConfig.distributionPolicy());
         this.invokerFactory = invokerFactory;
         this.metric = metric;
         this.metricContext = metric.createContext(null);
         this.maxHitsPerNode = dispatchConfig.maxHitsPerNode();
+        this.hedgeGroups = dispatchConfig.hedgeGroups();
+        this.resultCache = dispatchConfig.resultCacheMaxBytes() > 0
+                           ? Optional.of(new ResultCache(dispatchConfig.resultCacheMaxBytes(), dispatchConfig.resultCacheTtl(), metric))
+                           : Optional.empty();
         searchCluster.addMonitoring(clusterMonitor);
         Thread warmup = new Thread(new Runnable() {
             @Override
@@ -174,7 +192,8 @@ public class Dispatcher extends AbstractComponent {
     }
 
     public SearchInvoker getSearchInvoker(Query query, VespaBackEndSearcher searcher) {
-        SearchInvoker invoker = getSearchPathInvoker(query, searcher).orElseGet(() -> getInternalInvoker(query, searcher));
+        SearchInvoker invoker = getCachingInvoker(query, searcher)
+                .orElseGet(() -> getSearchPathInvoker(query, searcher).orElseGet(() -> getInternalInvoker(query, searcher)));
 
         if (query.properties().getBoolean(com.yahoo.search.query.Model.ESTIMATE)) {
             query.setHits(0);
@@ -184,6 +203,22 @@ public class Dispatcher extends AbstractComponent {
         return invoker;
     }
 
+    /**
+     * Returns an invoker which serves the result from the result cache if present,
+     * and otherwise dispatches the query and populates the cache with its result.
+     * Returns empty if the cache is disabled or the query is not cacheable.
+     */
+    private Optional<SearchInvoker> getCachingInvoker(Query query, VespaBackEndSearcher searcher) {
+        if (resultCache.isEmpty() || ! resultCache.get().isCacheable(query)) return Optional.empty();
+
+        ResultCache cache = resultCache.get();
+        ResultCache.Key key = new ResultCache.Key(ProtobufSerialization.serializeSearchRequestForCaching(query));
+        long generation = searchCluster.generation();
+        Optional<SearchInvoker> cached = cache.lookup(key, generation);
+        if (cached.isPresent()) return cached;
+        return Optional.of(cache.populating(key, generation, getInternalInvoker(query, searcher)));
+    }
+
     /** Builds an invoker based on searchpath */
     private Optional<SearchInvoker> getSearchPathInvoker(Query query, VespaBackEndSearcher searcher) {
         String searchPath = query.getModel().getSearchPath();
@@ -238,7 +273,7 @@ public class Dispatcher extends AbstractComponent {
                 query.trace(false, 2, "Dispatching to group ", group.id());
                 query.getModel().setSearchPath("/" + group.id());
                 invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
-                return invoker.get();
+                return hedged(invoker.get(), group, query, searcher, rejected);
             } else {
                 loadBalancer.releaseGroup(group, false, 0);
                 if (rejected == null) {
@@ -250,6 +285,44 @@ public class Dispatcher extends AbstractComponent {
         throw new IllegalStateException("No suitable groups to dispatch query. Rejected: " + rejected);
     }
 
+    /**
+     * Returns an invoker which sends the query to another group if the given group has not responded
+     * by its estimated 95th percentile search time, or the given invoker if hedging is not applicable.
+     */
+    private SearchInvoker hedged(SearchInvoker invoker, Group group, Query query, VespaBackEndSearcher searcher, Set<Integer> rejected) {
+        if ( ! hedgeGroups || searchCluster.orderedGroups().size() < 2) return invoker;
+
+        Optional<Double> hedgeDelay = loadBalancer.searchTimeQuantileMs(group);
+        if (hedgeDelay.isEmpty()) return invoker;
+
+        Set<Integer> backupRejected = (rejected == null) ? new HashSet<>() : new HashSet<>(rejected);
+        backupRejected.add(group.id());
+        return new HedgedSearchInvoker(invoker, Math.round(hedgeDelay.get()),
+                                       () -> getBackupInvoker(query, searcher, backupRejected), metric);
+    }
+
+    /** Returns an invoker for a group with sufficient coverage not in the given set, or empty if none */
+    private Optional<SearchInvoker> getBackupInvoker(Query query, VespaBackEndSearcher searcher, Set<Integer> rejected) {
+        Optional<Group> groupInCluster = loadBalancer.takeGroup(rejected);
+        if (groupInCluster.isEmpty()) return Optional.empty();
+
+        Group group = groupInCluster.get();
+        Optional<SearchInvoker> invoker = invokerFactory.createSearchInvoker(searcher,
+                                                                             query,
+                                                                             OptionalInt.of(group.id()),
+                                                                             group.nodes(),
+                                                                             false,
+                                                                             maxHitsPerNode);
+        if (invoker.isEmpty()) {
+            loadBalancer.releaseGroup(group, false, 0);
+            return Optional.empty();
+        }
+        query.trace(false, 2, "Hedging to group ", group.id());
+        query.getModel().setSearchPath("/" + group.id());
+        invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+        return invoker;
+    }
+
     /**
      * We want to avoid groups blocking feed because their data may be out of date.
      * If there is a single group blocking feed, we want to reject it.
@@ -0,0 +1,120 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.Query;
+import com.yahoo.search.searchchain.Execution;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A search invoker which sends the query to a backup invoker, typically another group, if the primary invoker
+ * has not responded within a given delay, and uses the result of whichever responds first.
+ */
+class HedgedSearchInvoker extends SearchInvoker implements ResponseMonitor<SearchInvoker> {
+
+    private static final String HEDGED_METRIC = "dispatch_hedged_queries";
+    private static final String HEDGE_WINS_METRIC = "dispatch_hedge_wins";
+
+    private final SearchInvoker primary;
+    private final long hedgeDelayMillis;
+    private final Supplier<Optional<SearchInvoker>> backupSupplier;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+    private final LinkedBlockingQueue<SearchInvoker> availableForProcessing = new LinkedBlockingQueue<>();
+    private SearchInvoker backup = null;
+    private SearchInvoker winner = null;
+    private Query query;
+
+    /**
+     * Creates a hedged search invoker
+     *
+     * @param primary the invoker to send the query to first
+     * @param hedgeDelayMillis the time to wait for the primary invoker before sending the query to the backup
+     * @param backupSupplier returns the backup invoker when needed, or empty if none is available
+     * @param metric the metric receiver to report hedging statistics to
+     */
+    HedgedSearchInvoker(SearchInvoker primary, long hedgeDelayMillis, Supplier<Optional<SearchInvoker>> backupSupplier, Metric metric) {
+        super(Optional.empty());
+        this.primary = primary;
+        this.hedgeDelayMillis = hedgeDelayMillis;
+        this.backupSupplier = backupSupplier;
+        this.metric = metric;
+        this.metricContext = metric.createContext(null);
+    }
+
+    @Override
+    protected Object sendSearchRequest(Query query, Object context) throws IOException {
+        this.query = query;
+        primary.setMonitor(this);
+        return primary.sendSearchRequest(query, context);
+    }
+
+    @Override
+    protected InvokerResult getSearchResult(Execution execution) throws IOException {
+        winner = primary;
+        try {
+            long delay = Math.min(hedgeDelayMillis, query.getTimeLeft());
+            if (delay > 0 && availableForProcessing.poll(delay, TimeUnit.MILLISECONDS) == null)
+                winner = hedge();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while waiting for search results", e);
+        }
+
+        InvokerResult result = winner.getSearchResult(execution);
+        winner.setFinalStatus(result.getResult().hits().getError() == null);
+        if (winner != primary) {
+            // The time until now is a lower bound on the latency of the primary, which should not be lost
+            primary.setFinalStatus(true);
+            primary.close();
+        } else if (backup != null) {
+            backup.close();
+        }
+        return result;
+    }
+
+    /** Sends the query to the backup, if available, and returns the invoker which responds first */
+    private SearchInvoker hedge() throws IOException, InterruptedException {
+        String searchPath = query.getModel().getSearchPath();
+        backup = backupSupplier.get().orElse(null);
+        if (backup == null) return primary;
+
+        metric.add(HEDGED_METRIC, 1, metricContext);
+        query.trace(false, 2, "No response after ", hedgeDelayMillis, " ms, hedging the query");
+        backup.setMonitor(this);
+        backup.sendSearchRequest(query, null);
+        SearchInvoker first = availableForProcessing.poll(Math.max(0, query.getTimeLeft()), TimeUnit.MILLISECONDS);
+        if (first == backup) {
+            metric.add(HEDGE_WINS_METRIC, 1, metricContext);
+            return backup;
+        }
+        query.getModel().setSearchPath(searchPath); // the backup sets its own search path
+        return primary;
+    }
+
+    @Override
+    protected void release() {
+        if (winner == null) { // Released without completing
+            primary.close();
+            if (backup != null)
+                backup.close();
+        } else {
+            winner.close();
+        }
+    }
+
+    @Override
+    public void responseAvailable(SearchInvoker from) {
+        availableForProcessing.add(from);
+    }
+
+    @Override
+    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
+        // never to be called
+    }
+
+}
@@ -21,6 +21,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -43,8 +44,14 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     private final SearchCluster searchCluster;
     private final LinkedBlockingQueue<SearchInvoker> availableForProcessing;
     private final Set<Integer> alreadyFailedNodes;
+    private final int expectedResponses;
+    private final AtomicInteger availableResponses = new AtomicInteger(0);
     private Query query;
 
+    /** The number of hits needed in total, and the number of hits asked for from each node */
+    private int neededHits = 0;
+    private int hitsPerNode = 0;
+
     private boolean adaptiveTimeoutCalculated = false;
     private long adaptiveTimeoutMin = 0;
     private long adaptiveTimeoutMax = 0;
@@ -66,6 +73,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         this.searchCluster = searchCluster;
         this.availableForProcessing = newQueue();
         this.alreadyFailedNodes = alreadyFailedNodes;
+        this.expectedResponses = this.invokers.size();
     }
 
     /**
@@ -81,11 +89,13 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
         int originalHits = query.getHits();
         int originalOffset = query.getOffset();
-        int neededHits = originalHits + originalOffset;
+        neededHits = originalHits + originalOffset;
+        String rankProfile = query.getRanking().getProfile();
         Double topkProbabilityOverrride = query.properties().getDouble(Dispatcher.topKProbability);
         int q = (topkProbabilityOverrride != null)
-                ? searchCluster.estimateHitsToFetch(neededHits, invokers.size(), topkProbabilityOverrride)
-                : searchCluster.estimateHitsToFetch(neededHits, invokers.size());
+                ? searchCluster.estimateHitsToFetch(neededHits, invokers.size(), topkProbabilityOverrride, rankProfile)
+                : searchCluster.estimateHitsToFetch(neededHits, invokers.size(), rankProfile);
+        hitsPerNode = q;
         query.setHits(q);
         query.setOffset(0);
 
@@ -103,7 +113,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     @Override
     protected InvokerResult getSearchResult(Execution execution) throws IOException {
         InvokerResult result = new InvokerResult(query, query.getHits());
-        List<LeanHit> merged = Collections.emptyList();
+        List<List<LeanHit>> partialHits = new ArrayList<>(invokers.size());
         long nextTimeout = query.getTimeLeft();
         try {
             while (!invokers.isEmpty() && nextTimeout >= 0) {
@@ -112,7 +122,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                     log.fine(() -> "Search timed out with " + askedNodes + " requests made, " + answeredNodes + " responses received");
                     break;
                 } else {
-                    merged = mergeResult(result.getResult(), invoker.getSearchResult(execution), merged);
+                    mergeResult(result.getResult(), invoker.getSearchResult(execution), partialHits);
                     ejectInvoker(invoker);
                 }
                 nextTimeout = nextTimeout();
@@ -123,10 +133,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
         insertNetworkErrors(result.getResult());
         result.getResult().setCoverage(createCoverage());
-        int needed = query.getOffset() + query.getHits();
-        for (int index = query.getOffset(); (index < merged.size()) && (index < needed); index++) {
-            result.getLeanHits().add(merged.get(index));
-        }
+        int[] consumed = mergeSorted(partialHits, query.getOffset(), query.getHits(), result.getLeanHits());
+        observeHitsFetched(partialHits, consumed, result.getLeanHits().size() == query.getHits());
         query.setOffset(0);  // Now we are all trimmed down
         return result;
     }
@@ -197,7 +205,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         return nextAdaptive;
     }
 
-    private List<LeanHit> mergeResult(Result result, InvokerResult partialResult, List<LeanHit> current) {
+    private void mergeResult(Result result, InvokerResult partialResult, List<List<LeanHit>> partialHits) {
         collectCoverage(partialResult.getResult().getCoverage(true));
 
         result.mergeWith(partialResult.getResult());
@@ -207,42 +215,105 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                 result.hits().add(hit);
             }
         }
-        if (current.isEmpty() ) {
-            return partialResult.getLeanHits();
+        if ( ! partialResult.getLeanHits().isEmpty()) {
+            partialHits.add(partialResult.getLeanHits());
         }
-        List<LeanHit> partial = partialResult.getLeanHits();
-        if (partial.isEmpty()) {
-            return current;
+    }
+
+    /**
+     * Reports to the search cluster how the hits fetched from each node contributed to the final hits,
+     * such that it can learn how many hits to fetch from each node.
+     *
+     * @param consumed the number of hits merged from each of the partial hit lists
+     * @param filled whether all the requested hits were filled
+     */
+    private void observeHitsFetched(List<List<LeanHit>> partialHits, int[] consumed, boolean filled) {
+        if (askedNodes < 2 || neededHits == 0) return;
+
+        int maxContribution = 0;
+        boolean insufficient = false;
+        for (int i = 0; i < consumed.length; i++) {
+            maxContribution = Math.max(maxContribution, consumed[i]);
+            // A node which had all the hits it returned merged may have had more which belonged in the result
+            if (hitsPerNode < neededHits && consumed[i] == hitsPerNode && partialHits.get(i).size() == hitsPerNode)
+                insufficient = true;
         }
+        if (insufficient)
+            query.trace(false, 3, "Some node may have had more than the ", hitsPerNode, " hits it was asked for among the top ", neededHits);
+        if (filled || insufficient)
+            searchCluster.observeHitsFetched(query.getRanking().getProfile(), hitsPerNode, maxContribution, insufficient);
+    }
 
-        int needed = query.getOffset() + query.getHits();
-        List<LeanHit> merged = new ArrayList<>(needed);
-        int indexCurrent = 0;
-        int indexPartial = 0;
-        while (indexCurrent < current.size() && indexPartial < partial.size() && merged.size() < needed) {
-            LeanHit incommingHit = partial.get(indexPartial);
-            LeanHit currentHit = current.get(indexCurrent);
-
-            int cmpRes = currentHit.compareTo(incommingHit);
-            if (cmpRes < 0) {
-                merged.add(currentHit);
-                indexCurrent++;
-            } else if (cmpRes > 0) {
-                merged.add(incommingHit);
-                indexPartial++;
-            } else { // Duplicates
-                merged.add(currentHit);
-                indexCurrent++;
-                indexPartial++;
+    /**
+     * Merges lists of sorted hits by a k-way merge, adding the hits in the window given by offset and hits to the target.
+     * Merging stops as soon as the window is filled, so only the leading hits of each list are compared.
+     * A hit which compares equal to the previous one is a duplicate and is skipped.
+     *
+     * @return the number of hits consumed from each source list
+     */
+    static int[] mergeSorted(List<List<LeanHit>> sources, int offset, int hits, List<LeanHit> target) {
+        int needed = offset + hits;
+        if (sources.size() == 1) {
+            List<LeanHit> source = sources.get(0);
+            for (int index = offset; (index < source.size()) && (index < needed); index++) {
+                target.add(source.get(index));
             }
+            return new int[] { Math.min(source.size(), needed) };
+        }
+
+        // A binary min-heap of source indexes, ordered by the next unconsumed hit of each source
+        int[] heap = new int[sources.size()];
+        int[] next = new int[sources.size()];
+        int heapSize = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).isEmpty()) continue;
+            heap[heapSize++] = i;
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, heapSize, i, sources, next);
         }
-        while ((indexCurrent < current.size()) && (merged.size() < needed)) {
-            merged.add(current.get(indexCurrent++));
+
+        LeanHit previous = null;
+        int merged = 0;
+        while (heapSize > 0 && merged < needed) {
+            int source = heap[0];
+            LeanHit hit = sources.get(source).get(next[source]++);
+            if (next[source] == sources.get(source).size()) {
+                heap[0] = heap[--heapSize];
+            }
+            if (heapSize > 0) {
+                siftDown(heap, heapSize, 0, sources, next);
+            }
+
+            if (previous != null && previous.compareTo(hit) == 0) continue;
+            if (merged >= offset) {
+                target.add(hit);
+            }
+            previous = hit;
+            merged++;
         }
-        while ((indexPartial < partial.size()) && (merged.size() < needed)) {
-            merged.add(partial.get(indexPartial++));
+        return next;
+    }
+
+    private static void siftDown(int[] heap, int heapSize, int position, List<List<LeanHit>> sources, int[] next) {
+        int source = heap[position];
+        LeanHit hit = sources.get(source).get(next[source]);
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && head(child + 1, heap, sources, next).compareTo(head(child, heap, sources, next)) < 0) {
+                child++;
+            }
+            if (hit.compareTo(head(child, heap, sources, next)) <= 0) break;
+            heap[position] = heap[child];
+            position = child;
         }
-        return merged;
+        heap[position] = source;
+    }
+
+    private static LeanHit head(int position, int[] heap, List<List<LeanHit>> sources, int[] next) {
+        int source = heap[position];
+        return sources.get(source).get(next[source]);
     }
 
     private void collectCoverage(Coverage source) {
@@ -312,11 +383,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         if (availableForProcessing != null) {
             availableForProcessing.add(from);
         }
-    }
-
-    @Override
-    protected void setMonitor(ResponseMonitor<SearchInvoker> monitor) {
-        // never to be called
+        if (availableResponses.incrementAndGet() == expectedResponses) {
+            responseAvailable(); // all responses are available to any monitor of this
+        }
     }
 
     // For overriding in tests
@@ -4,10 +4,19 @@ package com.yahoo.search.dispatch;
 
 import java.util.Arrays;
 
+/**
+ * A hit as returned by a content node, before summary fill. The global id and sort data of the hit
+ * may be slices of a byte array shared by all the hits of a reply, to avoid allocating arrays for each hit
+ * before it is known which hits make it into the final result.
+ */
 public class LeanHit implements Comparable<LeanHit> {
-    private final byte [] gid;
+    private final byte [] gidBuffer;
+    private final int gidOffset;
+    private final int gidLength;
     private final double relevance;
-    private final byte [] sortData;
+    private final byte [] sortDataBuffer;
+    private final int sortDataOffset;
+    private final int sortDataLength;
     private final int partId;
     private final int distributionKey;
 
@@ -15,38 +24,76 @@ public class LeanHit implements Comparable<LeanHit> {
         this(gid, partId, distributionKey, relevance, null);
     }
     public LeanHit(byte [] gid, int partId, int distributionKey, double relevance, byte [] sortData) {
-        this.gid = gid;
+        this(gid, 0, gid.length, sortData, 0, (sortData != null) ? sortData.length : 0, partId, distributionKey, relevance);
+    }
+
+    /**
+     * Creates a hit where the global id and the sort data are slices of the given buffer
+     *
+     * @param sortDataOffset the start of the sort data in the buffer, or -1 if the hit has no sort data
+     */
+    public LeanHit(byte [] buffer, int gidOffset, int gidLength, int sortDataOffset, int sortDataLength,
+                   int partId, int distributionKey, double relevance) {
+        this(buffer, gidOffset, gidLength, (sortDataOffset >= 0) ? buffer : null, sortDataOffset, sortDataLength,
+             partId, distributionKey, relevance);
+    }
+
+    private LeanHit(byte [] gidBuffer, int gidOffset, int gidLength, byte [] sortDataBuffer, int sortDataOffset, int sortDataLength,
+                    int partId, int distributionKey, double relevance) {
+        this.gidBuffer = gidBuffer;
+        this.gidOffset = gidOffset;
+        this.gidLength = gidLength;
         this.relevance = Double.isNaN(relevance) ? Double.NEGATIVE_INFINITY : relevance;
-        this.sortData = sortData;
+        this.sortDataBuffer = sortDataBuffer;
+        this.sortDataOffset = sortDataOffset;
+        this.sortDataLength = sortDataLength;
         this.partId = partId;
         this.distributionKey = distributionKey;
     }
+
     public double getRelevance() { return relevance; }
-    public byte [] getGid() { return gid; }
-    public byte [] getSortData() { return sortData; }
-    public boolean hasSortData() { return sortData != null; }
+    /** Returns the global id of this. This allocates a new array unless this owns the array holding the global id. */
+    public byte [] getGid() { return slice(gidBuffer, gidOffset, gidLength); }
+    public int getGidLength() { return gidLength; }
+    /** Returns the sort data of this, or null if none. This allocates a new array unless this owns the array holding the sort data. */
+    public byte [] getSortData() { return hasSortData() ? slice(sortDataBuffer, sortDataOffset, sortDataLength) : null; }
+    public int getSortDataLength() { return hasSortData() ? sortDataLength : 0; }
+    public boolean hasSortData() { return sortDataBuffer != null; }
     public int getPartId() { return partId; }
     public int getDistributionKey() { return distributionKey; }
 
+    /** Returns this if it owns the arrays holding its data, and otherwise a copy which does */
+    public LeanHit detached() {
+        if (gidOffset == 0 && gidLength == gidBuffer.length
+            && ( ! hasSortData() || (sortDataBuffer != gidBuffer && sortDataOffset == 0 && sortDataLength == sortDataBuffer.length)))
+            return this;
+        return new LeanHit(getGid(), partId, distributionKey, relevance, getSortData());
+    }
+
     @Override
     public int compareTo(LeanHit o) {
-        int res = (sortData != null)
-                ? compareData(sortData, o.sortData)
+        int res = (sortDataBuffer != null)
+                ? compareData(sortDataBuffer, sortDataOffset, sortDataLength, o.sortDataBuffer, o.sortDataOffset, o.sortDataLength)
                 : Double.compare(o.relevance, relevance);
-        return (res != 0) ? res : compareData(gid, o.gid);
+        return (res != 0) ? res : compareData(gidBuffer, gidOffset, gidLength, o.gidBuffer, o.gidOffset, o.gidLength);
+    }
+
+    private static byte [] slice(byte [] buffer, int offset, int length) {
+        if (offset == 0 && length == buffer.length) return buffer;
+        return Arrays.copyOfRange(buffer, offset, offset + length);
     }
 
-    private static int compareData(byte [] left, byte [] right) {
-        int i = Arrays.mismatch(left, right);
+    private static int compareData(byte [] left, int leftOffset, int leftLength, byte [] right, int rightOffset, int rightLength) {
+        int i = Arrays.mismatch(left, leftOffset, leftOffset + leftLength, right, rightOffset, rightOffset + rightLength);
         if (i < 0) {
             return 0;
         }
-        int max = Integer.min(left.length, right.length);
+        int max = Integer.min(leftLength, rightLength);
         if (i >= max) {
-            return left.length - right.length;
+            return leftLength - rightLength;
         }
-        int vl = (int) left[i] & 0xFF;
-        int vr = (int) right[i] & 0xFF;
+        int vl = (int) left[leftOffset + i] & 0xFF;
+        int vr = (int) right[rightOffset + i] & 0xFF;
         return vl - vr;
     }
 }
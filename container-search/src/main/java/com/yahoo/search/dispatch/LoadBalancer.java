@@ -3,6 +3,7 @@ package com.yahoo.search.dispatch;
 
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -26,17 +27,26 @@ public class LoadBalancer {
     private static final long MIN_LATENCY_DECAY_RATE = 42;
     private static final double INITIAL_QUERY_TIME = 0.001;
     private static final double MIN_QUERY_TIME = 0.001;
+    private static final double LATENCY_QUANTILE = 0.95;
+    private static final double LATENCY_QUANTILE_RATE = 0.01;
+    private static final long MIN_QUERIES_FOR_QUANTILE = 100;
 
     private final List<GroupStatus> scoreboard;
     private final GroupScheduler scheduler;
 
     public LoadBalancer(SearchCluster searchCluster, boolean roundRobin) {
+        this(searchCluster, roundRobin ? DispatchConfig.DistributionPolicy.ROUNDROBIN : DispatchConfig.DistributionPolicy.ADAPTIVE);
+    }
+
+    public LoadBalancer(SearchCluster searchCluster, DispatchConfig.DistributionPolicy.Enum policy) {
         this.scoreboard = new ArrayList<>(searchCluster.groups().size());
         for (Group group : searchCluster.orderedGroups()) {
             scoreboard.add(new GroupStatus(group));
         }
-        if (roundRobin || scoreboard.size() == 1) {
+        if (policy == DispatchConfig.DistributionPolicy.ROUNDROBIN || scoreboard.size() == 1) {
             this.scheduler = new RoundRobinScheduler(scoreboard);
+        } else if (policy == DispatchConfig.DistributionPolicy.BEST_OF_RANDOM_2) {
+            this.scheduler = new BestOfRandom2Scheduler(new Random(), scoreboard);
         } else {
             this.scheduler = new AdaptiveScheduler(new Random(), scoreboard);
         }
@@ -83,11 +93,26 @@ public class LoadBalancer {
         }
     }
 
+    /**
+     * Returns the estimated 95th percentile search time of the given group in milliseconds,
+     * or empty if too few queries have completed in the group for the estimate to be useful
+     */
+    public Optional<Double> searchTimeQuantileMs(Group group) {
+        synchronized (this) {
+            for (GroupStatus status : scoreboard) {
+                if (status.group.id() == group.id() && status.queries >= MIN_QUERIES_FOR_QUANTILE)
+                    return Optional.of(status.searchTimeQuantile() * 1000.0);
+            }
+            return Optional.empty();
+        }
+    }
+
     static class GroupStatus {
         private final Group group;
         private int allocations = 0;
         private long queries = 0;
         private double averageSearchTime = INITIAL_QUERY_TIME;
+        private double searchTimeQuantile = INITIAL_QUERY_TIME;
 
         GroupStatus(Group group) {
             this.group = group;
@@ -107,10 +132,31 @@ public class LoadBalancer {
                 searchTime = Math.max(searchTime, MIN_QUERY_TIME);
                 double decayRate = Math.min(queries + MIN_LATENCY_DECAY_RATE, DEFAULT_LATENCY_DECAY_RATE);
                 averageSearchTime = (searchTime + (decayRate - 1) * averageSearchTime) / decayRate;
+                searchTimeQuantile = (queries == 0) ? searchTime : nextQuantile(searchTimeQuantile, searchTime, quantileRate(queries));
                 queries++;
             }
         }
 
+        /**
+         * Returns the rate at which the quantile estimate moves after the given number of samples. This is larger
+         * for the first samples, such that the estimate, which is seeded by the first sample, has converged
+         * by the time it is used after MIN_QUERIES_FOR_QUANTILE samples.
+         */
+        private static double quantileRate(long queries) {
+            return Math.max(LATENCY_QUANTILE_RATE, 2.0 / (queries + 1));
+        }
+
+        /**
+         * Moves the quantile estimate towards the given sample, by steps proportional to the current estimate,
+         * such that it settles where the given fraction of samples are below it. Old samples are forgotten
+         * exponentially, as with the average.
+         */
+        private static double nextQuantile(double quantile, double sample, double rate) {
+            double step = rate * quantile;
+            double next = (sample > quantile) ? quantile + step * LATENCY_QUANTILE : quantile - step * (1 - LATENCY_QUANTILE);
+            return Math.max(next, MIN_QUERY_TIME);
+        }
+
         double averageSearchTime() {
             return averageSearchTime;
         }
@@ -119,6 +165,14 @@ public class LoadBalancer {
             return 1.0 / averageSearchTime;
         }
 
+        double searchTimeQuantile() {
+            return searchTimeQuantile;
+        }
+
+        int allocations() {
+            return allocations;
+        }
+
         int groupId() {
             return group.id();
         }
@@ -127,6 +181,10 @@ public class LoadBalancer {
             this.queries = queries;
             this.averageSearchTime = averageSearchTime;
         }
+
+        void setSearchTimeQuantile(double searchTimeQuantile) {
+            this.searchTimeQuantile = searchTimeQuantile;
+        }
     }
 
     private interface GroupScheduler {
@@ -254,4 +312,59 @@ public class LoadBalancer {
         }
     }
 
+    /**
+     * Picks two distinct groups at random and selects the one with the lowest expected latency for the next query,
+     * estimated as the 95th percentile search time multiplied by the queries in flight including this one.
+     * Sampling two rather than picking the global best avoids herding onto the same group between updates.
+     */
+    static class BestOfRandom2Scheduler implements GroupScheduler {
+
+        private final Random random;
+        private final List<GroupStatus> scoreboard;
+
+        public BestOfRandom2Scheduler(Random random, List<GroupStatus> scoreboard) {
+            this.random = random;
+            this.scoreboard = scoreboard;
+        }
+
+        private Optional<GroupStatus> selectGroup(boolean requireCoverage, Set<Integer> rejected) {
+            List<GroupStatus> candidates = new ArrayList<>(scoreboard.size());
+            for (GroupStatus gs : scoreboard) {
+                if (rejected == null || !rejected.contains(gs.group.id())) {
+                    if (!requireCoverage || gs.group.hasSufficientCoverage()) {
+                        candidates.add(gs);
+                    }
+                }
+            }
+            if (candidates.isEmpty()) {
+                return Optional.empty();
+            }
+            if (candidates.size() == 1) {
+                return Optional.of(candidates.get(0));
+            }
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            GroupStatus a = candidates.get(first);
+            GroupStatus b = candidates.get(second);
+            return Optional.of(expectedLatency(b) < expectedLatency(a) ? b : a);
+        }
+
+        private static double expectedLatency(GroupStatus gs) {
+            return (gs.allocations() + 1) * gs.searchTimeQuantile();
+        }
+
+        @Override
+        public Optional<GroupStatus> takeNextGroup(Set<Integer> rejectedGroups) {
+            Optional<GroupStatus> gs = selectGroup(true, rejectedGroups);
+            if (gs.isPresent()) {
+                return gs;
+            }
+            // fallback - any coverage better than none
+            return selectGroup(false, rejectedGroups);
+        }
+    }
+
 }
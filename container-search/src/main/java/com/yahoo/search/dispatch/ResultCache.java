@@ -0,0 +1,276 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.searchchain.Execution;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A cache of first-phase search results, bounded by the (estimated) number of bytes held.
+ * Entries are keyed on the serialized form of the search request sent to the content nodes,
+ * and are discarded when they are older than the configured time to live, or when the
+ * generation of the search cluster has changed since they were produced.
+ *
+ * Only the lean hits, total hit count and coverage of complete, error free results are cached.
+ * Summaries are always filled from the content nodes.
+ *
+ * This class is multithread safe.
+ */
+public class ResultCache {
+
+    private static final String HITS_METRIC = "dispatch_result_cache_hits";
+    private static final String MISSES_METRIC = "dispatch_result_cache_misses";
+    private static final String EVICTIONS_METRIC = "dispatch_result_cache_evictions";
+    private static final String BYTES_METRIC = "dispatch_result_cache_bytes";
+
+    /** Estimated fixed cost of an entry: Map entry, key, entry object and hit list */
+    static final int ENTRY_OVERHEAD = 160;
+    /** Estimated fixed cost of a lean hit, in addition to its gid and sort data */
+    static final int HIT_OVERHEAD = 56;
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    public ResultCache(long maxBytes, double ttlSeconds, Metric metric) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = (long)(ttlSeconds * 1000);
+        this.metric = metric;
+        this.metricContext = metric.createContext(null);
+    }
+
+    /** Returns whether the result of this query may be served from, and stored in this */
+    public boolean isCacheable(Query query) {
+        return ! query.getNoCache()
+               && query.getModel().getSearchPath() == null
+               && query.getTraceLevel() == 0
+               && query.getExplainLevel() == 0
+               && ! query.getGroupingSessionCache()
+               && ! query.getRanking().getQueryCache()
+               && query.getSelect().getGrouping().isEmpty();
+    }
+
+    /**
+     * Returns an invoker producing the cached result for the given key if it is present, still fresh
+     * and produced at the given generation, or empty otherwise.
+     */
+    public Optional<SearchInvoker> lookup(Key key, long generation) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && (entry.generation != generation || currentTime() - entry.createdAt > ttlMillis)) {
+                remove(key);
+                entry = null;
+            }
+        }
+        metric.add(entry != null ? HITS_METRIC : MISSES_METRIC, 1, metricContext);
+        return Optional.ofNullable(entry).map(CachedResultInvoker::new);
+    }
+
+    /** Returns an invoker which delegates to the given one, and stores its result in this if it is complete */
+    public SearchInvoker populating(Key key, long generation, SearchInvoker invoker) {
+        return new PopulatingInvoker(this, key, generation, invoker);
+    }
+
+    void put(Key key, long generation, InvokerResult result) {
+        Result partial = result.getResult();
+        if (partial.hits().getError() != null) return;
+        if (partial.hits().size() > 0) return; // Auxiliary hits, such as grouping, are not cached
+        Coverage coverage = partial.getCoverage(false);
+        if (coverage != null && ( ! coverage.getFull() || coverage.isDegraded())) return;
+
+        Entry entry = new Entry(key, generation, currentTime(), partial.getTotalHitCount(), coverage, detached(result.getLeanHits()));
+        if (entry.size > maxBytes) return;
+
+        int evicted = 0;
+        synchronized (this) {
+            remove(key);
+            entries.put(key, entry);
+            bytes += entry.size;
+            for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext(); ) {
+                bytes -= it.next().getValue().size;
+                it.remove();
+                evicted++;
+            }
+            metric.set(BYTES_METRIC, bytes, metricContext);
+        }
+        if (evicted > 0)
+            metric.add(EVICTIONS_METRIC, evicted, metricContext);
+    }
+
+    private void remove(Key key) {
+        Entry removed = entries.remove(key);
+        if (removed != null)
+            bytes -= removed.size;
+    }
+
+    /** Returns copies of the given hits which do not keep the reply buffers they may share alive */
+    private static List<LeanHit> detached(List<LeanHit> hits) {
+        LeanHit[] detached = new LeanHit[hits.size()];
+        for (int i = 0; i < detached.length; i++)
+            detached[i] = hits.get(i).detached();
+        return List.of(detached);
+    }
+
+    /** Returns the estimated number of bytes currently held by this */
+    public synchronized long bytes() { return bytes; }
+
+    /** Returns the number of entries currently held by this */
+    public synchronized int size() { return entries.size(); }
+
+    // For overriding in tests
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    /** The canonical, serialized form of a search request */
+    public static final class Key {
+
+        private final byte[] bytes;
+        private final int hash;
+
+        public Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key)o;
+            return hash == other.hash && Arrays.equals(bytes, other.bytes);
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final long generation;
+        private final long createdAt;
+        private final long totalHitCount;
+        private final Coverage coverage;
+        private final List<LeanHit> hits;
+        private final long size;
+
+        Entry(Key key, long generation, long createdAt, long totalHitCount, Coverage coverage, List<LeanHit> hits) {
+            this.generation = generation;
+            this.createdAt = createdAt;
+            this.totalHitCount = totalHitCount;
+            this.coverage = coverage;
+            this.hits = hits;
+            this.size = estimateBytes(key, hits);
+        }
+
+        private static long estimateBytes(Key key, List<LeanHit> hits) {
+            long size = ENTRY_OVERHEAD + key.bytes.length;
+            for (LeanHit hit : hits) {
+                size += HIT_OVERHEAD + hit.getGidLength() + hit.getSortDataLength();
+            }
+            return size;
+        }
+
+        InvokerResult toResult(Query query) {
+            InvokerResult result = new InvokerResult(query, hits.size());
+            result.getResult().setTotalHitCount(totalHitCount);
+            if (coverage != null) {
+                Coverage copy = new Coverage(coverage.getDocs(), coverage.getActive(), coverage.getNodes(), coverage.getResultSets());
+                copy.setNodesTried(coverage.getNodesTried());
+                copy.setSoonActive(coverage.getSoonActive());
+                result.getResult().setCoverage(copy);
+            }
+            result.getLeanHits().addAll(hits);
+            return result;
+        }
+
+    }
+
+    /** Produces a cached result without contacting any content nodes */
+    private static class CachedResultInvoker extends SearchInvoker {
+
+        private final Entry entry;
+        private Query query;
+
+        CachedResultInvoker(Entry entry) {
+            super(Optional.empty());
+            this.entry = entry;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) {
+            this.query = query;
+            query.trace(false, 2, "Using cached first-phase result");
+            responseAvailable();
+            return context;
+        }
+
+        @Override
+        protected InvokerResult getSearchResult(Execution execution) {
+            return entry.toResult(query);
+        }
+
+        @Override
+        protected void release() { }
+
+    }
+
+    /** Delegates to a real invoker and caches the result it produces */
+    private static class PopulatingInvoker extends SearchInvoker {
+
+        private final ResultCache cache;
+        private final Key key;
+        private final long generation;
+        private final SearchInvoker delegate;
+
+        PopulatingInvoker(ResultCache cache, Key key, long generation, SearchInvoker delegate) {
+            super(Optional.empty());
+            this.cache = cache;
+            this.key = key;
+            this.generation = generation;
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) throws IOException {
+            return delegate.sendSearchRequest(query, context);
+        }
+
+        @Override
+        protected InvokerResult getSearchResult(Execution execution) throws IOException {
+            InvokerResult result = delegate.getSearchResult(execution);
+            boolean success = result.getResult().hits().getError() == null;
+            delegate.setFinalStatus(success);
+            if (success)
+                cache.put(key, generation, result);
+            return result;
+        }
+
+        @Override
+        protected Optional<Integer> distributionKey() {
+            return delegate.distributionKey();
+        }
+
+        @Override
+        protected void release() {
+            delegate.close();
+        }
+
+    }
+
+}
@@ -1,18 +1,41 @@
 // Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import com.yahoo.jdisc.Metric;
 import org.apache.commons.math3.distribution.TDistribution;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Use StudentT distribution and estimate how many hits you need from each partition
- * to to get the globally top-k documents with the desired probability
+ * to to get the globally top-k documents with the desired probability.
+ *
+ * If adaptive, the estimate is also scaled by a factor learnt per rank profile from how many of the hits
+ * they were asked for the partitions contributing the most to the top-k of previous queries actually used.
  * @author baldersheim
  */
 public class TopKEstimator {
+
+    private static final String INSUFFICIENT_METRIC = "dispatch_topk_insufficient";
+
+    /** The share of the hits asked for above which the best contributing partition is considered to come too close */
+    private static final double TARGET_UTILIZATION = 0.9;
+    /** The desired fraction of queries where the best contributing partition does not come too close */
+    private static final double QUANTILE = 0.99;
+    private static final double LEARNING_RATE = 0.01;
+    private static final double MIN_FACTOR = 0.25;
+    private static final double MAX_FACTOR = 4.0;
+    private static final int MAX_RANK_PROFILES = 1000;
+
     private final TDistribution studentT;
     private final double defaultP;
     private final boolean estimate;
     private final double skewFactor;
+    private final boolean adaptive;
+    private final Metric metric; // null if not reporting metrics
+    private final Metric.Context metricContext;
+    private final Map<String, LearnedFactor> learnedFactors = new ConcurrentHashMap<>();
 
     private static boolean needEstimate(double p) {
         return (0.0 < p) && (p < 1.0);
@@ -21,10 +44,16 @@ public class TopKEstimator {
         this(freedom, defaultProbability, 0.0);
     }
     public TopKEstimator(double freedom, double defaultProbability, double skewFactor) {
+        this(freedom, defaultProbability, skewFactor, false, null);
+    }
+    public TopKEstimator(double freedom, double defaultProbability, double skewFactor, boolean adaptive, Metric metric) {
         this.studentT = new TDistribution(null, freedom);
         defaultP = defaultProbability;
         estimate = needEstimate(defaultP);
         this.skewFactor = skewFactor;
+        this.adaptive = adaptive;
+        this.metric = metric;
+        this.metricContext = (metric != null) ? metric.createContext(null) : null;
     }
     double estimateExactK(double k, double n, double p) {
         double p_max = (1 + skewFactor)/n;
@@ -46,4 +75,63 @@ public class TopKEstimator {
                 ? Math.min(k, (int)Math.ceil(estimateExactK(k, n, p)))
                 : k;
     }
+    public int estimateK(int k, int n, String rankProfile) {
+        return (estimate && n > 1)
+                ? Math.min(k, (int)Math.ceil(factor(rankProfile) * estimateExactK(k, n, defaultP)))
+                : k;
+    }
+    public int estimateK(int k, int n, double p, String rankProfile) {
+        return (needEstimate(p) && (n > 1))
+                ? Math.min(k, (int)Math.ceil(factor(rankProfile) * estimateExactK(k, n, p)))
+                : k;
+    }
+
+    /** Returns the factor to scale estimates for this rank profile by */
+    double factor(String rankProfile) {
+        if ( ! adaptive) return 1.0;
+        LearnedFactor learned = learnedFactors.get(rankProfile);
+        return (learned != null) ? learned.value() : 1.0;
+    }
+
+    /**
+     * Learns from the outcome of a query where each partition was asked for an estimated number of hits.
+     * Should only be called when this outcome tells something about the estimate, that is, when the top-k
+     * was filled, or when some partition may have had more hits which should have been in it.
+     *
+     * @param rankProfile the rank profile of the query
+     * @param hitsPerPartition the number of hits each partition was asked for
+     * @param maxContribution the largest number of hits contributed to the top-k by a single partition
+     * @param insufficient whether a partition may have had more hits belonging in the top-k than it was asked for
+     */
+    public void observe(String rankProfile, int hitsPerPartition, int maxContribution, boolean insufficient) {
+        if (insufficient && metric != null)
+            metric.add(INSUFFICIENT_METRIC, 1, metricContext);
+        if ( ! adaptive || hitsPerPartition <= 0) return;
+
+        LearnedFactor learned = learnedFactors.get(rankProfile);
+        if (learned == null) {
+            if (learnedFactors.size() >= MAX_RANK_PROFILES) return;
+            learned = learnedFactors.computeIfAbsent(rankProfile, __ -> new LearnedFactor());
+        }
+        learned.update(insufficient || (double)maxContribution / hitsPerPartition > TARGET_UTILIZATION);
+    }
+
+    /**
+     * A factor which is adjusted such that the best contributing partition uses more than the target utilization
+     * of the hits it is asked for in the given quantile of queries: When the hits are evenly distributed
+     * over the partitions this decreases, and when they are skewed it increases.
+     */
+    private static class LearnedFactor {
+
+        private volatile double value = 1.0;
+
+        double value() { return value; }
+
+        synchronized void update(boolean tooClose) {
+            double next = value * (tooClose ? 1 + LEARNING_RATE * QUANTILE : 1 - LEARNING_RATE * (1 - QUANTILE));
+            value = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, next));
+        }
+
+    }
+
 }
@@ -0,0 +1,219 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.slime.SlimeAdapter;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.prelude.fastsearch.DocumentDatabase;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.result.Hit;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.slime.Type;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * A cache of decoded document summaries, bounded by the (estimated) number of bytes held.
+ * Summaries are keyed on global id, summary class and document type. They are discarded when they are
+ * older than the configured time to live, and the entire cache is cleared whenever the generation of the
+ * search cluster changes. As the generation does not change when existing documents are updated,
+ * the time to live bounds how long a stale summary may be served.
+ *
+ * Only summaries which do not depend on the query may be stored in this.
+ * The cached summaries are shared between hits and must not be modified.
+ *
+ * This class is multithread safe.
+ */
+public class DocsumCache {
+
+    private static final String HITS_METRIC = "dispatch_docsum_cache_hits";
+    private static final String MISSES_METRIC = "dispatch_docsum_cache_misses";
+    private static final String EVICTIONS_METRIC = "dispatch_docsum_cache_evictions";
+    private static final String BYTES_METRIC = "dispatch_docsum_cache_bytes";
+
+    /** Estimated fixed cost of an entry: Map entry, key and entry object */
+    static final int ENTRY_OVERHEAD = 128;
+
+    /** Estimated size of a decoded summary relative to its binary slime encoding */
+    static final int DECODED_SIZE_FACTOR = 2;
+
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final LongSupplier generation;
+    private final Metric metric;
+    private final Metric.Context metricContext;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentGeneration;
+    private long bytes = 0;
+
+    /**
+     * Creates a docsum cache
+     *
+     * @param maxBytes the maximum number of bytes to hold
+     * @param ttlSeconds the max time a summary may be served from this after it was stored
+     * @param generation supplies the current generation of the content this caches summaries from
+     * @param metric the metric receiver to report cache statistics to
+     */
+    public DocsumCache(long maxBytes, double ttlSeconds, LongSupplier generation, Metric metric) {
+        this.maxBytes = maxBytes;
+        this.ttlMillis = (long)(ttlSeconds * 1000);
+        this.generation = generation;
+        this.metric = metric;
+        this.metricContext = metric.createContext(null);
+        this.currentGeneration = generation.getAsLong();
+    }
+
+    /**
+     * Fills the given hit with its summary from this cache if present
+     *
+     * @return true if the hit was filled, false if it must be filled from the content nodes
+     */
+    boolean fill(FastHit hit, String summaryClass, DocumentDatabase documentDb) {
+        if (hit.getRawGlobalId() == null) return false;
+
+        Optional<Inspector> docsum = get(hit.getRawGlobalId(), summaryClass, documentDb.getName());
+        if (docsum.isEmpty()) return false;
+
+        hit.setField(Hit.SDDOCNAME_FIELD, documentDb.getName());
+        hit.addSummary(documentDb.getDocsumDefinitionSet().getDocsum(summaryClass), docsum.get());
+        hit.setFilled(summaryClass);
+        return true;
+    }
+
+    /**
+     * Stores the summary of a hit which was just filled from a content node.
+     * The summary is copied out of the reply it is part of, so the cache does not keep the whole reply alive.
+     */
+    void put(FastHit hit, String summaryClass, DocumentDatabase documentDb, com.yahoo.slime.Inspector docsum) {
+        if (hit.getRawGlobalId() == null) return;
+        put(hit.getRawGlobalId(), summaryClass, documentDb.getName(), docsum);
+    }
+
+    /** Stores a copy of a summary which is part of a larger reply in this */
+    void put(byte[] globalId, String summaryClass, String documentType, com.yahoo.slime.Inspector docsum) {
+        if (docsum.type() != Type.OBJECT) return;
+
+        Slime copy = new Slime();
+        SlimeUtils.copyObject(docsum, copy.setObject());
+        put(globalId, summaryClass, documentType, new SlimeAdapter(copy.get()), BinaryFormat.encode(copy).length);
+    }
+
+    /** Returns the cached summary of the given document, or empty if it is not present or no longer fresh */
+    Optional<Inspector> get(byte[] globalId, String summaryClass, String documentType) {
+        Entry entry;
+        synchronized (this) {
+            clearIfNewGeneration();
+            Key key = new Key(globalId, summaryClass, documentType);
+            entry = entries.get(key);
+            if (entry != null && currentTime() - entry.createdAt > ttlMillis) {
+                entries.remove(key);
+                bytes -= entry.size;
+                metric.set(BYTES_METRIC, bytes, metricContext);
+                entry = null;
+            }
+        }
+        metric.add(entry != null ? HITS_METRIC : MISSES_METRIC, 1, metricContext);
+        return Optional.ofNullable(entry).map(e -> e.docsum);
+    }
+
+    /**
+     * Stores a summary in this
+     *
+     * @param encodedSize the size of the summary in binary slime format, used to estimate the size of the decoded summary
+     */
+    void put(byte[] globalId, String summaryClass, String documentType, Inspector docsum, int encodedSize) {
+        Key key = new Key(globalId, summaryClass, documentType);
+        long size = ENTRY_OVERHEAD + globalId.length + (long)DECODED_SIZE_FACTOR * encodedSize;
+        if (size > maxBytes) return;
+
+        int evicted = 0;
+        synchronized (this) {
+            clearIfNewGeneration();
+            Entry previous = entries.put(key, new Entry(docsum, size, currentTime()));
+            if (previous != null)
+                bytes -= previous.size;
+            bytes += size;
+            for (Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator(); bytes > maxBytes && it.hasNext(); ) {
+                bytes -= it.next().getValue().size;
+                it.remove();
+                evicted++;
+            }
+            metric.set(BYTES_METRIC, bytes, metricContext);
+        }
+        if (evicted > 0)
+            metric.add(EVICTIONS_METRIC, evicted, metricContext);
+    }
+
+    private void clearIfNewGeneration() {
+        long latest = generation.getAsLong();
+        if (latest == currentGeneration) return;
+
+        entries.clear();
+        bytes = 0;
+        currentGeneration = latest;
+    }
+
+    /** Returns the estimated number of bytes currently held by this */
+    public synchronized long bytes() { return bytes; }
+
+    /** Returns the number of summaries currently held by this */
+    public synchronized int size() { return entries.size(); }
+
+    // For overriding in tests
+    protected long currentTime() {
+        return System.currentTimeMillis();
+    }
+
+    private static final class Key {
+
+        private final byte[] globalId;
+        private final String summaryClass;
+        private final String documentType;
+        private final int hash;
+
+        Key(byte[] globalId, String summaryClass, String documentType) {
+            this.globalId = globalId;
+            this.summaryClass = summaryClass;
+            this.documentType = documentType;
+            this.hash = 31 * Arrays.hashCode(globalId) + Objects.hash(summaryClass, documentType);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key)o;
+            return hash == other.hash
+                   && Arrays.equals(globalId, other.globalId)
+                   && Objects.equals(summaryClass, other.summaryClass)
+                   && Objects.equals(documentType, other.documentType);
+        }
+
+    }
+
+    private static final class Entry {
+
+        private final Inspector docsum;
+        private final long size;
+        private final long createdAt;
+
+        Entry(Inspector docsum, long size, long createdAt) {
+            this.docsum = docsum;
+            this.size = size;
+            this.createdAt = createdAt;
+        }
+
+    }
+
+}
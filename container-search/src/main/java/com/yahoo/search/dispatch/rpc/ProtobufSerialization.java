@@ -42,6 +42,19 @@ public class ProtobufSerialization {
         return convertFromQuery(query, hits, serverId).toByteArray();
     }
 
+    /**
+     * Returns the serialized form of the parts of a search request which determine its result,
+     * i.e. the request without timeout and trace level. This is only valid for queries which do not use
+     * session caching, as the session key is not included.
+     */
+    public static byte[] serializeSearchRequestForCaching(Query query) {
+        return convertFromQuery(query, query.getHits(), null).toBuilder()
+                .clearTimeout()
+                .clearTraceLevel()
+                .clearSessionKey()
+                .build().toByteArray();
+    }
+
     private static SearchProtocol.SearchRequest convertFromQuery(Query query, int hits, String serverId) {
         var builder = SearchProtocol.SearchRequest.newBuilder().setHits(hits).setOffset(query.getOffset())
                 .setTimeout((int) query.getTimeLeft());
@@ -211,12 +224,7 @@ public class ProtobufSerialization {
             result.getResult().hits().add(hit);
         }
 
-        for (var replyHit : protobuf.getHitsList()) {
-            LeanHit hit = (replyHit.getSortData().isEmpty())
-                    ? new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance())
-                    : new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance(), replyHit.getSortData().toByteArray());
-            result.getLeanHits().add(hit);
-        }
+        convertHits(protobuf, partId, distKey, result.getLeanHits());
 
         var slimeTrace = protobuf.getSlimeTrace();
         if (slimeTrace != null && !slimeTrace.isEmpty()) {
@@ -227,6 +235,34 @@ public class ProtobufSerialization {
         return result;
     }
 
+    /**
+     * Adds the hits of the reply to the given list. The global ids and sort data of all the hits are
+     * copied into a single array shared by the hits, rather than allocating two arrays per hit.
+     */
+    private static void convertHits(SearchProtocol.SearchReply protobuf, int partId, int distKey, List<LeanHit> hits) {
+        int size = 0;
+        for (var replyHit : protobuf.getHitsList())
+            size += replyHit.getGlobalId().size() + replyHit.getSortData().size();
+        byte[] buffer = new byte[size];
+
+        int offset = 0;
+        for (var replyHit : protobuf.getHitsList()) {
+            int gidOffset = offset;
+            int gidLength = replyHit.getGlobalId().size();
+            replyHit.getGlobalId().copyTo(buffer, offset);
+            offset += gidLength;
+
+            int sortDataOffset = -1;
+            int sortDataLength = replyHit.getSortData().size();
+            if (sortDataLength > 0) {
+                sortDataOffset = offset;
+                replyHit.getSortData().copyTo(buffer, offset);
+                offset += sortDataLength;
+            }
+            hits.add(new LeanHit(buffer, gidOffset, gidLength, sortDataOffset, sortDataLength, partId, distKey, replyHit.getRelevance()));
+        }
+    }
+
     private static Coverage convertToCoverage(SearchProtocol.SearchReply protobuf) {
         var coverage = new Coverage(protobuf.getCoverageDocs(), protobuf.getActiveDocs(), 1);
         coverage.setNodesTried(1).setSoonActive(protobuf.getSoonActiveDocs());
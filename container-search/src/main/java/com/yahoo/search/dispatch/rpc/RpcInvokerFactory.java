@@ -25,9 +25,17 @@ public class RpcInvokerFactory extends InvokerFactory {
 
     private final RpcResourcePool rpcResourcePool;
 
+    /** A cache of summaries which do not depend on the query, or empty if disabled */
+    private final Optional<DocsumCache> docsumCache;
+
     public RpcInvokerFactory(RpcResourcePool rpcResourcePool, SearchCluster searchCluster) {
+        this(rpcResourcePool, searchCluster, Optional.empty());
+    }
+
+    public RpcInvokerFactory(RpcResourcePool rpcResourcePool, SearchCluster searchCluster, Optional<DocsumCache> docsumCache) {
         super(searchCluster);
         this.rpcResourcePool = rpcResourcePool;
+        this.docsumCache = docsumCache;
     }
 
     @Override
@@ -45,15 +53,16 @@ public class RpcInvokerFactory extends InvokerFactory {
         boolean summaryNeedsQuery = searcher.summaryNeedsQuery(query);
         boolean useProtoBuf = query.properties().getBoolean(Dispatcher.dispatchProtobuf, true);
         boolean useDispatchDotSummaries = query.properties().getBoolean(dispatchSummaries, false);
+        Optional<DocsumCache> cache = (summaryNeedsQuery || query.getNoCache()) ? Optional.empty() : docsumCache;
 
         return  ((useDispatchDotSummaries || !useProtoBuf) && ! summaryNeedsQuery)
-                ? new RpcFillInvoker(rpcResourcePool, searcher.getDocumentDatabase(query))
-                : new RpcProtobufFillInvoker(rpcResourcePool, searcher.getDocumentDatabase(query), searcher.getServerId(), summaryNeedsQuery);
+                ? new RpcFillInvoker(rpcResourcePool, searcher.getDocumentDatabase(query), cache)
+                : new RpcProtobufFillInvoker(rpcResourcePool, searcher.getDocumentDatabase(query), searcher.getServerId(), summaryNeedsQuery, cache);
     }
 
     // for testing
     public FillInvoker createFillInvoker(DocumentDatabase documentDb) {
-        return new RpcFillInvoker(rpcResourcePool, documentDb);
+        return new RpcFillInvoker(rpcResourcePool, documentDb, docsumCache);
     }
 
 }
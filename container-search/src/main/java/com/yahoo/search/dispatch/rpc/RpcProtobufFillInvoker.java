@@ -19,12 +19,16 @@ import com.yahoo.search.dispatch.FillInvoker;
 import com.yahoo.search.dispatch.rpc.Client.ProtobufResponse;
 import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.result.Hit;
+import com.yahoo.search.yql.FieldFilter;
 import com.yahoo.slime.ArrayTraverser;
 import com.yahoo.slime.BinaryFormat;
 
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -46,6 +50,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private final RpcResourcePool resourcePool;
     private final boolean summaryNeedsQuery;
     private final String serverId;
+    private final Optional<DocsumCache> docsumCache;
 
     private BlockingQueue<Pair<Client.ResponseOrError<ProtobufResponse>, List<FastHit>>> responses;
 
@@ -55,16 +60,31 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     /** The number of responses we should receive (and process) before this is complete */
     private int outstandingResponses;
 
+    /** Whether only some of the fields of the summary class are requested */
+    private boolean projected = false;
+
     RpcProtobufFillInvoker(RpcResourcePool resourcePool, DocumentDatabase documentDb, String serverId, boolean summaryNeedsQuery) {
+        this(resourcePool, documentDb, serverId, summaryNeedsQuery, Optional.empty());
+    }
+
+    /**
+     * Creates a fill invoker
+     *
+     * @param docsumCache the cache to fill hits from and store received summaries in,
+     *                    or empty if summaries should always be fetched from the content nodes
+     */
+    RpcProtobufFillInvoker(RpcResourcePool resourcePool, DocumentDatabase documentDb, String serverId, boolean summaryNeedsQuery,
+                           Optional<DocsumCache> docsumCache) {
         this.documentDb = documentDb;
         this.resourcePool = resourcePool;
         this.serverId = serverId;
         this.summaryNeedsQuery = summaryNeedsQuery;
+        this.docsumCache = docsumCache;
     }
 
     @Override
     protected void sendFillRequest(Result result, String summaryClass) {
-        ListMap<Integer, FastHit> hitsByNode = hitsByNode(result);
+        ListMap<Integer, FastHit> hitsByNode = hitsByNode(result, summaryClass);
 
         result.getQuery().trace(false, 5, "Sending ", hitsByNode.size(), " summary fetch requests with jrt/protobuf");
 
@@ -72,6 +92,12 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         responses = new LinkedBlockingQueue<>(outstandingResponses);
 
         var builder = ProtobufSerialization.createDocsumRequestBuilder(result.getQuery(), serverId, summaryClass, summaryNeedsQuery);
+        List<String> fields = summaryFields(result.getQuery(), summaryClass);
+        if ( ! fields.isEmpty()) {
+            builder.addAllFields(fields);
+            projected = true;
+            result.getQuery().trace(false, 5, "Requesting summary fields ", fields);
+        }
         for (Map.Entry<Integer, List<FastHit>> nodeHits : hitsByNode.entrySet()) {
             var payload = ProtobufSerialization.serializeDocsumRequest(builder, nodeHits.getValue());
             sendDocsumsRequest(nodeHits.getKey(), nodeHits.getValue(), payload, result);
@@ -99,20 +125,37 @@ public class RpcProtobufFillInvoker extends FillInvoker {
         responses.add(new Pair<>(response, hitsContext));
     }
 
-    /** Return a map of hits by their search node (partition) id */
-    private static ListMap<Integer, FastHit> hitsByNode(Result result) {
+    /** Return a map of hits by their search node (partition) id, excluding those filled from the docsum cache */
+    private ListMap<Integer, FastHit> hitsByNode(Result result, String summaryClass) {
         ListMap<Integer, FastHit> hitsByNode = new ListMap<>();
         for (Iterator<Hit> i = result.hits().unorderedDeepIterator(); i.hasNext();) {
             Hit h = i.next();
             if (!(h instanceof FastHit))
                 continue;
             FastHit hit = (FastHit) h;
+            if (docsumCache.isPresent() && docsumCache.get().fill(hit, summaryClass, documentDb))
+                continue;
 
             hitsByNode.put(hit.getDistributionKey(), hit);
         }
         return hitsByNode;
     }
 
+    /**
+     * Returns the fields of the summary class to request, or an empty list to request all.
+     * Only the fields requested in the query are fetched when the presented summary class is filled through
+     * {@link FieldFilter}, as it removes all other fields. Other fills may be done by searchers to access any field,
+     * and fetch all, since hits filled with a summary class are not filled with it again.
+     */
+    private List<String> summaryFields(Query query, String summaryClass) {
+        Set<String> requested = query.getPresentation().getSummaryFields();
+        if (requested.isEmpty()) return List.of();
+        if ( ! Objects.equals(summaryClass, query.getPresentation().getSummary())) return List.of();
+        if (query.properties().getBoolean(FieldFilter.FIELD_FILTER_DISABLE)) return List.of();
+        if ( ! query.properties().getBoolean(FieldFilter.FIELD_FILTER_FILL)) return List.of();
+        return documentDb.getDocsumDefinitionSet().getDocsum(summaryClass).projection(requested);
+    }
+
     /** Send a docsums request to a node. Responses will be added to the given receiver. */
     private void sendDocsumsRequest(int nodeId, List<FastHit> hits, byte[] payload, Result result) {
         Client.NodeConnection node = resourcePool.getConnection(nodeId);
@@ -205,6 +248,8 @@ public class RpcProtobufFillInvoker extends FillInvoker {
                     hits.get(i).setField(Hit.SDDOCNAME_FIELD, documentDb.getName());
                     hits.get(i).addSummary(documentDb.getDocsumDefinitionSet().getDocsum(summaryClass), summary);
                     hits.get(i).setFilled(summaryClass);
+                    if (docsumCache.isPresent() && ! projected) // the cache holds complete summaries only
+                        docsumCache.get().put(hits.get(i), summaryClass, documentDb, root.field("docsums").entry(i).field("docsum"));
                 } else {
                     skippedHits++;
                 }
@@ -26,7 +26,7 @@ import java.util.Random;
  * @author ollivir
  */
 public class RpcResourcePool extends AbstractComponent {
-    /** The compression method which will be used with rpc dispatch. "lz4" (default) and "none" is supported. */
+    /** The compression method which will be used with rpc dispatch. "lz4" (default), "zstd" and "none" are supported. */
     public final static CompoundName dispatchCompression = new CompoundName("dispatch.compression");
 
     private final Compressor compressor = new Compressor(CompressionType.LZ4, 5, 0.95, 32);
@@ -6,6 +6,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.net.HostName;
 import com.yahoo.prelude.Pong;
 import com.yahoo.search.cluster.ClusterMonitor;
@@ -19,6 +20,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -40,6 +42,7 @@ public class SearchCluster implements NodeManager<Node> {
     private final VipStatus vipStatus;
     private final PingFactory pingFactory;
     private final TopKEstimator hitEstimator;
+    private final AtomicLong generation = new AtomicLong(0);
     private long nextLogTime = 0;
     private static final double SKEW_FACTOR = 0.05;
 
@@ -55,6 +58,16 @@ public class SearchCluster implements NodeManager<Node> {
 
     public SearchCluster(String clusterId, DispatchConfig dispatchConfig, int containerClusterSize,
                          VipStatus vipStatus, PingFactory pingFactory) {
+        this(clusterId, dispatchConfig, containerClusterSize, vipStatus, pingFactory, null);
+    }
+
+    /**
+     * Creates a search cluster
+     *
+     * @param metric the metric receiver to report top-k estimation statistics to, or null to not report them
+     */
+    public SearchCluster(String clusterId, DispatchConfig dispatchConfig, int containerClusterSize,
+                         VipStatus vipStatus, PingFactory pingFactory, Metric metric) {
         this.clusterId = clusterId;
         this.dispatchConfig = dispatchConfig;
         this.vipStatus = vipStatus;
@@ -79,7 +92,7 @@ public class SearchCluster implements NodeManager<Node> {
         for (Node node : nodes)
             nodesByHostBuilder.put(node.hostname(), node);
         this.nodesByHost = nodesByHostBuilder.build();
-        hitEstimator = new TopKEstimator(30.0, dispatchConfig.topKProbability(), SKEW_FACTOR);
+        hitEstimator = new TopKEstimator(30.0, dispatchConfig.topKProbability(), SKEW_FACTOR, dispatchConfig.adaptiveTopK(), metric);
 
         this.localCorpusDispatchTarget = findLocalCorpusDispatchTarget(HostName.getLocalhost(),
                                                                        size,
@@ -191,7 +204,15 @@ public class SearchCluster implements NodeManager<Node> {
         return localCorpusDispatchTarget;
     }
 
+    /**
+     * Returns a number which is increased whenever the content of this cluster may have changed
+     * in a way that is observable by queries: A node changing working state, or changing its number of active documents.
+     */
+    public long generation() { return generation.get(); }
+
     private void updateWorkingState(Node node, boolean isWorking) {
+        if ( ! Boolean.valueOf(isWorking).equals(node.isWorking()))
+            generation.incrementAndGet();
         node.setWorking(isWorking);
         updateVipStatusOnNodeChange(node, isWorking);
     }
@@ -250,6 +271,17 @@ public class SearchCluster implements NodeManager<Node> {
     public int estimateHitsToFetch(int wantedHits, int numPartitions, double topKProbability) {
         return hitEstimator.estimateK(wantedHits, numPartitions, topKProbability);
     }
+    public int estimateHitsToFetch(int wantedHits, int numPartitions, String rankProfile) {
+        return hitEstimator.estimateK(wantedHits, numPartitions, rankProfile);
+    }
+    public int estimateHitsToFetch(int wantedHits, int numPartitions, double topKProbability, String rankProfile) {
+        return hitEstimator.estimateK(wantedHits, numPartitions, topKProbability, rankProfile);
+    }
+
+    /** Reports the outcome of fetching an estimated number of hits from each partition, see {@link TopKEstimator#observe} */
+    public void observeHitsFetched(String rankProfile, int hitsPerPartition, int maxContribution, boolean insufficient) {
+        hitEstimator.observe(rankProfile, hitsPerPartition, maxContribution, insufficient);
+    }
 
     public boolean hasInformationAboutAllNodes() {
         return nodesByHost.values().stream().allMatch(node -> node.isWorking() != null);
@@ -271,10 +303,12 @@ public class SearchCluster implements NodeManager<Node> {
 
         private final ClusterMonitor<Node> clusterMonitor;
         private final Node node;
+        private final AtomicLong generation;
 
-        PongCallback(Node node, ClusterMonitor<Node> clusterMonitor) {
+        PongCallback(Node node, ClusterMonitor<Node> clusterMonitor, AtomicLong generation) {
             this.node = node;
             this.clusterMonitor = clusterMonitor;
+            this.generation = generation;
         }
 
         @Override
@@ -283,6 +317,8 @@ public class SearchCluster implements NodeManager<Node> {
                 clusterMonitor.failed(node, pong.error().get());
             } else {
                 if (pong.activeDocuments().isPresent()) {
+                    if (pong.activeDocuments().get() != node.getActiveDocuments())
+                        generation.incrementAndGet();
                     node.setActiveDocuments(pong.activeDocuments().get());
                     node.setBlockingWrites(pong.isBlockingWrites());
                 }
@@ -295,7 +331,7 @@ public class SearchCluster implements NodeManager<Node> {
     /** Used by the cluster monitor to manage node status */
     @Override
     public void ping(ClusterMonitor clusterMonitor, Node node, Executor executor) {
-        Pinger pinger = pingFactory.createPinger(node, clusterMonitor, new PongCallback(node, clusterMonitor));
+        Pinger pinger = pingFactory.createPinger(node, clusterMonitor, new PongCallback(node, clusterMonitor, generation));
         pinger.ping();
     }
 
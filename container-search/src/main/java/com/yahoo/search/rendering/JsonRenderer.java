@@ -409,15 +409,15 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         }
     }
 
-    private static String getIdValue(ValueGroupId<?> id) {
+    static String getIdValue(ValueGroupId<?> id) {
         return (id instanceof RawId ? Arrays.toString(((RawId) id).getValue()) : id.getValue()).toString();
     }
 
-    private static String getBucketFrom(BucketGroupId<?> id) {
+    static String getBucketFrom(BucketGroupId<?> id) {
         return (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getFrom()) : id.getFrom()).toString();
     }
 
-    private static String getBucketTo(BucketGroupId<?> id) {
+    static String getBucketTo(BucketGroupId<?> id) {
         return (id instanceof RawBucketId ? Arrays.toString(((RawBucketId) id).getTo()) : id.getTo()).toString();
     }
 
@@ -450,6 +450,13 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
         endJsonCallback();
     }
 
+    /** Writes out what the generator has buffered, such that hits rendered so far are sent while waiting for more */
+    @Override
+    protected void beforeSuspending() throws IOException {
+        if (generator != null)
+            generator.flush();
+    }
+
     @Override
     public String getEncoding() {
         return "utf-8";
@@ -24,6 +24,7 @@ public final class RendererRegistry extends ComponentRegistry<com.yahoo.processi
     public static final ComponentId xmlRendererId = ComponentId.fromString("XmlRenderer");
     public static final ComponentId pageRendererId = ComponentId.fromString("PageTemplatesXmlRenderer");
     public static final ComponentId jsonRendererId = ComponentId.fromString("JsonRenderer");
+    public static final ComponentId slimeRendererId = ComponentId.fromString("SlimeRenderer");
     public static final ComponentId defaultRendererId = jsonRendererId;
     
     /** Creates a registry containing the built-in renderers only */
@@ -60,6 +61,11 @@ public final class RendererRegistry extends ComponentRegistry<com.yahoo.processi
         xmlRenderer.initId(xmlRendererId);
         register(xmlRenderer.getId(), xmlRenderer);
 
+        // Add binary slime renderer
+        Renderer slimeRenderer = new SlimeRenderer();
+        slimeRenderer.initId(slimeRendererId);
+        register(slimeRenderer.getId(), slimeRenderer);
+
         // Add page templates renderer
         Renderer pageRenderer = new PageTemplatesXmlRenderer(executor);
         pageRenderer.initId(pageRendererId);
@@ -77,6 +83,7 @@ public final class RendererRegistry extends ComponentRegistry<com.yahoo.processi
         // deconstruct the renderers which was created by this
         getRenderer(jsonRendererId.toSpecification()).deconstruct();
         getRenderer(xmlRendererId.toSpecification()).deconstruct();
+        getRenderer(slimeRendererId.toSpecification()).deconstruct();
         getRenderer(pageRendererId.toSpecification()).deconstruct();
     }
 
@@ -101,6 +108,7 @@ public final class RendererRegistry extends ComponentRegistry<com.yahoo.processi
         if (format.stringValue().equals("json")) return getComponent(jsonRendererId);
         if (format.stringValue().equals("xml")) return getComponent(xmlRendererId);
         if (format.stringValue().equals("page")) return getComponent(pageRendererId);
+        if (format.stringValue().equals("slime")) return getComponent(slimeRendererId);
 
         com.yahoo.processing.rendering.Renderer<Result> renderer = getComponent(format);
         if (renderer == null)
@@ -0,0 +1,321 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.yahoo.data.JsonProducer;
+import com.yahoo.data.access.Inspectable;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.processing.Request;
+import com.yahoo.processing.execution.Execution;
+import com.yahoo.processing.rendering.Renderer;
+import com.yahoo.search.Result;
+import com.yahoo.search.grouping.Continuation;
+import com.yahoo.search.grouping.result.AbstractList;
+import com.yahoo.search.grouping.result.BucketGroupId;
+import com.yahoo.search.grouping.result.Group;
+import com.yahoo.search.grouping.result.GroupId;
+import com.yahoo.search.grouping.result.RootGroup;
+import com.yahoo.search.grouping.result.ValueGroupId;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.DefaultErrorHit;
+import com.yahoo.search.result.ErrorHit;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.result.NanNumber;
+import com.yahoo.slime.ArrayInserter;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Inserter;
+import com.yahoo.slime.ObjectInserter;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.SlimeUtils;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renders search results in the binary Slime format. The structure of the rendered result is the same as
+ * that of the default JSON format, but tensors and other binary data are rendered as data values holding their
+ * native binary serialization, and numbers and strings are not formatted as text.
+ *
+ * This renders synchronously: The result must be complete when it is rendered.
+ */
+public class SlimeRenderer extends Renderer<Result> {
+
+    private static final String BUCKET_LIMITS = "limits";
+    private static final String BUCKET_TO = "to";
+    private static final String BUCKET_FROM = "from";
+    private static final String CHILDREN = "children";
+    private static final String CONTINUATION = "continuation";
+    private static final String COVERAGE = "coverage";
+    private static final String COVERAGE_COVERAGE = "coverage";
+    private static final String COVERAGE_DOCUMENTS = "documents";
+    private static final String COVERAGE_DEGRADE = "degraded";
+    private static final String COVERAGE_DEGRADE_MATCHPHASE = "match-phase";
+    private static final String COVERAGE_DEGRADE_TIMEOUT = "timeout";
+    private static final String COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT = "adaptive-timeout";
+    private static final String COVERAGE_DEGRADED_NON_IDEAL_STATE = "non-ideal-state";
+    private static final String COVERAGE_FULL = "full";
+    private static final String COVERAGE_NODES = "nodes";
+    private static final String COVERAGE_RESULTS = "results";
+    private static final String COVERAGE_RESULTS_FULL = "resultsFull";
+    private static final String ERRORS = "errors";
+    private static final String ERROR_CODE = "code";
+    private static final String ERROR_MESSAGE = "message";
+    private static final String ERROR_SOURCE = "source";
+    private static final String ERROR_SUMMARY = "summary";
+    private static final String FIELDS = "fields";
+    private static final String ID = "id";
+    private static final String LABEL = "label";
+    private static final String RELEVANCE = "relevance";
+    private static final String ROOT = "root";
+    private static final String SOURCE = "source";
+    private static final String TOTAL_COUNT = "totalCount";
+    private static final String TYPES = "types";
+    private static final String GROUPING_VALUE = "value";
+    private static final String VESPA_HIDDEN_FIELD_PREFIX = "$";
+
+    @Override
+    public ListenableFuture<Boolean> render(OutputStream stream, Result result, Execution execution, Request request) {
+        SettableFuture<Boolean> completed = SettableFuture.create();
+        try {
+            stream.write(BinaryFormat.encode(toSlime(result)));
+            stream.close();
+            completed.set(true);
+        }
+        catch (IOException e) {
+            completed.setException(e);
+        }
+        return completed;
+    }
+
+    /** Returns the given result as a Slime structure */
+    Slime toSlime(Result result) {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject().setObject(ROOT);
+        renderHitContents(result.hits(), root);
+        renderTotalHitCount(result, root);
+        renderCoverage(result.getCoverage(false), root);
+        renderErrors(result.hits().getErrorHit(), root);
+        renderChildren(result.hits(), root);
+        return slime;
+    }
+
+    private void renderChildren(HitGroup group, Cursor object) {
+        Cursor children = null;
+        for (Hit hit : group.asList()) {
+            if (hit instanceof DefaultErrorHit) continue;
+            if (children == null)
+                children = object.setArray(CHILDREN);
+            Cursor child = children.addObject();
+            renderHitContents(hit, child);
+            if (hit instanceof HitGroup) {
+                renderErrors(((HitGroup) hit).getErrorHit(), child);
+                renderChildren((HitGroup) hit, child);
+            }
+        }
+    }
+
+    private void renderHitContents(Hit hit, Cursor object) {
+        String id = hit.getDisplayId();
+        if (id != null)
+            object.setString(ID, id);
+        object.setDouble(RELEVANCE, hit.getRelevance().getScore());
+        if (hit.types().size() > 0) {
+            Cursor types = object.setArray(TYPES);
+            for (String type : hit.types())
+                types.addString(type);
+        }
+        if (hit.getSource() != null)
+            object.setString(SOURCE, hit.getSource());
+        if (hit instanceof AbstractList)
+            renderGroupingList((AbstractList) hit, object);
+        else if (hit instanceof Group)
+            renderGroupingGroup((Group) hit, object);
+        hit.forEachFieldAsRaw(new FieldInserter(object));
+    }
+
+    private void renderTotalHitCount(Result result, Cursor root) {
+        fields(root).setLong(TOTAL_COUNT, result.getTotalHitCount());
+    }
+
+    private void renderCoverage(Coverage coverage, Cursor root) {
+        if (coverage == null) return;
+
+        Cursor object = root.setObject(COVERAGE);
+        object.setLong(COVERAGE_COVERAGE, coverage.getResultPercentage());
+        object.setLong(COVERAGE_DOCUMENTS, coverage.getDocs());
+        if (coverage.isDegraded()) {
+            Cursor degraded = object.setObject(COVERAGE_DEGRADE);
+            degraded.setBool(COVERAGE_DEGRADE_MATCHPHASE, coverage.isDegradedByMatchPhase());
+            degraded.setBool(COVERAGE_DEGRADE_TIMEOUT, coverage.isDegradedByTimeout());
+            degraded.setBool(COVERAGE_DEGRADE_ADAPTIVE_TIMEOUT, coverage.isDegradedByAdapativeTimeout());
+            degraded.setBool(COVERAGE_DEGRADED_NON_IDEAL_STATE, coverage.isDegradedByNonIdealState());
+        }
+        object.setBool(COVERAGE_FULL, coverage.getFull());
+        object.setLong(COVERAGE_NODES, coverage.getNodes());
+        object.setLong(COVERAGE_RESULTS, coverage.getResultSets());
+        object.setLong(COVERAGE_RESULTS_FULL, coverage.getFullResultSets());
+    }
+
+    private void renderErrors(ErrorHit errorHit, Cursor object) {
+        if (errorHit == null) return;
+        Set<ErrorMessage> errors = errorHit.errors();
+        if (errors.isEmpty()) return;
+
+        Cursor array = object.setArray(ERRORS);
+        for (ErrorMessage error : errors) {
+            Cursor entry = array.addObject();
+            entry.setLong(ERROR_CODE, error.getCode());
+            entry.setString(ERROR_SUMMARY, error.getMessage());
+            if (error.getSource() != null)
+                entry.setString(ERROR_SOURCE, error.getSource());
+            if (error.getDetailedMessage() != null)
+                entry.setString(ERROR_MESSAGE, error.getDetailedMessage());
+        }
+    }
+
+    private void renderGroupingList(AbstractList list, Cursor object) {
+        object.setString(LABEL, list.getLabel());
+        renderContinuations(list.continuations(), object);
+    }
+
+    private void renderGroupingGroup(Group group, Cursor object) {
+        GroupId id = group.getGroupId();
+        if (id instanceof ValueGroupId) {
+            object.setString(GROUPING_VALUE, JsonRenderer.getIdValue((ValueGroupId<?>) id));
+        } else if (id instanceof BucketGroupId) {
+            Cursor limits = object.setObject(BUCKET_LIMITS);
+            limits.setString(BUCKET_FROM, JsonRenderer.getBucketFrom((BucketGroupId<?>) id));
+            limits.setString(BUCKET_TO, JsonRenderer.getBucketTo((BucketGroupId<?>) id));
+        }
+        if (group instanceof RootGroup)
+            renderContinuations(Map.of(Continuation.THIS_PAGE, ((RootGroup) group).continuation()), object);
+    }
+
+    private void renderContinuations(Map<String, Continuation> continuations, Cursor object) {
+        if (continuations.isEmpty()) return;
+
+        Cursor continuation = object.setObject(CONTINUATION);
+        for (Map.Entry<String, Continuation> entry : continuations.entrySet())
+            continuation.setString(entry.getKey(), entry.getValue().toString());
+    }
+
+    private static Cursor fields(Cursor object) {
+        Cursor fields = object.field(FIELDS);
+        return fields.valid() ? fields : object.setObject(FIELDS);
+    }
+
+    @Override
+    public String getEncoding() {
+        return null;
+    }
+
+    @Override
+    public String getMimeType() {
+        return "application/x-slime";
+    }
+
+    /** Inserts the fields of a hit into the "fields" object of the hit, which is created if there are any */
+    private static class FieldInserter implements Hit.RawUtf8Consumer {
+
+        private final Cursor hit;
+
+        FieldInserter(Cursor hit) {
+            this.hit = hit;
+        }
+
+        @Override
+        public void accept(String name, Object value) {
+            if ( ! shouldRender(name, value)) return;
+            insert(value, new ObjectInserter(fields(hit), name));
+        }
+
+        @Override
+        public void accept(String name, byte[] utf8Data, int offset, int length) {
+            if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX) || length == 0) return;
+            fields(hit).setString(name, (offset == 0 && length == utf8Data.length)
+                                        ? utf8Data
+                                        : Arrays.copyOfRange(utf8Data, offset, offset + length));
+        }
+
+        private boolean shouldRender(String name, Object value) {
+            if (name.startsWith(VESPA_HIDDEN_FIELD_PREFIX)) return false;
+            if (value instanceof CharSequence && ((CharSequence) value).length() == 0) return false;
+            if (value instanceof StringFieldValue && ((StringFieldValue) value).getString().isEmpty()) return false;
+            if (value instanceof NanNumber) return false;
+            return true;
+        }
+
+        private static void insert(Object value, Inserter inserter) {
+            if (value == null) {
+                inserter.insertNIX();
+            } else if (value instanceof Boolean) {
+                inserter.insertBOOL((Boolean) value);
+            } else if (value instanceof BigInteger || value instanceof BigDecimal) {
+                inserter.insertSTRING(value.toString());
+            } else if (value instanceof Double || value instanceof Float) {
+                inserter.insertDOUBLE(((Number) value).doubleValue());
+            } else if (value instanceof Number) {
+                inserter.insertLONG(((Number) value).longValue());
+            } else if (value instanceof Tensor) {
+                inserter.insertDATA(TypedBinaryFormat.encode((Tensor) value));
+            } else if (value instanceof TensorFieldValue) {
+                if (((TensorFieldValue) value).getTensor().isPresent())
+                    inserter.insertDATA(TypedBinaryFormat.encode(((TensorFieldValue) value).getTensor().get()));
+                else
+                    inserter.insertNIX();
+            } else if (value instanceof Inspectable) {
+                insert(((Inspectable) value).inspect(), inserter);
+            } else if (value instanceof StringFieldValue) {
+                inserter.insertSTRING(((StringFieldValue) value).getString());
+            } else if (value instanceof JsonProducer) {
+                insertJson(((JsonProducer) value).toJson(), inserter);
+            } else {
+                inserter.insertSTRING(value.toString());
+            }
+        }
+
+        private static void insert(com.yahoo.data.access.Inspector value, Inserter inserter) {
+            switch (value.type()) {
+                case EMPTY: inserter.insertNIX(); break;
+                case BOOL: inserter.insertBOOL(value.asBool()); break;
+                case LONG: inserter.insertLONG(value.asLong()); break;
+                case DOUBLE: inserter.insertDOUBLE(value.asDouble()); break;
+                case STRING: inserter.insertSTRING(value.asUtf8()); break;
+                case DATA: inserter.insertDATA(value.asData()); break;
+                case ARRAY:
+                    ArrayInserter entries = new ArrayInserter(inserter.insertARRAY());
+                    for (com.yahoo.data.access.Inspector entry : value.entries())
+                        insert(entry, entries);
+                    break;
+                case OBJECT:
+                    Cursor object = inserter.insertOBJECT();
+                    for (Map.Entry<String, com.yahoo.data.access.Inspector> field : value.fields())
+                        insert(field.getValue(), new ObjectInserter(object, field.getKey()));
+                    break;
+            }
+        }
+
+        private static void insertJson(String json, Inserter inserter) {
+            try {
+                new com.yahoo.slime.Injector().inject(SlimeUtils.jsonToSlimeOrThrow(json).get(), inserter);
+            }
+            catch (RuntimeException e) {
+                inserter.insertSTRING(json);
+            }
+        }
+
+    }
+
+}
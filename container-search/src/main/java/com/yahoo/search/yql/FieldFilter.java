@@ -1,6 +1,8 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.yql;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -29,6 +31,13 @@ public class FieldFilter extends Searcher {
 
     public static final CompoundName FIELD_FILTER_DISABLE = new CompoundName("FieldFilter.disable");
 
+    /**
+     * Set to true in the queries of a result while it is filled through this, to let backends know that
+     * only the requested summary fields will be kept, such that the others need not be fetched.
+     * Fills made by searchers below this may access any field, and are not marked.
+     */
+    public static final CompoundName FIELD_FILTER_FILL = new CompoundName("FieldFilter.filteredFill");
+
     @Override
     public Result search(Query query, Execution execution) {
         Result result = execution.search(query);
@@ -38,15 +47,43 @@ public class FieldFilter extends Searcher {
 
     @Override
     public void fill(Result result, String summaryClass, Execution execution) {
-        execution.fill(result, summaryClass);
+        if ( ! isFiltering(result)) {
+            execution.fill(result, summaryClass);
+            return;
+        }
+
+        Set<Query> queries = queriesOf(result);
+        queries.forEach(query -> query.properties().set(FIELD_FILTER_FILL, true));
+        try {
+            execution.fill(result, summaryClass);
+        }
+        finally {
+            queries.forEach(query -> query.properties().set(FIELD_FILTER_FILL, false));
+        }
         filter(result);
     }
 
+    private boolean isFiltering(Result result) {
+        if (result.getQuery().properties().getBoolean(FIELD_FILTER_DISABLE)) return false;
+        return ! result.getQuery().getPresentation().getSummaryFields().isEmpty();
+    }
+
+    /** Returns the query of the result and the queries of its hits, which are used when filling federated hits */
+    private Set<Query> queriesOf(Result result) {
+        Set<Query> queries = Collections.newSetFromMap(new IdentityHashMap<>());
+        queries.add(result.getQuery());
+        for (Iterator<Hit> i = result.hits().unorderedDeepIterator(); i.hasNext();) {
+            Hit hit = i.next();
+            if (hit.getQuery() != null)
+                queries.add(hit.getQuery());
+        }
+        return queries;
+    }
+
     private void filter(Result result) {
         Set<String> requestedFields;
 
-        if (result.getQuery().properties().getBoolean(FIELD_FILTER_DISABLE)) return;
-        if (result.getQuery().getPresentation().getSummaryFields().isEmpty()) return;
+        if ( ! isFiltering(result)) return;
 
         requestedFields = result.getQuery().getPresentation().getSummaryFields();
         for (Iterator<Hit> i = result.hits().unorderedDeepIterator(); i.hasNext();) {
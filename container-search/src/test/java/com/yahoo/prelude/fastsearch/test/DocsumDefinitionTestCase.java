@@ -19,6 +19,8 @@ import org.junit.Test;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -75,6 +77,17 @@ public class DocsumDefinitionTestCase {
         assertEquals("index:null/0/" + asHexString(hit.getGlobalId()), hit.getId().toString());
     }
 
+    @Test
+    public void testProjection() {
+        String summary_cf = "file:src/test/java/com/yahoo/prelude/fastsearch/test/documentdb-info.cfg";
+        DocsumDefinition docsum = createDocsumDefinitionSet(summary_cf).getDocsum("default");
+
+        assertEquals(List.of("TOPIC", "DSHOST"), docsum.projection(Set.of("DSHOST", "TOPIC", "nonexisting")));
+        assertEquals(List.of("TOPIC", "DSHOST"), docsum.projection(Set.of("DSHOST", "TOPIC", "nonexisting")));
+        assertTrue(docsum.projection(Set.of("nonexisting")).isEmpty());
+        assertTrue(docsum.projection(docsum.fieldNames()).isEmpty());
+    }
+
     private static String asHexString(GlobalId gid) {
         StringBuilder sb = new StringBuilder();
         byte[] rawGid = gid.getRawId();
@@ -0,0 +1,118 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.jdisc.Metric;
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Hit;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HedgedSearchInvokerTest {
+
+    private final CountingMetric metric = new CountingMetric();
+
+    @Test
+    public void requireThatNoHedgingIsDoneWhenPrimaryRespondsInTime() throws IOException {
+        RespondingInvoker primary = new RespondingInvoker(0, 1.0, true);
+        RespondingInvoker backup = new RespondingInvoker(1, 2.0, true);
+        boolean[] backupRequested = new boolean[1];
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 10000, () -> {
+            backupRequested[0] = true;
+            return Optional.of(backup);
+        }, metric);
+
+        Result result = invoker.search(new Query("?query=foo&timeout=20s"), null);
+        assertEquals(1.0, result.hits().get(0).getRelevance().getScore(), 0.0);
+        assertFalse(backupRequested[0]);
+        assertNull(metric.values.get("dispatch_hedged_queries"));
+        invoker.close();
+        assertTrue(primary.closed);
+    }
+
+    @Test
+    public void requireThatBackupResultIsUsedWhenItRespondsFirst() throws IOException {
+        RespondingInvoker primary = new RespondingInvoker(0, 1.0, false);
+        RespondingInvoker backup = new RespondingInvoker(1, 2.0, true);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 1, () -> Optional.of(backup), metric);
+
+        Result result = invoker.search(new Query("?query=foo&timeout=20s"), null);
+        assertEquals(2.0, result.hits().get(0).getRelevance().getScore(), 0.0);
+        assertEquals(1, metric.values.get("dispatch_hedged_queries").intValue());
+        assertEquals(1, metric.values.get("dispatch_hedge_wins").intValue());
+        assertTrue(primary.closed);
+        assertFalse(backup.closed);
+        invoker.close();
+        assertTrue(backup.closed);
+    }
+
+    @Test
+    public void requireThatPrimaryIsUsedWhenNoBackupIsAvailable() throws IOException {
+        RespondingInvoker primary = new RespondingInvoker(0, 1.0, false);
+        HedgedSearchInvoker invoker = new HedgedSearchInvoker(primary, 1, Optional::empty, metric);
+
+        Result result = invoker.search(new Query("?query=foo&timeout=20s"), null);
+        assertEquals(1.0, result.hits().get(0).getRelevance().getScore(), 0.0);
+        assertNull(metric.values.get("dispatch_hedged_queries"));
+    }
+
+    /** An invoker which signals its response immediately, or never */
+    private static class RespondingInvoker extends MockInvoker {
+
+        private final boolean respond;
+        boolean closed = false;
+
+        RespondingInvoker(int key, double relevance, boolean respond) {
+            super(key);
+            this.respond = respond;
+            setHits(List.<Hit>of(new FastHit(new byte[] { 'g', 'i', 'd', (byte)key }, relevance, 0, key)));
+        }
+
+        @Override
+        protected Object sendSearchRequest(Query query, Object context) throws IOException {
+            Object result = super.sendSearchRequest(query, context);
+            if (respond)
+                responseAvailable();
+            return result;
+        }
+
+        @Override
+        protected void release() {
+            closed = true;
+        }
+
+    }
+
+    private static class CountingMetric implements Metric {
+
+        final Map<String, Number> values = new HashMap<>();
+
+        @Override
+        public void set(String key, Number val, Context ctx) {
+            values.put(key, val);
+        }
+
+        @Override
+        public void add(String key, Number val, Context ctx) {
+            values.merge(key, val, (a, b) -> a.longValue() + b.longValue());
+        }
+
+        @Override
+        public Context createContext(Map<String, ?> properties) {
+            return null;
+        }
+
+    }
+
+}
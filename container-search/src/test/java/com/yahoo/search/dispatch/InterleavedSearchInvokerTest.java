@@ -297,6 +297,41 @@ public class InterleavedSearchInvokerTest {
         assertEquals(3, result.getQuery().getHits());
     }
 
+    @Test
+    public void requireThatMergeOfManySortedListsSkipsDuplicatesAndObeysWindow() {
+        List<List<LeanHit>> sources = new ArrayList<>();
+        sources.add(leanHits(9.0, 6.0, 3.0));
+        sources.add(leanHits(8.0, 5.0, 2.0));
+        sources.add(Collections.emptyList());
+        sources.add(leanHits(9.0, 7.0, 4.0, 1.0));
+
+        List<LeanHit> merged = new ArrayList<>();
+        InterleavedSearchInvoker.mergeSorted(sources, 0, 100, merged);
+        assertEquals(List.of(9.0, 8.0, 7.0, 6.0, 5.0, 4.0, 3.0, 2.0, 1.0), relevances(merged));
+
+        merged = new ArrayList<>();
+        InterleavedSearchInvoker.mergeSorted(sources, 2, 3, merged);
+        assertEquals(List.of(7.0, 6.0, 5.0), relevances(merged));
+
+        merged = new ArrayList<>();
+        InterleavedSearchInvoker.mergeSorted(sources, 8, 3, merged);
+        assertEquals(List.of(1.0), relevances(merged));
+    }
+
+    private static List<LeanHit> leanHits(Double ... scores) {
+        List<LeanHit> hits = new ArrayList<>();
+        for (double score : scores)
+            hits.add(new LeanHit(new GlobalId(IdString.createIdString("id:test:test::" + score)).getRawId(), 0, 0, score));
+        return hits;
+    }
+
+    private static List<Double> relevances(List<LeanHit> hits) {
+        List<Double> relevances = new ArrayList<>();
+        for (LeanHit hit : hits)
+            relevances.add(hit.getRelevance());
+        return relevances;
+    }
+
     private static InterleavedSearchInvoker createInterLeavedTestInvoker(List<Double> a, List<Double> b) {
         SearchCluster cluster = new MockSearchCluster("!", 1, 2);
         List<SearchInvoker> invokers = new ArrayList<>();
@@ -3,8 +3,11 @@ package com.yahoo.search.dispatch;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class LeanHitTest {
@@ -43,6 +46,26 @@ public class LeanHitTest {
                 new LeanHit(gidA, 0, 0, 0.0, gidC));
     }
     @Test
+    public void testHitsSharingBuffer() {
+        byte [] buffer = {'x', 'a', 'c', 'b', 'c', 'a'};
+        LeanHit a = new LeanHit(buffer, 1, 1, 2, 1, 0, 0, 0.0);
+        LeanHit b = new LeanHit(buffer, 3, 1, 4, 1, 0, 0, 0.0);
+        LeanHit c = new LeanHit(buffer, 5, 1, -1, 0, 0, 0, 1.0);
+        assertEquals(0, a.compareTo(new LeanHit(gidA, 0, 0, 0.0, gidC)));
+        assertTrue(b.compareTo(new LeanHit(gidA, 0, 0, 0.0, gidC)) > 0);
+        assertArrayEquals(gidA, a.getGid());
+        assertArrayEquals(gidC, a.getSortData());
+        assertFalse(c.hasSortData());
+        assertNull(c.getSortData());
+        assertEquals(0, c.getSortDataLength());
+
+        LeanHit detached = b.detached();
+        assertArrayEquals(gidB, detached.getGid());
+        assertArrayEquals(gidC, detached.getSortData());
+        assertEquals(0, detached.compareTo(b));
+        assertSame(detached, detached.detached());
+    }
+    @Test
     public void testRelevanceIsKeptEvenWithBySortData() {
         assertEquals(1.3, new LeanHit(gidA, 0, 0, 1.3, gidA).getRelevance(), 0.0);
     }
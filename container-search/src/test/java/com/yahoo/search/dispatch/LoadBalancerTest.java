@@ -2,10 +2,12 @@
 package com.yahoo.search.dispatch;
 
 import com.yahoo.search.dispatch.LoadBalancer.AdaptiveScheduler;
+import com.yahoo.search.dispatch.LoadBalancer.BestOfRandom2Scheduler;
 import com.yahoo.search.dispatch.LoadBalancer.GroupStatus;
 import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.Node;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
+import com.yahoo.vespa.config.search.DispatchConfig;
 import junit.framework.AssertionFailedError;
 import org.junit.Test;
 
@@ -14,6 +16,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 
 import static com.yahoo.search.dispatch.MockSearchCluster.createDispatchConfig;
 import static org.hamcrest.Matchers.closeTo;
@@ -156,6 +159,72 @@ public class LoadBalancerTest {
         assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(4));
     }
 
+    @Test
+    public void requireThatSearchTimeQuantileConvergesToTail() {
+        GroupStatus gs = newGroupStatus(1);
+        Random random = new Random(17);
+        for (int i = 0; i < 20000; i++) {
+            // Uniform search times between 0.1 and 0.3 seconds, with a 95th percentile of 0.29
+            updateSearchTime(gs, 0.1 + 0.2 * random.nextDouble());
+        }
+        assertThat(gs.searchTimeQuantile(), closeTo(0.29, 0.01));
+        assertThat(gs.averageSearchTime(), closeTo(0.2, 0.01));
+    }
+
+    @Test
+    public void requireThatFewQueriesAreHedgedWithRealisticSearchTimes() {
+        Node n1 = new Node(0, "test-node1", 0);
+        Node n2 = new Node(1, "test-node2", 1);
+        SearchCluster cluster = new SearchCluster("a", createDispatchConfig(n1, n2), null, null);
+        LoadBalancer lb = new LoadBalancer(cluster, DispatchConfig.DistributionPolicy.BEST_OF_RANDOM_2);
+        Group group = cluster.orderedGroups().get(0);
+        Random random = new Random(17);
+
+        for (int i = 0; i < 99; i++)
+            lb.releaseGroup(lb.takeGroup(Set.of(1)).get(), true, searchTimeMs(random));
+        assertThat(lb.searchTimeQuantileMs(group), is(Optional.empty()));
+
+        int queries = 1000;
+        int hedged = 0;
+        for (int i = 0; i < queries; i++) {
+            lb.releaseGroup(lb.takeGroup(Set.of(1)).get(), true, searchTimeMs(random));
+            double searchTime = searchTimeMs(random);
+            if (searchTime > lb.searchTimeQuantileMs(group).get())
+                hedged++;
+        }
+        assertThat((double) hedged / queries, closeTo(0.05, 0.04));
+    }
+
+    /** Returns a search time of at least 30 ms with an exponential tail, averaging 50 ms */
+    private static double searchTimeMs(Random random) {
+        return 30 - 20 * Math.log(1 - random.nextDouble());
+    }
+
+    @Test
+    public void requireThatBestOfRandom2SchedulerPicksTheBetterOfTwo() {
+        List<GroupStatus> scoreboard = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            GroupStatus gs = newGroupStatus(i);
+            gs.setSearchTimeQuantile(0.1 * (i + 1));
+            scoreboard.add(gs);
+        }
+        // Draws are (first, second) where second skips first: (3, 1) -> groups 3 and 1, (0, 2) -> groups 0 and 3
+        BestOfRandom2Scheduler sched = new BestOfRandom2Scheduler(intSequence(3, 1, 0, 2), scoreboard);
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(0));
+
+        // Queries in flight count against a group
+        scoreboard.get(0).allocate();
+        scoreboard.get(0).allocate();
+        scoreboard.get(0).allocate();
+        scoreboard.get(0).allocate();
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(1));
+        assertThat(sched.takeNextGroup(null).get().groupId(), equalTo(3));
+
+        // Rejected groups are not considered
+        assertThat(sched.takeNextGroup(Set.of(0, 1, 2)).get().groupId(), equalTo(3));
+    }
+
     private static void updateSearchTime(GroupStatus gs, double time) {
         gs.allocate();
         gs.release(true, time);
@@ -171,6 +240,22 @@ public class LoadBalancerTest {
         return new GroupStatus(dummyGroup);
     }
 
+    private Random intSequence(int... values) {
+        return new Random() {
+            private int index = 0;
+
+            @Override
+            public int nextInt(int bound) {
+                int retv = values[index] % bound;
+                index++;
+                if (index >= values.length) {
+                    index = 0;
+                }
+                return retv;
+            }
+        };
+    }
+
     private Random sequence(double... values) {
         return new Random() {
             private int index = 0;
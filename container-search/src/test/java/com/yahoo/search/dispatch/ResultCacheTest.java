@@ -0,0 +1,127 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.prelude.fastsearch.test.MockMetric;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ResultCacheTest {
+
+    private long now = 0;
+
+    private ResultCache createCache(long maxBytes) {
+        return new ResultCache(maxBytes, 1.0, new MockMetric()) {
+            @Override
+            protected long currentTime() { return now; }
+        };
+    }
+
+    private static ResultCache.Key key(String query) {
+        return new ResultCache.Key(query.getBytes());
+    }
+
+    private static SearchInvoker invoker(int hitCount, Coverage coverage) {
+        List<Hit> hits = new ArrayList<>();
+        for (int i = 0; i < hitCount; i++)
+            hits.add(new FastHit(new byte[] { 'g', 'i', 'd', (byte) i }, hitCount - i, 0, 7));
+        return new MockInvoker(7, coverage).setHits(hits);
+    }
+
+    private static Result search(SearchInvoker invoker) throws IOException {
+        try (invoker) {
+            return invoker.search(new Query("?query=foo"), null);
+        }
+    }
+
+    @Test
+    public void requireThatResultsAreServedFromCache() throws IOException {
+        ResultCache cache = createCache(100000);
+        assertTrue(cache.lookup(key("a"), 1).isEmpty());
+
+        Result original = search(cache.populating(key("a"), 1, invoker(3, new Coverage(100, 100, 1))));
+        assertEquals(3, original.hits().size());
+        assertEquals(1, cache.size());
+
+        Result cached = search(cache.lookup(key("a"), 1).get());
+        assertEquals(3, cached.hits().size());
+        for (int i = 0; i < 3; i++) {
+            FastHit expected = (FastHit) original.hits().get(i);
+            FastHit actual = (FastHit) cached.hits().get(i);
+            assertEquals(expected.getGlobalId(), actual.getGlobalId());
+            assertEquals(expected.getRelevance(), actual.getRelevance());
+            assertEquals(expected.getDistributionKey(), actual.getDistributionKey());
+            assertTrue(actual.isFillable());
+        }
+        assertEquals(100, cached.getCoverage(false).getDocs());
+        assertTrue(cache.lookup(key("b"), 1).isEmpty());
+    }
+
+    @Test
+    public void requireThatEntriesExpire() throws IOException {
+        ResultCache cache = createCache(100000);
+        search(cache.populating(key("a"), 1, invoker(3, new Coverage(100, 100, 1))));
+        now += 1000;
+        assertTrue(cache.lookup(key("a"), 1).isPresent());
+        now += 1;
+        assertTrue(cache.lookup(key("a"), 1).isEmpty());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void requireThatEntriesAreInvalidatedByNewGeneration() throws IOException {
+        ResultCache cache = createCache(100000);
+        search(cache.populating(key("a"), 1, invoker(3, new Coverage(100, 100, 1))));
+        assertTrue(cache.lookup(key("a"), 2).isEmpty());
+        assertTrue(cache.lookup(key("a"), 1).isEmpty());
+    }
+
+    @Test
+    public void requireThatIncompleteResultsAreNotCached() throws IOException {
+        ResultCache cache = createCache(100000);
+        search(cache.populating(key("a"), 1, invoker(3, new Coverage(50, 100, 1))));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void requireThatCacheIsBoundedByBytes() throws IOException {
+        long entrySize = ResultCache.ENTRY_OVERHEAD + 1 + 10 * (ResultCache.HIT_OVERHEAD + 4);
+        ResultCache cache = createCache(2 * entrySize);
+        search(cache.populating(key("a"), 1, invoker(10, new Coverage(100, 100, 1))));
+        search(cache.populating(key("b"), 1, invoker(10, new Coverage(100, 100, 1))));
+        assertEquals(2, cache.size());
+        assertEquals(2 * entrySize, cache.bytes());
+
+        assertTrue(cache.lookup(key("a"), 1).isPresent()); // Make "b" the least recently used
+        search(cache.populating(key("c"), 1, invoker(10, new Coverage(100, 100, 1))));
+        assertEquals(2, cache.size());
+        assertTrue(cache.lookup(key("a"), 1).isPresent());
+        assertTrue(cache.lookup(key("b"), 1).isEmpty());
+        assertTrue(cache.lookup(key("c"), 1).isPresent());
+
+        search(cache.populating(key("d"), 1, invoker(30, new Coverage(100, 100, 1))));
+        assertFalse("Entries larger than the cache are not stored", cache.lookup(key("d"), 1).isPresent());
+    }
+
+    @Test
+    public void requireThatQueriesWithGroupingOrTracingAreNotCacheable() {
+        ResultCache cache = createCache(100000);
+        assertTrue(cache.isCacheable(new Query("?query=foo")));
+        assertFalse(cache.isCacheable(new Query("?query=foo&tracelevel=1")));
+        assertFalse(cache.isCacheable(new Query("?query=foo&nocache=true")));
+        assertFalse(cache.isCacheable(new Query("?query=foo&select=all(group(a)%20each(output(count())))")));
+    }
+
+}
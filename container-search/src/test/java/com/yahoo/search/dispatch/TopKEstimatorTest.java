@@ -1,11 +1,14 @@
 // Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch;
 
+import com.yahoo.jdisc.test.MockMetric;
 import org.junit.Test;
 
 import java.util.Locale;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TopKEstimatorTest {
     @Test
@@ -140,6 +143,32 @@ public class TopKEstimatorTest {
         assertEquals(expectedSkew, dumpProbability(10, 0.05));
     }
 
+    @Test
+    public void requireThatAdaptiveEstimatesFollowObservedContributions() {
+        MockMetric metric = new MockMetric();
+        TopKEstimator estimator = new TopKEstimator(30, 0.9999, 0.0, true, metric);
+        assertEquals(42, estimator.estimateK(200, 10, "default"));
+
+        for (int i = 0; i < 1000; i++) // evenly distributed: the best node contributes half of what it is asked for
+            estimator.observe("default", 42, 21, false);
+        int evenEstimate = estimator.estimateK(200, 10, "default");
+        assertTrue(evenEstimate < 42);
+        assertEquals(42, estimator.estimateK(200, 10, "other"));
+
+        for (int i = 0; i < 100; i++) // skewed: some node contributes all it is asked for
+            estimator.observe("default", evenEstimate, evenEstimate, true);
+        assertTrue(estimator.estimateK(200, 10, "default") > 42);
+        assertEquals(100, metric.metrics().get("dispatch_topk_insufficient").get(Map.of()), 0.0);
+    }
+
+    @Test
+    public void requireThatObservationsAreIgnoredUnlessAdaptive() {
+        TopKEstimator estimator = new TopKEstimator(30, 0.9999, 0.0);
+        for (int i = 0; i < 1000; i++)
+            estimator.observe("default", 42, 21, false);
+        assertEquals(42, estimator.estimateK(200, 10, "default"));
+    }
+
     /**
      * This make a table showing how many more hits will be fetched as a factor of hits requested.
      * It shows how it varies with probability and hits requested for a given number of partitions.
@@ -0,0 +1,112 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.simple.Value;
+import com.yahoo.prelude.fastsearch.test.MockMetric;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Cursor;
+import com.yahoo.slime.Slime;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DocsumCacheTest {
+
+    private final AtomicLong generation = new AtomicLong(0);
+    private long now = 0;
+
+    private DocsumCache createCache(long maxBytes) {
+        return new DocsumCache(maxBytes, 1.0, generation::get, new MockMetric()) {
+            @Override
+            protected long currentTime() { return now; }
+        };
+    }
+
+    private static byte[] gid(int i) {
+        return new byte[] { 'g', 'i', 'd', (byte) i };
+    }
+
+    private static long entrySize(int encodedSize) {
+        return DocsumCache.ENTRY_OVERHEAD + gid(0).length + DocsumCache.DECODED_SIZE_FACTOR * encodedSize;
+    }
+
+    @Test
+    public void requireThatSummariesAreKeyedOnGlobalIdSummaryClassAndDocumentType() {
+        DocsumCache cache = createCache(100000);
+        Inspector docsum = new Value.StringValue("foo");
+        cache.put(gid(1), "default", "music", docsum, 10);
+
+        assertEquals("foo", cache.get(gid(1), "default", "music").get().asString());
+        assertTrue(cache.get(gid(2), "default", "music").isEmpty());
+        assertTrue(cache.get(gid(1), "other", "music").isEmpty());
+        assertTrue(cache.get(gid(1), "default", "books").isEmpty());
+        assertEquals(entrySize(10), cache.bytes());
+    }
+
+    @Test
+    public void requireThatLeastRecentlyUsedSummariesAreEvicted() {
+        DocsumCache cache = createCache(2 * entrySize(10));
+        cache.put(gid(1), "default", "music", new Value.StringValue("1"), 10);
+        cache.put(gid(2), "default", "music", new Value.StringValue("2"), 10);
+        cache.get(gid(1), "default", "music");
+        cache.put(gid(3), "default", "music", new Value.StringValue("3"), 10);
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.get(gid(1), "default", "music").isPresent());
+        assertTrue(cache.get(gid(2), "default", "music").isEmpty());
+        assertTrue(cache.get(gid(3), "default", "music").isPresent());
+        assertEquals(2 * entrySize(10), cache.bytes());
+    }
+
+    @Test
+    public void requireThatTooLargeSummariesAreNotCached() {
+        DocsumCache cache = createCache(entrySize(10));
+        cache.put(gid(1), "default", "music", new Value.StringValue("1"), 11);
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void requireThatSummariesAreCopiedOutOfTheReply() {
+        Slime reply = new Slime();
+        Cursor docsums = reply.setObject().setArray("docsums");
+        docsums.addObject().setObject("docsum").setString("title", "small");
+        docsums.addObject().setObject("docsum").setString("title", "x".repeat(10000));
+
+        DocsumCache cache = createCache(100000);
+        cache.put(gid(1), "default", "music", reply.get().field("docsums").entry(0).field("docsum"));
+
+        Slime expected = new Slime();
+        expected.setObject().setString("title", "small");
+        assertEquals("small", cache.get(gid(1), "default", "music").get().field("title").asString());
+        assertEquals(entrySize(BinaryFormat.encode(expected).length), cache.bytes());
+    }
+
+    @Test
+    public void requireThatCacheIsClearedOnNewGeneration() {
+        DocsumCache cache = createCache(100000);
+        cache.put(gid(1), "default", "music", new Value.StringValue("1"), 10);
+        assertTrue(cache.get(gid(1), "default", "music").isPresent());
+
+        generation.incrementAndGet();
+        assertTrue(cache.get(gid(1), "default", "music").isEmpty());
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    public void requireThatSummariesExpire() {
+        DocsumCache cache = createCache(100000);
+        cache.put(gid(1), "default", "music", new Value.StringValue("1"), 10);
+        now += 1000;
+        assertTrue(cache.get(gid(1), "default", "music").isPresent());
+        now += 1;
+        assertTrue(cache.get(gid(1), "default", "music").isEmpty());
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.bytes());
+    }
+
+}
@@ -6,8 +6,13 @@ import com.yahoo.prelude.fastsearch.DocsumDefinitionSet;
 import com.yahoo.prelude.fastsearch.DocsumField;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
 import com.yahoo.prelude.fastsearch.FastHit;
+import com.yahoo.prelude.fastsearch.test.MockMetric;
+import com.yahoo.component.chain.Chain;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.yql.FieldFilter;
 
 import org.junit.Test;
 
@@ -16,9 +21,13 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Tests using a dispatcher to fill a result
@@ -146,6 +155,104 @@ public class FillTestCase {
         assertEquals("Missing hit summary data for summary summaryClass1 for 2 hits", result.hits().getError().getDetailedMessage());
     }
 
+    @Test
+    public void testFillingFromDocsumCache() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        nodes.put(1, client.createConnection("host1", 123));
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        AtomicLong generation = new AtomicLong(0);
+        DocsumCache cache = new DocsumCache(100000, 1000.0, generation::get, new MockMetric());
+        RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null, Optional.of(cache));
+
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "s.0.0", "field2", 0));
+        client.setDocsumReponse("host1", 1, "summaryClass1", map("field1", "s.1.1", "field2", 1));
+
+        Result result = new Result(new Query());
+        result.hits().add(createHit(0, 0));
+        result.hits().add(createHit(1, 1));
+        factory.createFillInvoker(db()).fill(result, "summaryClass1");
+        assertEquals(2, cache.size());
+
+        // The content nodes are not contacted when all summaries are cached
+        client.setMalfunctioning(true);
+        Result cachedResult = new Result(new Query());
+        cachedResult.hits().add(createHit(0, 0));
+        cachedResult.hits().add(createHit(1, 1));
+        factory.createFillInvoker(db()).fill(cachedResult, "summaryClass1");
+        assertNull(cachedResult.hits().getError());
+        assertEquals("s.0.0", cachedResult.hits().get("hit:0").getField("field1").toString());
+        assertEquals("s.1.1", cachedResult.hits().get("hit:1").getField("field1").toString());
+        assertEquals(1L, cachedResult.hits().get("hit:1").getField("field2"));
+        assertTrue(cachedResult.hits().get("hit:0").isFilled("summaryClass1"));
+
+        // A new generation invalidates the cache
+        generation.incrementAndGet();
+        Result invalidatedResult = new Result(new Query());
+        invalidatedResult.hits().add(createHit(0, 0));
+        factory.createFillInvoker(db()).fill(invalidatedResult, "summaryClass1");
+        assertNotNull(invalidatedResult.hits().getError());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testUpdatedDocumentIsFilledFromContentNodesWhenCachedSummaryExpires() {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+        AtomicLong now = new AtomicLong(0);
+        DocsumCache cache = new DocsumCache(100000, 1.0, () -> 0, new MockMetric()) {
+            @Override
+            protected long currentTime() { return now.get(); }
+        };
+        RpcInvokerFactory factory = new RpcInvokerFactory(rpcResourcePool, null, Optional.of(cache));
+
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "original", "field2", 0));
+        Result result = new Result(new Query());
+        result.hits().add(createHit(0, 0));
+        factory.createFillInvoker(db()).fill(result, "summaryClass1");
+        assertEquals("original", result.hits().get("hit:0").getField("field1").toString());
+
+        // The document is updated, which changes neither the generation nor the number of active documents
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "updated", "field2", 0));
+        now.addAndGet(1001);
+        Result updatedResult = new Result(new Query());
+        updatedResult.hits().add(createHit(0, 0));
+        factory.createFillInvoker(db()).fill(updatedResult, "summaryClass1");
+        assertNull(updatedResult.hits().getError());
+        assertEquals("updated", updatedResult.hits().get("hit:0").getField("field1").toString());
+    }
+
+    @Test
+    public void testFilteredFillRequestsOnlySummaryFields() {
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "s.0.0", "field2", 0));
+        Query query = new Query("?presentation.summary=summaryClass1&presentation.summaryFields=field1");
+        Execution execution = fieldFilterExecution(false);
+
+        Result result = execution.search(query);
+        execution.fill(result, "summaryClass1");
+        assertEquals(List.of(List.of("field1")), client.requestedSummaryFields());
+        assertNull(result.hits().getError());
+        assertEquals("s.0.0", result.hits().get("hit:0").getField("field1").toString());
+        assertNull(result.hits().get("hit:0").getField("field2"));
+        assertTrue(result.hits().get("hit:0").isFilled("summaryClass1"));
+    }
+
+    @Test
+    public void testSearcherFillIsNotProjectedAndNotRepeated() {
+        client.setDocsumReponse("host0", 0, "summaryClass1", map("field1", "s.0.0", "field2", 0));
+        Query query = new Query("?presentation.summary=summaryClass1&presentation.summaryFields=field1");
+        Execution execution = fieldFilterExecution(true);
+
+        Result result = execution.search(query);
+        assertEquals("A searcher filling during search gets all fields", List.of(List.of()), client.requestedSummaryFields());
+
+        execution.fill(result, "summaryClass1");
+        assertEquals("The second fill finds the hits already filled", 1, client.requestedSummaryFields().size());
+        assertEquals("s.0.0", result.hits().get("hit:0").getField("field1").toString());
+        assertNull(result.hits().get("hit:0").getField("field2"));
+    }
+
     @Test
     public void testErrorHandling() {
         client.setMalfunctioning(true);
@@ -183,6 +290,40 @@ public class FillTestCase {
         assertEquals("Could not fill hits from unknown node 1", result.hits().getError().getDetailedMessage());
     }
 
+    /**
+     * Returns an execution of FieldFilter followed by a backend filling with protobuf from host0 like FastSearcher,
+     * optionally with a searcher filling the result during search in between.
+     */
+    private Execution fieldFilterExecution(boolean fillDuringSearch) {
+        Map<Integer, Client.NodeConnection> nodes = new HashMap<>();
+        nodes.put(0, client.createConnection("host0", 123));
+        RpcResourcePool rpcResourcePool = new RpcResourcePool(nodes);
+
+        Searcher fillingSearcher = new Searcher() {
+            @Override
+            public Result search(Query query, Execution execution) {
+                Result result = execution.search(query);
+                if (fillDuringSearch)
+                    execution.fill(result, "summaryClass1");
+                return result;
+            }
+        };
+        Searcher backend = new Searcher() {
+            @Override
+            public Result search(Query query, Execution execution) {
+                Result result = new Result(query);
+                result.hits().add(createHit(0, 0));
+                return result;
+            }
+            @Override
+            public void fill(Result result, String summaryClass, Execution execution) {
+                if (result.isFilled(summaryClass)) return;
+                new RpcProtobufFillInvoker(rpcResourcePool, db(), "serverId", false).fill(result, summaryClass);
+            }
+        };
+        return new Execution(new Chain<>(new FieldFilter(), fillingSearcher, backend), Execution.Context.createContextStub());
+    }
+
     private DocumentDatabase db() {
         List<DocsumField> fields = new ArrayList<>();
         fields.add(DocsumField.create("field1", "string"));
@@ -1,6 +1,9 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.search.dispatch.rpc;
 
+import ai.vespa.searchlib.searchprotocol.protobuf.SearchProtocol;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.yahoo.compress.CompressionType;
 import com.yahoo.compress.Compressor;
 import com.yahoo.document.GlobalId;
@@ -27,6 +30,7 @@ public class MockClient implements Client {
     private final Compressor compressor = new Compressor();
     private boolean malfunctioning = false;
     private Result searchResult;
+    private final List<List<String>> requestedSummaryFields = new ArrayList<>();
 
     /** Set to true to cause this to produce an error instead of a regular response */
     public void setMalfunctioning(boolean malfunctioning) { this.malfunctioning = malfunctioning; }
@@ -42,6 +46,9 @@ public class MockClient implements Client {
         docsums.put(new DocsumKey(nodeId, globalIdFrom(docId), docsumClass), docsumValues);
     }
 
+    /** Returns the fields requested in each protobuf docsum request received by this, where empty means all */
+    public List<List<String>> requestedSummaryFields() { return requestedSummaryFields; }
+
     public GlobalId globalIdFrom(int hitId) {
         return new GlobalId(new IdIdString("", "test", "", String.valueOf(hitId)));
     }
@@ -64,29 +71,9 @@ public class MockClient implements Client {
 
             Inspector request = BinaryFormat.decode(compressor.decompress(compressedSlime, compression, uncompressedSize)).get();
             String docsumClass = request.field("class").asString();
-            List<Map<String, Object>> docsumsToReturn = new ArrayList<>();
-            request.field("gids").traverse((ArrayTraverser) (index, gid) -> {
-                GlobalId docId = new GlobalId(gid.asData());
-                docsumsToReturn.add(docsums.get(new DocsumKey(toString(), docId, docsumClass)));
-            });
-            Slime responseSlime = new Slime();
-            Cursor root = responseSlime.setObject();
-            Cursor docsums = root.setArray("docsums");
-            for (Map<String, Object> docsumFields : docsumsToReturn) {
-                if (docsumFields == null) continue;
-
-                Cursor docsumItem = docsums.addObject();
-                Cursor docsum = docsumItem.setObject("docsum");
-                for (Map.Entry<String, Object> field : docsumFields.entrySet()) {
-                    if (field.getValue() instanceof Integer)
-                        docsum.setLong(field.getKey(), (Integer) field.getValue());
-                    else if (field.getValue() instanceof String)
-                        docsum.setString(field.getKey(), (String) field.getValue());
-                    else
-                        throw new RuntimeException();
-                }
-            }
-            byte[] slimeBytes = BinaryFormat.encode(responseSlime);
+            List<GlobalId> globalIds = new ArrayList<>();
+            request.field("gids").traverse((ArrayTraverser) (index, gid) -> globalIds.add(new GlobalId(gid.asData())));
+            byte[] slimeBytes = docsumsSlime(docsumClass, globalIds, List.of());
             CompressionType responseCompressionType = compression == CompressionType.INCOMPRESSIBLE ? CompressionType.NONE : compression;
             Compressor.Compression compressionResult = compressor.compress(responseCompressionType, slimeBytes);
             GetDocsumsResponse response = new GetDocsumsResponse(compressionResult.type().getCode(), slimeBytes.length,
@@ -102,6 +89,11 @@ public class MockClient implements Client {
                 return;
             }
 
+            if (rpcMethod.equals("vespa.searchprotocol.getDocsums")) {
+                respondWithDocsums(compression, uncompressedLength, compressedPayload, responseReceiver);
+                return;
+            }
+
             if(searchResult == null) {
                 responseReceiver.receive(ResponseOrError.fromError("No result defined"));
                 return;
@@ -112,6 +104,49 @@ public class MockClient implements Client {
             responseReceiver.receive(ResponseOrError.fromResponse(response));
         }
 
+        private void respondWithDocsums(CompressionType compression, int uncompressedLength, byte[] compressedPayload,
+                                        ResponseReceiver responseReceiver) {
+            try {
+                var request = SearchProtocol.DocsumRequest.parseFrom(compressor.decompress(compressedPayload, compression, uncompressedLength));
+                requestedSummaryFields.add(List.copyOf(request.getFieldsList()));
+                List<GlobalId> globalIds = new ArrayList<>();
+                for (ByteString gid : request.getGlobalIdsList())
+                    globalIds.add(new GlobalId(gid.toByteArray()));
+                byte[] slimeBytes = docsumsSlime(request.getSummaryClass(), globalIds, request.getFieldsList());
+                var payload = SearchProtocol.DocsumReply.newBuilder().setSlimeSummaries(ByteString.copyFrom(slimeBytes)).build().toByteArray();
+                CompressionType responseCompressionType = compression == CompressionType.INCOMPRESSIBLE ? CompressionType.NONE : compression;
+                var compressionResult = compressor.compress(responseCompressionType, payload);
+                var response = new ProtobufResponse(compressionResult.type().getCode(), payload.length, compressionResult.data());
+                responseReceiver.receive(ResponseOrError.fromResponse(response));
+            } catch (InvalidProtocolBufferException e) {
+                responseReceiver.receive(ResponseOrError.fromError("Invalid docsum request: " + e.getMessage()));
+            }
+        }
+
+        /** Returns the docsums of the given documents, restricted to the given fields unless empty */
+        private byte[] docsumsSlime(String docsumClass, List<GlobalId> globalIds, List<String> fields) {
+            Slime responseSlime = new Slime();
+            Cursor root = responseSlime.setObject();
+            Cursor docsums = root.setArray("docsums");
+            for (GlobalId globalId : globalIds) {
+                Map<String, Object> docsumFields = MockClient.this.docsums.get(new DocsumKey(toString(), globalId, docsumClass));
+                if (docsumFields == null) continue;
+
+                Cursor docsumItem = docsums.addObject();
+                Cursor docsum = docsumItem.setObject("docsum");
+                for (Map.Entry<String, Object> field : docsumFields.entrySet()) {
+                    if ( ! fields.isEmpty() && ! fields.contains(field.getKey())) continue;
+                    if (field.getValue() instanceof Integer)
+                        docsum.setLong(field.getKey(), (Integer) field.getValue());
+                    else if (field.getValue() instanceof String)
+                        docsum.setString(field.getKey(), (String) field.getValue());
+                    else
+                        throw new RuntimeException();
+                }
+            }
+            return BinaryFormat.encode(responseSlime);
+        }
+
         @Override
         public void close() { }
 
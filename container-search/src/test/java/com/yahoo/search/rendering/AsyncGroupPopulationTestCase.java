@@ -130,6 +130,8 @@ public class AsyncGroupPopulationTestCase {
                 result.getQuery());
         WrappedFuture<DataList<Hit>> x = (WrappedFuture<DataList<Hit>>) h.incoming().completed();
         x.isListening.get(86_400_000);
+        assertTrue("Hits rendered before completion are written while waiting for more",
+                   waitForOutputContaining(out, "yahoo1"));
         h.incoming().add(new Hit("yahoo2"));
         h.incoming().markComplete();
         Boolean b = f.get();
@@ -141,4 +143,15 @@ public class AsyncGroupPopulationTestCase {
         assertEquals(expected, got);
     }
 
+    private static boolean waitForOutputContaining(ByteArrayOutputStream out, String text) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (out) {
+                if (Utf8.toString(out.toByteArray()).contains(text)) return true;
+            }
+            Thread.sleep(1);
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,110 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.rendering;
+
+import com.yahoo.component.ComponentSpecification;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.slime.BinaryFormat;
+import com.yahoo.slime.Inspector;
+import com.yahoo.slime.Slime;
+import com.yahoo.slime.Type;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests rendering of results in the binary Slime format
+ */
+public class SlimeRendererTestCase {
+
+    @Test
+    public void testRendering() throws ExecutionException, InterruptedException {
+        Tensor tensor = Tensor.from("tensor(x[3]):[1.5, 2, 2.5]");
+        Result result = new Result(new Query("/?query=a"));
+        result.setTotalHitCount(7);
+        result.setCoverage(new Coverage(500, 500, 1, 1));
+        Hit hit = new Hit("hit1", 0.9);
+        hit.setSource("music");
+        hit.setField("title", "Hello");
+        hit.setField("year", 1999);
+        hit.setField("price", 1.5);
+        hit.setField("free", false);
+        hit.setField("empty", "");
+        hit.setField("$hidden", "hidden");
+        hit.setField("tensor", tensor);
+        hit.setField("tensorField", new TensorFieldValue(tensor));
+        result.hits().add(hit);
+        HitGroup group = new HitGroup("group1");
+        group.add(new Hit("hit2", 0.5));
+        result.hits().add(group);
+        result.hits().addError(ErrorMessage.createTimeout("Too slow"));
+
+        Inspector root = render(result).get().field("root");
+        assertEquals(7, root.field("fields").field("totalCount").asLong());
+        assertEquals(500, root.field("coverage").field("documents").asLong());
+        assertEquals(ErrorMessage.createTimeout("").getCode(), root.field("errors").entry(0).field("code").asLong());
+
+        Inspector children = root.field("children");
+        assertEquals(2, children.entries());
+        Inspector renderedHit = children.entry(0);
+        assertEquals("hit1", renderedHit.field("id").asString());
+        assertEquals(0.9, renderedHit.field("relevance").asDouble(), 0.0);
+        assertEquals("music", renderedHit.field("source").asString());
+
+        Inspector fields = renderedHit.field("fields");
+        assertEquals("Hello", fields.field("title").asString());
+        assertEquals(Type.LONG, fields.field("year").type());
+        assertEquals(1999, fields.field("year").asLong());
+        assertEquals(1.5, fields.field("price").asDouble(), 0.0);
+        assertFalse(fields.field("free").asBool());
+        assertFalse(fields.field("empty").valid());
+        assertFalse(fields.field("$hidden").valid());
+        assertEquals(Type.DATA, fields.field("tensor").type());
+        assertEquals(tensor, decode(tensor, fields.field("tensor")));
+        assertEquals(tensor, decode(tensor, fields.field("tensorField")));
+
+        Inspector renderedGroup = children.entry(1);
+        assertEquals("group1", renderedGroup.field("id").asString());
+        assertEquals("hit2", renderedGroup.field("children").entry(0).field("id").asString());
+    }
+
+    @Test
+    public void testRendererIsSelectedByFormat() {
+        RendererRegistry registry = new RendererRegistry();
+        try {
+            assertTrue(registry.getRenderer(ComponentSpecification.fromString("slime")) instanceof SlimeRenderer);
+            assertTrue(registry.getRenderer(RendererRegistry.slimeRendererId.toSpecification()) instanceof SlimeRenderer);
+        }
+        finally {
+            registry.deconstruct();
+        }
+    }
+
+    private static Tensor decode(Tensor expected, Inspector data) {
+        return TypedBinaryFormat.decode(Optional.of(expected.type()), GrowableByteBuffer.wrap(data.asData()));
+    }
+
+    private Slime render(Result result) throws ExecutionException, InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SlimeRenderer renderer = new SlimeRenderer();
+        renderer.init();
+        assertTrue(renderer.render(out, result, new Execution(Execution.Context.createContextStub()), result.getQuery()).get());
+        return BinaryFormat.decode(out.toByteArray());
+    }
+
+}
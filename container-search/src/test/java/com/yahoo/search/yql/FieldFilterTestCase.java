@@ -4,6 +4,9 @@ package com.yahoo.search.yql;
 import static org.junit.Assert.*;
 
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -87,4 +90,29 @@ public class FieldFilterTestCase {
         assertTrue(result.hits().get(0).fieldKeys().contains(FIELD_C));
     }
 
+    @Test
+    public final void testFillIsMarkedAsFilteredOnlyWhileFiltering() {
+        List<Boolean> markedFills = new ArrayList<>();
+        Searcher fillObserver = new Searcher() {
+            @Override
+            public Result search(Query query, Execution execution) { return execution.search(query); }
+            @Override
+            public void fill(Result result, String summaryClass, Execution execution) {
+                markedFills.add(result.getQuery().properties().getBoolean(FieldFilter.FIELD_FILTER_FILL));
+                execution.fill(result, summaryClass);
+            }
+        };
+        Execution execution = new Execution(new Chain<Searcher>(new FieldFilter(), fillObserver, searchChain.components().get(1)),
+                                            context);
+
+        Query filteredQuery = new Query("?query=test&presentation.summaryFields=" + FIELD_B);
+        Result result = execution.search(filteredQuery);
+        execution.fill(result);
+        assertFalse(filteredQuery.properties().getBoolean(FieldFilter.FIELD_FILTER_FILL));
+
+        Query query = new Query("?query=test");
+        execution.fill(execution.search(query));
+        assertEquals(List.of(true, false), markedFills);
+    }
+
 }
@@ -14,6 +14,7 @@ import com.yahoo.document.serialization.FieldWriter;
 import com.yahoo.document.serialization.SerializationException;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
+import com.yahoo.io.BufferPool;
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.vespa.objects.Ids;
 import com.yahoo.vespa.objects.Serializer;
@@ -131,9 +132,12 @@ public class Document extends StructuredFieldValue {
     }
 
     public int getSerializedSize() throws SerializationException {
-        DocumentSerializer data = DocumentSerializerFactory.create6(new GrowableByteBuffer(64 * 1024, 2.0f));
+        GrowableByteBuffer buffer = BufferPool.acquire();
+        DocumentSerializer data = DocumentSerializerFactory.create6(buffer);
         data.write(this);
-        return data.getBuf().position();
+        int size = buffer.position();
+        BufferPool.release(buffer);
+        return size;
     }
 
     /**
@@ -143,9 +147,9 @@ public class Document extends StructuredFieldValue {
     public final int getApproxSize() { return 4096; }
 
     public void serialize(OutputStream out) throws SerializationException {
-        DocumentSerializer writer = DocumentSerializerFactory.create6(new GrowableByteBuffer(64 * 1024, 2.0f));
+        GrowableByteBuffer data = BufferPool.acquire();
+        DocumentSerializer writer = DocumentSerializerFactory.create6(data);
         writer.write(this);
-        GrowableByteBuffer data = writer.getBuf();
         byte[] array;
         if (data.hasArray()) {
             //just get the array
@@ -163,6 +167,7 @@ public class Document extends StructuredFieldValue {
         } catch (IOException ioe) {
             throw new SerializationException(ioe);
         }
+        BufferPool.release(data);
     }
 
     public static Document createDocument(DocumentReader buffer) {
@@ -4,20 +4,14 @@ package com.yahoo.document.json;
 import java.io.InputStream;
 
 import com.fasterxml.jackson.core.JsonFactory;
-import com.yahoo.document.DocumentOperation;
-import com.yahoo.document.DocumentPut;
-import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentTypeManager;
-import com.yahoo.document.DocumentUpdate;
-import com.yahoo.vespaxmlparser.DocumentFeedOperation;
-import com.yahoo.vespaxmlparser.DocumentUpdateFeedOperation;
 import com.yahoo.vespaxmlparser.FeedOperation;
 import com.yahoo.vespaxmlparser.FeedReader;
-import com.yahoo.vespaxmlparser.RemoveFeedOperation;
 
 
 /**
  * Facade between JsonReader and the FeedReader API.
+ * Puts are read directly to their serialized form, see {@link JsonReader#nextFeedOperation()}.
  *
  * <p>
  * The feed reader will take ownership of the input stream and close it when the
@@ -38,22 +32,10 @@ public class JsonFeedReader implements FeedReader {
 
     @Override
     public FeedOperation read() throws Exception {
-        DocumentOperation documentOperation = reader.next();
-
-        if (documentOperation == null) {
+        FeedOperation operation = reader.nextFeedOperation();
+        if (operation.getType() == FeedOperation.Type.INVALID)
             stream.close();
-            return FeedOperation.INVALID;
-        }
-
-        if (documentOperation instanceof DocumentUpdate) {
-            return new DocumentUpdateFeedOperation((DocumentUpdate) documentOperation, documentOperation.getCondition());
-        } else if (documentOperation instanceof DocumentRemove) {
-            return new RemoveFeedOperation(documentOperation.getId(), documentOperation.getCondition());
-        } else if (documentOperation instanceof DocumentPut) {
-            return new DocumentFeedOperation(((DocumentPut) documentOperation).getDocument(), documentOperation.getCondition());
-        } else {
-            throw new IllegalArgumentException("Got unknown class from JSON reader: " + documentOperation.getClass().getName());
-        }
+        return operation;
     }
 
 }
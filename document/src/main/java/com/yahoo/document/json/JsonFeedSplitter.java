@@ -0,0 +1,180 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Splits a JSON feed, which is an array of operation objects, into batches of operations without parsing them.
+ * Only the nesting of objects and arrays, and string quotes and escapes, are tracked to find where
+ * each operation ends, so the operations in each batch can be parsed independently later.
+ */
+class JsonFeedSplitter {
+
+    private enum State { BEFORE_ARRAY, BEFORE_FIRST, IN_OPERATION, AFTER_OPERATION, BEFORE_NEXT, END }
+
+    private final InputStream in;
+    private final int batchBytes;
+    private final byte[] input = new byte[1 << 16];
+    private int position = 0;
+    private int limit = 0;
+
+    private State state = State.BEFORE_ARRAY;
+    private int depth = 0;
+    private boolean inString = false;
+    private boolean escaped = false;
+    private IllegalArgumentException failure = null;
+
+    /**
+     * Creates a splitter of the given feed.
+     *
+     * @param in the feed to split
+     * @param batchBytes the number of bytes after which a batch is ended when an operation is complete
+     */
+    JsonFeedSplitter(InputStream in, int batchBytes) {
+        this.in = in;
+        this.batchBytes = batchBytes;
+    }
+
+    /**
+     * Returns the next batch of operations, or null if there are no more operations in the feed.
+     * Operations which are complete before an error in the feed are returned before the error is thrown.
+     *
+     * @throws IllegalArgumentException if the feed is not an array of objects, or is incomplete
+     */
+    Batch next() throws IOException {
+        Batch batch = new Batch(batchBytes);
+        while (failure == null && state != State.END && (state == State.IN_OPERATION || batch.length < batchBytes)) {
+            try {
+                if (position == limit && ! fill())
+                    throw new IllegalArgumentException(state == State.BEFORE_ARRAY ? "Expected start of array, got end of input"
+                                                                                   : "Unexpected end of input in feed array");
+                if (state == State.IN_OPERATION)
+                    scanOperation(batch);
+                else
+                    scanStructure(batch);
+            }
+            catch (IllegalArgumentException e) {
+                failure = e;
+                state = State.END;
+            }
+        }
+        if (batch.size() > 0) return batch;
+        if (failure == null) return null;
+
+        IllegalArgumentException e = failure;
+        failure = null;
+        throw e;
+    }
+
+    /** Consumes the bytes of the current operation, until its end or the end of the input buffer */
+    private void scanOperation(Batch batch) {
+        int start = position;
+        for ( ; position < limit; position++) {
+            byte b = input[position];
+            if (inString) {
+                if (escaped) escaped = false;
+                else if (b == '\\') escaped = true;
+                else if (b == '"') inString = false;
+            }
+            else if (b == '"') inString = true;
+            else if (b == '{' || b == '[') depth++;
+            else if ((b == '}' || b == ']') && --depth == 0) {
+                position++;
+                batch.append(input, start, position - start);
+                batch.endOperation();
+                state = State.AFTER_OPERATION;
+                return;
+            }
+        }
+        batch.append(input, start, position - start);
+    }
+
+    /** Consumes a single byte between operations */
+    private void scanStructure(Batch batch) {
+        byte b = input[position++];
+        if (isWhitespace(b)) return;
+        switch (state) {
+            case BEFORE_ARRAY:
+                if (b != '[') throw unexpected(b, "start of array");
+                state = State.BEFORE_FIRST;
+                break;
+            case BEFORE_FIRST:
+                if (b == ']') state = State.END;
+                else startOperation(b, batch);
+                break;
+            case AFTER_OPERATION:
+                if (b == ',') state = State.BEFORE_NEXT;
+                else if (b == ']') state = State.END;
+                else throw unexpected(b, "',' or ']'");
+                break;
+            case BEFORE_NEXT:
+                startOperation(b, batch);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state " + state);
+        }
+    }
+
+    private void startOperation(byte b, Batch batch) {
+        if (b != '{') throw unexpected(b, "start of an operation object");
+        batch.append(input, position - 1, 1);
+        depth = 1;
+        state = State.IN_OPERATION;
+    }
+
+    private boolean fill() throws IOException {
+        position = 0;
+        limit = Math.max(0, in.read(input));
+        return limit > 0;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static IllegalArgumentException unexpected(byte b, String expected) {
+        return new IllegalArgumentException("Expected " + expected + ", got '" + (char)(b & 0xff) + "'");
+    }
+
+    /** A batch of complete operations, stored back to back */
+    static class Batch {
+
+        private byte[] data;
+        private int length = 0;
+        private int[] ends = new int[16];
+        private int size = 0;
+
+        private Batch(int initialCapacity) {
+            data = new byte[initialCapacity];
+        }
+
+        private void append(byte[] bytes, int offset, int count) {
+            if (length + count > data.length)
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + count));
+            System.arraycopy(bytes, offset, data, length, count);
+            length += count;
+        }
+
+        private void endOperation() {
+            if (size == ends.length)
+                ends = Arrays.copyOf(ends, size * 2);
+            ends[size++] = length;
+        }
+
+        /** Returns the number of operations in this */
+        int size() { return size; }
+
+        /** Returns the bytes holding all the operations of this */
+        byte[] data() { return data; }
+
+        /** Returns the offset of the given operation in the data of this */
+        int offset(int operation) { return operation == 0 ? 0 : ends[operation - 1]; }
+
+        /** Returns the length of the given operation */
+        int length(int operation) { return ends[operation] - offset(operation); }
+
+    }
+
+}
@@ -8,10 +8,15 @@ import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentOperation;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.document.json.document.DocumentParser;
 import com.yahoo.document.json.readers.DocumentParseInfo;
 import com.yahoo.document.json.readers.VespaJsonDocumentReader;
+import com.yahoo.vespaxmlparser.DocumentUpdateFeedOperation;
+import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.RemoveFeedOperation;
+import com.yahoo.vespaxmlparser.SerializedDocumentFeedOperation;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -53,6 +58,22 @@ public class JsonReader {
         }
     }
 
+    /**
+     * Creates a reader of the single operation object in the given range of bytes,
+     * which is not enclosed in an array, as split out of a feed by {@link JsonFeedSplitter}.
+     */
+    JsonReader(DocumentTypeManager typeManager, byte[] data, int offset, int length, JsonFactory parserFactory) {
+        this.typeManager = typeManager;
+        this.state = ReaderState.READING;
+
+        try {
+            parser = parserFactory.createParser(data, offset, length);
+        } catch (IOException e) {
+            state = END_OF_FEED;
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     /**
      * Reads a single operation. The operation is not expected to be part of an array.
      *
@@ -80,6 +101,49 @@ public class JsonReader {
 
     /** Returns the next document operation, or null if we have reached the end */
     public DocumentOperation next() {
+        Optional<DocumentParseInfo> documentParseInfo = nextDocumentParseInfo();
+        if ( ! documentParseInfo.isPresent()) return null;
+
+        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
+        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
+                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
+                documentParseInfo.get());
+        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
+        return operation;
+    }
+
+    /**
+     * Returns the next operation as a feed operation, or FeedOperation.INVALID if we have reached the end.
+     * The document of a put is written directly from JSON to its serialized form, and is only
+     * created if it is requested from the returned operation.
+     */
+    public FeedOperation nextFeedOperation() {
+        Optional<DocumentParseInfo> documentParseInfo = nextDocumentParseInfo();
+        if ( ! documentParseInfo.isPresent()) return FeedOperation.INVALID;
+
+        DocumentParseInfo parseInfo = documentParseInfo.get();
+        DocumentType documentType = getDocumentTypeFromString(parseInfo.documentId.getDocType(), typeManager);
+        TestAndSetCondition condition = TestAndSetCondition.fromConditionString(parseInfo.condition);
+        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
+        switch (parseInfo.operationType) {
+            case PUT:
+                return new SerializedDocumentFeedOperation(parseInfo.documentId,
+                                                           vespaJsonDocumentReader.serializePut(documentType, parseInfo),
+                                                           condition,
+                                                           typeManager);
+            case UPDATE:
+                return new DocumentUpdateFeedOperation((DocumentUpdate)vespaJsonDocumentReader.createDocumentOperation(documentType, parseInfo),
+                                                       condition);
+            case REMOVE:
+                return new RemoveFeedOperation(vespaJsonDocumentReader.createDocumentOperation(documentType, parseInfo).getId(),
+                                               condition);
+            default:
+                throw new IllegalStateException("Implementation out of sync with itself. This is a bug.");
+        }
+    }
+
+    /** Returns information about the next document operation, or empty if we have reached the end */
+    private Optional<DocumentParseInfo> nextDocumentParseInfo() {
         switch (state) {
             case AT_START:
                 JsonToken t = nextToken(parser);
@@ -87,7 +151,7 @@ public class JsonReader {
                 state = ReaderState.READING;
                 break;
             case END_OF_FEED:
-                return null;
+                return Optional.empty();
             case READING:
                 break;
         }
@@ -99,19 +163,11 @@ public class JsonReader {
             state = END_OF_FEED;
             throw new IllegalArgumentException(r);
         }
-        if ( ! documentParseInfo.isPresent()) {
+        if ( ! documentParseInfo.isPresent())
             state = END_OF_FEED;
-            return null;
-        }
-        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
-                documentParseInfo.get());
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
-        return operation;
+        return documentParseInfo;
     }
 
-
     public DocumentType readDocumentType(DocumentId docId) {
         return getDocumentTypeFromString(docId.getDocType(), typeManager);
     }
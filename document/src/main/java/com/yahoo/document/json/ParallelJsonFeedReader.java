@@ -0,0 +1,127 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.FeedReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A feed reader of JSON feeds which parses the operations of the feed in parallel.
+ *
+ * The feed is split into batches of operations in the reading thread, by finding where each operation
+ * ends without parsing it, and the batches are parsed by the given executor. Operations are returned
+ * in the order of the feed, so the order of operations on each document is preserved.
+ * Reading an invalid operation throws where it occurs in the feed, and reading may continue with the
+ * following operations, unless the feed itself is not a well-formed array of objects.
+ *
+ * <p>
+ * The feed reader will take ownership of the input stream and close it when the
+ * last parseable document has been read.
+ */
+public class ParallelJsonFeedReader implements FeedReader {
+
+    private static final int batchBytes = 1 << 16;
+    private static final JsonFactory jsonFactory = new JsonFactory().disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES);
+
+    private final InputStream stream;
+    private final DocumentTypeManager typeManager;
+    private final JsonFeedSplitter splitter;
+    private final Executor executor;
+    private final int maxPendingBatches;
+
+    private final Deque<CompletableFuture<Parsed[]>> pending = new ArrayDeque<>();
+    private Iterator<Parsed> current = Collections.emptyIterator();
+    private boolean endOfFeed = false;
+
+    /**
+     * Creates a feed reader which parses the given feed in the given executor.
+     *
+     * @param stream the feed to read
+     * @param typeManager the document types of the feed
+     * @param executor the executor to parse batches of operations in
+     * @param parallelism the number of threads of the executor available for parsing, which determines
+     *                    how many batches of operations are read ahead of the one currently returned
+     */
+    public ParallelJsonFeedReader(InputStream stream, DocumentTypeManager typeManager, Executor executor, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be positive, but was " + parallelism);
+        this.stream = stream;
+        this.typeManager = typeManager;
+        this.splitter = new JsonFeedSplitter(stream, batchBytes);
+        this.executor = executor;
+        this.maxPendingBatches = 2 * parallelism;
+    }
+
+    @Override
+    public FeedOperation read() throws Exception {
+        while ( ! current.hasNext()) {
+            readAhead();
+            if (pending.isEmpty()) {
+                stream.close();
+                return FeedOperation.INVALID;
+            }
+            current = Arrays.asList(pending.removeFirst().join()).iterator();
+        }
+        Parsed parsed = current.next();
+        if (parsed.failure != null) throw parsed.failure;
+        return parsed.operation;
+    }
+
+    /** Splits out and starts parsing batches until enough are pending, or the feed is exhausted */
+    private void readAhead() throws IOException {
+        while ( ! endOfFeed && pending.size() < maxPendingBatches) {
+            JsonFeedSplitter.Batch batch;
+            try {
+                batch = splitter.next();
+            }
+            catch (IllegalArgumentException e) {
+                pending.add(CompletableFuture.completedFuture(new Parsed[] { new Parsed(null, e) }));
+                endOfFeed = true;
+                return;
+            }
+            if (batch == null) {
+                endOfFeed = true;
+                return;
+            }
+            pending.add(CompletableFuture.supplyAsync(() -> parse(batch), executor));
+        }
+    }
+
+    private Parsed[] parse(JsonFeedSplitter.Batch batch) {
+        Parsed[] parsed = new Parsed[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                JsonReader reader = new JsonReader(typeManager, batch.data(), batch.offset(i), batch.length(i), jsonFactory);
+                parsed[i] = new Parsed(reader.nextFeedOperation(), null);
+            }
+            catch (RuntimeException e) {
+                parsed[i] = new Parsed(null, e);
+            }
+        }
+        return parsed;
+    }
+
+    /** An operation, or the failure to parse it */
+    private static class Parsed {
+
+        final FeedOperation operation;
+        final RuntimeException failure;
+
+        Parsed(FeedOperation operation, RuntimeException failure) {
+            this.operation = operation;
+            this.failure = failure;
+        }
+
+    }
+
+}
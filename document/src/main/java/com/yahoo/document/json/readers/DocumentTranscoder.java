@@ -0,0 +1,245 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json.readers;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.base.Preconditions;
+import com.yahoo.compress.Compressor;
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.Field;
+import com.yahoo.document.json.JsonReaderException;
+import com.yahoo.document.json.TokenBuffer;
+import com.yahoo.document.serialization.DocumentSerializer;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.io.BufferPool;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.text.Text;
+import com.yahoo.text.Utf8;
+
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.TreeMap;
+
+import static com.yahoo.document.json.readers.JsonParserHelpers.expectCompositeEnd;
+import static com.yahoo.document.json.readers.SingleValueReader.readSingleValue;
+
+/**
+ * Writes the fields of a document put directly from JSON tokens to the serialized document format,
+ * without creating a document. Fields of primitive types, and arrays of those, are written straight
+ * from the token text. Other values are read into field values and serialized one by one.
+ *
+ * The result is the same as serializing the document created from the same JSON, and the
+ * same errors are reported for invalid input.
+ */
+public class DocumentTranscoder {
+
+    private final DocumentType type;
+    private final GrowableByteBuffer fields = BufferPool.acquire();
+    private final DocumentSerializer fieldSerializer = DocumentSerializerFactory.create6(fields);
+
+    /** The position and length of each field in the fields buffer, by field id, in the order they are serialized */
+    private final Map<Integer, int[]> fieldRanges = new TreeMap<>();
+
+    private DocumentTranscoder(DocumentType type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the serialized document having the given id, type and fields.
+     *
+     * @param type the type of the document
+     * @param id the id of the document
+     * @param buffer the "fields" object of the document, positioned at the start of the object
+     * @throws IllegalArgumentException if the fields are not valid in the given type
+     */
+    public static byte[] transcode(DocumentType type, DocumentId id, TokenBuffer buffer) {
+        return new DocumentTranscoder(type).transcode(id, buffer);
+    }
+
+    private byte[] transcode(DocumentId id, TokenBuffer buffer) {
+        JsonToken token = buffer.currentToken();
+        if ((token != JsonToken.START_OBJECT) && (token != JsonToken.START_ARRAY))
+            throw new IllegalArgumentException("Expected '[' or '{'. Got '" + token + "'.");
+        readFields(buffer);
+        expectCompositeEnd(buffer.currentToken());
+
+        GrowableByteBuffer out = BufferPool.acquire(fields.position() + 128);
+        DocumentSerializer serializer = DocumentSerializerFactory.create6(out);
+        out.putShort(Document.SERIALIZED_VERSION);
+        int lengthPosition = out.position();
+        out.putInt(0);
+        serializer.write(id);
+        out.put(fieldRanges.isEmpty() ? (byte)0x01 : (byte)0x03); // has type, and maybe a header struct
+        serializer.write(type);
+        if ( ! fieldRanges.isEmpty())
+            writeStruct(out);
+        int endPosition = out.position();
+        out.position(lengthPosition);
+        out.putInt(endPosition - lengthPosition - 4);
+        out.position(endPosition);
+
+        out.flip();
+        byte[] document = new byte[out.remaining()];
+        out.get(document);
+        BufferPool.release(out);
+        BufferPool.release(fields);
+        return document;
+    }
+
+    /** Reads the fields of the document into the fields buffer, mirroring StructReader.fillStruct */
+    private void readFields(TokenBuffer buffer) {
+        int initNesting = buffer.nesting();
+        buffer.next();
+
+        while (buffer.nesting() >= initNesting) {
+            Field field = getField(buffer);
+            try {
+                // skip fields set to null
+                if (buffer.currentToken() != JsonToken.VALUE_NULL) {
+                    int start = fields.position();
+                    writeValue(buffer, field);
+                    fieldRanges.put(field.getId(), new int[] { start, fields.position() - start });
+                }
+                buffer.next();
+            } catch (IllegalArgumentException e) {
+                throw new JsonReaderException(field, e);
+            }
+        }
+    }
+
+    private void writeValue(TokenBuffer buffer, Field field) {
+        DataType dataType = field.getDataType();
+        if (buffer.currentToken().isScalarValue() && writePrimitive(buffer.currentText(), dataType)) return;
+        if (buffer.currentToken() == JsonToken.START_ARRAY && dataType instanceof ArrayDataType
+            && isPrimitive(((ArrayDataType)dataType).getNestedType())) {
+            writePrimitiveArray(buffer, ((ArrayDataType)dataType).getNestedType());
+            return;
+        }
+        readSingleValue(buffer, dataType).serialize(field, fieldSerializer);
+    }
+
+    /** Writes the elements of an array of primitives, mirroring ArrayReader.fillArray */
+    private void writePrimitiveArray(TokenBuffer buffer, DataType elementType) {
+        int initNesting = buffer.nesting();
+        buffer.next();
+
+        int start = fields.position();
+        int size = 0;
+        while (buffer.nesting() >= initNesting) {
+            Preconditions.checkArgument(buffer.currentToken() != JsonToken.VALUE_NULL, "Illegal null value for array entry");
+            if ( ! buffer.currentToken().isScalarValue() || ! writePrimitive(buffer.currentText(), elementType))
+                readSingleValue(buffer, elementType).serialize(null, fieldSerializer);
+            size++;
+            buffer.next();
+        }
+        expectCompositeEnd(buffer.currentToken());
+
+        // The size precedes the elements, using as few bytes as possible, so move the elements after it
+        byte[] elements = new byte[fields.position() - start];
+        fields.position(start);
+        fields.get(elements);
+        fields.position(start);
+        fields.putInt1_2_4Bytes(size);
+        fields.put(elements);
+    }
+
+    /**
+     * Writes the given text as a value of the given type if it is a primitive type,
+     * in the same way as the field value created from the text would be serialized.
+     *
+     * @return whether the type is primitive, such that the value was written
+     */
+    private boolean writePrimitive(String text, DataType type) {
+        if ( ! isPrimitive(type)) return false;
+        try {
+            if (type == DataType.STRING)
+                writeString(text);
+            else if (type == DataType.INT)
+                fields.putInt(Integer.parseInt(text));
+            else if (type == DataType.LONG)
+                fields.putLong(Long.parseLong(text));
+            else if (type == DataType.DOUBLE)
+                fields.putDouble(Double.parseDouble(text));
+            else if (type == DataType.FLOAT)
+                fields.putFloat(Float.parseFloat(text));
+            else if (type == DataType.BYTE)
+                fields.put(Byte.parseByte(text));
+            else // bool
+                fields.put(Boolean.parseBoolean(text) ? (byte)1 : (byte)0);
+            return true;
+        }
+        catch (IllegalArgumentException e) { // wrapped as when the field value constructor is invoked by reflection
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private void writeString(String text) {
+        OptionalInt illegalCodePoint = Text.validateTextString(text);
+        if (illegalCodePoint.isPresent())
+            throw new IllegalArgumentException("The string field value contains illegal code point 0x" +
+                                               Integer.toHexString(illegalCodePoint.getAsInt()).toUpperCase());
+        byte[] bytes = Utf8.toBytes(text);
+        fields.put((byte)0); // coding: no span trees
+        fields.putInt1_4Bytes(bytes.length + 1);
+        fields.put(bytes);
+        fields.put((byte)0);
+    }
+
+    private static boolean isPrimitive(DataType type) {
+        return type == DataType.STRING || type == DataType.INT || type == DataType.LONG || type == DataType.DOUBLE ||
+               type == DataType.FLOAT || type == DataType.BYTE || type == DataType.BOOL;
+    }
+
+    /** Writes the fields as the header struct of the document, in the same way as a struct is serialized */
+    private void writeStruct(GrowableByteBuffer out) {
+        int uncompressedSize = 0;
+        for (int[] range : fieldRanges.values())
+            uncompressedSize += range[1];
+        byte[] data = new byte[uncompressedSize];
+        int offset = 0;
+        for (int[] range : fieldRanges.values()) {
+            fields.position(range[0]);
+            fields.get(data, offset, range[1]);
+            offset += range[1];
+        }
+
+        Compressor.Compression compression = type.contentStruct().getCompressor().compress(data, data.length);
+        boolean compressed = compression.data() != null && compression.type().isCompressed();
+
+        int lengthPosition = out.position();
+        out.putInt(0); // Rewritten below when the length is known
+        out.put(compression.type().getCode());
+        if (compressed)
+            out.putInt2_4_8Bytes(uncompressedSize);
+        out.putInt1_4Bytes(fieldRanges.size());
+        for (Map.Entry<Integer, int[]> field : fieldRanges.entrySet()) {
+            out.putInt1_4Bytes(field.getKey());
+            out.putInt2_4_8Bytes(field.getValue()[1]);
+        }
+        int dataPosition = out.position();
+        out.put(compressed ? compression.data() : data);
+        int endPosition = out.position();
+        out.position(lengthPosition);
+        out.putInt(endPosition - dataPosition);
+        out.position(endPosition);
+    }
+
+    /** Returns the field having the current name, mirroring StructReader.getField on a document */
+    private Field getField(TokenBuffer buffer) {
+        Field field = type.contentStruct().getField(buffer.currentName());
+        if (field == null) {
+            for (DocumentType parent : type.getInheritedTypes()) {
+                field = parent.getField(buffer.currentName());
+                if (field != null) break;
+            }
+        }
+        if (field == null)
+            throw new IllegalArgumentException("No field '" + buffer.currentName() + "' in the structure of type '" +
+                                               type.getDataTypeName() + "'");
+        return field;
+    }
+
+}
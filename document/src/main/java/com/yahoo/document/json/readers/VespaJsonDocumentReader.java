@@ -16,6 +16,7 @@ import com.yahoo.document.fieldpathupdate.AddFieldPathUpdate;
 import com.yahoo.document.fieldpathupdate.AssignFieldPathUpdate;
 import com.yahoo.document.fieldpathupdate.FieldPathUpdate;
 import com.yahoo.document.fieldpathupdate.RemoveFieldPathUpdate;
+import com.yahoo.document.json.DocumentOperationType;
 import com.yahoo.document.json.JsonReaderException;
 import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.update.FieldUpdate;
@@ -77,6 +78,27 @@ public class VespaJsonDocumentReader {
         return documentOperation;
     }
 
+    /**
+     * Returns the document of the given put operation in its serialized form, written directly
+     * from the JSON fields without creating a document.
+     */
+    public byte[] serializePut(DocumentType documentType, DocumentParseInfo documentParseInfo) {
+        Preconditions.checkArgument(documentParseInfo.operationType == DocumentOperationType.PUT,
+                                    "Expected a put operation, got %s", documentParseInfo.operationType);
+        byte[] document;
+        try {
+            if (documentParseInfo.fieldsBuffer.isEmpty()) // no "fields" map
+                throw new IllegalArgumentException("put of document " + documentParseInfo.documentId + " is missing a 'fields' map");
+            document = DocumentTranscoder.transcode(documentType, documentParseInfo.documentId, documentParseInfo.fieldsBuffer);
+            verifyEndState(documentParseInfo.fieldsBuffer, JsonToken.END_OBJECT);
+        } catch (JsonReaderException e) {
+            throw JsonReaderException.addDocId(e, documentParseInfo.documentId);
+        }
+        if (documentParseInfo.create.isPresent())
+            throw new IllegalArgumentException("Could not set create flag on non update operation.");
+        return document;
+    }
+
     // Exposed for unit testing...
     public void readPut(TokenBuffer buffer, DocumentPut put) {
         try {
@@ -52,6 +52,7 @@ import com.yahoo.document.update.TensorAddUpdate;
 import com.yahoo.document.update.TensorModifyUpdate;
 import com.yahoo.document.update.TensorRemoveUpdate;
 import com.yahoo.document.update.ValueUpdate;
+import com.yahoo.io.BufferPool;
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.serialization.TypedBinaryFormat;
 import com.yahoo.vespa.objects.BufferSerializer;
@@ -324,8 +325,8 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         //keep the buffer we're serializing everything into:
         GrowableByteBuffer bigBuffer = buf;
 
-        //create a new buffer and serialize into that for a while:
-        GrowableByteBuffer buffer = new GrowableByteBuffer(4096, 2.0f);
+        //take a pooled buffer and serialize into that for a while:
+        GrowableByteBuffer buffer = BufferPool.acquire();
         buf = buffer;
 
         List<Integer> fieldIds = new LinkedList<>();
@@ -376,6 +377,7 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         buf.position(lenPos);
         putInt(null, dataLength);
         buf.position(posNow);
+        BufferPool.release(buffer); // if this is not reached due to an exception, the buffer is just not reused
     }
 
     /**
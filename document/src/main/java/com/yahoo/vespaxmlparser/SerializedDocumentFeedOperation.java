@@ -0,0 +1,47 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespaxmlparser;
+
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.TestAndSetCondition;
+import com.yahoo.document.serialization.DocumentDeserializerFactory;
+import com.yahoo.io.GrowableByteBuffer;
+
+/**
+ * A put of a document which is already serialized, such that it can be sent without creating the document.
+ * The document is only deserialized if it is requested.
+ */
+public class SerializedDocumentFeedOperation extends ConditionalFeedOperation {
+
+    private final DocumentId documentId;
+    private final byte[] serializedDocument;
+    private final DocumentTypeManager typeManager;
+    private Document document = null;
+
+    public SerializedDocumentFeedOperation(DocumentId documentId, byte[] serializedDocument,
+                                           TestAndSetCondition condition, DocumentTypeManager typeManager) {
+        super(Type.DOCUMENT, condition);
+        this.documentId = documentId;
+        this.serializedDocument = serializedDocument;
+        this.typeManager = typeManager;
+    }
+
+    /** Returns the id of the document to put */
+    public DocumentId getDocumentId() { return documentId; }
+
+    /** Returns the document to put, serialized in the current document format. This must not be modified. */
+    public byte[] getSerializedDocument() { return serializedDocument; }
+
+    /** Returns the document types which can deserialize the document */
+    public DocumentTypeManager getDocumentTypeManager() { return typeManager; }
+
+    /** Returns the document to put, which is deserialized the first time this is called */
+    @Override
+    public Document getDocument() {
+        if (document == null)
+            document = new Document(DocumentDeserializerFactory.create6(typeManager, GrowableByteBuffer.wrap(serializedDocument)));
+        return document;
+    }
+
+}
@@ -0,0 +1,220 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.MapDataType;
+import com.yahoo.document.StructDataType;
+import com.yahoo.document.TensorDataType;
+import com.yahoo.document.WeightedSetDataType;
+import com.yahoo.document.serialization.DocumentSerializer;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.text.Utf8;
+import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.SerializedDocumentFeedOperation;
+import com.yahoo.yolean.Exceptions;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Collections;
+
+import static com.yahoo.test.json.JsonTestHelper.inputJson;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that puts read directly to their serialized form are equal to serialized puts read as documents.
+ */
+public class DocumentTranscoderTestCase {
+
+    private DocumentTypeManager types;
+
+    @Before
+    public void setUp() {
+        types = new DocumentTypeManager();
+        StructDataType struct = new StructDataType("point");
+        struct.addField(new Field("name", DataType.STRING));
+        struct.addField(new Field("x", DataType.INT));
+        DocumentType parent = new DocumentType("parent");
+        parent.addField(new Field("inherited", DataType.STRING));
+        types.registerDocumentType(parent);
+        DocumentType type = new DocumentType("transcoded");
+        type.inherit(parent);
+        type.addField(new Field("string", DataType.STRING));
+        type.addField(new Field("int", DataType.INT));
+        type.addField(new Field("long", DataType.LONG));
+        type.addField(new Field("double", DataType.DOUBLE));
+        type.addField(new Field("float", DataType.FLOAT));
+        type.addField(new Field("byte", DataType.BYTE));
+        type.addField(new Field("bool", DataType.BOOL));
+        type.addField(new Field("strings", new ArrayDataType(DataType.STRING)));
+        type.addField(new Field("ints", new ArrayDataType(DataType.INT)));
+        type.addField(new Field("points", new ArrayDataType(struct)));
+        type.addField(new Field("point", struct));
+        type.addField(new Field("map", new MapDataType(DataType.STRING, DataType.INT)));
+        type.addField(new Field("set", new WeightedSetDataType(DataType.STRING, true, true)));
+        type.addField(new Field("raw", DataType.RAW));
+        type.addField(new Field("tensor", new TensorDataType(TensorType.fromSpec("tensor(x{},y[2])"))));
+        types.registerDocumentType(type);
+    }
+
+    @Test
+    public void testPrimitiveFields() {
+        assertTranscoded("{ 'put': 'id:unittest:transcoded::doc1',",
+                         "  'fields': {",
+                         "    'string': 'hello, wörld',",
+                         "    'int': -42,",
+                         "    'long': 12345678901,",
+                         "    'double': 3.25,",
+                         "    'float': '-0.5',",
+                         "    'byte': 7,",
+                         "    'bool': true,",
+                         "    'inherited': 'from parent'",
+                         "  }",
+                         "}");
+    }
+
+    @Test
+    public void testArraysOfPrimitives() {
+        assertTranscoded("{ 'put': 'id:unittest:transcoded::doc1',",
+                         "  'fields': {",
+                         "    'strings': [ 'a', 'b', '' ],",
+                         "    'ints': [ " + String.join(", ", Collections.nCopies(300, "1")) + " ]",
+                         "  }",
+                         "}");
+        assertTranscoded("{ 'put': 'id:unittest:transcoded::doc1',",
+                         "  'fields': {",
+                         "    'strings': []",
+                         "  }",
+                         "}");
+    }
+
+    @Test
+    public void testComplexFields() {
+        assertTranscoded("{ 'put': 'id:unittest:transcoded::doc1',",
+                         "  'fields': {",
+                         "    'points': [ { 'name': 'origin', 'x': 0 }, { 'x': 1 } ],",
+                         "    'point': { 'name': 'p', 'x': 3 },",
+                         "    'map': { 'a': 1, 'b': 2 },",
+                         "    'set': { 'x': 10, 'y': 20 },",
+                         "    'raw': 'AQID',",
+                         "    'tensor': { 'cells': [ { 'address': { 'x': 'a', 'y': '1' }, 'value': 2.0 } ] },",
+                         "    'string': 'after'",
+                         "  }",
+                         "}");
+    }
+
+    @Test
+    public void testNullAndRepeatedFields() {
+        assertTranscoded("{ 'put': 'id:unittest:transcoded::doc1',",
+                         "  'fields': {",
+                         "    'string': null,",
+                         "    'int': 1,",
+                         "    'int': 2,",
+                         "    'map': null",
+                         "  }",
+                         "}");
+    }
+
+    @Test
+    public void testNoFields() {
+        assertTranscoded("{ 'put': 'id:unittest:transcoded::doc1',",
+                         "  'fields': { }",
+                         "}");
+    }
+
+    @Test
+    public void testFieldsBeforeId() {
+        assertTranscoded("{ 'fields': { 'string': 'first' },",
+                         "  'put': 'id:unittest:transcoded::doc1',",
+                         "  'condition': 'transcoded.int == 1'",
+                         "}");
+    }
+
+    @Test
+    public void testDocumentIsDeserializedOnRequest() {
+        String json = inputJson("[ { 'put': 'id:unittest:transcoded::doc1',",
+                                "    'condition': 'transcoded.int == 1',",
+                                "    'fields': { 'string': 'hello', 'ints': [ 1, 2 ] } } ]");
+        SerializedDocumentFeedOperation operation = (SerializedDocumentFeedOperation)createReader(json).nextFeedOperation();
+        assertEquals("id:unittest:transcoded::doc1", operation.getDocumentId().toString());
+        assertEquals("transcoded.int == 1", operation.getCondition().getSelection());
+        Document document = operation.getDocument();
+        assertEquals(((DocumentPut)createReader(json).next()).getDocument(), document);
+        assertSame(document, operation.getDocument());
+    }
+
+    @Test
+    public void testUnknownField() {
+        assertIllegal("No field 'nope' in the structure of type 'transcoded'",
+                      "{ 'put': 'id:unittest:transcoded::doc1', 'fields': { 'nope': 1 } }");
+    }
+
+    @Test
+    public void testIllegalValues() {
+        assertIllegal("For input string: \"ten\"",
+                      "{ 'put': 'id:unittest:transcoded::doc1', 'fields': { 'int': 'ten' } }");
+        assertIllegal("Illegal null value for array entry",
+                      "{ 'put': 'id:unittest:transcoded::doc1', 'fields': { 'strings': [ 'a', null ] } }");
+    }
+
+    @Test
+    public void testEndOfFeed() {
+        JsonReader reader = createReader("[]");
+        assertSame(FeedOperation.INVALID, reader.nextFeedOperation());
+        assertSame(FeedOperation.INVALID, reader.nextFeedOperation());
+    }
+
+    private void assertTranscoded(String... json) {
+        String feed = "[" + inputJson(json) + "]";
+        SerializedDocumentFeedOperation operation = (SerializedDocumentFeedOperation)createReader(feed).nextFeedOperation();
+        Document document = ((DocumentPut)createReader(feed).next()).getDocument();
+        assertArrayEquals(serialize(document), operation.getSerializedDocument());
+        assertEquals(document, operation.getDocument());
+    }
+
+    private void assertIllegal(String expectedMessage, String json) {
+        String feed = "[" + inputJson(json) + "]";
+        String expected = messageOf(() -> createReader(feed).next());
+        assertTrue(expected, expected.contains(expectedMessage));
+        assertEquals(expected, messageOf(() -> createReader(feed).nextFeedOperation()));
+    }
+
+    private static String messageOf(Runnable read) {
+        try {
+            read.run();
+            fail("Expected an exception");
+            return null;
+        }
+        catch (IllegalArgumentException e) {
+            return Exceptions.toMessageString(e);
+        }
+    }
+
+    private static byte[] serialize(Document document) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        DocumentSerializer serializer = DocumentSerializerFactory.create6(buffer);
+        serializer.write(document);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private JsonReader createReader(String json) {
+        return new JsonReader(types, new ByteArrayInputStream(Utf8.toBytes(json)), new JsonFactory());
+    }
+
+}
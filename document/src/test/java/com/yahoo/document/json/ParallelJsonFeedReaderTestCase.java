@@ -0,0 +1,167 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.json;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.MapDataType;
+import com.yahoo.text.Utf8;
+import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.FeedReader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.yahoo.test.json.JsonTestHelper.inputJson;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests that feeds read in parallel give the same operations as when read sequentially.
+ */
+public class ParallelJsonFeedReaderTestCase {
+
+    private final DocumentTypeManager types = new DocumentTypeManager();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        DocumentType type = new DocumentType("music");
+        type.addField(new Field("title", DataType.STRING));
+        type.addField(new Field("year", DataType.INT));
+        type.addField(new Field("tags", new ArrayDataType(DataType.STRING)));
+        type.addField(new Field("attributes", new MapDataType(DataType.STRING, DataType.STRING)));
+        types.registerDocumentType(type);
+        executor = Executors.newFixedThreadPool(3);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testLargeFeedIsReadAsSequentially() throws Exception {
+        StringBuilder feed = new StringBuilder("[\n");
+        for (int i = 0; i < 3000; i++) {
+            if (i > 0) feed.append(",\n");
+            switch (i % 3) {
+                case 0:
+                    feed.append(inputJson("{ 'put': 'id:test:music::" + i + "',",
+                                          "  'fields': {",
+                                          "    'title': 'A } tricky [ \\'title\\' \\\\ ',",
+                                          "    'year': " + i + ",",
+                                          "    'tags': [ 'ø', '{', ']' ],",
+                                          "    'attributes': { 'k': 'v' } } }"));
+                    break;
+                case 1:
+                    feed.append(inputJson("{ 'update': 'id:test:music::" + (i - 1) + "', 'create': true,",
+                                          "  'fields': { 'year': { 'assign': " + i + " } } }"));
+                    break;
+                default:
+                    feed.append(inputJson("{ 'remove': 'id:test:music::" + (i - 2) + "', 'condition': 'music.year > 1' }"));
+            }
+        }
+        feed.append("\n]\n");
+
+        List<String> parallel = readAll(new ParallelJsonFeedReader(stream(feed.toString()), types, executor, 3));
+        assertEquals(3000, parallel.size());
+        assertEquals(readAll(new JsonFeedReader(stream(feed.toString()), types)), parallel);
+    }
+
+    @Test
+    public void testInvalidOperationsFailInOrder() throws Exception {
+        String feed = inputJson("[ { 'put': 'id:test:music::1', 'fields': { 'title': 'first' } },",
+                                "  { 'put': 'id:test:music::2', 'fields': { 'nope': 'invalid' } },",
+                                "  { 'remove': 'id:test:music::3' } ]");
+        FeedReader reader = new ParallelJsonFeedReader(stream(feed), types, executor, 1);
+        assertEquals("id:test:music::1", reader.read().getDocument().getId().toString());
+        assertEquals("No field 'nope' in the structure of type 'music'", failure(reader).getMessage());
+        assertEquals("id:test:music::3", reader.read().getRemove().toString());
+        assertSame(FeedOperation.INVALID, reader.read());
+    }
+
+    @Test
+    public void testIncompleteFeedFailsAfterCompleteOperations() throws Exception {
+        String feed = inputJson("[ { 'remove': 'id:test:music::1' }, { 'remove': 'id:test:music::2' }, { 'remove': ");
+        FeedReader reader = new ParallelJsonFeedReader(stream(feed), types, executor, 2);
+        assertEquals("id:test:music::1", reader.read().getRemove().toString());
+        assertEquals("id:test:music::2", reader.read().getRemove().toString());
+        assertEquals("Unexpected end of input in feed array", failure(reader).getMessage());
+        assertSame(FeedOperation.INVALID, reader.read());
+    }
+
+    @Test
+    public void testFeedMustBeArrayOfObjects() throws Exception {
+        assertEquals("Expected start of array, got '{'",
+                     failure(new ParallelJsonFeedReader(stream("{ }"), types, executor, 1)).getMessage());
+        assertEquals("Expected start of an operation object, got '1'",
+                     failure(new ParallelJsonFeedReader(stream("[ 1 ]"), types, executor, 1)).getMessage());
+        FeedReader reader = new ParallelJsonFeedReader(stream(inputJson("[ { 'remove': 'id:test:music::1' } { } ]")), types, executor, 1);
+        assertEquals("id:test:music::1", reader.read().getRemove().toString());
+        assertEquals("Expected ',' or ']', got '{'", failure(reader).getMessage());
+    }
+
+    @Test
+    public void testEmptyFeed() throws Exception {
+        assertSame(FeedOperation.INVALID, new ParallelJsonFeedReader(stream(" [ ] "), types, executor, 1).read());
+    }
+
+    @Test
+    public void testSplitting() throws IOException {
+        JsonFeedSplitter splitter = new JsonFeedSplitter(stream("[{\"a\":\"}\"},\n{\"b\":[{}]} , {\"c\":\"\\\"{\"}]"), 10);
+        JsonFeedSplitter.Batch batch = splitter.next();
+        assertEquals(2, batch.size());
+        assertEquals("{\"a\":\"}\"}", operation(batch, 0));
+        assertEquals("{\"b\":[{}]}", operation(batch, 1));
+        batch = splitter.next();
+        assertEquals(1, batch.size());
+        assertEquals("{\"c\":\"\\\"{\"}", operation(batch, 0));
+        assertNull(splitter.next());
+    }
+
+    private static String operation(JsonFeedSplitter.Batch batch, int index) {
+        return Utf8.toString(batch.data(), batch.offset(index), batch.length(index));
+    }
+
+    private static Exception failure(FeedReader reader) {
+        try {
+            reader.read();
+            fail("Expected an exception");
+            return null;
+        }
+        catch (Exception e) {
+            return e;
+        }
+    }
+
+    /** Returns a description of each operation read, until the end of the feed */
+    private static List<String> readAll(FeedReader reader) throws Exception {
+        List<String> operations = new ArrayList<>();
+        for (FeedOperation operation = reader.read(); operation.getType() != FeedOperation.Type.INVALID; operation = reader.read()) {
+            switch (operation.getType()) {
+                case DOCUMENT: operations.add(operation.getDocument().toString() + operation.getDocument().getFieldValue("title") +
+                                              operation.getDocument().getFieldValue("tags") + operation.getCondition()); break;
+                case UPDATE: operations.add(operation.getDocumentUpdate().toString() + operation.getCondition()); break;
+                case REMOVE: operations.add(operation.getRemove().toString() + operation.getCondition()); break;
+            }
+        }
+        return operations;
+    }
+
+    private static ByteArrayInputStream stream(String feed) {
+        return new ByteArrayInputStream(Utf8.toBytes(feed));
+    }
+
+}
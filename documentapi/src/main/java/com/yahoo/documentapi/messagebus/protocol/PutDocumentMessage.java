@@ -1,9 +1,15 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.documentapi.messagebus.protocol;
 
+import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.document.serialization.DocumentDeserializer;
+import com.yahoo.document.serialization.DocumentDeserializerFactory;
+import com.yahoo.document.serialization.DocumentSerializer;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.io.GrowableByteBuffer;
 
 import java.nio.ByteBuffer;
 import java.util.Arrays;
@@ -18,6 +24,10 @@ public class PutDocumentMessage extends TestAndSetMessage {
     private long time = 0;
     private LazyDecoder decoder = null;
 
+    /** The id and condition of a serialized put, which are known without deserializing it */
+    private DocumentId documentId = null;
+    private TestAndSetCondition condition = null;
+
     /**
      * Constructs a new message for deserialization.
      */
@@ -41,6 +51,31 @@ public class PutDocumentMessage extends TestAndSetMessage {
         this.put = put;
     }
 
+    /**
+     * Constructs a new message putting an already serialized document. The document is sent as-is,
+     * and is only deserialized if the put operation is requested from this.
+     *
+     * @param documentId the id of the serialized document
+     * @param serializedDocument the document, serialized in the current document format
+     * @param condition the test-and-set condition of the put
+     * @param typeManager the document types to use if the document is deserialized
+     */
+    public PutDocumentMessage(DocumentId documentId, byte[] serializedDocument, TestAndSetCondition condition,
+                              DocumentTypeManager typeManager) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer(serializedDocument.length + 64, 2.0f);
+        DocumentSerializer serializer = DocumentSerializerFactory.create6(buffer);
+        serializer.put(null, serializedDocument);
+        serializer.putLong(null, 0); // timestamp
+        AbstractRoutableFactory.encodeString(condition.getSelection(), serializer);
+        buffer.flip();
+
+        RoutableFactories60.PutDocumentMessageFactory factory = new RoutableFactories60.PutDocumentMessageFactory();
+        this.decoder = (message, data) -> factory.decodeInto((PutDocumentMessage)message, data);
+        this.buffer = DocumentDeserializerFactory.create6(typeManager, buffer);
+        this.documentId = documentId;
+        this.condition = condition;
+    }
+
     /**
      * Creates an empty PutDocumentMessage
      */
@@ -50,13 +85,16 @@ public class PutDocumentMessage extends TestAndSetMessage {
 
     /**
      * This method will make sure that any serialized content is deserialized into proper message content on first
-     * entry. Any subsequent entry into this function will do nothing.
+     * entry. Any subsequent entry into this function will do nothing. The id and condition given with serialized
+     * content are discarded, as the deserialized put is used from then on.
      */
     private void deserialize() {
         if (decoder != null && buffer != null) {
             decoder.decode(this, buffer);
             decoder = null;
             buffer = null;
+            documentId = null;
+            condition = null;
         }
     }
 
@@ -70,6 +108,8 @@ public class PutDocumentMessage extends TestAndSetMessage {
     public void setDocumentPut(DocumentPut put) {
         buffer = null;
         decoder = null;
+        documentId = null;
+        condition = null;
         this.put = put;
     }
 
@@ -81,8 +121,7 @@ public class PutDocumentMessage extends TestAndSetMessage {
 
     /** Sets the timestamp of the document to put */
     public void setTimestamp(long time) {
-        buffer = null;
-        decoder = null;
+        deserialize();
         this.time = time;
     }
 
@@ -93,7 +132,8 @@ public class PutDocumentMessage extends TestAndSetMessage {
      * @return the buffer containing the serialized data for this message, or null
      */
     ByteBuffer getSerializedBuffer() {
-        return buffer != null ? buffer.getBuf().getByteBuffer() : null; // TODO: very dirty. Must make interface.
+        // A duplicate, such that this can be encoded multiple times, and still be decoded after being encoded
+        return buffer != null ? buffer.getBuf().getByteBuffer().duplicate() : null; // TODO: very dirty. Must make interface.
     }
 
     @Override
@@ -116,8 +156,14 @@ public class PutDocumentMessage extends TestAndSetMessage {
 
     @Override
     public long getSequenceId() {
+        return Arrays.hashCode(getDocumentId().getGlobalId());
+    }
+
+    /** Returns the id of the document to put, without deserializing it if it is not already */
+    public DocumentId getDocumentId() {
+        if (documentId != null) return documentId;
         deserialize();
-        return Arrays.hashCode(put.getId().getGlobalId());
+        return put.getId();
     }
 
     @Override
@@ -127,12 +173,14 @@ public class PutDocumentMessage extends TestAndSetMessage {
 
     @Override
     public TestAndSetCondition getCondition() {
+        if (condition != null) return condition;
         deserialize();
         return put.getCondition();
     }
 
     @Override
     public void setCondition(TestAndSetCondition condition) {
+        deserialize();
         put.setCondition(condition);
     }
 
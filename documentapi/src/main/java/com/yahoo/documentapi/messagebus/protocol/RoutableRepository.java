@@ -10,6 +10,7 @@ import com.yahoo.document.serialization.DocumentDeserializerFactory;
 import com.yahoo.document.serialization.DocumentSerializer;
 import com.yahoo.document.serialization.DocumentSerializerFactory;
 import com.yahoo.documentapi.messagebus.loadtypes.LoadTypeSet;
+import com.yahoo.io.BufferPool;
 import com.yahoo.io.GrowableByteBuffer;
 import java.util.logging.Level;
 import com.yahoo.messagebus.Routable;
@@ -19,6 +20,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -33,6 +35,8 @@ final class RoutableRepository {
     private static final Logger log = Logger.getLogger(RoutableRepository.class.getName());
     private final CopyOnWriteHashMap<Integer, VersionMap> factoryTypes = new CopyOnWriteHashMap<>();
     private final CopyOnWriteHashMap<CacheKey, RoutableFactory> cache = new CopyOnWriteHashMap<>();
+    /** The size of the last encoded routable of each type, used as the size hint for the buffer of the next */
+    private final Map<Integer, Integer> encodedSizes = new ConcurrentHashMap<>();
     private LoadTypeSet loadTypes;
 
     public RoutableRepository(LoadTypeSet set) {
@@ -97,7 +101,8 @@ final class RoutableRepository {
             log.log(Level.SEVERE,"Can not encode routable type " + type + " (version " + version + "). Only major version 5 and up supported.");
             return new byte[0];
         }
-        DocumentSerializer out= DocumentSerializerFactory.createHead(new GrowableByteBuffer(8192));
+        GrowableByteBuffer buffer = BufferPool.acquire(encodedSizes.getOrDefault(type, 8192));
+        DocumentSerializer out= DocumentSerializerFactory.createHead(buffer);
 
         out.putInt(null, type);
         if (!factory.encode(obj, out)) {
@@ -105,9 +110,11 @@ final class RoutableRepository {
                                     "routable of type " + type + " (version " + version + ").");
             return new byte[0];
         }
-        byte[] ret = new byte[out.getBuf().position()];
-        out.getBuf().rewind();
-        out.getBuf().get(ret);
+        byte[] ret = new byte[buffer.position()];
+        buffer.rewind();
+        buffer.get(ret);
+        BufferPool.release(buffer);
+        encodedSizes.put(type, ret.length);
         return ret;
     }
 
@@ -0,0 +1,78 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.documentapi.messagebus.protocol.test;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.TestAndSetCondition;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.serialization.DocumentSerializer;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
+import com.yahoo.io.GrowableByteBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PutDocumentMessageTestCase {
+
+    private DocumentTypeManager types;
+    private Document document;
+
+    @Before
+    public void setUp() {
+        types = new DocumentTypeManager();
+        DocumentType type = new DocumentType("music");
+        type.addField("title", DataType.STRING);
+        types.registerDocumentType(type);
+        document = new Document(type, "id:ns:music::1");
+        document.setFieldValue("title", new StringFieldValue("Title"));
+    }
+
+    @Test
+    public void requireThatSerializedPutIsReadWithoutDeserializing() {
+        PutDocumentMessage message = serializedPut(new TestAndSetCondition("music.title==\"Title\""));
+        assertEquals(new DocumentId("id:ns:music::1"), message.getDocumentId());
+        assertEquals("music.title==\"Title\"", message.getCondition().getSelection());
+        assertEquals(document, message.getDocumentPut().getDocument());
+        assertEquals("music.title==\"Title\"", message.getDocumentPut().getCondition().getSelection());
+    }
+
+    @Test
+    public void requireThatConditionCanBeChangedOnSerializedPut() {
+        PutDocumentMessage message = serializedPut(new TestAndSetCondition("music.title==\"Title\""));
+        message.setCondition(new TestAndSetCondition("music.title==\"Other\""));
+        assertEquals("music.title==\"Other\"", message.getCondition().getSelection());
+        assertEquals("music.title==\"Other\"", message.getDocumentPut().getCondition().getSelection());
+    }
+
+    @Test
+    public void requireThatDeserializedPutCanBeModified() {
+        PutDocumentMessage message = serializedPut(new TestAndSetCondition("music.title==\"Title\""));
+        message.getDocumentPut().setCondition(new TestAndSetCondition("music.title==\"Other\""));
+        assertEquals("music.title==\"Other\"", message.getCondition().getSelection());
+    }
+
+    @Test
+    public void requireThatDocumentCanBeChangedOnSerializedPut() {
+        PutDocumentMessage message = serializedPut(TestAndSetCondition.NOT_PRESENT_CONDITION);
+        message.setDocumentPut(new DocumentPut(new Document(types.getDocumentType("music"), "id:ns:music::2")));
+        assertEquals(new DocumentId("id:ns:music::2"), message.getDocumentId());
+        assertEquals(TestAndSetCondition.NOT_PRESENT_CONDITION, message.getCondition());
+    }
+
+    private PutDocumentMessage serializedPut(TestAndSetCondition condition) {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        DocumentSerializer serializer = DocumentSerializerFactory.create6(buffer);
+        serializer.write(document);
+        buffer.flip();
+        byte[] serialized = new byte[buffer.remaining()];
+        buffer.get(serialized);
+        return new PutDocumentMessage(document.getId(), serialized, condition, types);
+    }
+
+}
@@ -0,0 +1,36 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.Random;
+
+/**
+ * Creation of tensors used as benchmark data.
+ */
+public class Tensors {
+
+    private Tensors() {}
+
+    /**
+     * Returns a tensor of the given type with random values in [-0.5, 0.5),
+     * where each dimension has the labels 0 to size - 1.
+     */
+    public static Tensor random(TensorType type, int size, Random random) {
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        int dimensions = type.dimensions().size();
+        long cells = (long)Math.pow(size, dimensions);
+        for (long cell = 0; cell < cells; cell++) {
+            Tensor.Builder.CellBuilder cellBuilder = builder.cell();
+            long remaining = cell;
+            for (int i = dimensions - 1; i >= 0; i--) {
+                cellBuilder.label(type.dimensions().get(i).name(), remaining % size);
+                remaining /= size;
+            }
+            cellBuilder.value(random.nextDouble() - 0.5);
+        }
+        return builder.build();
+    }
+
+}
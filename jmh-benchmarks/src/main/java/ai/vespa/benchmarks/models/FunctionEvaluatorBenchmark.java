@@ -0,0 +1,74 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks.models;
+
+import ai.vespa.benchmarks.Tensors;
+import ai.vespa.models.evaluation.Model;
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.Parallelism;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of evaluating a model function through a new function evaluator, as done for each request
+ * in a container: A two layer network computing <code>sum(relu(input * weights1 + bias1) * weights2)</code>
+ * where the input is bound on each evaluation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FunctionEvaluatorBenchmark {
+
+    private static final String modelName = "network";
+
+    /** The size of the input and hidden layers */
+    @Param({"64", "512"})
+    public int size;
+
+    /** The max number of tasks to split each tensor operation into */
+    @Param({"1", "4"})
+    public int maxTasks;
+
+    private Model model;
+    private Tensor input;
+    private Parallelism parallelism;
+
+    @Setup
+    public void setup() throws ParseException {
+        Random random = new Random(1);
+        TensorType inputType = TensorType.fromSpec("tensor(x[" + size + "])");
+        Tensor weights1 = Tensors.random(TensorType.fromSpec("tensor(x[" + size + "],h[" + size + "])"), size, random);
+        Tensor bias1 = Tensors.random(TensorType.fromSpec("tensor(h[" + size + "])"), size, random);
+        Tensor weights2 = Tensors.random(TensorType.fromSpec("tensor(h[" + size + "])"), size, random);
+        String network = "sum(relu(sum(input * " + weights1 + ", x) + " + bias1 + ") * " + weights2 + ")";
+        model = new Model(modelName,
+                          List.of(new ExpressionFunction(modelName, new RankingExpression(network)).withArgument("input", inputType)));
+        input = Tensors.random(inputType, size, random);
+        parallelism = Parallelism.of(maxTasks);
+    }
+
+    @Benchmark
+    public Tensor evaluate() {
+        return model.evaluatorOf(modelName).setParallelism(parallelism).bind("input", input).evaluate();
+    }
+
+}
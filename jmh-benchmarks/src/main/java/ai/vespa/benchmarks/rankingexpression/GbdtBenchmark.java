@@ -0,0 +1,138 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks.rankingexpression;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.gbdtoptimization.GBDTForestOptimizer;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of evaluating a generated GBDT forest unoptimized, tree optimized and forest optimized.
+ * Each evaluation binds new feature values, as when ranking a series of documents.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GbdtBenchmark {
+
+    private static final int features = 32;
+
+    @Param({"100", "1000"})
+    public int trees;
+
+    @Param({"6"})
+    public int depth;
+
+    private RankingExpression unoptimized;
+    private Context mapContext;
+
+    private RankingExpression treeOptimized;
+    private ArrayContext treeContext;
+
+    private RankingExpression forestOptimized;
+    private DoubleOnlyArrayContext forestContext;
+
+    private String[] names;
+    private double[] values;
+    private int row = 0;
+
+    @Setup
+    public void setup() throws ParseException {
+        String forest = forest(trees, depth, new Random(1));
+
+        unoptimized = new RankingExpression(forest);
+        mapContext = new MapContext();
+
+        treeOptimized = new RankingExpression(forest);
+        treeContext = new ArrayContext(treeOptimized, true);
+        ExpressionOptimizer treeOptimizer = new ExpressionOptimizer();
+        treeOptimizer.getOptimizer(GBDTForestOptimizer.class).setEnabled(false);
+        treeOptimizer.optimize(treeOptimized, treeContext);
+
+        forestOptimized = new RankingExpression(forest);
+        forestContext = new DoubleOnlyArrayContext(forestOptimized, true);
+        new ExpressionOptimizer().optimize(forestOptimized, forestContext);
+
+        names = new String[features];
+        for (int i = 0; i < features; i++)
+            names[i] = feature(i);
+        Random random = new Random(2);
+        values = new double[1024 * features];
+        for (int i = 0; i < values.length; i++)
+            values[i] = random.nextDouble();
+    }
+
+    @Benchmark
+    public double unoptimized() {
+        bind(mapContext);
+        return unoptimized.evaluate(mapContext).asDouble();
+    }
+
+    @Benchmark
+    public double treeOptimized() {
+        bind(treeContext);
+        return treeOptimized.evaluate(treeContext).asDouble();
+    }
+
+    @Benchmark
+    public double forestOptimized() {
+        bind(forestContext);
+        return forestOptimized.evaluate(forestContext).asDouble();
+    }
+
+    /** Binds the feature values of the next row */
+    private void bind(Context context) {
+        int offset = (row++ & 1023) * features;
+        for (int i = 0; i < features; i++)
+            context.put(names[i], values[offset + i]);
+    }
+
+    private static String feature(int i) {
+        return "f" + i;
+    }
+
+    /** Returns a forest of the given number of complete trees of the given depth, as a sum of nested ifs */
+    static String forest(int trees, int depth, Random random) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < trees; i++) {
+            if (i > 0)
+                b.append(" + \n");
+            tree(depth, random, b);
+        }
+        return b.toString();
+    }
+
+    private static void tree(int depth, Random random, StringBuilder b) {
+        if (depth == 0) {
+            b.append(random.nextDouble() - 0.5);
+            return;
+        }
+        b.append("if (").append(feature(random.nextInt(features))).append(" < ").append(random.nextDouble()).append(", ");
+        tree(depth - 1, random, b);
+        b.append(", ");
+        tree(depth - 1, random, b);
+        b.append(")");
+    }
+
+}
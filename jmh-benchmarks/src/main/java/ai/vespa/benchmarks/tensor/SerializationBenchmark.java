@@ -0,0 +1,72 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks.tensor;
+
+import ai.vespa.benchmarks.Tensors;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.serialization.JsonFormat;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of encoding and decoding tensors to and from the binary and JSON formats.
+ * Each tensor has two dimensions with 256 labels each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"tensor(x[256],y[256])", "tensor<float>(x[256],y[256])", "tensor(x{},y{})", "tensor(x{},y[256])"})
+    public String type;
+
+    private Tensor tensor;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setup() {
+        tensor = Tensors.random(TensorType.fromSpec(type), 256, new Random(1));
+        binary = TypedBinaryFormat.encode(tensor);
+        json = JsonFormat.encode(tensor);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return TypedBinaryFormat.encode(tensor);
+    }
+
+    @Benchmark
+    public Tensor decodeBinary() {
+        return TypedBinaryFormat.decode(Optional.of(tensor.type()), GrowableByteBuffer.wrap(binary));
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return JsonFormat.encode(tensor);
+    }
+
+    @Benchmark
+    public Tensor decodeJson() {
+        return JsonFormat.decode(tensor.type(), json);
+    }
+
+}
@@ -0,0 +1,81 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.benchmarks.tensor;
+
+import ai.vespa.benchmarks.Tensors;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the tensor join, reduce and matmul operations over dense, sparse and mixed tensors.
+ * The arguments are a tensor of type (x,y) and one of type (y,z), where each dimension has the given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TensorBenchmark {
+
+    /** The kind of the dimensions of the arguments */
+    @Param({"dense", "sparse", "mixed"})
+    public String kind;
+
+    /** The size of each dimension */
+    @Param({"16", "64"})
+    public int size;
+
+    private Tensor a;
+    private Tensor b;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        switch (kind) {
+            case "dense" :
+                a = Tensors.random(TensorType.fromSpec("tensor(x[" + size + "],y[" + size + "])"), size, random);
+                b = Tensors.random(TensorType.fromSpec("tensor(y[" + size + "],z[" + size + "])"), size, random);
+                break;
+            case "sparse" :
+                a = Tensors.random(TensorType.fromSpec("tensor(x{},y{})"), size, random);
+                b = Tensors.random(TensorType.fromSpec("tensor(y{},z{})"), size, random);
+                break;
+            case "mixed" :
+                a = Tensors.random(TensorType.fromSpec("tensor(x{},y[" + size + "])"), size, random);
+                b = Tensors.random(TensorType.fromSpec("tensor(y[" + size + "],z{})"), size, random);
+                break;
+            default :
+                throw new IllegalArgumentException("Unknown tensor kind '" + kind + "'");
+        }
+    }
+
+    @Benchmark
+    public Tensor join() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Tensor reduce() {
+        return a.sum("y");
+    }
+
+    @Benchmark
+    public Tensor matmul() {
+        return a.matmul(b, "y");
+    }
+
+}
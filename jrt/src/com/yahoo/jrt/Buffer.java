@@ -9,6 +9,7 @@ class Buffer {
 
     static final int MAX_IO = 65000;
 
+    private final DirectBufferPool pool;
     private ByteBuffer buf;
     private int        readPos;
     private int        writePos;
@@ -58,18 +59,36 @@ class Buffer {
             if (buf.capacity() + free < minFree) {
                 size = buf.capacity() + minFree;
             }
-            ByteBuffer tmp = ByteBuffer.allocate(size);
+            ByteBuffer tmp = allocate(size);
             tmp.order(buf.order());
             buf.position(readPos);
             buf.limit(writePos);
             tmp.put(buf);
+            release(buf);
             buf = tmp;
             readPos = 0;
         }
     }
 
+    private ByteBuffer allocate(int size) {
+        return (pool != null) ? pool.allocate(size) : ByteBuffer.allocate(size);
+    }
+
+    private void release(ByteBuffer buffer) {
+        if (pool != null) {
+            pool.release(buffer);
+        }
+    }
+
+    /** Creates a buffer using heap memory */
     public Buffer(int size) {
-        buf = ByteBuffer.allocate(size);
+        this(size, null);
+    }
+
+    /** Creates a buffer using memory from the given pool, which must be returned to it by {@link #release()} */
+    Buffer(int size, DirectBufferPool pool) {
+        this.pool = pool;
+        buf = allocate(size);
         readPos = 0;
         writePos = 0;
         readMode = false;
@@ -82,11 +101,12 @@ class Buffer {
         if (used > size || buf.capacity() <= size) {
             return false;
         }
-        ByteBuffer tmp = ByteBuffer.allocate(size);
+        ByteBuffer tmp = allocate(size);
         tmp.order(buf.order());
         buf.position(rpos);
         buf.limit(wpos);
         tmp.put(buf);
+        release(buf);
         buf = tmp;
         readPos = 0;
         writePos = used;
@@ -95,6 +115,18 @@ class Buffer {
         return true;
     }
 
+    /**
+     * Returns the memory of this buffer to the buffer pool, discarding any content.
+     * This buffer may still be used after this, but will then allocate new memory.
+     */
+    public void release() {
+        release(buf);
+        buf = ByteBuffer.allocate(0);
+        readPos = 0;
+        writePos = 0;
+        readMode = false;
+    }
+
     public int bytes() {
         return (readMode)
             ? (writePos - buf.position())
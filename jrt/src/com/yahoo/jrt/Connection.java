@@ -32,8 +32,8 @@ class Connection extends Target {
     private int state = INITIAL;
     private final Queue  queue   = new Queue();
     private final Queue  myQueue = new Queue();
-    private final Buffer input   = new Buffer(READ_SIZE * 2);
-    private final Buffer output  = new Buffer(WRITE_SIZE * 2);
+    private final Buffer input   = new Buffer(READ_SIZE * 2, DirectBufferPool.getInstance());
+    private final Buffer output  = new Buffer(WRITE_SIZE * 2, DirectBufferPool.getInstance());
     private int maxInputSize  = 64*1024;
     private int maxOutputSize = 64*1024;
     private final boolean tcpNoDelay;
@@ -383,6 +383,8 @@ class Connection extends Target {
         if (selectionKey != null) {
             selectionKey.cancel();
         }
+        input.release();
+        output.release();
     }
 
     public boolean isClosed() {
@@ -0,0 +1,137 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of direct byte buffers for connection input and output. Socket reads and writes go straight
+ * to and from direct buffers, while heap buffers are copied to a temporary direct buffer by the JDK.
+ * Since direct buffers are costly to allocate, and their memory is only freed by garbage collection,
+ * buffers are returned to this when no longer used, and reused for requests of the same size.
+ *
+ * Buffers larger than the max pooled size are allocated on the heap, and the total size of the buffers
+ * retained for reuse is bounded. Both limits are derived from the max direct memory of the JVM, so that
+ * the pool never holds more than a small part of it. If direct memory is exhausted, heap buffers are
+ * returned instead. This is thread safe.
+ */
+class DirectBufferPool {
+
+    private static final String maxDirectMemoryOption = "-XX:MaxDirectMemorySize=";
+
+    private static final DirectBufferPool instance = forMaxDirectMemory(maxDirectMemory());
+
+    private final int maxPooledSize;
+    private final long maxRetainedBytes;
+    private final TransportMetrics metrics = TransportMetrics.getInstance();
+    private final Map<Integer, ConcurrentLinkedQueue<ByteBuffer>> free = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong(0);
+
+    /**
+     * Creates a buffer pool.
+     *
+     * @param maxPooledSize the size of the largest buffer which is allocated as a direct buffer
+     * @param maxRetainedBytes the max total size of the buffers retained for reuse
+     */
+    DirectBufferPool(int maxPooledSize, long maxRetainedBytes) {
+        this.maxPooledSize = maxPooledSize;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /** Returns a pool which retains at most 1/8 of the given max direct memory, and at most 64 MiB */
+    static DirectBufferPool forMaxDirectMemory(long maxDirectMemory) {
+        return new DirectBufferPool((int) Math.min(1024 * 1024, maxDirectMemory / 32),
+                                    Math.min(64 * 1024 * 1024, maxDirectMemory / 8));
+    }
+
+    static DirectBufferPool getInstance() { return instance; }
+
+    /** Returns the max direct memory of this JVM, which defaults to the max heap size */
+    static long maxDirectMemory() {
+        try {
+            return maxDirectMemory(ManagementFactory.getRuntimeMXBean().getInputArguments(), Runtime.getRuntime().maxMemory());
+        }
+        catch (RuntimeException e) {
+            return Runtime.getRuntime().maxMemory();
+        }
+    }
+
+    static long maxDirectMemory(List<String> jvmArguments, long defaultValue) {
+        long maxDirectMemory = defaultValue;
+        for (String argument : jvmArguments) {
+            if ( ! argument.startsWith(maxDirectMemoryOption)) continue;
+            String size = argument.substring(maxDirectMemoryOption.length()).toLowerCase();
+            if (size.isEmpty()) continue;
+            long unit = 1;
+            switch (size.charAt(size.length() - 1)) {
+                case 'k': unit = 1024; break;
+                case 'm': unit = 1024 * 1024; break;
+                case 'g': unit = 1024 * 1024 * 1024; break;
+                case 't': unit = 1024L * 1024 * 1024 * 1024; break;
+            }
+            if (unit != 1)
+                size = size.substring(0, size.length() - 1);
+            try {
+                maxDirectMemory = Long.parseLong(size) * unit;
+            }
+            catch (NumberFormatException e) {
+                // Not ours to validate; the JVM would not have started
+            }
+        }
+        return maxDirectMemory;
+    }
+
+    /** Returns an empty buffer with the given capacity, which should be returned to this by {@link #release} */
+    ByteBuffer allocate(int size) {
+        if (size > maxPooledSize) {
+            metrics.incrementHeapBuffersAllocated();
+            return ByteBuffer.allocate(size);
+        }
+        ConcurrentLinkedQueue<ByteBuffer> buffers = free.get(size);
+        ByteBuffer buffer = (buffers == null) ? null : buffers.poll();
+        if (buffer != null) {
+            retainedBytes.addAndGet(-size);
+            metrics.incrementDirectBuffersReused();
+            return buffer;
+        }
+        try {
+            ByteBuffer direct = ByteBuffer.allocateDirect(size);
+            metrics.incrementDirectBuffersAllocated();
+            return direct;
+        }
+        catch (OutOfMemoryError e) {
+            metrics.incrementHeapBuffersAllocated();
+            return ByteBuffer.allocate(size);
+        }
+    }
+
+    /** Returns a buffer allocated by this for reuse. The buffer must not be used by the caller after this */
+    void release(ByteBuffer buffer) {
+        if ( ! buffer.isDirect() || buffer.capacity() > maxPooledSize) {
+            return;
+        }
+        if (retainedBytes.addAndGet(buffer.capacity()) > maxRetainedBytes) {
+            retainedBytes.addAndGet(-buffer.capacity());
+            return;
+        }
+        buffer.clear();
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        free.computeIfAbsent(buffer.capacity(), __ -> new ConcurrentLinkedQueue<>()).add(buffer);
+    }
+
+    int maxPooledSize() { return maxPooledSize; }
+
+    long maxRetainedBytes() { return maxRetainedBytes; }
+
+    /** Returns the total size of the buffers currently retained for reuse */
+    long retainedBytes() {
+        return retainedBytes.get();
+    }
+
+}
@@ -19,6 +19,9 @@ public class TransportMetrics {
     private final AtomicLong clientTlsConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong serverUnencryptedConnectionsEstablished = new AtomicLong(0);
     private final AtomicLong clientUnencryptedConnectionsEstablished = new AtomicLong(0);
+    private final AtomicLong directBuffersAllocated = new AtomicLong(0);
+    private final AtomicLong directBuffersReused = new AtomicLong(0);
+    private final AtomicLong heapBuffersAllocated = new AtomicLong(0);
 
     private TransportMetrics() {}
 
@@ -48,6 +51,18 @@ public class TransportMetrics {
         return clientUnencryptedConnectionsEstablished.get();
     }
 
+    public long directBuffersAllocated() {
+        return directBuffersAllocated.get();
+    }
+
+    public long directBuffersReused() {
+        return directBuffersReused.get();
+    }
+
+    public long heapBuffersAllocated() {
+        return heapBuffersAllocated.get();
+    }
+
     public Snapshot snapshot() { return new Snapshot(this); }
 
     void incrementTlsCertificateVerificationFailures() {
@@ -74,6 +89,18 @@ public class TransportMetrics {
         clientUnencryptedConnectionsEstablished.incrementAndGet();
     }
 
+    void incrementDirectBuffersAllocated() {
+        directBuffersAllocated.incrementAndGet();
+    }
+
+    void incrementDirectBuffersReused() {
+        directBuffersReused.incrementAndGet();
+    }
+
+    void incrementHeapBuffersAllocated() {
+        heapBuffersAllocated.incrementAndGet();
+    }
+
     @Override
     public String toString() {
         return "TransportMetrics{" +
@@ -83,11 +110,14 @@ public class TransportMetrics {
                 ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                 ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                 ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                ", directBuffersAllocated=" + directBuffersAllocated +
+                ", directBuffersReused=" + directBuffersReused +
+                ", heapBuffersAllocated=" + heapBuffersAllocated +
                 '}';
     }
 
     public static class Snapshot {
-        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0);
+        public static final Snapshot EMPTY = new Snapshot(0, 0, 0, 0, 0, 0, 0, 0, 0);
 
         private final long tlsCertificateVerificationFailures;
         private final long peerAuthorizationFailures;
@@ -95,6 +125,9 @@ public class TransportMetrics {
         private final long clientTlsConnectionsEstablished;
         private final long serverUnencryptedConnectionsEstablished;
         private final long clientUnencryptedConnectionsEstablished;
+        private final long directBuffersAllocated;
+        private final long directBuffersReused;
+        private final long heapBuffersAllocated;
 
         private Snapshot(TransportMetrics metrics) {
             this(metrics.tlsCertificateVerificationFailures.get(),
@@ -102,7 +135,10 @@ public class TransportMetrics {
                  metrics.serverTlsConnectionsEstablished.get(),
                  metrics.clientTlsConnectionsEstablished.get(),
                  metrics.serverUnencryptedConnectionsEstablished.get(),
-                 metrics.clientUnencryptedConnectionsEstablished.get());
+                 metrics.clientUnencryptedConnectionsEstablished.get(),
+                 metrics.directBuffersAllocated.get(),
+                 metrics.directBuffersReused.get(),
+                 metrics.heapBuffersAllocated.get());
         }
 
         private Snapshot(long tlsCertificateVerificationFailures,
@@ -110,13 +146,19 @@ public class TransportMetrics {
                         long serverTlsConnectionsEstablished,
                         long clientTlsConnectionsEstablished,
                         long serverUnencryptedConnectionsEstablished,
-                        long clientUnencryptedConnectionsEstablished) {
+                        long clientUnencryptedConnectionsEstablished,
+                        long directBuffersAllocated,
+                        long directBuffersReused,
+                        long heapBuffersAllocated) {
             this.tlsCertificateVerificationFailures = tlsCertificateVerificationFailures;
             this.peerAuthorizationFailures = peerAuthorizationFailures;
             this.serverTlsConnectionsEstablished = serverTlsConnectionsEstablished;
             this.clientTlsConnectionsEstablished = clientTlsConnectionsEstablished;
             this.serverUnencryptedConnectionsEstablished = serverUnencryptedConnectionsEstablished;
             this.clientUnencryptedConnectionsEstablished = clientUnencryptedConnectionsEstablished;
+            this.directBuffersAllocated = directBuffersAllocated;
+            this.directBuffersReused = directBuffersReused;
+            this.heapBuffersAllocated = heapBuffersAllocated;
         }
 
         public long tlsCertificateVerificationFailures() { return tlsCertificateVerificationFailures; }
@@ -125,6 +167,9 @@ public class TransportMetrics {
         public long clientTlsConnectionsEstablished() { return clientTlsConnectionsEstablished; }
         public long serverUnencryptedConnectionsEstablished() { return serverUnencryptedConnectionsEstablished; }
         public long clientUnencryptedConnectionsEstablished() { return clientUnencryptedConnectionsEstablished; }
+        public long directBuffersAllocated() { return directBuffersAllocated; }
+        public long directBuffersReused() { return directBuffersReused; }
+        public long heapBuffersAllocated() { return heapBuffersAllocated; }
 
         public Snapshot changesSince(Snapshot base) {
             return new Snapshot(
@@ -133,7 +178,10 @@ public class TransportMetrics {
                 changesSince(base, Snapshot::serverTlsConnectionsEstablished),
                 changesSince(base, Snapshot::clientTlsConnectionsEstablished),
                 changesSince(base, Snapshot::serverUnencryptedConnectionsEstablished),
-                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished));
+                changesSince(base, Snapshot::clientUnencryptedConnectionsEstablished),
+                changesSince(base, Snapshot::directBuffersAllocated),
+                changesSince(base, Snapshot::directBuffersReused),
+                changesSince(base, Snapshot::heapBuffersAllocated));
         }
 
         private long changesSince(Snapshot base, ToLongFunction<Snapshot> metricProperty) {
@@ -149,6 +197,9 @@ public class TransportMetrics {
                     ", clientTlsConnectionsEstablished=" + clientTlsConnectionsEstablished +
                     ", serverUnencryptedConnectionsEstablished=" + serverUnencryptedConnectionsEstablished +
                     ", clientUnencryptedConnectionsEstablished=" + clientUnencryptedConnectionsEstablished +
+                    ", directBuffersAllocated=" + directBuffersAllocated +
+                    ", directBuffersReused=" + directBuffersReused +
+                    ", heapBuffersAllocated=" + heapBuffersAllocated +
                     '}';
         }
     }
@@ -0,0 +1,113 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.jrt;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DirectBufferPoolTest {
+
+    @org.junit.Test
+    public void testReleasedBuffersAreReused() {
+        DirectBufferPool pool = new DirectBufferPool(1024, 4096);
+        TransportMetrics.Snapshot before = TransportMetrics.getInstance().snapshot();
+
+        ByteBuffer b = pool.allocate(512);
+        assertTrue(b.isDirect());
+        assertEquals(512, b.capacity());
+        b.put((byte)42);
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        pool.release(b);
+        assertEquals(512, pool.retainedBytes());
+
+        assertNotSame(b, pool.allocate(256));
+        ByteBuffer reused = pool.allocate(512);
+        assertSame(b, reused);
+        assertEquals(0, reused.position());
+        assertEquals(512, reused.limit());
+        assertEquals(ByteOrder.BIG_ENDIAN, reused.order());
+        assertEquals(0, pool.retainedBytes());
+
+        TransportMetrics.Snapshot changes = TransportMetrics.getInstance().snapshot().changesSince(before);
+        assertTrue(changes.directBuffersAllocated() >= 2);
+        assertTrue(changes.directBuffersReused() >= 1);
+    }
+
+    @org.junit.Test
+    public void testLargeBuffersAreOnHeapAndNotRetained() {
+        DirectBufferPool pool = new DirectBufferPool(1024, 4096);
+        ByteBuffer b = pool.allocate(2048);
+        assertFalse(b.isDirect());
+        pool.release(b);
+        pool.release(ByteBuffer.allocate(512));
+        assertEquals(0, pool.retainedBytes());
+    }
+
+    @org.junit.Test
+    public void testRetainedBytesAreBounded() {
+        DirectBufferPool pool = new DirectBufferPool(1024, 2048);
+        ByteBuffer b1 = pool.allocate(1024);
+        ByteBuffer b2 = pool.allocate(1024);
+        ByteBuffer b3 = pool.allocate(1024);
+        pool.release(b1);
+        pool.release(b2);
+        pool.release(b3);
+        assertEquals(2048, pool.retainedBytes());
+        assertSame(b1, pool.allocate(1024));
+        assertSame(b2, pool.allocate(1024));
+        assertNotSame(b3, pool.allocate(1024));
+    }
+
+    @org.junit.Test
+    public void testLimitsAreDerivedFromMaxDirectMemory() {
+        long mb = 1024 * 1024;
+        assertEquals(32 * mb, DirectBufferPool.maxDirectMemory(List.of("-Xms32m", "-XX:MaxDirectMemorySize=32m"), 1000));
+        assertEquals(2 * 1024 * mb, DirectBufferPool.maxDirectMemory(List.of("-XX:MaxDirectMemorySize=2G"), 1000));
+        assertEquals(4096, DirectBufferPool.maxDirectMemory(List.of("-XX:MaxDirectMemorySize=4k"), 1000));
+        assertEquals(1000, DirectBufferPool.maxDirectMemory(List.of("-Xmx32m"), 1000));
+
+        DirectBufferPool pool = DirectBufferPool.forMaxDirectMemory(32 * mb);
+        ByteBuffer b = pool.allocate((int) mb);
+        assertTrue(b.isDirect());
+        pool.release(b);
+        assertEquals(mb, pool.retainedBytes());
+        for (int i = 0; i < 10; i++)
+            pool.release(ByteBuffer.allocateDirect((int) mb));
+        assertEquals(4 * mb, pool.retainedBytes());
+        assertFalse(pool.allocate((int) mb + 1).isDirect());
+
+        pool = DirectBufferPool.forMaxDirectMemory(16 * 1024 * mb);
+        assertEquals(mb, pool.maxPooledSize());
+        assertEquals(64 * mb, pool.maxRetainedBytes());
+    }
+
+    @org.junit.Test
+    public void testHeapBufferIsUsedByDefault() {
+        Buffer buf = new Buffer(1024);
+        assertFalse(buf.getReadable().isDirect());
+        buf.release();
+        assertFalse(buf.getWritable(10).isDirect());
+    }
+
+    @org.junit.Test
+    public void testReleasedConnectionBufferCanBeReused() {
+        DirectBufferPool pool = new DirectBufferPool(1024, 4096);
+        Buffer buf = new Buffer(1024, pool);
+        assertTrue(buf.getWritable(3).isDirect());
+        buf.getWritable(3).put((byte)10).put((byte)20).put((byte)30);
+        buf.release();
+        assertEquals(1024, pool.retainedBytes());
+        assertEquals(0, buf.bytes());
+        buf.getWritable(3).put((byte)11);
+        ByteBuffer bb = buf.getReadable();
+        assertEquals(1, bb.remaining());
+        assertEquals(11, bb.get());
+    }
+
+}
@@ -3,6 +3,7 @@ package com.yahoo.messagebus.network.rpc;
 
 import com.yahoo.component.Version;
 import com.yahoo.component.Vtag;
+import com.yahoo.compress.Compressor;
 import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.jrt.Acceptor;
 import com.yahoo.jrt.ListenFailedException;
@@ -59,6 +60,7 @@ public class RPCNetwork implements Network, MethodHandler {
     private final Acceptor listener;
     private final Mirror mirror;
     private final Register register;
+    private final Compressor compressor;
     private final TreeMap<Version, RPCSendAdapter> sendAdapters = new TreeMap<>();
     private NetworkOwner owner;
     private final SlobrokConfigSubscriber slobroksConfig;
@@ -87,6 +89,7 @@ public class RPCNetwork implements Network, MethodHandler {
     public RPCNetwork(RPCNetworkParams params, SlobrokConfigSubscriber slobrokConfig) {
         this.slobroksConfig = slobrokConfig;
         identity = params.getIdentity();
+        compressor = new Compressor(params.getCompressionType(), params.getCompressionLevel(), 0.90, params.getCompressionLimit());
         orb = new Supervisor(new Transport("mbus-rpc-" + identity.getServicePrefix(), params.getNumNetworkThreads(), shouldEnableTcpNodelay(params.getOptimization())));
         orb.setMaxInputBufferSize(params.getMaxInputBufferSize());
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
@@ -184,7 +187,7 @@ public class RPCNetwork implements Network, MethodHandler {
         this.owner = owner;
 
         RPCSendAdapter adapter1 = new RPCSendV1();
-        RPCSendAdapter adapter2 = new RPCSendV2();
+        RPCSendAdapter adapter2 = new RPCSendV2(compressor);
         addSendAdapter(new Version(5), adapter1);
         addSendAdapter(new Version(6,149), adapter2);
     }
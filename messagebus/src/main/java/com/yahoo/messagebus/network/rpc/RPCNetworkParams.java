@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus.network.rpc;
 
+import com.yahoo.compress.CompressionType;
 import com.yahoo.messagebus.network.Identity;
 import com.yahoo.cloud.config.SlobroksConfig;
 
@@ -23,6 +24,9 @@ public class RPCNetworkParams {
     private int numNetworkThreads = 2;
     public enum Optimization {LATENCY, THROUGHPUT}
     Optimization optimization = Optimization.LATENCY;
+    private CompressionType compressionType = CompressionType.LZ4;
+    private int compressionLevel = 3;
+    private int compressionLimit = 1024;
 
     /**
      * Constructs a new instance of this class with reasonable default values.
@@ -47,6 +51,9 @@ public class RPCNetworkParams {
         numTargetsPerSpec = params.numTargetsPerSpec;
         numNetworkThreads = params.numNetworkThreads;
         optimization = params.optimization;
+        compressionType = params.compressionType;
+        compressionLevel = params.compressionLevel;
+        compressionLimit = params.compressionLimit;
     }
 
     /**
@@ -173,6 +180,31 @@ public class RPCNetworkParams {
         return optimization;
     }
 
+    /**
+     * Sets how to compress the messages sent, and the replies to messages received, over this network.
+     * Payloads are decompressed according to the type they were compressed with, regardless of this.
+     *
+     * @param type the compression type to use
+     * @param level the compression level to use, between 0 and 9
+     * @param limit the minimal payload size in bytes to compress
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setCompression(CompressionType type, int level, int limit) {
+        this.compressionType = type;
+        this.compressionLevel = level;
+        this.compressionLimit = limit;
+        return this;
+    }
+    CompressionType getCompressionType() {
+        return compressionType;
+    }
+    int getCompressionLevel() {
+        return compressionLevel;
+    }
+    int getCompressionLimit() {
+        return compressionLimit;
+    }
+
     /**
      * Returns the maximum input buffer size allowed for the underlying FNET connection.
      *
@@ -33,7 +33,16 @@ public class RPCSendV2 extends RPCSend {
     private final static String METHOD_NAME = "mbus.slime";
     private final static String METHOD_PARAMS = "bixbix";
     private final static String METHOD_RETURN = "bixbix";
-    private final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
+    private final Compressor compressor;
+
+    public RPCSendV2() {
+        this(new Compressor(CompressionType.LZ4, 3, 0.90, 1024));
+    }
+
+    /** Creates an adapter which compresses the payloads it sends with the given compressor */
+    public RPCSendV2(Compressor compressor) {
+        this.compressor = compressor;
+    }
 
     @Override
     protected String getReturnSpec() { return METHOD_RETURN; }
@@ -0,0 +1,248 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
+import com.yahoo.tensor.TensorType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An evaluator which can be used to evaluate a single scalar function once for each row in a batch of rows.
+ * Arguments are either bound to a column of values, one per row, or to a single value used for all rows.
+ * All rows are evaluated in one pass over the same context, such that bindings which are shared between rows
+ * and the context storage is only set up once.
+ */
+// This wraps all access to the context and the ranking expression to avoid incorrect usage
+public class BatchEvaluator {
+
+    private final ExpressionFunction function;
+    private final LazyArrayContext context;
+    private final ExpressionNode body;
+    private final Map<String, double[]> scalarColumns = new HashMap<>();
+    private final Map<String, Tensor[]> tensorColumns = new HashMap<>();
+    private boolean evaluated = false;
+
+    BatchEvaluator(ExpressionFunction function, LazyArrayContext context, ExpressionNode compiledBody) {
+        this.function = function;
+        this.context = context;
+        this.body = compiledBody != null ? compiledBody : function.getBody().getRoot();
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, Tensor value) {
+        requireAssignable(name, value.type());
+        removeColumn(name);
+        context.put(name, new TensorValue(value));
+        return this;
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     * This is equivalent to <code>bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build())</code>
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, double value) {
+        return bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build());
+    }
+
+    /**
+     * Binds the given scalar variable referred in this expression to a column of values, one for each row.
+     * The array is not copied and must not be changed until this is evaluated.
+     *
+     * @param name the variable to bind
+     * @param column the value of the variable in each row
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, double[] column) {
+        requireAssignable(name, TensorType.empty);
+        removeColumn(name);
+        scalarColumns.put(name, column);
+        return this;
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the subspaces of the given tensor along
+     * the given batch dimension, such that row i is bound to the cells having label i in that dimension.
+     *
+     * @param name the variable to bind
+     * @param batch the values of the variable in all rows
+     * @param batchDimension the indexed dimension of the batch tensor which identifies the rows
+     * @return this for chaining
+     */
+    public BatchEvaluator bind(String name, Tensor batch, String batchDimension) {
+        int batchIndex = batch.type().indexOfDimension(batchDimension)
+                              .orElseThrow(() -> new IllegalArgumentException("'" + name + "' is bound to a batch of type " +
+                                                                              batch.type() + " which has no dimension '" +
+                                                                              batchDimension + "'"));
+        if ( ! batch.type().dimensions().get(batchIndex).isIndexed())
+            throw new IllegalArgumentException("The batch dimension '" + batchDimension + "' of '" + name +
+                                               "' must be indexed, but the type is " + batch.type());
+        TensorType rowType = new TensorType.Builder(batch.type().valueType(),
+                                                    batch.type().dimensions().stream()
+                                                         .filter(dimension -> ! dimension.name().equals(batchDimension))
+                                                         .collect(Collectors.toList())).build();
+        requireAssignable(name, rowType);
+        removeColumn(name);
+
+        int rows = batch.type().sizeOfDimension(batchDimension).map(Long::intValue).orElseGet(() -> rowsIn(batch, batchIndex));
+        if (rowType.rank() == 0) {
+            double[] column = new double[rows];
+            for (var cells = batch.cellIterator(); cells.hasNext(); ) {
+                var cell = cells.next();
+                column[(int)cell.getKey().numericLabel(batchIndex)] = cell.getValue();
+            }
+            scalarColumns.put(name, column);
+        }
+        else {
+            Tensor.Builder[] builders = new Tensor.Builder[rows];
+            for (int row = 0; row < rows; row++)
+                builders[row] = Tensor.Builder.of(rowType);
+            for (var cells = batch.cellIterator(); cells.hasNext(); ) {
+                var cell = cells.next();
+                builders[(int)cell.getKey().numericLabel(batchIndex)].cell(rowAddress(cell.getKey(), batchIndex), cell.getValue());
+            }
+            Tensor[] column = new Tensor[rows];
+            for (int row = 0; row < rows; row++)
+                column[row] = builders[row].build();
+            tensorColumns.put(name, column);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the default value to use for variables which are not bound
+     *
+     * @param value the default value
+     * @return this for chaining
+     */
+    public BatchEvaluator setMissingValue(Tensor value) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot change the missing value in a used evaluator");
+        context.setMissingValue(value);
+        return this;
+    }
+
+    /**
+     * Sets the default value to use for variables which are not bound
+     *
+     * @param value the default value
+     * @return this for chaining
+     */
+    public BatchEvaluator setMissingValue(double value) {
+        return setMissingValue(Tensor.Builder.of(TensorType.empty).cell(value).build());
+    }
+
+    /**
+     * Evaluates the function once for each row.
+     *
+     * @return the scalar value of the function in each row
+     * @throws IllegalStateException if an argument is not bound, or if the columns bound have different sizes
+     */
+    public double[] evaluate() {
+        for (Map.Entry<String, TensorType> argument : function.argumentTypes().entrySet()) {
+            if (scalarColumns.containsKey(argument.getKey()) || tensorColumns.containsKey(argument.getKey())) continue;
+            if (context.isMissing(argument.getKey()))
+                throw new IllegalStateException("Missing argument '" + argument.getKey() +
+                                                "': Must be bound to a value of type " + argument.getValue());
+            if (! context.get(argument.getKey()).type().isAssignableTo(argument.getValue()))
+                throw new IllegalStateException("Argument '" + argument.getKey() +
+                                                "' must be bound to a value of type " + argument.getValue());
+        }
+        int rows = rows();
+        evaluated = true;
+
+        int[] scalarIndexes = indexesOf(scalarColumns);
+        double[][] scalarValues = scalarColumns.values().toArray(new double[0][]);
+        int[] tensorIndexes = indexesOf(tensorColumns);
+        Tensor[][] tensorValues = tensorColumns.values().toArray(new Tensor[0][]);
+
+        double[] result = new double[rows];
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < scalarIndexes.length; i++)
+                context.put(scalarIndexes[i], scalarValues[i][row]);
+            for (int i = 0; i < tensorIndexes.length; i++)
+                context.put(tensorIndexes[i], new TensorValue(tensorValues[i][row]));
+            context.clearComputedValues();
+            result[row] = body.evaluate(context).asDouble();
+        }
+        return result;
+    }
+
+    /** Returns the function evaluated by this */
+    public ExpressionFunction function() { return function; }
+
+    private void requireAssignable(String name, TensorType type) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot bind a new value in a used evaluator");
+        TensorType requiredType = function.argumentTypes().get(name);
+        if (requiredType == null)
+            throw new IllegalArgumentException("'" + name + "' is not a valid argument in " + function +
+                                               ". Expected arguments: " + function.argumentTypes().entrySet().stream()
+                                                                                  .map(e -> e.getKey() + ": " + e.getValue())
+                                                                                  .collect(Collectors.joining(", ")));
+        if ( ! type.isAssignableTo(requiredType))
+            throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " + type);
+    }
+
+    private void removeColumn(String name) {
+        scalarColumns.remove(name);
+        tensorColumns.remove(name);
+    }
+
+    /** Returns the number of rows in the columns bound in this */
+    private int rows() {
+        Integer rows = null;
+        for (Map.Entry<String, Integer> column : columnSizes().entrySet()) {
+            if (rows == null)
+                rows = column.getValue();
+            else if (rows.intValue() != column.getValue())
+                throw new IllegalStateException("All columns must have the same number of rows, but '" + column.getKey() +
+                                                "' has " + column.getValue() + " while others have " + rows);
+        }
+        if (rows == null)
+            throw new IllegalStateException("No argument of " + function + " is bound to a column of values");
+        return rows;
+    }
+
+    private Map<String, Integer> columnSizes() {
+        Map<String, Integer> sizes = new HashMap<>();
+        scalarColumns.forEach((name, column) -> sizes.put(name, column.length));
+        tensorColumns.forEach((name, column) -> sizes.put(name, column.length));
+        return sizes;
+    }
+
+    private int[] indexesOf(Map<String, ?> columns) {
+        return columns.keySet().stream().mapToInt(context::getIndex).toArray();
+    }
+
+    private static int rowsIn(Tensor batch, int batchIndex) {
+        long maxLabel = -1;
+        for (var cells = batch.cellIterator(); cells.hasNext(); )
+            maxLabel = Math.max(maxLabel, cells.next().getKey().numericLabel(batchIndex));
+        return (int)(maxLabel + 1);
+    }
+
+    private static TensorAddress rowAddress(TensorAddress batchAddress, int batchIndex) {
+        String[] labels = new String[batchAddress.size() - 1];
+        for (int i = 0, j = 0; i < batchAddress.size(); i++)
+            if (i != batchIndex)
+                labels[j++] = batchAddress.label(i);
+        return TensorAddress.of(labels);
+    }
+
+}
@@ -0,0 +1,557 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.BooleanNode;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Compiles scalar expressions - arithmetic, comparisons, conditions and scalar functions over
+ * scalar values - to JVM bytecode, so that they can be evaluated without interpreting the expression tree.
+ *
+ * Each largest subexpression which can be compiled is replaced by a node evaluating a generated class.
+ * The rest of the expression, such as tensor functions, is left to the interpreter.
+ * Values are looked up by their index in the context the expression was compiled for,
+ * so compiled expressions can only be evaluated in that context and copies of it.
+ */
+class ExpressionCompiler {
+
+    private static final Logger log = Logger.getLogger(ExpressionCompiler.class.getName());
+
+    /**
+     * The max number of expression nodes to generate into a single method. This keeps methods well below
+     * the size where the JIT compiler refuses to compile them. Larger expressions are split into multiple methods.
+     */
+    private static final int maxNodesPerMethod = 400;
+
+    private static final String contextName = Type.getInternalName(Context.class);
+    private static final String methodDescriptor = "(L" + contextName + ";)D";
+
+    private static final AtomicLong classCounter = new AtomicLong();
+
+    /**
+     * Returns the given expression with each largest subexpression which can be compiled replaced by
+     * a compiled node, or the given node itself if nothing in it could be compiled.
+     *
+     * @param node the expression to compile, which is not modified
+     * @param context the context the compiled expression will be evaluated in, or copies of it
+     * @param isScalar returns whether the value of the given name is always a scalar in the context
+     */
+    ExpressionNode compile(ExpressionNode node, LazyArrayContext context, Predicate<String> isScalar) {
+        Compilability compilability = new Compilability(context, isScalar);
+        return compile(node, context, compilability);
+    }
+
+    private ExpressionNode compile(ExpressionNode node, LazyArrayContext context, Compilability compilability) {
+        if ( ! (node instanceof CompositeNode) || node instanceof ReferenceNode) return node; // not worth compiling
+        if (compilability.test(node)) {
+            try {
+                return new CompiledNode(node, new ClassGenerator(context).generate(node));
+            }
+            catch (RuntimeException | LinkageError e) { // e.g too large, or rejected by the verifier
+                log.log(Level.FINE, "Could not compile " + node + ", it will be interpreted", e);
+                return node;
+            }
+        }
+        if ( ! compilability.evaluatesChildrenInSameContext(node)) return node;
+
+        CompositeNode composite = (CompositeNode)node;
+        List<ExpressionNode> children = new ArrayList<>();
+        boolean changed = false;
+        for (ExpressionNode child : composite.children()) {
+            ExpressionNode compiledChild = compile(child, context, compilability);
+            changed |= compiledChild != child;
+            children.add(compiledChild);
+        }
+        return changed ? composite.setChildren(children) : node;
+    }
+
+    /** Decides which nodes can be compiled */
+    private static class Compilability {
+
+        private final LazyArrayContext context;
+        private final Predicate<String> isScalar;
+
+        Compilability(LazyArrayContext context, Predicate<String> isScalar) {
+            this.context = context;
+            this.isScalar = isScalar;
+        }
+
+        /** Returns whether this node and all its children can be compiled */
+        boolean test(ExpressionNode node) {
+            if (node instanceof ConstantNode) {
+                ConstantNode constant = (ConstantNode)node;
+                return constant.getValue() instanceof DoubleValue || constant.getValue() instanceof BooleanValue;
+            }
+            if (node instanceof ReferenceNode) {
+                String name = node.toString();
+                return context.names().contains(name) && isScalar.test(name);
+            }
+            if (node instanceof SetMembershipNode && ! isDouble(((SetMembershipNode)node).getTestValue()))
+                return false; // the test value decides the semantics of equality
+            if (evaluatesChildrenInSameContext(node))
+                return ((CompositeNode)node).children().stream().allMatch(this::test);
+            return false;
+        }
+
+        /** Returns whether this node evaluates to a value which is compared to others as a double */
+        private boolean isDouble(ExpressionNode node) {
+            if (node instanceof ConstantNode)
+                return ((ConstantNode)node).getValue() instanceof DoubleValue;
+            if (node instanceof ReferenceNode) // values of function references are not compared as doubles
+                return FunctionReference.fromSerial(node.toString()).isEmpty();
+            return false;
+        }
+
+        /**
+         * Returns whether this is a scalar operation whose children are evaluated in the same context as the node itself.
+         * This is not the case for e.g tensor functions with lambda arguments.
+         */
+        boolean evaluatesChildrenInSameContext(ExpressionNode node) {
+            return node instanceof ArithmeticNode || node instanceof ComparisonNode || node instanceof EmbracedNode ||
+                   node instanceof FunctionNode || node instanceof IfNode || node instanceof NegativeNode ||
+                   node instanceof NotNode || node instanceof SetMembershipNode;
+        }
+
+    }
+
+    /** Generates a class computing the value of an expression from a context */
+    private static class ClassGenerator {
+
+        private final LazyArrayContext context;
+        private final String className = "ai/vespa/models/evaluation/generated/CompiledExpression" + classCounter.incrementAndGet();
+        private final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+
+        /** Nodes which are generated into their own methods, but not generated yet */
+        private final Deque<Map.Entry<String, ExpressionNode>> pendingMethods = new ArrayDeque<>();
+        private final Map<ExpressionNode, Integer> sizes = new IdentityHashMap<>();
+        private int methodCount = 0;
+
+        ClassGenerator(LazyArrayContext context) {
+            this.context = context;
+        }
+
+        @SuppressWarnings("unchecked")
+        ToDoubleFunction<Context> generate(ExpressionNode root) {
+            writer.visit(V11, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, "java/lang/Object",
+                         new String[] { Type.getInternalName(ToDoubleFunction.class) });
+
+            MethodVisitor constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+            constructor.visitCode();
+            constructor.visitVarInsn(ALOAD, 0);
+            constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            constructor.visitInsn(RETURN);
+            constructor.visitMaxs(0, 0);
+            constructor.visitEnd();
+
+            MethodVisitor apply = writer.visitMethod(ACC_PUBLIC, "applyAsDouble", "(Ljava/lang/Object;)D", null, null);
+            apply.visitCode();
+            apply.visitVarInsn(ALOAD, 1);
+            apply.visitTypeInsn(CHECKCAST, contextName);
+            apply.visitMethodInsn(INVOKESTATIC, className, newMethod(root), methodDescriptor, false);
+            apply.visitInsn(DRETURN);
+            apply.visitMaxs(0, 0);
+            apply.visitEnd();
+
+            while ( ! pendingMethods.isEmpty()) {
+                Map.Entry<String, ExpressionNode> method = pendingMethods.poll();
+                new MethodGenerator(method.getKey(), method.getValue()).generate();
+            }
+            writer.visitEnd();
+
+            try {
+                Class<?> generated = new GeneratedClassLoader(ExpressionCompiler.class.getClassLoader())
+                                             .define(className.replace('/', '.'), writer.toByteArray());
+                return (ToDoubleFunction<Context>)generated.getConstructor().newInstance();
+            }
+            catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not instantiate the compiled expression " + root, e);
+            }
+        }
+
+        /** Adds a method to be generated for the given node and returns its name */
+        private String newMethod(ExpressionNode node) {
+            String name = "evaluate" + methodCount++;
+            pendingMethods.add(Map.entry(name, node));
+            return name;
+        }
+
+        /** Returns the number of nodes in the given expression */
+        private int size(ExpressionNode node) {
+            Integer size = sizes.get(node);
+            if (size == null) {
+                size = 1;
+                if (node instanceof CompositeNode && ! (node instanceof ReferenceNode)) {
+                    for (ExpressionNode child : ((CompositeNode)node).children())
+                        size += size(child);
+                }
+                sizes.put(node, size);
+            }
+            return size;
+        }
+
+        /** Generates a static method computing the value of an expression, taking the context as its only argument */
+        private class MethodGenerator {
+
+            private final ExpressionNode root;
+            private final MethodVisitor method;
+            private int nextLocal = 1; // 0 is the context
+            private int generatedNodes = 0;
+
+            MethodGenerator(String name, ExpressionNode root) {
+                this.root = root;
+                this.method = writer.visitMethod(ACC_PRIVATE | ACC_STATIC, name, methodDescriptor, null, null);
+            }
+
+            void generate() {
+                method.visitCode();
+                value(root);
+                method.visitInsn(DRETURN);
+                method.visitMaxs(0, 0);
+                method.visitEnd();
+            }
+
+            /** Generates code leaving the value of the given node on the stack */
+            private void value(ExpressionNode node) {
+                if (node != root && size(node) > 1 && generatedNodes + size(node) > maxNodesPerMethod) {
+                    method.visitVarInsn(ALOAD, 0);
+                    method.visitMethodInsn(INVOKESTATIC, className, newMethod(node), methodDescriptor, false);
+                    return;
+                }
+                generatedNodes++;
+
+                if (node instanceof ConstantNode) {
+                    constant(((ConstantNode)node).getValue().asDouble());
+                }
+                else if (node instanceof ReferenceNode) {
+                    method.visitVarInsn(ALOAD, 0);
+                    method.visitLdcInsn(context.getIndex(node.toString()));
+                    method.visitMethodInsn(INVOKEVIRTUAL, contextName, "getDouble", "(I)D", false);
+                }
+                else if (node instanceof EmbracedNode) {
+                    value(((EmbracedNode)node).getValue());
+                }
+                else if (node instanceof NegativeNode) {
+                    value(((NegativeNode)node).getValue());
+                    method.visitInsn(DNEG);
+                }
+                else if (node instanceof ArithmeticNode) {
+                    arithmetic((ArithmeticNode)node);
+                }
+                else if (node instanceof FunctionNode) {
+                    function((FunctionNode)node);
+                }
+                else if (node instanceof IfNode) {
+                    IfNode ifNode = (IfNode)node;
+                    Label isFalse = new Label();
+                    Label end = new Label();
+                    jumpIf(ifNode.getCondition(), false, isFalse);
+                    value(ifNode.getTrueExpression());
+                    method.visitJumpInsn(GOTO, end);
+                    method.visitLabel(isFalse);
+                    value(ifNode.getFalseExpression());
+                    method.visitLabel(end);
+                }
+                else if (node instanceof BooleanNode) {
+                    Label isFalse = new Label();
+                    Label end = new Label();
+                    jumpIf(node, false, isFalse);
+                    method.visitInsn(DCONST_1);
+                    method.visitJumpInsn(GOTO, end);
+                    method.visitLabel(isFalse);
+                    method.visitInsn(DCONST_0);
+                    method.visitLabel(end);
+                }
+                else {
+                    throw new IllegalArgumentException("Cannot compile " + node);
+                }
+            }
+
+            /** Generates code jumping to the target if the truth value of the node is the given value */
+            private void jumpIf(ExpressionNode node, boolean value, Label target) {
+                if (node instanceof ComparisonNode) {
+                    generatedNodes++;
+                    comparison((ComparisonNode)node, value, target);
+                }
+                else if (node instanceof NotNode) {
+                    generatedNodes++;
+                    jumpIf(((NotNode)node).getValue(), ! value, target);
+                }
+                else if (node instanceof SetMembershipNode) {
+                    generatedNodes++;
+                    setMembership((SetMembershipNode)node, value, target);
+                }
+                else {
+                    value(node);
+                    method.visitInsn(DCONST_0);
+                    method.visitInsn(DCMPL); // NaN is true, as in DoubleValue.asBoolean
+                    method.visitJumpInsn(value ? IFNE : IFEQ, target);
+                }
+            }
+
+            private void comparison(ComparisonNode node, boolean value, Label target) {
+                TruthOperator operator = node.getOperator();
+                if (operator == TruthOperator.APPROX_EQUAL) {
+                    method.visitFieldInsn(GETSTATIC, Type.getInternalName(TruthOperator.class), operator.name(),
+                                          Type.getDescriptor(TruthOperator.class));
+                    value(node.getLeftCondition());
+                    value(node.getRightCondition());
+                    method.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(TruthOperator.class), "evaluate", "(DD)Z", false);
+                    method.visitJumpInsn(value ? IFNE : IFEQ, target);
+                    return;
+                }
+
+                value(node.getLeftCondition());
+                value(node.getRightCondition());
+                // Choose the comparison instruction such that comparisons with NaN are false, except for !=
+                switch (operator) {
+                    case SMALLER:
+                        method.visitInsn(DCMPG);
+                        method.visitJumpInsn(value ? IFLT : IFGE, target);
+                        break;
+                    case SMALLEREQUAL:
+                        method.visitInsn(DCMPG);
+                        method.visitJumpInsn(value ? IFLE : IFGT, target);
+                        break;
+                    case LARGER:
+                        method.visitInsn(DCMPL);
+                        method.visitJumpInsn(value ? IFGT : IFLE, target);
+                        break;
+                    case LARGEREQUAL:
+                        method.visitInsn(DCMPL);
+                        method.visitJumpInsn(value ? IFGE : IFLT, target);
+                        break;
+                    case EQUAL:
+                        method.visitInsn(DCMPL);
+                        method.visitJumpInsn(value ? IFEQ : IFNE, target);
+                        break;
+                    case NOTEQUAL:
+                        method.visitInsn(DCMPL);
+                        method.visitJumpInsn(value ? IFNE : IFEQ, target);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Cannot compile " + operator);
+                }
+            }
+
+            private void setMembership(SetMembershipNode node, boolean value, Label target) {
+                int testValue = newLocal();
+                value(node.getTestValue());
+                method.visitVarInsn(DSTORE, testValue);
+                Label found = value ? target : new Label();
+                for (ExpressionNode setValue : node.getSetValues()) {
+                    method.visitVarInsn(DLOAD, testValue);
+                    value(setValue);
+                    method.visitInsn(DCMPL);
+                    method.visitJumpInsn(IFEQ, found);
+                }
+                if ( ! value) {
+                    method.visitJumpInsn(GOTO, target);
+                    method.visitLabel(found);
+                }
+            }
+
+            /** Applies the operators in the same order as ArithmeticNode.evaluate, but on the operand stack */
+            private void arithmetic(ArithmeticNode node) {
+                Deque<ArithmeticOperator> operators = new ArrayDeque<>();
+                value(node.children().get(0));
+                for (int i = 0; i < node.operators().size(); i++) {
+                    ArithmeticOperator operator = node.operators().get(i);
+                    while ( ! operators.isEmpty() && operators.peek().hasPrecedenceOver(operator))
+                        operator(operators.pop());
+                    operators.push(operator);
+                    value(node.children().get(i + 1));
+                }
+                while ( ! operators.isEmpty())
+                    operator(operators.pop());
+            }
+
+            private void operator(ArithmeticOperator operator) {
+                switch (operator) {
+                    case PLUS: method.visitInsn(DADD); break;
+                    case MINUS: method.visitInsn(DSUB); break;
+                    case MULTIPLY: method.visitInsn(DMUL); break;
+                    case DIVIDE: method.visitInsn(DDIV); break;
+                    case MODULO: method.visitInsn(DREM); break;
+                    case POWER: method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "pow", "(DD)D", false); break;
+                    case AND: logical(false); break;
+                    case OR: logical(true); break;
+                    default: throw new IllegalArgumentException("Cannot compile " + operator);
+                }
+            }
+
+            /** Replaces the two values on the stack by 1 if either (or) or both (and) are true, 0 otherwise */
+            private void logical(boolean or) {
+                int right = newLocal();
+                Label decided = new Label();
+                Label end = new Label();
+                method.visitVarInsn(DSTORE, right);
+                method.visitInsn(DCONST_0);
+                method.visitInsn(DCMPL);
+                method.visitJumpInsn(or ? IFNE : IFEQ, decided);
+                method.visitVarInsn(DLOAD, right);
+                method.visitInsn(DCONST_0);
+                method.visitInsn(DCMPL);
+                method.visitJumpInsn(or ? IFNE : IFEQ, decided);
+                method.visitInsn(or ? DCONST_0 : DCONST_1);
+                method.visitJumpInsn(GOTO, end);
+                method.visitLabel(decided);
+                method.visitInsn(or ? DCONST_1 : DCONST_0);
+                method.visitLabel(end);
+            }
+
+            private void function(FunctionNode node) {
+                Function function = node.getFunction();
+                List<ExpressionNode> arguments = node.children();
+                String mathMethod = mathMethod(function);
+                if (mathMethod != null && arguments.size() == function.arity()) {
+                    for (ExpressionNode argument : arguments)
+                        value(argument);
+                    method.visitMethodInsn(INVOKESTATIC, "java/lang/Math", mathMethod,
+                                           function.arity() == 1 ? "(D)D" : "(DD)D", false);
+                    return;
+                }
+
+                method.visitFieldInsn(GETSTATIC, Type.getInternalName(Function.class), function.name(),
+                                      Type.getDescriptor(Function.class));
+                if (arguments.size() > 0)
+                    value(arguments.get(0));
+                else
+                    method.visitInsn(DCONST_0);
+                if (arguments.size() > 1)
+                    value(arguments.get(1));
+                else
+                    method.visitInsn(DCONST_0);
+                method.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(Function.class), "evaluate", "(DD)D", false);
+            }
+
+            /** Returns the name of the java.lang.Math method which computes this function exactly, or null if none */
+            private String mathMethod(Function function) {
+                switch (function) {
+                    case abs: case fabs: return "abs";
+                    case acos: return "acos";
+                    case asin: return "asin";
+                    case atan: return "atan";
+                    case ceil: return "ceil";
+                    case cos: return "cos";
+                    case cosh: return "cosh";
+                    case exp: return "exp";
+                    case floor: return "floor";
+                    case log: return "log";
+                    case log10: return "log10";
+                    case sin: return "sin";
+                    case sinh: return "sinh";
+                    case sqrt: return "sqrt";
+                    case tan: return "tan";
+                    case tanh: return "tanh";
+                    case atan2: return "atan2";
+                    case max: return "max";
+                    case min: return "min";
+                    case pow: return "pow";
+                    default: return null;
+                }
+            }
+
+            private void constant(double value) {
+                if (Double.doubleToRawLongBits(value) == 0L) // not -0.0
+                    method.visitInsn(DCONST_0);
+                else if (value == 1.0)
+                    method.visitInsn(DCONST_1);
+                else
+                    method.visitLdcInsn(value);
+            }
+
+            private int newLocal() {
+                int local = nextLocal;
+                nextLocal += 2; // doubles take two slots
+                return local;
+            }
+
+        }
+
+    }
+
+    /** Defines a single generated class, such that it can be unloaded when no longer in use */
+    private static class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+
+    }
+
+    /** A node evaluating a compiled expression. This serializes and is typed as the expression it was compiled from. */
+    static class CompiledNode extends ExpressionNode {
+
+        private final ExpressionNode expression;
+        private final ToDoubleFunction<Context> compiled;
+
+        CompiledNode(ExpressionNode expression, ToDoubleFunction<Context> compiled) {
+            this.expression = expression;
+            this.compiled = compiled;
+        }
+
+        /** Returns the expression this was compiled from */
+        ExpressionNode expression() { return expression; }
+
+        @Override
+        public StringBuilder toString(StringBuilder builder, SerializationContext context, Deque<String> path, CompositeNode parent) {
+            return expression.toString(builder, context, path, parent);
+        }
+
+        @Override
+        public TensorType type(TypeContext<Reference> context) {
+            return expression.type(context);
+        }
+
+        @Override
+        public Value evaluate(Context context) {
+            return new DoubleValue(compiled.applyAsDouble(context));
+        }
+
+    }
+
+}
@@ -4,8 +4,10 @@ package ai.vespa.models.evaluation;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.Parallelism;
 
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -20,11 +22,14 @@ public class FunctionEvaluator {
 
     private final ExpressionFunction function;
     private final LazyArrayContext context;
+    private final ExpressionNode compiledBody; // null if the function is not compiled
     private boolean evaluated = false;
+    private boolean stringsBound = false;
 
-    FunctionEvaluator(ExpressionFunction function, LazyArrayContext context) {
+    FunctionEvaluator(ExpressionFunction function, LazyArrayContext context, ExpressionNode compiledBody) {
         this.function = function;
         this.context = context;
+        this.compiledBody = compiledBody;
     }
 
     /**
@@ -73,6 +78,7 @@ public class FunctionEvaluator {
         if (evaluated)
             throw new IllegalStateException("Cannot bind a new value in a used evaluator");
         context.put(name, new StringValue(value));
+        stringsBound = true;
         return this;
     }
 
@@ -99,6 +105,21 @@ public class FunctionEvaluator {
         return setMissingValue(Tensor.Builder.of(TensorType.empty).cell(value).build());
     }
 
+    /**
+     * Allows large dense tensor operations in this function to be split into tasks which are run in parallel.
+     * By default everything is evaluated in the calling thread.
+     *
+     * @param parallelism the parallelism to use, e.g <code>Parallelism.of(4)</code> to run each operation
+     *                    in at most four tasks (the calling thread and three threads in a shared pool)
+     * @return this for chaining
+     */
+    public FunctionEvaluator setParallelism(Parallelism parallelism) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot change the parallelism of a used evaluator");
+        context.setParallelism(parallelism);
+        return this;
+    }
+
     public Tensor evaluate() {
         for (Map.Entry<String, TensorType> argument : function.argumentTypes().entrySet()) {
             if (context.isMissing(argument.getKey()))
@@ -110,9 +131,16 @@ public class FunctionEvaluator {
 
         }
         evaluated = true;
+        if (canUseCompiledBody())
+            return compiledBody.evaluate(context).asTensor();
         return function.getBody().evaluate(context).asTensor();
     }
 
+    /** Compiled bodies assume that all scalar arguments are doubles, which is not the case when strings are bound */
+    private boolean canUseCompiledBody() {
+        return compiledBody != null && ! stringsBound;
+    }
+
     /** Returns the function evaluated by this */
     public ExpressionFunction function() { return function; }
 
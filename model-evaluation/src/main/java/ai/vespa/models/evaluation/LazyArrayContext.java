@@ -15,6 +15,7 @@ import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.Parallelism;
 
 import java.util.Arrays;
 import java.util.LinkedHashSet;
@@ -31,10 +32,12 @@ public final class LazyArrayContext extends Context implements ContextIndex {
 
     private final ExpressionFunction function;
     private final IndexedBindings indexedBindings;
+    private Parallelism parallelism = Parallelism.none;
 
-    private LazyArrayContext(ExpressionFunction function, IndexedBindings indexedBindings) {
+    private LazyArrayContext(ExpressionFunction function, IndexedBindings indexedBindings, Parallelism parallelism) {
         this.function = function;
         this.indexedBindings = indexedBindings.copy(this);
+        this.parallelism = parallelism;
     }
 
     /** Create a fast lookup, lazy context for a function */
@@ -54,6 +57,14 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         indexedBindings.setMissingValue(value);
     }
 
+    /** Sets the parallelism which may be used when evaluating tensor functions in this context */
+    public void setParallelism(Parallelism parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public Parallelism parallelism() { return parallelism; }
+
     /**
      * Puts a value by name.
      * The value will be frozen if it isn't already.
@@ -133,12 +144,17 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return indexedBindings.missingValue;
     }
 
+    /** Forgets all values computed from functions in this, such that it can be evaluated with new bindings */
+    void clearComputedValues() {
+        indexedBindings.clearComputedValues();
+    }
+
     /**
      * Creates a copy of this context suitable for evaluating against the same ranking expression
      * in a different thread or for re-binding free variables.
      */
     LazyArrayContext copy() {
-        return new LazyArrayContext(function, indexedBindings);
+        return new LazyArrayContext(function, indexedBindings, parallelism);
     }
 
     private static class IndexedBindings {
@@ -258,6 +274,12 @@ public final class LazyArrayContext extends Context implements ContextIndex {
             values[index] = value;
         }
 
+        void clearComputedValues() {
+            for (Value value : values)
+                if (value instanceof LazyValue)
+                    ((LazyValue) value).clear();
+        }
+
         Set<String> names() { return nameToIndex.keySet(); }
         Set<String> arguments() { return arguments; }
         Integer indexOf(String name) { return nameToIndex.get(name); }
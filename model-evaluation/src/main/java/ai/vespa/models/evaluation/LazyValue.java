@@ -40,6 +40,11 @@ class LazyValue extends Value {
         return computedValue;
     }
 
+    /** Forgets the computed value of this, such that it is computed again when next requested */
+    void clear() {
+        computedValue = null;
+    }
+
     @Override
     public TensorType type() {
         return model.requireReferencedFunction(function).returnType().get();
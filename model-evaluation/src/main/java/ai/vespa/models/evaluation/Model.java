@@ -9,6 +9,7 @@ import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.tensor.TensorType;
 
 import java.util.Arrays;
@@ -16,6 +17,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +45,9 @@ public class Model {
     /** Context prototypes, indexed by function name (as all invocations of the same function share the same context prototype) */
     private final ImmutableMap<String, LazyArrayContext> contextPrototypes;
 
+    /** Bodies of the free functions where some or all of the body is compiled, indexed by function name */
+    private final ImmutableMap<String, ExpressionNode> compiledBodies;
+
     private final ExpressionOptimizer expressionOptimizer = new ExpressionOptimizer();
 
     /** Programmatically create a model containing functions without constant of function references only */
@@ -91,6 +96,7 @@ public class Model {
         this.publicFunctions = ImmutableList.copyOf(functions.values().stream()
                                                                       .filter(f ->  ! f.getName().startsWith(INTERMEDIATE_OPERATION_FUNCTION_PREFIX))
                                                                       .collect(Collectors.toList()));
+        this.compiledBodies = compile(this.functions, referencedFunctions, constants);
 
         // Optimize functions
         ImmutableMap.Builder<FunctionReference, ExpressionFunction> functionsBuilder = new ImmutableMap.Builder<>();
@@ -109,6 +115,44 @@ public class Model {
         return function;
     }
 
+    /** Compiles the bodies of the given functions, to be evaluated in copies of their context prototypes */
+    private ImmutableMap<String, ExpressionNode> compile(List<ExpressionFunction> functions,
+                                                         Map<FunctionReference, ExpressionFunction> referencedFunctions,
+                                                         List<Constant> constants) {
+        ExpressionCompiler compiler = new ExpressionCompiler();
+        ImmutableMap.Builder<String, ExpressionNode> compiledBodies = new ImmutableMap.Builder<>();
+        for (ExpressionFunction function : functions) {
+            ExpressionNode body = function.getBody().getRoot();
+            ExpressionNode compiledBody = compiler.compile(body,
+                                                           contextPrototypes.get(function.getName()),
+                                                           name -> isScalar(name, function, referencedFunctions, constants));
+            if (compiledBody != body)
+                compiledBodies.put(function.getName(), compiledBody);
+        }
+        return compiledBodies.build();
+    }
+
+    /** Returns whether the value of the given name is always a scalar when evaluating the given function */
+    private static boolean isScalar(String name,
+                                    ExpressionFunction function,
+                                    Map<FunctionReference, ExpressionFunction> referencedFunctions,
+                                    List<Constant> constants) {
+        TensorType argumentType = function.argumentTypes().get(name);
+        if (argumentType != null) return argumentType.rank() == 0;
+
+        for (Constant constant : constants) {
+            if (name.equals("constant(" + constant.name() + ")"))
+                return constant.value().type().rank() == 0;
+        }
+
+        Optional<FunctionReference> reference = FunctionReference.fromSerial(name);
+        if (reference.isEmpty()) return false;
+        ExpressionFunction referencedFunction = referencedFunctions.get(reference.get());
+        return referencedFunction != null &&
+               referencedFunction.returnType().isPresent() &&
+               referencedFunction.returnType().get().rank() == 0;
+    }
+
     public String name() { return name; }
 
     /**
@@ -173,21 +217,42 @@ public class Model {
      * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
      */
     public FunctionEvaluator evaluatorOf(String ... names) {  // TODO: Parameter overloading?
+        return evaluatorOf(functionOf(names));
+    }
+
+    /**
+     * Returns an evaluator which can be used to evaluate the given function over a batch of rows in a single thread once.
+     *
+     * Usage:
+     * <code>double[] result = model.batchEvaluatorOf("myFunction").bind("foo", fooColumn).bind("bar", value).evaluate()</code>
+     *
+     * @param names the names identifying the function, as in {@link #evaluatorOf}
+     * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
+     */
+    public BatchEvaluator batchEvaluatorOf(String ... names) {
+        ExpressionFunction function = functionOf(names);
+        return new BatchEvaluator(function,
+                                  requireContextPrototype(function.getName()).copy(),
+                                  compiledBodies.get(function.getName()));
+    }
+
+    /** Returns the function identified by the given names, as described in {@link #evaluatorOf} */
+    private ExpressionFunction functionOf(String ... names) {
         if (names.length == 0) {
             if (functions.size() > 1)
                 throwUndeterminedFunction("More than one function is available in " + this + ", but no name is given");
-            return evaluatorOf(functions.get(0));
+            return functions.get(0);
         }
         else if (names.length == 1) {
             String name = names[0];
             ExpressionFunction function = function(name);
-            if (function != null) return evaluatorOf(function);
+            if (function != null) return function;
 
             // Check if the name is a signature
             List<ExpressionFunction> functionsStartingByName =
                     functions.stream().filter(f -> f.getName().startsWith(name + ".")).collect(Collectors.toList());
             if (functionsStartingByName.size() == 1)
-                return evaluatorOf(functionsStartingByName.get(0));
+                return functionsStartingByName.get(0);
             if (functionsStartingByName.size() > 1)
                 throwUndeterminedFunction("Multiple functions start by '" + name + "' in " + this);
 
@@ -195,19 +260,19 @@ public class Model {
             List<ExpressionFunction> functionsEndingByName =
                     functions.stream().filter(f -> f.getName().endsWith("." + name)).collect(Collectors.toList());
             if (functionsEndingByName.size() == 1)
-                return evaluatorOf(functionsEndingByName.get(0));
+                return functionsEndingByName.get(0);
             if (functionsEndingByName.size() > 1)
                 throwUndeterminedFunction("Multiple functions called '" + name + "' in " + this);
 
             // To handle TensorFlow conversion to ONNX
             if (name.startsWith("serving_default")) {
-                return evaluatorOf("default" + name.substring("serving_default".length()));
+                return functionOf("default" + name.substring("serving_default".length()));
             }
 
             throwUndeterminedFunction("No function '" + name + "' in " + this);
         }
         else if (names.length == 2) {
-            return evaluatorOf(names[0] + "." + names[1]);
+            return functionOf(names[0] + "." + names[1]);
         }
         throw new IllegalArgumentException("No more than 2 names can be given when choosing a function, got " +
                                            Arrays.toString(names));
@@ -215,7 +280,9 @@ public class Model {
 
     /** Returns a single-use evaluator of a function */
     private FunctionEvaluator evaluatorOf(ExpressionFunction function) {
-        return new FunctionEvaluator(function, requireContextPrototype(function.getName()).copy());
+        return new FunctionEvaluator(function,
+                                     requireContextPrototype(function.getName()).copy(),
+                                     compiledBodies.get(function.getName()));
     }
 
     private void throwUndeterminedFunction(String message) {
@@ -18,6 +18,9 @@ import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -38,8 +41,14 @@ import java.util.regex.Pattern;
  */
 public class RankProfilesConfigImporter {
 
+    /** Constant files of this size or larger are memory mapped rather than read onto the heap */
+    private static final long mappedConstantMinBytes = 1024 * 1024;
+
     private final FileAcquirer fileAcquirer;
 
+    /** The memory mapped constants read by this, which are shared by all the models referencing the same file */
+    private final Map<FileReference, Tensor> mappedConstants = new HashMap<>();
+
     public RankProfilesConfigImporter(FileAcquirer fileAcquirer) {
         this.fileAcquirer = fileAcquirer;
     }
@@ -148,10 +157,17 @@ public class RankProfilesConfigImporter {
         return constants;
     }
 
+    /**
+     * Reads a constant tensor from file. Large dense tensors are memory mapped and read from the file
+     * when used, such that they take no heap space and need not be read when this is imported.
+     * Memory mapped tensors are shared by all the constants referencing the same file.
+     */
     protected Tensor readTensorFromFile(String name, TensorType type, FileReference fileReference) {
         try {
             File file = fileAcquirer.waitFor(fileReference, 7, TimeUnit.DAYS);
-            if (file.getName().endsWith(".tbf"))
+            if (file.getName().endsWith(".tbf") && file.length() >= mappedConstantMinBytes && isDense(type))
+                return mappedTensor(type, fileReference, file);
+            else if (file.getName().endsWith(".tbf"))
                 return TypedBinaryFormat.decode(Optional.of(type),
                                                 GrowableByteBuffer.wrap(IOUtils.readFileBytes(file)));
             else
@@ -167,6 +183,26 @@ public class RankProfilesConfigImporter {
         }
     }
 
+    private static boolean isDense(TensorType type) {
+        return type.dimensions().stream().allMatch(TensorType.Dimension::isIndexed);
+    }
+
+    private Tensor mappedTensor(TensorType type, FileReference fileReference, File file) throws IOException {
+        Tensor tensor = mappedConstants.get(fileReference);
+        if (tensor == null || ! tensor.type().equals(type)) {
+            tensor = TypedBinaryFormat.decodeView(Optional.of(type), map(file));
+            mappedConstants.put(fileReference, tensor);
+        }
+        return tensor;
+    }
+
+    /** Returns the content of the given file as a read-only memory mapped buffer */
+    private static ByteBuffer map(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
     /** Collected information about small constants */
     private static class SmallConstantsInfo {
 
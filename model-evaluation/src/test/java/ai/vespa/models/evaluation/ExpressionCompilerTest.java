@@ -0,0 +1,98 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that compiled expressions evaluate to the same values as interpreted ones
+ */
+public class ExpressionCompilerTest {
+
+    private static final double[] values = { 0, 1, -1.5, 2.5, Double.NaN };
+
+    @Test
+    public void testCompiledEvaluationEqualsInterpretation() {
+        assertCompiledEqualsInterpreted("a + b * c - a / b % c ^ 2");
+        assertCompiledEqualsInterpreted("-(a - b) * 2 + 3 * -c");
+        assertCompiledEqualsInterpreted("(a && b) + (a || c) + !(a) + !(a > b)");
+        assertCompiledEqualsInterpreted("(a < b) + (a <= b) + (a > b) + (a >= b) + (a == b) + (a != b) + (a ~= b) + c");
+        assertCompiledEqualsInterpreted("if (a < b, a * 2, if (b in [1, 2.5, c], -b, 3))");
+        assertCompiledEqualsInterpreted("if (!(a >= 1), b, c) + if (a, b, c) + if ((a != b) && (b > c), 1, 0)");
+        assertCompiledEqualsInterpreted("if (a in [1, c], 1, 0) + if (a in [b], 0, 1) + if (a in [0], b, c)");
+        assertCompiledEqualsInterpreted("sigmoid(a) + max(a, b) + min(b, c) + pow(a, 2) + exp(b) + log(c) + fabs(a)");
+        assertCompiledEqualsInterpreted("relu(b) + atan2(a, b) + ldexp(a, b) + isNan(c) + sign(a) + round(b) + erf(c)");
+        assertCompiledEqualsInterpreted("if (a > 0.5, 1, 0) * 0.0 + -0.0 * b + c");
+    }
+
+    @Test
+    public void testLargeExpressionsAreSplitIntoMethods() {
+        StringBuilder forest = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            if (i > 0) forest.append(" + ");
+            forest.append("if (a < ").append(i % 3).append(", if (b >= ").append(i % 5).append(", ").append(i)
+                  .append(", c * ").append(i).append("), if (c in [").append(i % 2).append(", 2.5], -").append(i).append(", a))");
+        }
+        assertCompiledEqualsInterpreted(forest.toString());
+    }
+
+    @Test
+    public void testOnlyScalarSubexpressionsAreCompiled() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("sum(t * (a + 1)) + (a * 2 + 1)"))
+                                              .withArgument("t", TensorType.fromSpec("tensor(x[2])"))
+                                              .withArgument("a", TensorType.empty);
+        Model model = new Model("test", List.of(function));
+        LazyArrayContext context = model.evaluatorOf("test").context();
+        ExpressionNode compiled = new ExpressionCompiler().compile(function.getBody().getRoot(), context,
+                                                                   name -> function.argumentTypes().get(name).rank() == 0);
+        assertFalse(compiled instanceof ExpressionCompiler.CompiledNode);
+        assertEquals(function.getBody().getRoot().toString(), compiled.toString());
+        assertTrue(((CompositeNode)compiled).children().get(1) instanceof ExpressionCompiler.CompiledNode);
+
+        Tensor t = Tensor.from("tensor(x[2]):[1, 2]");
+        assertEquals(9.0, model.evaluatorOf("test").bind("t", t).bind("a", 1).evaluate().asDouble(), 0);
+    }
+
+    @Test
+    public void testCompiledEvaluationUsesMissingValue() {
+        Model model = new Model("test", List.of(new ExpressionFunction("test", RankingExpression.from("a + b * 2"))));
+        assertEquals(5.0, model.evaluatorOf("test").bind("a", 1).bind("b", 2).evaluate().asDouble(), 0);
+        assertEquals(7.0, model.evaluatorOf("test").bind("a", 1).setMissingValue(3).evaluate().asDouble(), 0);
+        assertTrue(Double.isNaN(model.evaluatorOf("test").bind("a", 1).evaluate().asDouble()));
+    }
+
+    private void assertCompiledEqualsInterpreted(String expression) {
+        Model model = new Model("test", List.of(new ExpressionFunction("test", RankingExpression.from(expression))));
+        ExpressionNode interpreted = model.function("test").getBody().getRoot();
+        LazyArrayContext context = model.evaluatorOf("test").context();
+        ExpressionNode compiled = new ExpressionCompiler().compile(interpreted, context, name -> true);
+        assertTrue("Compiled " + expression, compiled instanceof ExpressionCompiler.CompiledNode);
+
+        for (double a : values) {
+            for (double b : values) {
+                for (double c : values) {
+                    context.put("a", a);
+                    context.put("b", b);
+                    context.put("c", c);
+                    assertEquals(expression + " with a=" + a + ", b=" + b + ", c=" + c,
+                                 interpreted.evaluate(context).asDouble(), compiled.evaluate(context).asDouble(), 0);
+                    assertEquals(expression + " through the evaluator",
+                                 interpreted.evaluate(context).asDouble(),
+                                 model.evaluatorOf("test").bind("a", a).bind("b", b).bind("c", c).evaluate().asDouble(), 0);
+                }
+            }
+        }
+    }
+
+}
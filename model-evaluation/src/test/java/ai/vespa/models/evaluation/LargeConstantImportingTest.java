@@ -0,0 +1,91 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.filedistribution.fileacquirer.MockFileAcquirer;
+import com.yahoo.io.IOUtils;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.serialization.TypedBinaryFormat;
+import com.yahoo.vespa.config.search.RankProfilesConfig;
+import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class LargeConstantImportingTest {
+
+    private static final int largeSize = 256 * 1024; // 2 Mb of doubles
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testLargeConstantIsMemoryMappedAndShared() throws IOException {
+        IndexedTensor.Builder large = IndexedTensor.Builder.of(TensorType.fromSpec("tensor(x[" + largeSize + "])"));
+        for (int i = 0; i < largeSize; i++)
+            large.cell(1.0, i);
+        File largeFile = write(large.build(), "large.tbf");
+        File smallFile = write(Tensor.from("tensor(x[2]):[1, 2]"), "small.tbf");
+
+        RankProfilesConfigImporter importer =
+                new RankProfilesConfigImporter(MockFileAcquirer.returnFiles(Map.of("largeRef", largeFile,
+                                                                                   "smallRef", smallFile)));
+        Map<String, Model> models = importer.importFrom(rankProfiles("profile1", "profile2"), constants());
+        Model profile1 = models.get("profile1");
+        Model profile2 = models.get("profile2");
+
+        assertEquals("The large constant is memory mapped rather than read onto the heap",
+                     "IndexedBufferTensor", constant("large", profile1).getClass().getSimpleName());
+        assertEquals("Small constants are read onto the heap",
+                     "IndexedDoubleTensor", constant("small", profile1).getClass().getSimpleName());
+        assertSame("The large constant is shared", constant("large", profile1), constant("large", profile2));
+        assertNotSame("Small constants are read into each model", constant("small", profile1), constant("small", profile2));
+        assertEquals(largeSize + 3.0, profile1.evaluatorOf("firstphase").evaluate().asDouble(), 0);
+        assertEquals(largeSize + 3.0, profile2.evaluatorOf("firstphase").evaluate().asDouble(), 0);
+    }
+
+    private Tensor constant(String name, Model model) {
+        return model.evaluatorOf("firstphase").context().get("constant(" + name + ")").asTensor();
+    }
+
+    private File write(Tensor tensor, String fileName) throws IOException {
+        File file = tmpDir.newFile(fileName);
+        IOUtils.writeFile(file, TypedBinaryFormat.encode(tensor));
+        return file;
+    }
+
+    private RankProfilesConfig rankProfiles(String ... names) {
+        RankProfilesConfig.Builder builder = new RankProfilesConfig.Builder();
+        for (String name : names) {
+            var firstPhase = new RankProfilesConfig.Rankprofile.Fef.Property.Builder()
+                                     .name("vespa.rank.firstphase")
+                                     .value("reduce(constant(large), sum) + reduce(constant(small), sum)");
+            builder.rankprofile(new RankProfilesConfig.Rankprofile.Builder()
+                                        .name(name)
+                                        .fef(new RankProfilesConfig.Rankprofile.Fef.Builder().property(firstPhase)));
+        }
+        return new RankProfilesConfig(builder);
+    }
+
+    private RankingConstantsConfig constants() {
+        return new RankingConstantsConfig(new RankingConstantsConfig.Builder()
+                                                  .constant(new RankingConstantsConfig.Constant.Builder()
+                                                                    .name("large")
+                                                                    .fileref("largeRef")
+                                                                    .type("tensor(x[" + largeSize + "])"))
+                                                  .constant(new RankingConstantsConfig.Constant.Builder()
+                                                                    .name("small")
+                                                                    .fileref("smallRef")
+                                                                    .type("tensor(x[2])")));
+    }
+
+}
@@ -9,6 +9,7 @@ import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.vespa.config.search.RankProfilesConfig;
 import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
 import com.yahoo.yolean.Exceptions;
@@ -16,9 +17,12 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author bratseth
@@ -122,6 +126,116 @@ public class ModelsEvaluatorTest {
 
     }
 
+    @Test
+    public void testParallelEvaluation() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("sum(a * b, y) + a * 2"))
+                                              .withArgument("a", TensorType.fromSpec("tensor(x[4],y[3])"))
+                                              .withArgument("b", TensorType.fromSpec("tensor(y[3],z[2])"));
+        Model model = new Model("test", List.of(function));
+        Tensor a = Tensor.from("tensor(x[4],y[3]):[[1, 2, 3], [4, -5, 6], [-7, 8, 9], [10, 11, -12]]");
+        Tensor b = Tensor.from("tensor(y[3],z[2]):[[1, -1], [2, 0.5], [-3, 2]]");
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Tensor expected = model.evaluatorOf("test").bind("a", a).bind("b", b).evaluate();
+            FunctionEvaluator evaluator = model.evaluatorOf("test").setParallelism(Parallelism.of(pool, 4, 1));
+            assertEquals(expected, evaluator.bind("a", a).bind("b", b).evaluate());
+            try {
+                evaluator.setParallelism(Parallelism.none);
+                fail("Expected exception");
+            }
+            catch (IllegalStateException e) {
+                assertEquals("Cannot change the parallelism of a used evaluator", Exceptions.toMessageString(e));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchEvaluationDependingFunctionTakingArguments() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        BatchEvaluator function = models.batchEvaluatorOf("macros", "secondphase");
+        function.bind("match", new double[] { 3, 1, 0 });
+        function.bind("rankBoost", new double[] { 5, 5, 2 });
+        assertArrayEquals(new double[] { 32.0, 24.0, 8.0 }, function.evaluate(), delta);
+
+        BatchEvaluator sharedBoost = models.batchEvaluatorOf("macros", "secondphase");
+        sharedBoost.bind("match", new double[] { 3, 1 });
+        sharedBoost.bind("rankBoost", 5);
+        assertArrayEquals(new double[] { 32.0, 24.0 }, sharedBoost.evaluate(), delta);
+    }
+
+    @Test
+    public void testBatchEvaluationOverBatchDimension() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("sum(t * w) + if (a > 1, a, 0)"))
+                                              .withArgument("t", TensorType.fromSpec("tensor(x[2])"))
+                                              .withArgument("w", TensorType.fromSpec("tensor(x[2])"))
+                                              .withArgument("a", TensorType.empty);
+        Model model = new Model("test-model", List.of(function));
+        Tensor batch = Tensor.from("tensor(batch[3],x[2]):[[1, 2], [3, 4], [5, 6]]");
+        Tensor w = Tensor.from("tensor(x[2]):[0.5, 2]");
+        Tensor a = Tensor.from("tensor(batch[3]):[1, 2, 3]");
+
+        BatchEvaluator evaluator = model.batchEvaluatorOf("test");
+        evaluator.bind("t", batch, "batch").bind("w", w).bind("a", a, "batch");
+        double[] result = evaluator.evaluate();
+
+        assertEquals(3, result.length);
+        for (int row = 0; row < 3; row++) {
+            FunctionEvaluator rowEvaluator = model.evaluatorOf("test");
+            rowEvaluator.bind("t", Tensor.from("tensor(x[2]):[" + (2 * row + 1) + ", " + (2 * row + 2) + "]"));
+            rowEvaluator.bind("w", w);
+            rowEvaluator.bind("a", row + 1);
+            assertEquals(rowEvaluator.evaluate().asDouble(), result[row], delta);
+        }
+    }
+
+    @Test
+    public void testBatchBindingValidation() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("sum(arg1) + arg2"))
+                                              .withArgument("arg1", TensorType.fromSpec("tensor(d0[2])"))
+                                              .withArgument("arg2", TensorType.empty);
+        Model model = new Model("test-model", List.of(function));
+
+        try { // Columns of different sizes
+            BatchEvaluator evaluator = model.batchEvaluatorOf("test");
+            evaluator.bind("arg1", Tensor.from("tensor(b[2],d0[2]):[[1, 2], [3, 4]]"), "b");
+            evaluator.bind("arg2", new double[] { 1, 2, 3 });
+            evaluator.evaluate();
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertTrue(Exceptions.toMessageString(e).startsWith("All columns must have the same number of rows"));
+        }
+
+        try { // Column bound to a non-scalar argument
+            model.batchEvaluatorOf("test").bind("arg1", new double[] { 1, 2 });
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("'arg1' must be of type tensor(d0[2]), not tensor()", Exceptions.toMessageString(e));
+        }
+
+        try { // Mapped batch dimension
+            model.batchEvaluatorOf("test").bind("arg2", Tensor.from("tensor(b{}):{{b:0}:1}"), "b");
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("The batch dimension 'b' of 'arg2' must be indexed, but the type is tensor(b{})",
+                         Exceptions.toMessageString(e));
+        }
+
+        try { // No columns
+            model.batchEvaluatorOf("test").bind("arg1", Tensor.from("tensor(d0[2]):[1, 2]")).bind("arg2", 1).evaluate();
+            fail("Expected exception");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("No argument of function 'test' is bound to a column of values", Exceptions.toMessageString(e));
+        }
+    }
+
     // TODO: Test argument-less function
     // TODO: Test with nested functions
 
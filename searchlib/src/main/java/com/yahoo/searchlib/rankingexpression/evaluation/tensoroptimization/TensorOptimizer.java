@@ -3,27 +3,58 @@ package com.yahoo.searchlib.rankingexpression.evaluation.tensoroptimization;
 
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
 import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
 import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
 import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
 import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
 import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
 import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.functions.Argmax;
+import com.yahoo.tensor.functions.Argmin;
+import com.yahoo.tensor.functions.Concat;
+import com.yahoo.tensor.functions.DynamicTensor;
 import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.L1Normalize;
+import com.yahoo.tensor.functions.L2Normalize;
+import com.yahoo.tensor.functions.Map;
+import com.yahoo.tensor.functions.Matmul;
+import com.yahoo.tensor.functions.Merge;
 import com.yahoo.tensor.functions.Reduce;
 import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.Rename;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.Softmax;
 import com.yahoo.tensor.functions.TensorFunction;
+import com.yahoo.tensor.functions.XwPlusB;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Recognizes and optimizes tensor expressions.
+ * Recognizes and optimizes tensor expressions. This plans the evaluation of an expression once,
+ * bottom up, by folding tensor functions of constants into constants, and by fusing reduces of joins,
+ * including of tensor products written as arithmetic, into reduce-joins.
  *
  * @author lesters
  */
 public class TensorOptimizer extends Optimizer {
 
+    /** Tensor functions which always produce the same tensor from the same arguments */
+    private static final Set<Class<?>> deterministicFunctions = Set.of(Argmax.class, Argmin.class, Concat.class,
+                                                                       Join.class, L1Normalize.class, L2Normalize.class,
+                                                                       Map.class, Matmul.class, Merge.class,
+                                                                       Reduce.class, ReduceJoin.class, Rename.class,
+                                                                       Softmax.class, XwPlusB.class);
+
     private OptimizationReport report;
 
     @Override
@@ -35,11 +66,10 @@ public class TensorOptimizer extends Optimizer {
     }
 
     private ExpressionNode optimize(ExpressionNode node, ContextIndex context) {
+        if (node instanceof CompositeNode)
+            node = optimizeChildren((CompositeNode)node, context);
         node = optimizeReduceJoin(node);
-        if (node instanceof CompositeNode) {
-            return optimizeChildren((CompositeNode)node, context);
-        }
-        return node;
+        return foldConstant(node);
     }
 
     private ExpressionNode optimizeChildren(CompositeNode node, ContextIndex context) {
@@ -50,6 +80,29 @@ public class TensorOptimizer extends Optimizer {
         return node.setChildren(optimizedChildren);
     }
 
+    /**
+     * Replaces a tensor literal which does not refer to any values, or a deterministic tensor function whose
+     * arguments are all constants, by the constant it produces, such that it is evaluated once rather than
+     * on each evaluation of the expression.
+     */
+    private ExpressionNode foldConstant(ExpressionNode node) {
+        if ( ! (node instanceof TensorFunctionNode)) return node;
+        TensorFunction<Reference> function = ((TensorFunctionNode)node).function();
+        List<ExpressionNode> children = ((TensorFunctionNode)node).children();
+        boolean constantArguments = ! children.isEmpty() && children.stream().allMatch(child -> child instanceof ConstantNode);
+        if ( ! (function instanceof DynamicTensor) &&
+             ! (deterministicFunctions.contains(function.getClass()) && constantArguments)) return node;
+
+        try {
+            Tensor value = function.evaluate(new ConstantContext());
+            report.incMetric("Folded constant tensor functions", 1);
+            return new ConstantNode(new TensorValue(value), node.toString());
+        }
+        catch (RuntimeException e) { // not constant, or left to fail during evaluation
+            return node;
+        }
+    }
+
     /**
      * Recognized a reduce followed by a join. In many cases, chunking these
      * two operations together is significantly more efficient than evaluating
@@ -73,6 +126,12 @@ public class TensorOptimizer extends Optimizer {
             return node;
         }
         ExpressionNode child = children.get(0);
+        if (isProduct(child)) {
+            List<ExpressionNode> factors = ((ArithmeticNode) child).children();
+            child = new TensorFunctionNode(new Join<>(TensorFunctionNode.wrap(factors.get(0)),
+                                                      TensorFunctionNode.wrap(factors.get(1)),
+                                                      ScalarFunctions.multiply()));
+        }
         if ( ! (child instanceof TensorFunctionNode)) {
             return node;
         }
@@ -84,4 +143,25 @@ public class TensorOptimizer extends Optimizer {
         return node;
     }
 
+    /** Returns whether this is a product of two values, which is the same as joining them by multiplication */
+    private boolean isProduct(ExpressionNode node) {
+        if ( ! (node instanceof ArithmeticNode)) return false;
+        return ((ArithmeticNode) node).operators().equals(List.of(ArithmeticOperator.MULTIPLY));
+    }
+
+    /** A context which has no values, such that evaluating anything referring to a value fails */
+    private static class ConstantContext extends Context {
+
+        @Override
+        public Value get(String name) {
+            throw new IllegalArgumentException("'" + name + "' is not a constant");
+        }
+
+        @Override
+        public TensorType getType(Reference reference) {
+            throw new IllegalArgumentException("'" + reference + "' is not a constant");
+        }
+
+    }
+
 }
@@ -7,6 +7,7 @@ import com.yahoo.searchlib.rankingexpression.evaluation.Context;
 import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
 import com.yahoo.searchlib.rankingexpression.evaluation.Value;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.functions.ScalarFunctions;
 import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.Collections;
@@ -109,26 +110,61 @@ public class LambdaFunctionNode extends CompositeNode {
             return Optional.empty();
         }
         ArithmeticNode node = (ArithmeticNode) functionExpression;
-        if ( ! (node.children().get(0) instanceof ReferenceNode) || ! (node.children().get(1) instanceof ReferenceNode)) {
-            return Optional.empty();
-        }
         if (node.operators().size() != 1) {
             return Optional.empty();
         }
         ArithmeticOperator operator = node.operators().get(0);
+        if (operator == ArithmeticOperator.MULTIPLY && isDifference(node.children().get(0)) &&
+            node.children().get(0).equals(node.children().get(1))) {
+            return Optional.of(new ScalarFunctions.SquaredDifference() {
+                @Override
+                public String toString() { return LambdaFunctionNode.this.toString(); }
+            });
+        }
+        Optional<Boolean> swapped = argumentsSwapped(node.children().get(0), node.children().get(1));
+        if (swapped.isEmpty()) {
+            return Optional.empty();
+        }
         switch (operator) {
             case OR: return asFunctionExpression((left, right) -> ((left != 0.0) || (right != 0.0)) ? 1.0 : 0.0);
             case AND: return asFunctionExpression((left, right) -> ((left != 0.0) && (right != 0.0)) ? 1.0 : 0.0);
             case PLUS: return asFunctionExpression((left, right) -> left + right);
-            case MINUS: return asFunctionExpression((left, right) -> left - right);
-            case MULTIPLY: return asFunctionExpression((left, right) -> left * right);
-            case DIVIDE: return asFunctionExpression((left, right) -> left / right);
-            case MODULO: return asFunctionExpression((left, right) -> left % right);
-            case POWER: return asFunctionExpression(Math::pow);
+            case MINUS: return asFunctionExpression(swapped.get() ? (left, right) -> right - left : (left, right) -> left - right);
+            case MULTIPLY: return Optional.of(new ScalarFunctions.Multiply() {
+                @Override
+                public String toString() { return LambdaFunctionNode.this.toString(); }
+            });
+            case DIVIDE: return asFunctionExpression(swapped.get() ? (left, right) -> right / left : (left, right) -> left / right);
+            case MODULO: return asFunctionExpression(swapped.get() ? (left, right) -> right % left : (left, right) -> left % right);
+            case POWER: return asFunctionExpression(swapped.get() ? (left, right) -> Math.pow(right, left) : Math::pow);
         }
         return Optional.empty();
     }
 
+    /**
+     * Returns whether the given nodes refer to the second and first argument of this, or empty
+     * if they are not references to the two different arguments of this.
+     */
+    private Optional<Boolean> argumentsSwapped(ExpressionNode first, ExpressionNode second) {
+        if (arguments.size() != 2) return Optional.empty();
+        if ( ! (first instanceof ReferenceNode) || ! (second instanceof ReferenceNode)) return Optional.empty();
+        String firstName = ((ReferenceNode)first).reference().toString();
+        String secondName = ((ReferenceNode)second).reference().toString();
+        if (firstName.equals(arguments.get(0)) && secondName.equals(arguments.get(1))) return Optional.of(false);
+        if (firstName.equals(arguments.get(1)) && secondName.equals(arguments.get(0))) return Optional.of(true);
+        return Optional.empty();
+    }
+
+    /** Returns whether the given node is a parenthesized difference between the two arguments of this */
+    private boolean isDifference(ExpressionNode node) {
+        if ( ! (node instanceof EmbracedNode)) return false;
+        ExpressionNode value = ((EmbracedNode)node).getValue();
+        if ( ! (value instanceof ArithmeticNode)) return false;
+        ArithmeticNode difference = (ArithmeticNode)value;
+        return difference.operators().equals(List.of(ArithmeticOperator.MINUS)) &&
+               argumentsSwapped(difference.children().get(0), difference.children().get(1)).isPresent();
+    }
+
     private Optional<DoubleBinaryOperator> asFunctionExpression(DoubleBinaryOperator operator) {
         return Optional.of(new DoubleBinaryOperator() {
             @Override
@@ -237,6 +237,9 @@ public class EvaluationTestCase {
 
         // tensor join
         tester.assertEvaluates("{ {x:0,y:0}:15, {x:1,y:0}:35 }", "join(tensor0, tensor1, f(x,y) (x*y))", "{ {x:0}:3, {x:1}:7 }", "{ {y:0}:5 }");
+        tester.assertEvaluates("{ {x:0}:2, {x:1}:-4 }", "join(tensor0, tensor1, f(x,y) (y-x))", "{ {x:0}:3, {x:1}:7 }", "{ {x:0}:5, {x:1}:3 }");
+        tester.assertEvaluates("{ {x:0}:9, {x:1}:49 }", "join(tensor0, tensor1, f(x,y) (x*x))", "{ {x:0}:3, {x:1}:7 }", "{ {x:0}:5, {x:1}:3 }");
+        tester.assertEvaluates("{ {x:0}:4, {x:1}:16 }", "join(tensor0, tensor1, f(x,y) ((x-y)*(x-y)))", "{ {x:0}:3, {x:1}:7 }", "{ {x:0}:5, {x:1}:3 }");
         // -- join composites
         tester.assertEvaluates("{ }", "tensor0 * tensor0", "{}");
         tester.assertEvaluates("{{x:0,y:0,z:0}:0.0}", "( tensor0 * tensor1 ) * ( tensor2 * tensor1 )",
@@ -7,6 +7,8 @@ import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
 import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
 import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
@@ -15,6 +17,7 @@ import com.yahoo.tensor.functions.ReduceJoin;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author lesters
@@ -52,6 +55,36 @@ public class TensorOptimizerTestCase {
         assertCantOptimize("d0[1],d1[2],d2[3]", "d0[1],d1[2],d2[3]", "d1,d2");  // reducing on less then joining on
     }
 
+    @Test
+    public void testReduceOfProductOptimization() throws ParseException {
+        Tensor a = generateRandomTensor("d0[3],d1[2]");
+        Tensor b = generateRandomTensor("d1[2]");
+        RankingExpression expression = new RankingExpression("reduce(a * b, sum, d1)");
+        ArrayContext context = generateContext(a, b, expression);
+        Tensor result = expression.evaluate(context).asTensor();
+
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, context);
+        assertEquals(1, report.getMetric("Replaced reduce->join"));
+        assertTrue(((TensorFunctionNode)expression.getRoot()).function() instanceof ReduceJoin);
+        assertEquals(result, expression.evaluate(context).asTensor());
+    }
+
+    @Test
+    public void testConstantFolding() throws ParseException {
+        RankingExpression expression = new RankingExpression("reduce(tensor(d0[3]):[1, 2, 3] * 2, sum) + " +
+                                                             "reduce(b * tensor(d0[3]):[1, 2, a], sum)");
+        ArrayContext context = new ArrayContext(expression);
+        context.put("a", 2.0);
+        context.put("b", new TensorValue(Tensor.from("tensor(d0[3]):[1, 1, 1]")));
+        assertEquals(17.0, expression.evaluate(context).asDouble(), 0.000001);
+
+        OptimizationReport report = new ExpressionOptimizer().optimize(expression, context);
+        assertEquals(2, report.getMetric("Folded constant tensor functions"));
+        assertEquals(2, report.getMetric("Replaced reduce->join"));
+        assertTrue(((ArithmeticNode)expression.getRoot()).children().get(0) instanceof ConstantNode);
+        assertEquals(17.0, expression.evaluate(context).asDouble(), 0.000001);
+    }
+
     private void assertWillOptimize(String aType, String bType) throws ParseException {
         assertWillOptimize(aType, bType, "", "sum");
     }
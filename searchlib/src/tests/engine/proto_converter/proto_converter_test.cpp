@@ -464,6 +464,15 @@ TEST_F(DocsumRequestTest, require_that_global_ids_are_converted) {
     EXPECT_EQ(request.hits[2].gid, document::GlobalId(id2));
 }
 
+TEST_F(DocsumRequestTest, require_that_fields_are_converted) {
+    proto.add_fields("title");
+    proto.add_fields("artist");
+    convert();
+    ASSERT_EQ(request.fields.size(), 2);
+    EXPECT_EQ(request.fields[0], "title");
+    EXPECT_EQ(request.fields[1], "artist");
+}
+
 //-----------------------------------------------------------------------------
 
 struct DocsumReplyTest : ::testing::Test {
@@ -40,6 +40,7 @@ private:
 public:
     std::vector<Hit>  hits;
     std::vector<char> sessionId;
+    std::vector<vespalib::string> fields; // the fields of the result class to return, all if empty
 
     DocsumRequest();
     explicit DocsumRequest(bool useRootSlime_);
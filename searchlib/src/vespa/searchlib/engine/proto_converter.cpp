@@ -136,6 +136,7 @@ ProtoConverter::docsum_request_from_proto(const ProtoDocsumRequest &proto, Docsu
     }
     request.location = proto.geo_location();
     request.stackDump.assign(proto.query_tree_blob().begin(), proto.query_tree_blob().end());
+    request.fields.assign(proto.fields().begin(), proto.fields().end());
     request.hits.resize(proto.global_ids_size());
     for (int i = 0; i < proto.global_ids_size(); ++i) {
         const auto &gid = proto.global_ids(i);
@@ -126,4 +126,16 @@ TEST_FF("require that docsum can be written as slime", DocsumFixture(), Slime())
     EXPECT_EQUAL(f2.get()["bad_jsonstring_field"].type().getId(), 0u);
 }
 
+TEST_FF("require that only requested fields are written when fields are set", DocsumFixture(), Slime()) {
+    GetDocsumArgs::FieldSet fields;
+    fields.insert("int_field");
+    fields.insert("string_field");
+    f1.state._args.set_fields(fields);
+    f1.getDocsum(f2);
+    EXPECT_EQUAL(f2.get().fields(), 2u);
+    EXPECT_EQUAL(f2.get()["int_field"].asLong(), 4u);
+    EXPECT_EQUAL(f2.get()["string_field"].asString().make_string(), std::string("string"));
+    EXPECT_FALSE(f2.get()["short_field"].valid());
+}
+
 TEST_MAIN() { TEST_RUN_ALL(); }
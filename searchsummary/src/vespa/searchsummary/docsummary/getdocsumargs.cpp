@@ -13,7 +13,8 @@ GetDocsumArgs::GetDocsumArgs()
       _stackDump(),
       _location(),
       _timeout(30s),
-      _propertiesMap()
+      _propertiesMap(),
+      _fields()
 { }
 
 
@@ -31,6 +32,10 @@ GetDocsumArgs::initFromDocsumRequest(const search::engine::DocsumRequest &req)
     _locations_possible = true;
     _timeout           = req.getTimeLeft();
     _propertiesMap     = req.propertiesMap;
+    _fields.clear();
+    for (const auto & field : req.fields) {
+        _fields.insert(field);
+    }
 }
 
 void
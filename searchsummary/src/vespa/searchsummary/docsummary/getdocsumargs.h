@@ -5,6 +5,7 @@
 #include <vespa/searchlib/fef/properties.h>
 #include <vespa/searchlib/engine/docsumrequest.h>
 #include <vespa/searchlib/engine/propertiesmap.h>
+#include <vespa/vespalib/stllike/hash_set.h>
 
 namespace search::docsummary {
 
@@ -12,6 +13,7 @@ class GetDocsumArgs
 {
 public:
     typedef engine::PropertiesMap PropsMap;
+    using FieldSet = vespalib::hash_set<vespalib::string>;
 
 private:
     vespalib::string   _ranking;
@@ -23,6 +25,7 @@ private:
     vespalib::string   _location;
     vespalib::duration _timeout;
     PropsMap           _propertiesMap;
+    FieldSet           _fields;
 public:
     GetDocsumArgs();
     ~GetDocsumArgs();
@@ -49,6 +52,11 @@ public:
 
     const PropsMap &propertiesMap() const { return _propertiesMap; }
 
+    void set_fields(const FieldSet& fields_in) { _fields = fields_in; }
+    const FieldSet& get_fields() const { return _fields; }
+    /** Returns whether the given field of the result class should be returned: All are if no fields are set */
+    bool need_field(const vespalib::string& field) const { return _fields.empty() || _fields.find(field) != _fields.end(); }
+
     const search::fef::Properties &highlightTerms() const {
         return _propertiesMap.highlightTerms();
     }
@@ -10,6 +10,7 @@ import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.document.json.JsonFeedReader;
 import com.yahoo.document.json.JsonWriter;
+import com.yahoo.document.json.ParallelJsonFeedReader;
 import com.yahoo.document.serialization.DocumentDeserializer;
 import com.yahoo.document.serialization.DocumentDeserializerFactory;
 import com.yahoo.document.serialization.DocumentSerializer;
@@ -35,6 +36,7 @@ import com.yahoo.messagebus.routing.Route;
 import com.yahoo.vespaxmlparser.ConditionalFeedOperation;
 import com.yahoo.vespaxmlparser.FeedReader;
 import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.SerializedDocumentFeedOperation;
 import com.yahoo.vespaxmlparser.RemoveFeedOperation;
 import com.yahoo.vespaxmlparser.VespaXMLFeedReader;
 import net.jpountz.xxhash.XXHashFactory;
@@ -49,6 +51,7 @@ import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -69,6 +72,7 @@ public class SimpleFeeder implements ReplyHandler {
     private final int numThreads;
     private final long numMessagesToSend;
     private final Destination destination;
+    private final ExecutorService parser;
     private final boolean benchmarkMode;
     private final static long REPORT_INTERVAL = TimeUnit.SECONDS.toMillis(10);
     private final long startTime = System.currentTimeMillis();
@@ -349,6 +353,9 @@ public class SimpleFeeder implements ReplyHandler {
         inputStreams = params.getInputStreams();
         out = params.getStdOut();
         numThreads = params.getNumDispatchThreads();
+        parser = (numThreads > 1)
+                ? Executors.newFixedThreadPool(numThreads, ThreadFactoryFactory.getDaemonThreadFactory("perf-feeder-parser"))
+                : null;
         numMessagesToSend = params.getNumMessagesToSend();
         mbus = newMessageBus(docTypeMgr, params);
         session = newSession(mbus, this, params);
@@ -369,7 +376,8 @@ public class SimpleFeeder implements ReplyHandler {
             throw new IllegalArgumentException("Need to read " + b.length + " bytes to detect format. Got " + numRead + " bytes.");
         }
         if (b[0] == '[') {
-            return new JsonFeedReader(in, docTypeMgr);
+            return (parser != null) ? new ParallelJsonFeedReader(in, docTypeMgr, parser, numThreads)
+                                    : new JsonFeedReader(in, docTypeMgr);
         } else if ((b[0] == 'V') && (b[1] == '1')) {
             return new VespaV1FeedReader(in, docTypeMgr);
         } else {
@@ -414,11 +422,18 @@ public class SimpleFeeder implements ReplyHandler {
     void close() throws Exception {
         destination.close();
         mbus.destroy();
+        if (parser != null)
+            parser.shutdownNow();
     }
 
     private static Message newMessage(FeedOperation op) {
         switch (op.getType()) {
         case DOCUMENT: {
+            if (op instanceof SerializedDocumentFeedOperation) {
+                SerializedDocumentFeedOperation serialized = (SerializedDocumentFeedOperation)op;
+                return new PutDocumentMessage(serialized.getDocumentId(), serialized.getSerializedDocument(),
+                                              serialized.getCondition(), serialized.getDocumentTypeManager());
+            }
             PutDocumentMessage message = new PutDocumentMessage(new DocumentPut(op.getDocument()));
             message.setCondition(op.getCondition());
             return message;
@@ -23,8 +23,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -37,6 +42,10 @@ import java.util.logging.Logger;
  * avoid using a threadpool that has no effect with all the extra that comes with it. V2 has one instance per thread
  * on the client, while this is one instance for all threads.
  *
+ * The operations of each request are read in the request thread, and parsed in the given parser executor
+ * ahead of being sent, such that a single large request may use multiple cores. Operations are sent in the
+ * order of the request.
+ *
  * @author dybis
  */
 class ClientFeederV3 {
@@ -53,6 +62,8 @@ class ClientFeederV3 {
     private double operationsForOpsPerSec = 0d;
     private final Object monitor = new Object();
     private final StreamReaderV3 streamReaderV3;
+    private final Executor parser;
+    private final int maxPendingOperations;
     private final AtomicInteger ongoingRequests = new AtomicInteger(0);
     private final String hostName;
 
@@ -62,12 +73,16 @@ class ClientFeederV3 {
             DocumentTypeManager docTypeManager,
             String clientId,
             Metric metric,
-            ReplyHandler feedReplyHandler) {
+            ReplyHandler feedReplyHandler,
+            Executor parser,
+            int parserThreads) {
         this.sourceSession = sourceSession;
         this.clientId = clientId;
         this.feedReplyHandler = feedReplyHandler;
         this.metric = metric;
         this.streamReaderV3 = new StreamReaderV3(feedReaderFactory, docTypeManager);
+        this.parser = parser;
+        this.maxPendingOperations = 2 * parserThreads;
         this.hostName = HostName.getLocalhost();
     }
 
@@ -129,28 +144,26 @@ class ClientFeederV3 {
 
     private Optional<DocumentOperationMessageV3> pullMessageFromRequest(FeederSettings settings,
                                                                         InputStream requestInputStream,
-                                                                        BlockingQueue<OperationStatus> repliesFromOldMessages) {
+                                                                        Deque<PendingMessage> pendingMessages,
+                                                                        BlockingQueue<OperationStatus> repliesFromOldMessages)
+            throws InterruptedException {
         while (true) {
-            Optional<String> operationId;
-            try {
-                operationId = streamReaderV3.getNextOperationId(requestInputStream);
-                if (operationId.isEmpty()) return Optional.empty();
-            } catch (IOException ioe) {
-                log.log(Level.FINE, () -> Exceptions.toMessageString(ioe));
-                return Optional.empty();
-            }
+            readAhead(settings, requestInputStream, pendingMessages);
+            PendingMessage pending = pendingMessages.pollFirst();
+            if (pending == null) return Optional.empty();
 
             try {
-                DocumentOperationMessageV3 message = getNextMessage(operationId.get(), requestInputStream, settings);
+                DocumentOperationMessageV3 message = pending.message.get();
                 if (message != null)
                     setRoute(message, settings);
                 return Optional.ofNullable(message);
-            } catch (Exception e) {
+            } catch (ExecutionException executionException) {
+                Throwable e = executionException.getCause();
                 log.log(Level.WARNING, () -> Exceptions.toMessageString(e));
                 metric.add(MetricNames.PARSE_ERROR, 1, null);
 
                 repliesFromOldMessages.add(new OperationStatus(Exceptions.toMessageString(e),
-                                                               operationId.get(),
+                                                               pending.operationId,
                                                                ErrorCode.ERROR,
                                                                false,
                                                                ""));
@@ -158,6 +171,35 @@ class ClientFeederV3 {
         }
     }
 
+    /** Reads operations from the request and starts parsing them, until enough are pending or the request is exhausted */
+    private void readAhead(FeederSettings settings, InputStream requestInputStream, Deque<PendingMessage> pendingMessages) {
+        while (pendingMessages.size() < maxPendingOperations) {
+            Optional<String> operationId;
+            try {
+                operationId = streamReaderV3.getNextOperationId(requestInputStream);
+                if (operationId.isEmpty()) return;
+            } catch (IOException ioe) {
+                log.log(Level.FINE, () -> Exceptions.toMessageString(ioe));
+                return;
+            }
+
+            CompletableFuture<DocumentOperationMessageV3> message = new CompletableFuture<>();
+            try {
+                byte[] operationData = streamReaderV3.readNextOperationData(requestInputStream);
+                parser.execute(() -> {
+                    try {
+                        message.complete(getNextMessage(operationId.get(), operationData, settings));
+                    } catch (Exception e) {
+                        message.completeExceptionally(e);
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                message.completeExceptionally(e);
+            }
+            pendingMessages.add(new PendingMessage(operationId.get(), message));
+        }
+    }
+
     private Result sendMessage(DocumentOperationMessageV3 msg) throws InterruptedException {
         msg.getMessage().pushHandler(feedReplyHandler);
         return sourceSession.getResource().sendMessageBlocking(msg.getMessage());
@@ -166,9 +208,11 @@ class ClientFeederV3 {
     private void feed(FeederSettings settings,
                       InputStream requestInputStream,
                       BlockingQueue<OperationStatus> repliesFromOldMessages) throws InterruptedException {
+        Deque<PendingMessage> pendingMessages = new ArrayDeque<>();
         while (true) {
             Optional<DocumentOperationMessageV3> message = pullMessageFromRequest(settings,
                                                                                   requestInputStream,
+                                                                                  pendingMessages,
                                                                                   repliesFromOldMessages);
 
             if (message.isEmpty()) break;
@@ -212,11 +256,11 @@ class ClientFeederV3 {
     }
 
     // protected for mocking
-    /** Returns the next message in the stream, or null if none */
+    /** Returns the message of the given operation data, or null if it is the end of the feed. This is called by the parser threads. */
     protected DocumentOperationMessageV3 getNextMessage(String operationId,
-                                                        InputStream requestInputStream,
+                                                        byte[] operationData,
                                                         FeederSettings settings) throws Exception {
-        FeedOperation operation = streamReaderV3.getNextOperation(requestInputStream, settings);
+        FeedOperation operation = streamReaderV3.parseOperation(operationData, settings);
 
         // This is a bit hard to set up while testing, so we accept that things are not perfect.
         if (sourceSession.getResource().session() != null) {
@@ -283,4 +327,18 @@ class ClientFeederV3 {
             }
         }
     }
+
+    /** An operation read from a request, and the future result of parsing it */
+    private static class PendingMessage {
+
+        final String operationId;
+        final CompletableFuture<DocumentOperationMessageV3> message;
+
+        PendingMessage(String operationId, CompletableFuture<DocumentOperationMessageV3> message) {
+            this.operationId = operationId;
+            this.message = message;
+        }
+
+    }
+
 }
@@ -10,6 +10,7 @@ import com.yahoo.documentapi.messagebus.protocol.UpdateDocumentMessage;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.messagebus.Message;
 import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.SerializedDocumentFeedOperation;
 
 /**
  * Keeps an operation with its message.
@@ -55,6 +56,13 @@ class DocumentOperationMessageV3 {
     }
 
     private static DocumentOperationMessageV3 newPutMessage(FeedOperation op, String operationId) {
+        if (op instanceof SerializedDocumentFeedOperation) {
+            SerializedDocumentFeedOperation serialized = (SerializedDocumentFeedOperation)op;
+            Message msg = new PutDocumentMessage(serialized.getDocumentId(), serialized.getSerializedDocument(),
+                                                 serialized.getCondition(), serialized.getDocumentTypeManager());
+            String id = (operationId == null) ? serialized.getDocumentId().toString() : operationId;
+            return new DocumentOperationMessageV3(id, msg);
+        }
         DocumentPut put = new DocumentPut(op.getDocument());
         put.setCondition(op.getCondition());
         Message msg = new PutDocumentMessage(put);
@@ -28,9 +28,13 @@ import org.mockito.stubbing.Answer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertThat;
@@ -41,6 +45,7 @@ import static org.mockito.Mockito.when;
 public class FeedHandlerV3Test {
     final CollectingMetric metric = new CollectingMetric();
     private final Executor simpleThreadpool = Executors.newCachedThreadPool();
+    private final List<String> sentOperationIds = Collections.synchronizedList(new ArrayList<>());
 
     @Test
     public void feedOneDocument() throws Exception {
@@ -74,6 +79,21 @@ public class FeedHandlerV3Test {
         assertThat(Splitter.on("\n").splitToList(result).size(), is(101));
     }
 
+    @Test
+    public void feedManyDocumentsInOrderAroundBrokenDocument() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler(simpleThreadpool);
+        HttpResponse httpResponse = feedHandlerV3.handle(createRequestWithBrokenDocument(100, 50));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        httpResponse.render(outStream);
+        assertThat(Utf8.toString(outStream.toByteArray()), containsString("12350 ERROR "));
+        assertThat(metric.get(MetricNames.PARSE_ERROR), is(1L));
+
+        List<String> expectedOperationIds = new ArrayList<>();
+        for (int x = 0; x < 100; x++)
+            if (x != 50) expectedOperationIds.add("123" + x);
+        assertThat(sentOperationIds, is(expectedOperationIds));
+    }
+
     private static DocumentTypeManager createDoctypeManager() {
         DocumentTypeManager docTypeManager = new DocumentTypeManager();
         DocumentType documentType = new DocumentType("testdocument");
@@ -93,6 +113,18 @@ public class FeedHandlerV3Test {
         return createRequestWithPayload(wireData.toString());
     }
 
+    private static HttpRequest createRequestWithBrokenDocument(int numberOfDocs, int brokenDoc) {
+        StringBuilder wireData = new StringBuilder();
+        for (int x = 0; x < numberOfDocs; x++) {
+            String docData = (x == brokenDoc)
+                    ? "[{\"put oops I broke it]"
+                    : "[{\"put\": \"id:testdocument:testdocument::" + x + "\", \"fields\": { \"title\": \"fooKey\", \"body\": \"value\"}}]";
+            String operationId = "123" + x;
+            wireData.append(operationId + " " + Integer.toHexString(docData.length()) + "\n" + docData);
+        }
+        return createRequestWithPayload(wireData.toString());
+    }
+
     private static HttpRequest createBrokenRequest() {
         String docData = "[{\"put oops I broke it]";
         String wireData = "1230 " + Integer.toHexString(docData.length()) + "\n" + docData;
@@ -132,6 +164,7 @@ public class FeedHandlerV3Test {
                         Object[] args = invocation.getArguments();
                         PutDocumentMessage putDocumentMessage = (PutDocumentMessage) args[0];
                         ReplyContext replyContext = (ReplyContext) putDocumentMessage.getContext();
+                        sentOperationIds.add(replyContext.docId);
                         replyContext.feedReplies.add(new OperationStatus("message", replyContext.docId, ErrorCode.OK, false, "trace"));
                         Result result = mock(Result.class);
                         when(result.isAccepted()).thenReturn(true);
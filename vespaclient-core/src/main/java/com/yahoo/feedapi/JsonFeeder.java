@@ -5,20 +5,35 @@ import java.io.InputStream;
 
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.json.JsonFeedReader;
+import com.yahoo.document.json.ParallelJsonFeedReader;
 import com.yahoo.vespaxmlparser.FeedReader;
 
+import java.util.concurrent.Executor;
+
 /**
  * Unpack JSON document operations and push to a feed access point.
  *
  * @author steinar
  */
 public class JsonFeeder extends Feeder {
+
+    private final Executor parser;
+    private final int parserThreads;
+
     public JsonFeeder(DocumentTypeManager docMan, SimpleFeedAccess sender, InputStream stream) {
+        this(docMan, sender, stream, null, 1);
+    }
+
+    /** Creates a feeder which parses the operations of the stream in the given parser executor, if it is non-null */
+    public JsonFeeder(DocumentTypeManager docMan, SimpleFeedAccess sender, InputStream stream, Executor parser, int parserThreads) {
         super(docMan, new VespaFeedSender(sender), stream);
+        this.parser = parser;
+        this.parserThreads = parserThreads;
     }
 
     @Override
     protected FeedReader createReader() throws Exception {
-        return new JsonFeedReader(stream, docMan);
+        return (parser != null) ? new ParallelJsonFeedReader(stream, docMan, parser, parserThreads)
+                                : new JsonFeedReader(stream, docMan);
     }
 }
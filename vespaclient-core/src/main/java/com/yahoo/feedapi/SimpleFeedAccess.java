@@ -3,6 +3,7 @@ package com.yahoo.feedapi;
 
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.TestAndSetCondition;
 
@@ -14,6 +15,7 @@ public interface SimpleFeedAccess {
     void put(Document doc, TestAndSetCondition condition);
     void remove(DocumentId docId, TestAndSetCondition condition);
     void update(DocumentUpdate update, TestAndSetCondition condition);
+    void put(DocumentId docId, byte[] serializedDocument, TestAndSetCondition condition, DocumentTypeManager typeManager);
     boolean isAborted();
     void close();
 }
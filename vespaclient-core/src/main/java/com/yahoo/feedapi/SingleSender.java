@@ -4,6 +4,7 @@ package com.yahoo.feedapi;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
+import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
@@ -61,6 +62,11 @@ public class SingleSender implements SimpleFeedAccess {
         send(message);
     }
 
+    @Override
+    public void put(DocumentId docId, byte[] serializedDocument, TestAndSetCondition condition, DocumentTypeManager typeManager) {
+        send(new PutDocumentMessage(docId, serializedDocument, condition, typeManager));
+    }
+
     @Override
     public boolean isAborted() {
         return owner.isAborted();
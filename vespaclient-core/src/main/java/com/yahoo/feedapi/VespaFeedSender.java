@@ -2,6 +2,7 @@
 package com.yahoo.feedapi;
 
 import com.yahoo.vespaxmlparser.FeedOperation;
+import com.yahoo.vespaxmlparser.SerializedDocumentFeedOperation;
 
 /**
  * Wrapper class for SimpleFeedAccess to send various XML operations.
@@ -21,7 +22,14 @@ public class VespaFeedSender {
     public void sendOperation(FeedOperation op) {
         switch (op.getType()) {
             case DOCUMENT:
-                sender.put(op.getDocument(), op.getCondition());
+                if (op instanceof SerializedDocumentFeedOperation) {
+                    SerializedDocumentFeedOperation serialized = (SerializedDocumentFeedOperation)op;
+                    sender.put(serialized.getDocumentId(), serialized.getSerializedDocument(),
+                               serialized.getCondition(), serialized.getDocumentTypeManager());
+                }
+                else {
+                    sender.put(op.getDocument(), op.getCondition());
+                }
                 break;
             case REMOVE:
                 sender.remove(op.getRemove(), op.getCondition());
@@ -4,6 +4,7 @@ package com.yahoo.feedhandler;
 import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentId;
+import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.feedapi.SimpleFeedAccess;
@@ -70,6 +71,11 @@ final class ThreadedFeedAccess implements SimpleFeedAccess {
         executor.execute(() -> simpleFeedAccess.update(update, condition));
     }
 
+    @Override
+    public void put(DocumentId docId, byte[] serializedDocument, TestAndSetCondition condition, DocumentTypeManager typeManager) {
+        executor.execute(() -> simpleFeedAccess.put(docId, serializedDocument, condition, typeManager));
+    }
+
     @Override
     public boolean isAborted() {
         return simpleFeedAccess.isAborted();
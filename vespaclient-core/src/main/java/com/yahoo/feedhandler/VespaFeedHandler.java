@@ -2,6 +2,7 @@
 package com.yahoo.feedhandler;
 
 import com.yahoo.clientmetrics.RouteMetricSet;
+import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.container.protect.Error;
 import com.yahoo.feedapi.FeedContext;
@@ -13,6 +14,8 @@ import com.yahoo.feedapi.SingleSender;
 import com.yahoo.feedapi.XMLFeeder;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 /**
@@ -42,12 +45,22 @@ public final class VespaFeedHandler extends VespaFeedHandlerBase {
         SingleSender sender = new SingleSender(response, getSharedSender(route));
         sender.addMessageProcessor(properties);
         ThreadedFeedAccess feedAccess = new ThreadedFeedAccess(numThreads, sender);
-        Feeder feeder = createFeeder(feedAccess, request);
+        int parserThreads = (numThreads > 0) ? numThreads : Runtime.getRuntime().availableProcessors();
+        ExecutorService parser = (parserThreads > 1)
+                ? Executors.newFixedThreadPool(parserThreads, ThreadFactoryFactory.getDaemonThreadFactory("feeder-parser"))
+                : null;
+        Feeder feeder = createFeeder(feedAccess, request, parser, parserThreads);
         feeder.setAbortOnDocumentError(properties.getAbortOnDocumentError());
         feeder.setCreateIfNonExistent(properties.getCreateIfNonExistent());
         response.setAbortOnFeedError(properties.getAbortOnFeedError());
 
-        List<String> errors = feeder.parse();
+        List<String> errors;
+        try {
+            errors = feeder.parse();
+        } finally {
+            if (parser != null)
+                parser.shutdownNow();
+        }
         for (String s : errors) {
             response.addXMLParseError(s);
         }
@@ -64,9 +77,10 @@ public final class VespaFeedHandler extends VespaFeedHandlerBase {
 
     }
 
-    private Feeder createFeeder(SimpleFeedAccess sender, HttpRequest request) {
+    /** Creates a feeder for the request, which parses JSON operations in the given parser executor, if it is non-null */
+    private Feeder createFeeder(SimpleFeedAccess sender, HttpRequest request, ExecutorService parser, int parserThreads) {
         if (Boolean.valueOf(request.getProperty(JSON_INPUT))) {
-            return new JsonFeeder(getDocumentTypeManager(), sender, getRequestInputStream(request));
+            return new JsonFeeder(getDocumentTypeManager(), sender, getRequestInputStream(request), parser, parserThreads);
         } else {
             return new XMLFeeder(getDocumentTypeManager(), sender, getRequestInputStream(request));
         }
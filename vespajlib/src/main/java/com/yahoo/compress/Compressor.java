@@ -1,12 +1,16 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.compress;
 
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
 import net.jpountz.lz4.LZ4Compressor;
 import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.lz4.LZ4FastDecompressor;
 import net.jpountz.lz4.LZ4SafeDecompressor;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Random;
 
@@ -22,6 +26,8 @@ public class Compressor {
     private final int level;
     private final double compressionThresholdFactor;
     private final int compressMinSizeBytes;
+    private final ZstdDictCompress zstdDictCompress;
+    private final ZstdDictDecompress zstdDictDecompress;
 
     private static final LZ4Factory factory = LZ4Factory.fastestInstance();
 
@@ -43,16 +49,35 @@ public class Compressor {
      * Creates a compressor.
      *
      * @param type the type of compression to use to compress data
-     * @param level a number between 0 and 9 where a higher value means more compression
+     * @param level a number between 0 and 9 where a higher value means more compression.
+     *              This is used as is as the ZSTD compression level, where 0 means the ZSTD default
      * @param compressionThresholdFactor the compression factor we need to achieve to return the compressed data
      *                                   instead of raw data
      * @param compressMinSizeBytes the minimal input data size to perform compression
      */
     public Compressor(CompressionType type, int level, double compressionThresholdFactor, int compressMinSizeBytes) {
+        this(type, level, compressionThresholdFactor, compressMinSizeBytes, null);
+    }
+
+    /**
+     * Creates a compressor which uses a dictionary for ZSTD compression and decompression.
+     * Data compressed with a dictionary can only be decompressed by a compressor having the same dictionary.
+     *
+     * @param type the type of compression to use to compress data
+     * @param level a number between 0 and 9 where a higher value means more compression
+     * @param compressionThresholdFactor the compression factor we need to achieve to return the compressed data
+     *                                   instead of raw data
+     * @param compressMinSizeBytes the minimal input data size to perform compression
+     * @param dictionary the ZSTD dictionary to use, e.g. from {@link #trainDictionary}, or null to use none
+     */
+    public Compressor(CompressionType type, int level, double compressionThresholdFactor, int compressMinSizeBytes,
+                      byte[] dictionary) {
         this.type = type;
         this.level = level;
         this.compressionThresholdFactor = compressionThresholdFactor;
         this.compressMinSizeBytes = compressMinSizeBytes;
+        this.zstdDictCompress = dictionary == null ? null : new ZstdDictCompress(dictionary, level);
+        this.zstdDictDecompress = dictionary == null ? null : new ZstdDictDecompress(dictionary);
     }
 
     /** Returns the default compression type used by this */
@@ -85,12 +110,14 @@ public class Compressor {
                 data = uncompressedSize.isPresent() ? Arrays.copyOf(data, uncompressedSize.get()) : data;
                 return new Compression(CompressionType.NONE, data.length, data);
             case LZ4:
+            case ZSTD:
                 int dataSize = uncompressedSize.isPresent() ? uncompressedSize.get() : data.length;
                 if (dataSize < compressMinSizeBytes) return new Compression(CompressionType.INCOMPRESSIBLE, dataSize, data);
-                byte[] compressedData = getCompressor().compress(data, 0, dataSize);
+                byte[] compressedData = requestedCompression == CompressionType.LZ4 ? getCompressor().compress(data, 0, dataSize)
+                                                                                    : compressZstd(data, dataSize);
                 if (compressedData.length + 8 >= dataSize * compressionThresholdFactor)
                     return new Compression(CompressionType.INCOMPRESSIBLE, dataSize, data);
-                return new Compression(CompressionType.LZ4, dataSize, compressedData);
+                return new Compression(requestedCompression, dataSize, compressedData);
             default:
                 throw new IllegalArgumentException(requestedCompression + " is not supported");
         }
@@ -98,6 +125,15 @@ public class Compressor {
     private LZ4Compressor getCompressor() {
         return level < 7 ? factory.fastCompressor() : factory.highCompressor();
     }
+    private byte[] compressZstd(byte[] data, int dataSize) {
+        byte[] compressedData = new byte[(int)Zstd.compressBound(dataSize)];
+        long compressedSize = zstdDictCompress != null
+                              ? Zstd.compressFastDict(compressedData, 0, data, 0, dataSize, zstdDictCompress)
+                              : Zstd.compressByteArray(compressedData, 0, compressedData.length, data, 0, dataSize, level);
+        if (Zstd.isError(compressedSize))
+            throw new IllegalStateException("ZSTD compression failed: " + Zstd.getErrorName(compressedSize));
+        return Arrays.copyOf(compressedData, (int)compressedSize);
+    }
     /** Compresses some data using the requested compression type */
     public Compression compress(CompressionType requestedCompression, byte[] data) { return compress(requestedCompression, data, Optional.empty()); }
     /** Compresses some data using the compression type of this compressor */
@@ -130,6 +166,19 @@ public class Compressor {
                 if (expectedCompressedSize.isPresent() && compressedSize != expectedCompressedSize.get())
                     throw new IllegalStateException("Compressed size mismatch. Expected " + compressedSize + ". Got " + expectedCompressedSize.get());
                 return uncompressedLZ4Data;
+            case ZSTD:
+                byte[] uncompressedZstdData = new byte[expectedUncompressedSize];
+                int compressedLength = expectedCompressedSize.orElse(compressedData.length - compressedDataOffset);
+                long uncompressedSize = zstdDictDecompress != null
+                                        ? Zstd.decompressFastDict(uncompressedZstdData, 0, compressedData, compressedDataOffset,
+                                                                  compressedLength, zstdDictDecompress)
+                                        : Zstd.decompressByteArray(uncompressedZstdData, 0, expectedUncompressedSize,
+                                                                   compressedData, compressedDataOffset, compressedLength);
+                if (Zstd.isError(uncompressedSize))
+                    throw new IllegalArgumentException("ZSTD decompression failed: " + Zstd.getErrorName(uncompressedSize));
+                if (uncompressedSize != expectedUncompressedSize)
+                    throw new IllegalStateException("Uncompressed size mismatch. Expected " + expectedUncompressedSize + ". Got " + uncompressedSize);
+                return uncompressedZstdData;
             default:
                 throw new IllegalArgumentException(compression + " is not supported");
         }
@@ -154,6 +203,25 @@ public class Compressor {
         return new byte[0];
     }
 
+    /**
+     * Trains a ZSTD dictionary from samples of the data to be compressed, such as a set of serialized documents
+     * of a single type. A dictionary mainly improves the compression of small inputs with content in common.
+     *
+     * @param samples the samples to train on - a few thousand samples, much larger in total than the dictionary,
+     *                gives the best result
+     * @param maxSize the max size of the dictionary in bytes, typically 100 kB
+     * @return the trained dictionary
+     * @throws IllegalArgumentException if no dictionary could be trained from the given samples
+     */
+    public static byte[] trainDictionary(List<byte[]> samples, int maxSize) {
+        byte[] dictionary = new byte[maxSize];
+        long size = Zstd.trainFromBuffer(samples.toArray(new byte[0][]), dictionary);
+        if (Zstd.isError(size))
+            throw new IllegalArgumentException("Could not train a dictionary from " + samples.size() + " samples: " +
+                                               Zstd.getErrorName(size));
+        return Arrays.copyOf(dictionary, (int)size);
+    }
+
     public long warmup(double seconds) {
         byte [] input = new byte[0x4000];
         new Random().nextBytes(input);
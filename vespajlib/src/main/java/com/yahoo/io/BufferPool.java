@@ -0,0 +1,93 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Thread local pools of heap buffers to serialize into. Acquiring a buffer from this instead of allocating a new one
+ * for each serialization avoids both the allocation and the copying done as a small new buffer grows, as a
+ * released buffer keeps the capacity it grew to.
+ *
+ * Buffers are allocated in size classes which are powers of two, and each thread retains a few buffers,
+ * of a bounded size. A buffer acquired from this must be released by the same thread when its content
+ * is no longer referenced, and must not be used after that.
+ */
+public class BufferPool {
+
+    /** The size of the smallest buffers, and of buffers acquired without a size hint */
+    static final int minSize = 4 * 1024;
+
+    /** Buffers larger than this are not retained, to bound the memory held by each thread */
+    static final int maxRetainedSize = 256 * 1024;
+
+    /** The max number of buffers retained by each thread */
+    static final int maxRetained = 4;
+
+    private static final ThreadLocal<ByteBuffer[]> pool = ThreadLocal.withInitial(() -> new ByteBuffer[maxRetained]);
+
+    private BufferPool() {}
+
+    /** Returns an empty buffer of the smallest size class */
+    public static GrowableByteBuffer acquire() {
+        return acquire(minSize);
+    }
+
+    /**
+     * Returns an empty buffer which can hold at least the given number of bytes without growing.
+     * This is the smallest retained buffer which is large enough, or a new buffer if there is none.
+     *
+     * @param sizeHint the number of bytes expected to be written to the buffer, e.g., the size of the last
+     *                 serialization of the same kind
+     */
+    public static GrowableByteBuffer acquire(int sizeHint) {
+        int size = sizeClass(sizeHint);
+        ByteBuffer[] buffers = pool.get();
+        int best = -1;
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == null || buffers[i].capacity() < size) continue;
+            if (best < 0 || buffers[i].capacity() < buffers[best].capacity())
+                best = i;
+        }
+        if (best < 0) return new GrowableByteBuffer(ByteBuffer.allocate(size));
+
+        ByteBuffer buffer = buffers[best];
+        buffers[best] = null;
+        return new GrowableByteBuffer(buffer);
+    }
+
+    /**
+     * Returns a buffer acquired from this to the pool of this thread. It is retained if it is not too large,
+     * replacing the smallest retained buffer if this thread already retains the max number of buffers.
+     */
+    public static void release(GrowableByteBuffer buffer) {
+        ByteBuffer released = buffer.getByteBuffer();
+        if (released.capacity() > maxRetainedSize || released.isDirect() || released.isReadOnly()) return;
+
+        ByteBuffer[] buffers = pool.get();
+        for (ByteBuffer retained : buffers)
+            if (retained == released) return; // already released
+
+        released.clear();
+        released.order(ByteOrder.BIG_ENDIAN);
+        int smallest = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == null) {
+                buffers[i] = released;
+                return;
+            }
+            if (buffers[i].capacity() < buffers[smallest].capacity())
+                smallest = i;
+        }
+        if (buffers[smallest].capacity() < released.capacity())
+            buffers[smallest] = released;
+    }
+
+    /** Returns the size of the buffer to allocate to hold the given number of bytes */
+    static int sizeClass(int sizeHint) {
+        if (sizeHint <= minSize) return minSize;
+        if (sizeHint > maxRetainedSize) return sizeHint;
+        return Integer.highestOneBit(sizeHint - 1) << 1;
+    }
+
+}
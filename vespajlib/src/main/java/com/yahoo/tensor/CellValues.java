@@ -0,0 +1,26 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+/**
+ * Conversions between float values and the compact cell value types, used when storing and serializing tensors.
+ */
+public final class CellValues {
+
+    private CellValues() {}
+
+    /** Returns the bfloat16 bits of the given value, which are its 16 most significant bits, truncating the rest */
+    public static short toBFloat16(float value) {
+        return (short)(Float.floatToRawIntBits(value) >>> 16);
+    }
+
+    /** Returns the float value of the given bfloat16 bits */
+    public static float fromBFloat16(short bits) {
+        return Float.intBitsToFloat(bits << 16);
+    }
+
+    /** Returns the given value rounded to the nearest integer and clamped to the int8 range [-128, 127] */
+    public static byte toInt8(float value) {
+        return (byte)Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, Math.round(value)));
+    }
+
+}
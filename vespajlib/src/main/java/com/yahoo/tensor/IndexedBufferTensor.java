@@ -0,0 +1,79 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An indexed tensor implementation reading its values from a byte buffer, which is typically
+ * a memory mapped file, such that the values are never copied to the heap.
+ * Values are stored in standard value order with the value type of the tensor type.
+ *
+ * This is immutable as long as the buffer is not changed.
+ */
+class IndexedBufferTensor extends IndexedTensor {
+
+    private final ByteBuffer cells;
+    private final long size;
+
+    IndexedBufferTensor(TensorType type, DimensionSizes dimensionSizes, ByteBuffer cells) {
+        super(type, dimensionSizes);
+        this.cells = cells.slice().order(cells.order()).asReadOnlyBuffer();
+        this.size = dimensionSizes.totalSize();
+        if (this.cells.capacity() < size * bytesPerValue(type.valueType()))
+            throw new IllegalArgumentException("A buffer of " + this.cells.capacity() + " bytes cannot hold the " + size +
+                                               " values of a tensor of type " + type);
+    }
+
+    @Override
+    public long size() { return size; }
+
+    @Override
+    public double get(long valueIndex) {
+        if (type().valueType() == TensorType.Value.DOUBLE)
+            return cells.getDouble(Math.toIntExact(valueIndex * 8));
+        return getFloat(valueIndex);
+    }
+
+    @Override
+    public float getFloat(long valueIndex) {
+        switch (type().valueType()) {
+            case DOUBLE: return (float)cells.getDouble(Math.toIntExact(valueIndex * 8));
+            case FLOAT: return cells.getFloat(Math.toIntExact(valueIndex * 4));
+            case BFLOAT16: return CellValues.fromBFloat16(cells.getShort(Math.toIntExact(valueIndex * 2)));
+            case INT8: return cells.get(Math.toIntExact(valueIndex));
+            default: throw new IllegalStateException("Unexpected value type " + type().valueType());
+        }
+    }
+
+    @Override
+    public IndexedTensor withType(TensorType type) {
+        throwOnIncompatibleType(type);
+        return new IndexedBufferTensor(type, dimensionSizes(), cells);
+    }
+
+    /** Returns the same hash code as the heap implementation of the value type of this, as equal tensors must */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (long i = 0; i < size; i++) {
+            switch (type().valueType()) {
+                case DOUBLE: hashCode = 31 * hashCode + Double.hashCode(get(i)); break;
+                case FLOAT: hashCode = 31 * hashCode + Float.hashCode(getFloat(i)); break;
+                case BFLOAT16: hashCode = 31 * hashCode + cells.getShort((int)i * 2); break;
+                case INT8: hashCode = 31 * hashCode + cells.get((int)i); break;
+            }
+        }
+        return hashCode;
+    }
+
+    static int bytesPerValue(TensorType.Value valueType) {
+        switch (valueType) {
+            case DOUBLE: return 8;
+            case FLOAT: return 4;
+            case BFLOAT16: return 2;
+            case INT8: return 1;
+            default: throw new IllegalArgumentException("Unexpected value type " + valueType);
+        }
+    }
+
+}
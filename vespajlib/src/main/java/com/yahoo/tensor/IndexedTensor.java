@@ -4,6 +4,7 @@ package com.yahoo.tensor;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -223,7 +224,9 @@ public abstract class IndexedTensor implements Tensor {
             // value
             if (tensor.type().valueType() == TensorType.Value.DOUBLE)
                 b.append(tensor.get(index));
-            else if (tensor.type().valueType() == TensorType.Value.FLOAT)
+            else if (tensor.type().valueType() == TensorType.Value.FLOAT ||
+                     tensor.type().valueType() == TensorType.Value.BFLOAT16 ||
+                     tensor.type().valueType() == TensorType.Value.INT8)
                 b.append(tensor.getFloat(index));
             else
                 throw new IllegalStateException("Unexpected value type " + tensor.type().valueType());
@@ -242,6 +245,22 @@ public abstract class IndexedTensor implements Tensor {
         return Tensor.equals(this, ((Tensor)other));
     }
 
+    /**
+     * Returns a tensor which reads its values from the given buffer instead of copying them.
+     * This allows large tensors in memory mapped files to be used without loading them onto the heap.
+     *
+     * @param type the type of the tensor
+     * @param sizes the size of each dimension of the tensor
+     * @param cells a buffer containing the values of the tensor in standard value order from its current position,
+     *              encoded as the value type of the tensor type in the byte order of the buffer.
+     *              This <b>transfers ownership</b> of the buffer content - it must not be further mutated by the caller
+     * @throws IllegalArgumentException if the sizes do not fit the type, or the buffer is too small to hold all the values
+     */
+    public static IndexedTensor wrap(TensorType type, DimensionSizes sizes, ByteBuffer cells) {
+        Builder.validate(type, sizes);
+        return new IndexedBufferTensor(type, sizes, cells);
+    }
+
     public abstract static class Builder implements Tensor.Builder {
 
         final TensorType type;
@@ -295,6 +314,10 @@ public abstract class IndexedTensor implements Tensor {
 
             if (type.valueType() == TensorType.Value.FLOAT)
                 return new IndexedFloatTensor.BoundFloatBuilder(type, sizes);
+            else if (type.valueType() == TensorType.Value.BFLOAT16)
+                return new IndexedBFloat16Tensor.BoundBFloat16Builder(type, sizes);
+            else if (type.valueType() == TensorType.Value.INT8)
+                return new IndexedInt8Tensor.BoundInt8Builder(type, sizes);
             else if (type.valueType() == TensorType.Value.DOUBLE)
                 return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes);
             else
@@ -315,6 +338,10 @@ public abstract class IndexedTensor implements Tensor {
 
             if (type.valueType() == TensorType.Value.FLOAT)
                 return new IndexedFloatTensor.BoundFloatBuilder(type, sizes, values);
+            else if (type.valueType() == TensorType.Value.BFLOAT16)
+                return new IndexedBFloat16Tensor.BoundBFloat16Builder(type, sizes).fill(values);
+            else if (type.valueType() == TensorType.Value.INT8)
+                return new IndexedInt8Tensor.BoundInt8Builder(type, sizes).fill(values);
             else if (type.valueType() == TensorType.Value.DOUBLE)
                 return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes).fill(values);
             else
@@ -335,6 +362,10 @@ public abstract class IndexedTensor implements Tensor {
 
             if (type.valueType() == TensorType.Value.FLOAT)
                 return new IndexedFloatTensor.BoundFloatBuilder(type, sizes).fill(values);
+            else if (type.valueType() == TensorType.Value.BFLOAT16)
+                return new IndexedBFloat16Tensor.BoundBFloat16Builder(type, sizes).fill(values);
+            else if (type.valueType() == TensorType.Value.INT8)
+                return new IndexedInt8Tensor.BoundInt8Builder(type, sizes).fill(values);
             else if (type.valueType() == TensorType.Value.DOUBLE)
                 return new IndexedDoubleTensor.BoundDoubleBuilder(type, sizes, values);
             else
@@ -449,6 +480,8 @@ public abstract class IndexedTensor implements Tensor {
             DimensionSizes dimensionSizes = findDimensionSizes(firstDimension);
             double[] values = new double[(int)dimensionSizes.totalSize()];
             fillValues(0, 0, firstDimension, dimensionSizes, values);
+            if (type.valueType() == TensorType.Value.BFLOAT16 || type.valueType() == TensorType.Value.INT8)
+                return Builder.of(type, dimensionSizes, values).build(); // store compactly
             return new IndexedDoubleTensor(type, dimensionSizes, values);
         }
 
@@ -0,0 +1,90 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import java.util.Arrays;
+
+/**
+ * The distinct labels of a tensor, each interned to an int id assigned in order of addition,
+ * with an open addressing hash index from labels to ids.
+ * This is mutable while the tensor owning it is built, and must not be changed after that.
+ */
+final class Labels {
+
+    private String[] labels;
+    private int size = 0;
+
+    /** Open addressing table of label id + 1, where 0 marks an empty slot. The length is a power of two. */
+    private int[] index;
+
+    Labels() {
+        this(8);
+    }
+
+    /** Creates an empty instance with room for the given number of labels, which must be a power of two */
+    private Labels(int capacity) {
+        labels = new String[capacity];
+        index = new int[capacity * 2];
+    }
+
+    /** Returns the id of the given label, adding it if it is not already present */
+    int add(String label) {
+        int slot = slotOf(label);
+        if (index[slot] != 0) return index[slot] - 1;
+
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size * 2);
+            rehash(labels.length * 2);
+            slot = slotOf(label);
+        }
+        labels[size] = label;
+        index[slot] = ++size;
+        return size - 1;
+    }
+
+    /** Returns the id of the given label, or -1 if it is not present */
+    int idOf(String label) {
+        int id = index[slotOf(label)];
+        return id - 1;
+    }
+
+    /** Returns the label having the given id */
+    String label(int id) { return labels[id]; }
+
+    /** Returns the number of distinct labels in this */
+    int size() { return size; }
+
+    /** Returns an immutable copy of this which uses no more space than necessary */
+    Labels copy() {
+        Labels copy = new Labels(Math.max(1, Integer.highestOneBit(Math.max(1, size) * 2 - 1)));
+        for (int i = 0; i < size; i++)
+            copy.add(labels[i]);
+        return copy;
+    }
+
+    /** Returns the slot containing the given label, or the empty slot where it should be added */
+    private int slotOf(String label) {
+        int mask = index.length - 1;
+        for (int slot = mix(label.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int id = index[slot];
+            if (id == 0 || labels[id - 1].equals(label)) return slot;
+        }
+    }
+
+    private void rehash(int capacity) {
+        index = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(labels[id].hashCode()) & mask;
+            while (index[slot] != 0)
+                slot = (slot + 1) & mask;
+            index[slot] = id + 1;
+        }
+    }
+
+    /** Spreads the bits of a hash code such that it can be masked to a power of two table size */
+    static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+}
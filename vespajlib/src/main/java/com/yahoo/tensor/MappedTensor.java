@@ -3,13 +3,16 @@ package com.yahoo.tensor;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.function.DoubleBinaryOperator;
 
 /**
- * A sparse implementation of a tensor backed by a Map of cells to values.
+ * A sparse implementation of a tensor backed by an open addressing hash index of cells.
+ * The labels are interned in a dictionary per tensor, such that each cell is stored
+ * as the int ids of the labels of its address and a double value, without any objects per cell.
  *
  * @author bratseth
  */
@@ -17,31 +20,109 @@ public class MappedTensor implements Tensor {
 
     private final TensorType type;
 
-    private final ImmutableMap<TensorAddress, Double> cells;
+    /** The distinct labels of this */
+    private final Labels labels;
+
+    /** The label ids of the address of each cell in order, one per dimension */
+    private final int[] labelIds;
+
+    /** The value of each cell */
+    private final double[] values;
+
+    /** Open addressing table of cell index + 1, where 0 marks an empty slot. The length is a power of two. */
+    private final int[] index;
 
     /** Creates a sparse tensor. The cell addresses must match the type. */
-    private MappedTensor(TensorType type, Map<TensorAddress, Double> cells) {
+    private MappedTensor(TensorType type, Labels labels, int[] labelIds, double[] values, int[] index) {
         this.type = type;
-        this.cells = ImmutableMap.copyOf(cells);
+        this.labels = labels;
+        this.labelIds = labelIds;
+        this.values = values;
+        this.index = index;
     }
 
     @Override
     public TensorType type() { return type; }
 
     @Override
-    public long size() { return cells.size(); }
+    public long size() { return values.length; }
 
     @Override
-    public double get(TensorAddress address) { return cells.getOrDefault(address, Double.NaN); }
+    public double get(TensorAddress address) {
+        int cell = cellOf(address);
+        return cell < 0 ? Double.NaN : values[cell];
+    }
+
+    /** Returns the index of the cell having the given address, or -1 if there is none */
+    private int cellOf(TensorAddress address) {
+        int rank = type.rank();
+        if (address.size() != rank) return -1;
+        int hash = 1;
+        for (int i = 0; i < rank; i++) {
+            int labelId = labels.idOf(address.label(i));
+            if (labelId < 0) return -1;
+            hash = 31 * hash + labelId;
+        }
+        int mask = index.length - 1;
+        for (int slot = Labels.mix(hash) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            int cell = index[slot] - 1;
+            if (hasAddress(cell, address)) return cell;
+        }
+        return -1;
+    }
+
+    private boolean hasAddress(int cell, TensorAddress address) {
+        int rank = type.rank();
+        for (int i = 0; i < rank; i++)
+            if ( ! labels.label(labelIds[cell * rank + i]).equals(address.label(i))) return false;
+        return true;
+    }
+
+    private TensorAddress addressOf(int cell) {
+        int rank = type.rank();
+        String[] addressLabels = new String[rank];
+        for (int i = 0; i < rank; i++)
+            addressLabels[i] = labels.label(labelIds[cell * rank + i]);
+        return TensorAddress.of(addressLabels);
+    }
 
     @Override
-    public Iterator<Cell> cellIterator() { return new CellIteratorAdaptor(cells.entrySet().iterator()); }
+    public Iterator<Cell> cellIterator() {
+        return new Iterator<>() {
+            int cell = 0;
+            @Override
+            public boolean hasNext() { return cell < values.length; }
+            @Override
+            public Cell next() {
+                if ( ! hasNext()) throw new NoSuchElementException();
+                Cell next = new Cell(addressOf(cell), values[cell]);
+                cell++;
+                return next;
+            }
+        };
+    }
 
     @Override
-    public Iterator<Double> valueIterator() { return cells.values().iterator(); }
+    public Iterator<Double> valueIterator() {
+        return new Iterator<>() {
+            int cell = 0;
+            @Override
+            public boolean hasNext() { return cell < values.length; }
+            @Override
+            public Double next() {
+                if ( ! hasNext()) throw new NoSuchElementException();
+                return values[cell++];
+            }
+        };
+    }
 
     @Override
-    public Map<TensorAddress, Double> cells() { return cells; }
+    public Map<TensorAddress, Double> cells() {
+        ImmutableMap.Builder<TensorAddress, Double> builder = new ImmutableMap.Builder<>();
+        for (int cell = 0; cell < values.length; cell++)
+            builder.put(addressOf(cell), values[cell]);
+        return builder.build();
+    }
 
     @Override
     public Tensor withType(TensorType other) {
@@ -49,7 +130,7 @@ public class MappedTensor implements Tensor {
             throw new IllegalArgumentException("MappedTensor.withType: types are not compatible. Current type: '" +
                     this.type.toString() + "', requested type: '" + type.toString() + "'");
         }
-        return new MappedTensor(other, cells);
+        return new MappedTensor(other, labels, labelIds, values, index);
     }
 
     @Override
@@ -65,8 +146,19 @@ public class MappedTensor implements Tensor {
         return builder.build();
     }
 
+    /** Returns the same hash code as the map returned from cells() */
     @Override
-    public int hashCode() { return cells.hashCode(); }
+    public int hashCode() {
+        int rank = type.rank();
+        int hashCode = 0;
+        for (int cell = 0; cell < values.length; cell++) {
+            int addressHashCode = 1;
+            for (int i = 0; i < rank; i++)
+                addressHashCode = 31 * addressHashCode + labels.label(labelIds[cell * rank + i]).hashCode();
+            hashCode += addressHashCode ^ Double.hashCode(values[cell]);
+        }
+        return hashCode;
+    }
 
     @Override
     public String toString() { return Tensor.toStandardString(this); }
@@ -80,12 +172,16 @@ public class MappedTensor implements Tensor {
     public static class Builder implements Tensor.Builder {
 
         private final TensorType type;
-        private final ImmutableMap.Builder<TensorAddress, Double> cells = new ImmutableMap.Builder<>();
+        private final Labels labels = new Labels();
+        private int[] labelIds;
+        private double[] values = new double[8];
+        private int size = 0;
 
         public static Builder of(TensorType type) { return new Builder(type); }
 
         private Builder(TensorType type) {
             this.type = type;
+            this.labelIds = new int[values.length * type.rank()];
         }
 
         public CellBuilder cell() {
@@ -102,7 +198,13 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
+            int rank = type.rank();
+            if (address.size() != rank)
+                throw new IllegalArgumentException(address + " does not have a label for each dimension of " + type);
+            ensureCapacity();
+            for (int i = 0; i < rank; i++)
+                labelIds[size * rank + i] = labels.add(address.label(i));
+            values[size++] = value;
             return this;
         }
 
@@ -113,32 +215,48 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(double value, long... labels) {
-            cells.put(TensorAddress.of(labels), value);
-            return this;
-        }
-
-        @Override
-        public MappedTensor build() {
-            return new MappedTensor(type, cells.build());
+            return cell(TensorAddress.of(labels), value);
         }
 
-    }
-
-    private static class CellIteratorAdaptor implements Iterator<Cell> {
-
-        private final Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator;
-
-        private CellIteratorAdaptor(Iterator<Map.Entry<TensorAddress, Double>> adaptedIterator) {
-            this.adaptedIterator = adaptedIterator;
+        private void ensureCapacity() {
+            if (size < values.length) return;
+            values = Arrays.copyOf(values, values.length * 2);
+            labelIds = Arrays.copyOf(labelIds, values.length * type.rank());
         }
 
+        /**
+         * Builds the tensor.
+         *
+         * @throws IllegalArgumentException if a cell address is added more than once
+         */
         @Override
-        public boolean hasNext() { return adaptedIterator.hasNext(); }
+        public MappedTensor build() {
+            int rank = type.rank();
+            int[] index = new int[Math.max(2, Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2)];
+            int mask = index.length - 1;
+            for (int cell = 0; cell < size; cell++) {
+                int hash = 1;
+                for (int i = 0; i < rank; i++)
+                    hash = 31 * hash + labelIds[cell * rank + i];
+                int slot = Labels.mix(hash) & mask;
+                for (; index[slot] != 0; slot = (slot + 1) & mask) {
+                    if (Arrays.equals(labelIds, cell * rank, cell * rank + rank,
+                                      labelIds, (index[slot] - 1) * rank, (index[slot] - 1) * rank + rank))
+                        throw new IllegalArgumentException("Multiple values for the cell " +
+                                                           addressOf(cell).toString(type) + " in " + type);
+                }
+                index[slot] = cell + 1;
+            }
+            return new MappedTensor(type, labels.copy(), Arrays.copyOf(labelIds, size * rank),
+                                    Arrays.copyOf(values, size), index);
+        }
 
-        @Override
-        public Cell next() {
-            Map.Entry<TensorAddress, Double> entry = adaptedIterator.next();
-            return new Cell(entry.getKey(), entry.getValue());
+        private TensorAddress addressOf(int cell) {
+            int rank = type.rank();
+            String[] addressLabels = new String[rank];
+            for (int i = 0; i < rank; i++)
+                addressLabels[i] = labels.label(labelIds[cell * rank + i]);
+            return TensorAddress.of(addressLabels);
         }
 
     }
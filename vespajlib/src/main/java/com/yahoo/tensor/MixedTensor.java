@@ -531,7 +531,9 @@ public class MixedTensor implements Tensor {
                 // value
                 if (type.valueType() == TensorType.Value.DOUBLE)
                     b.append(getDouble(subspaceIndex, index, tensor));
-                else if (tensor.type().valueType() == TensorType.Value.FLOAT)
+                else if (tensor.type().valueType() == TensorType.Value.FLOAT ||
+                         tensor.type().valueType() == TensorType.Value.BFLOAT16 ||
+                         tensor.type().valueType() == TensorType.Value.INT8)
                     b.append(getDouble(subspaceIndex, index, tensor)); // TODO: Really use floats
                 else
                     throw new IllegalStateException("Unexpected value type " + type.valueType());
@@ -199,8 +199,10 @@ class TensorParser {
                 try {
                     if (cellValueType == TensorType.Value.DOUBLE)
                         return Double.parseDouble(cellValueString);
-                    else if (cellValueType == TensorType.Value.FLOAT)
-                        return Float.parseFloat(cellValueString);
+                    else if (cellValueType == TensorType.Value.FLOAT ||
+                             cellValueType == TensorType.Value.BFLOAT16 ||
+                             cellValueType == TensorType.Value.INT8)
+                        return Float.parseFloat(cellValueString); // narrowed by the builder
                     else
                         throw new IllegalArgumentException(cellValueType + " is not supported");
                 } catch (NumberFormatException e) {
@@ -289,7 +291,7 @@ class TensorParser {
             Number number = consumeNumber(builder.type().valueType());
             if (builder.type().valueType() == TensorType.Value.DOUBLE)
                 builder.cellByDirectIndex(indexes.toSourceValueIndex(), (Double)number);
-            else if (builder.type().valueType() == TensorType.Value.FLOAT)
+            else
                 builder.cellByDirectIndex(indexes.toSourceValueIndex(), (Float)number);
         }
 
@@ -353,7 +355,7 @@ class TensorParser {
             Number number = consumeNumber(builder.type().valueType());
             if (builder.type().valueType() == TensorType.Value.DOUBLE)
                 builder.cell(address, (Double)number);
-            else if (builder.type().valueType() == TensorType.Value.FLOAT)
+            else
                 builder.cell(address, (Float)number);
         }
 
@@ -390,7 +392,9 @@ class TensorParser {
                 try {
                     if (cellValueType == TensorType.Value.DOUBLE)
                         builder.cell(address, Double.parseDouble(cellValueString));
-                    else if (cellValueType == TensorType.Value.FLOAT)
+                    else if (cellValueType == TensorType.Value.FLOAT ||
+                             cellValueType == TensorType.Value.BFLOAT16 ||
+                             cellValueType == TensorType.Value.INT8)
                         builder.cell(address, Float.parseFloat(cellValueString));
                     else
                         throw new IllegalArgumentException(cellValueType + " is not supported");
@@ -32,8 +32,8 @@ public class TensorType {
     /** The permissible cell value types. Default is double. */
     public enum Value {
 
-        // Types added must also be added to TensorTypeParser.parseValueTypeSpec, serialization, and largestOf below
-        DOUBLE("double"), FLOAT("float");
+        // Types added must also be added to TensorTypeParser.parseValueTypeSpec, serialization, and largestOf and computationType below
+        DOUBLE("double"), FLOAT("float"), BFLOAT16("bfloat16"), INT8("int8");
 
         private final String id;
 
@@ -45,6 +45,14 @@ public class TensorType {
             return this == other || largestOf(this, other) == this;
         }
 
+        /**
+         * Returns the value type of the result of computing with values of this type.
+         * This is float for the compact types which are used for storage only, and this type otherwise.
+         */
+        public Value computationType() {
+            return this == BFLOAT16 || this == INT8 ? FLOAT : this;
+        }
+
         public static Value largestOf(List<Value> values) {
             if (values.isEmpty()) return Value.DOUBLE; // Default
             Value largest = null;
@@ -59,7 +67,9 @@ public class TensorType {
 
         public static Value largestOf(Value value1, Value value2) {
             if (value1 == DOUBLE || value2 == DOUBLE) return DOUBLE;
-            return FLOAT;
+            if (value1 == FLOAT || value2 == FLOAT) return FLOAT;
+            if (value1 == BFLOAT16 || value2 == BFLOAT16) return BFLOAT16;
+            return INT8;
         }
 
         @Override
@@ -69,8 +79,10 @@ public class TensorType {
             switch (valueTypeString) {
                 case "double" : return Value.DOUBLE;
                 case "float" : return Value.FLOAT;
-                default : throw new IllegalArgumentException("Value type must be either 'double' or 'float'" +
-                                                             " but was '" + valueTypeString + "'");
+                case "bfloat16" : return Value.BFLOAT16;
+                case "int8" : return Value.INT8;
+                default : throw new IllegalArgumentException("Value type must be either 'double', 'float', " +
+                                                             "'bfloat16' or 'int8' but was '" + valueTypeString + "'");
             }
         }
 
@@ -132,6 +144,12 @@ public class TensorType {
     /** The type representing the mapped subset of dimensions of this. */
     public TensorType mappedSubtype() { return mappedSubtype; }
 
+    /** Returns this type with the value type of the results of computing with its values, see {@link Value#computationType} */
+    public TensorType computationType() {
+        Value computationValueType = valueType.computationType();
+        return computationValueType == valueType ? this : new TensorType(computationValueType, dimensions);
+    }
+
     /** Returns the number of dimensions of this: dimensions().size() */
     public int rank() { return dimensions.size(); }
 
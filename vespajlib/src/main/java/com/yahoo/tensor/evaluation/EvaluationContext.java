@@ -13,4 +13,7 @@ public interface EvaluationContext<NAMETYPE extends Name> extends TypeContext<NA
     /** Returns the tensor bound to this name, or null if none */
     Tensor getTensor(String name);
 
+    /** Returns the parallelism which may be used when evaluating tensor functions in this context */
+    default Parallelism parallelism() { return Parallelism.none; }
+
 }
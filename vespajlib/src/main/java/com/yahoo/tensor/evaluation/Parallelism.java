@@ -0,0 +1,138 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+/**
+ * The degree of parallelism allowed when evaluating a tensor function.
+ * Dense tensor operations over at least <code>minCellsPerTask</code> times two cells split their work into
+ * at most <code>maxTasks</code> tasks, where all but the first run in a fork-join pool, while the first runs in
+ * the calling thread. Since the caller is one of the tasks, a limit of n tasks occupies at most n - 1
+ * threads of the pool per evaluation.
+ *
+ * Instances are immutable and may be shared between threads.
+ */
+public final class Parallelism {
+
+    /** The default number of cells which must be computed by each task for it to be worthwhile to fork it */
+    public static final long defaultMinCellsPerTask = 32 * 1024;
+
+    /** No parallelism: Evaluation happens in the calling thread only */
+    public static final Parallelism none = new Parallelism(null, 1, Long.MAX_VALUE);
+
+    private final ForkJoinPool pool;
+    private final int maxTasks;
+    private final long minCellsPerTask;
+
+    private Parallelism(ForkJoinPool pool, int maxTasks, long minCellsPerTask) {
+        if (maxTasks < 1)
+            throw new IllegalArgumentException("maxTasks must be at least 1, not " + maxTasks);
+        if (minCellsPerTask < 1)
+            throw new IllegalArgumentException("minCellsPerTask must be at least 1, not " + minCellsPerTask);
+        this.pool = pool;
+        this.maxTasks = maxTasks;
+        this.minCellsPerTask = minCellsPerTask;
+    }
+
+    /** Returns the max number of tasks, including the calling thread, a single operation may be split into */
+    public int maxTasks() { return maxTasks; }
+
+    /** Returns the minimal number of cells to compute in each task */
+    public long minCellsPerTask() { return minCellsPerTask; }
+
+    /**
+     * Returns a parallelism using at most the given number of tasks per operation,
+     * running in a pool shared by all evaluations in this process which has one thread per processor.
+     */
+    public static Parallelism of(int maxTasks) {
+        if (maxTasks == 1) return none;
+        return of(SharedPool.instance, maxTasks, defaultMinCellsPerTask);
+    }
+
+    /**
+     * Returns a parallelism running in the given pool
+     *
+     * @param pool the pool running tasks forked from the calling thread
+     * @param maxTasks the max number of tasks, including the calling thread, a single operation may be split into
+     * @param minCellsPerTask the minimal number of cells to compute in each task
+     */
+    public static Parallelism of(ForkJoinPool pool, int maxTasks, long minCellsPerTask) {
+        return new Parallelism(pool, maxTasks, minCellsPerTask);
+    }
+
+    /** Returns the number of tasks to use for computing the given number of cells */
+    private int tasksFor(long items, long cellsPerItem) {
+        if (maxTasks == 1 || items < 2) return 1;
+        long cells = items * cellsPerItem;
+        if (cells < 0) return (int)Math.min(maxTasks, items); // overflow: The number of cells is huge
+        return (int)Math.min(Math.min(maxTasks, cells / minCellsPerTask), items);
+    }
+
+    /**
+     * Runs the given task over the range [0, items), possibly split into subranges which are run in parallel.
+     * This returns when all the subranges are run. The task must only write to state owned by the items
+     * in the range it is given.
+     *
+     * @param items the number of items to run over
+     * @param cellsPerItem the number of cells computed by each item, used to decide whether to split the range
+     * @param task the task to run over each subrange
+     */
+    public void forEachRange(long items, long cellsPerItem, Range task) {
+        int tasks = tasksFor(items, cellsPerItem);
+        if (tasks <= 1) {
+            task.run(0, items);
+            return;
+        }
+
+        List<ForkJoinTask<?>> forked = new ArrayList<>(tasks - 1);
+        for (int i = 1; i < tasks; i++) {
+            long from = items * i / tasks;
+            long to = items * (i + 1) / tasks;
+            forked.add(pool.submit(() -> task.run(from, to)));
+        }
+        try {
+            task.run(0, items / tasks);
+        }
+        finally {
+            for (ForkJoinTask<?> subtask : forked)
+                subtask.join();
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (maxTasks == 1) return "no parallelism";
+        return "parallelism of at most " + maxTasks + " tasks of at least " + minCellsPerTask + " cells";
+    }
+
+    /** A task running over a range of items */
+    @FunctionalInterface
+    public interface Range {
+
+        /** Runs over the items in the range [from, to) */
+        void run(long from, long to);
+
+    }
+
+    /** Holder of the lazily created pool shared by all evaluations */
+    private static class SharedPool {
+
+        static final ForkJoinPool instance = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+                                                              SharedPool::newThread,
+                                                              null,
+                                                              false);
+
+        private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("tensor-evaluation-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
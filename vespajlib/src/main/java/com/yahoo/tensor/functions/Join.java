@@ -2,27 +2,24 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
-import com.yahoo.tensor.PartialAddress;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.function.DoubleBinaryOperator;
 
 /**
@@ -49,7 +46,7 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
     /** Returns the type resulting from applying Join to the two given types */
     public static TensorType outputType(TensorType a, TensorType b) {
         try {
-            return new TensorType.Builder(false, a, b).build();
+            return new TensorType.Builder(false, a, b).build().computationType();
         }
         catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Can not join " + a + " and " + b, e);
@@ -88,13 +85,18 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         Tensor a = argumentA.evaluate(context);
         Tensor b = argumentB.evaluate(context);
         TensorType joinedType = outputType(a.type(), b.type());
-        return evaluate(a, b, joinedType, combinator);
+        return evaluate(a, b, joinedType, combinator, context.parallelism());
     }
 
     static Tensor evaluate(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+        return evaluate(a, b, joinedType, combinator, Parallelism.none);
+    }
+
+    static Tensor evaluate(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                           Parallelism parallelism) {
         // Choose join algorithm
-        if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
-            return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator);
+        if (a instanceof IndexedTensor && b instanceof IndexedTensor)
+            return indexedJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator, parallelism);
         else if (joinedType.dimensions().size() == a.type().dimensions().size() && joinedType.dimensions().size() == b.type().dimensions().size())
             return singleSpaceJoin(a, b, joinedType, combinator);
         else if (a.type().dimensions().containsAll(b.type().dimensions()))
@@ -102,22 +104,84 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         else if (b.type().dimensions().containsAll(a.type().dimensions()))
             return subspaceJoin(a, b, joinedType, false, combinator);
         else
-            return generalJoin(a, b, joinedType, combinator);
+            return mappedHashJoin(a, b, joinedType, combinator);
 
     }
 
-    private static boolean hasSingleIndexedDimension(Tensor tensor) {
-        return tensor.type().dimensions().size() == 1 && tensor.type().dimensions().get(0).isIndexed();
+    /**
+     * Joins two dense tensors in one pass over the joined space in standard value order, where the cell
+     * of each argument is found by stepping its direct index by the stride of each dimension.
+     * This works for any two dense tensors and does not box values or allocate per cell.
+     * Large joins are split into ranges of innermost rows which are joined in parallel.
+     */
+    private static Tensor indexedJoin(IndexedTensor a, IndexedTensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                                      Parallelism parallelism) {
+        DimensionSizes joinedSizes = joinedSize(joinedType, a, b);
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(joinedType, joinedSizes);
+        long size = joinedSizes.totalSize();
+        if (size == 0) return builder.build();
+
+        int rank = joinedSizes.dimensions();
+        long[] aStrides = stridesIn(joinedType, a);
+        long[] bStrides = stridesIn(joinedType, b);
+        long innerSize = rank == 0 ? 1 : joinedSizes.size(rank - 1);
+        parallelism.forEachRange(size / innerSize, innerSize,
+                                 (fromRow, toRow) -> joinRows(a, aStrides, b, bStrides, joinedSizes, innerSize,
+                                                              fromRow, toRow, combinator, builder));
+        return builder.build();
     }
 
-    private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator) {
-        long joinedRank = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
-        Iterator<Double> aIterator = a.valueIterator();
-        Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
-        for (int i = 0; i < joinedRank; i++)
-            builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
-        return builder.build();
+    /** Joins the innermost rows in the range [fromRow, toRow) of the joined space into the given builder */
+    private static void joinRows(IndexedTensor a, long[] aStrides, IndexedTensor b, long[] bStrides,
+                                 DimensionSizes joinedSizes, long innerSize, long fromRow, long toRow,
+                                 DoubleBinaryOperator combinator, IndexedTensor.BoundBuilder builder) {
+        int rank = joinedSizes.dimensions();
+        long aInnerStride = rank == 0 ? 0 : aStrides[rank - 1];
+        long bInnerStride = rank == 0 ? 0 : bStrides[rank - 1];
+
+        // find the position of the first row in each outer dimension
+        long[] indexes = new long[rank];
+        long aStart = 0;
+        long bStart = 0;
+        long row = fromRow;
+        for (int d = rank - 2; d >= 0; d--) {
+            indexes[d] = row % joinedSizes.size(d);
+            row /= joinedSizes.size(d);
+            aStart += aStrides[d] * indexes[d];
+            bStart += bStrides[d] * indexes[d];
+        }
+
+        long joinedIndex = fromRow * innerSize;
+        for (row = fromRow; row < toRow; row++) {
+            long aIndex = aStart;
+            long bIndex = bStart;
+            for (long i = 0; i < innerSize; i++, aIndex += aInnerStride, bIndex += bInnerStride)
+                builder.cellByDirectIndex(joinedIndex++, combinator.applyAsDouble(a.get(aIndex), b.get(bIndex)));
+
+            // step the outer dimensions to the start of the next innermost row
+            for (int d = rank - 2; d >= 0; d--) {
+                aStart += aStrides[d];
+                bStart += bStrides[d];
+                if (++indexes[d] < joinedSizes.size(d)) break;
+                aStart -= aStrides[d] * indexes[d];
+                bStart -= bStrides[d] * indexes[d];
+                indexes[d] = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the stride in the given tensor of each dimension of the joined type,
+     * or 0 for the dimensions not present in the tensor
+     */
+    private static long[] stridesIn(TensorType joinedType, IndexedTensor tensor) {
+        long[] strides = new long[joinedType.dimensions().size()];
+        long stride = 1;
+        for (int i = tensor.type().dimensions().size() - 1; i >= 0; i--) {
+            strides[joinedType.indexOfDimension(tensor.type().dimensions().get(i).name()).get()] = stride;
+            stride *= tensor.dimensionSizes().size(i);
+        }
+        return strides;
     }
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
@@ -132,54 +196,6 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
-    /** Join a tensor into a superspace */
-    private static Tensor subspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
-        if (subspace instanceof IndexedTensor && superspace instanceof IndexedTensor)
-            return indexedSubspaceJoin((IndexedTensor) subspace, (IndexedTensor) superspace, joinedType, reversedArgumentOrder, combinator);
-        else
-            return generalSubspaceJoin(subspace, superspace, joinedType, reversedArgumentOrder, combinator);
-    }
-
-    private static Tensor indexedSubspaceJoin(IndexedTensor subspace, IndexedTensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
-        if (subspace.size() == 0 || superspace.size() == 0) // special case empty here to avoid doing it when finding sizes
-            return Tensor.Builder.of(joinedType, new DimensionSizes.Builder(joinedType.dimensions().size()).build()).build();
-
-        DimensionSizes joinedSizes = joinedSize(joinedType, subspace, superspace);
-
-        IndexedTensor.Builder builder = (IndexedTensor.Builder)Tensor.Builder.of(joinedType, joinedSizes);
-
-        // Find dimensions which are only in the supertype
-        Set<String> superDimensionNames = new HashSet<>(superspace.type().dimensionNames());
-        superDimensionNames.removeAll(subspace.type().dimensionNames());
-
-        for (Iterator<IndexedTensor.SubspaceIterator> i = superspace.subspaceIterator(superDimensionNames, joinedSizes); i.hasNext(); ) {
-            IndexedTensor.SubspaceIterator subspaceInSuper = i.next();
-            joinSubspaces(subspace.valueIterator(), subspace.size(),
-                    subspaceInSuper, subspaceInSuper.size(),
-                    reversedArgumentOrder, builder, combinator);
-        }
-
-        return builder.build();
-    }
-
-    private static void joinSubspaces(Iterator<Double> subspace, long subspaceSize,
-                                      Iterator<Tensor.Cell> superspace, long superspaceSize,
-                                      boolean reversedArgumentOrder, IndexedTensor.Builder builder,
-                                      DoubleBinaryOperator combinator) {
-        long joinedLength = Math.min(subspaceSize, superspaceSize);
-        if (reversedArgumentOrder) {
-            for (int i = 0; i < joinedLength; i++) {
-                Tensor.Cell supercell = superspace.next();
-                builder.cell(supercell, combinator.applyAsDouble(supercell.getValue(), subspace.next()));
-            }
-        } else {
-            for (int i = 0; i < joinedLength; i++) {
-                Tensor.Cell supercell = superspace.next();
-                builder.cell(supercell, combinator.applyAsDouble(subspace.next(), supercell.getValue()));
-            }
-        }
-    }
-
     private static DimensionSizes joinedSize(TensorType joinedType, IndexedTensor a, IndexedTensor b) {
         DimensionSizes.Builder builder = new DimensionSizes.Builder(joinedType.dimensions().size());
         for (int i = 0; i < builder.dimensions(); i++) {
@@ -196,7 +212,8 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
-    private static Tensor generalSubspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
+    /** Join a tensor into a superspace */
+    private static Tensor subspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
         int[] subspaceIndexes = subspaceIndexes(superspace.type(), subspace.type());
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = superspace.cellIterator(); i.hasNext(); ) {
@@ -226,69 +243,6 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return TensorAddress.of(subspaceLabels);
     }
 
-    /** Slow join which works for any two tensors */
-    private static Tensor generalJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
-        if (a instanceof IndexedTensor && b instanceof IndexedTensor)
-            return indexedGeneralJoin((IndexedTensor) a, (IndexedTensor) b, joinedType, combinator);
-        else
-            return mappedHashJoin(a, b, joinedType, combinator);
-    }
-
-    private static Tensor indexedGeneralJoin(IndexedTensor a, IndexedTensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
-        DimensionSizes joinedSize = joinedSize(joinedType, a, b);
-        Tensor.Builder builder = Tensor.Builder.of(joinedType, joinedSize);
-        int[] aToIndexes = mapIndexes(a.type(), joinedType);
-        int[] bToIndexes = mapIndexes(b.type(), joinedType);
-        joinTo(a, b, joinedType, joinedSize, aToIndexes, bToIndexes, builder, combinator);
-        return builder.build();
-    }
-
-    private static void joinTo(IndexedTensor a, IndexedTensor b, TensorType joinedType, DimensionSizes joinedSize,
-                               int[] aToIndexes, int[] bToIndexes, Tensor.Builder builder,
-                               DoubleBinaryOperator combinator) {
-        Set<String> sharedDimensions = Sets.intersection(a.type().dimensionNames(), b.type().dimensionNames());
-        Set<String> dimensionsOnlyInA = Sets.difference(a.type().dimensionNames(), b.type().dimensionNames());
-
-        DimensionSizes aIterateSize = joinedSizeOf(a.type(), joinedType, joinedSize);
-        DimensionSizes bIterateSize = joinedSizeOf(b.type(), joinedType, joinedSize);
-
-        // for each combination of dimensions only in a
-        for (Iterator<IndexedTensor.SubspaceIterator> ia = a.subspaceIterator(dimensionsOnlyInA, aIterateSize); ia.hasNext(); ) {
-            IndexedTensor.SubspaceIterator aSubspace = ia.next();
-            // for each combination of dimensions in a which is also in b
-            while (aSubspace.hasNext()) {
-                Tensor.Cell aCell = aSubspace.next();
-                PartialAddress matchingBCells = partialAddress(a.type(), aSubspace.address(), sharedDimensions);
-                // for each matching combination of dimensions ony in b
-                for (IndexedTensor.SubspaceIterator bSubspace = b.cellIterator(matchingBCells, bIterateSize); bSubspace.hasNext(); ) {
-                    Tensor.Cell bCell = bSubspace.next();
-                    TensorAddress joinedAddress = joinAddresses(aCell.getKey(), aToIndexes, bCell.getKey(), bToIndexes, joinedType);
-                    double joinedValue = combinator.applyAsDouble(aCell.getValue(), bCell.getValue());
-                    builder.cell(joinedAddress, joinedValue);
-                }
-            }
-        }
-    }
-
-    private static PartialAddress partialAddress(TensorType addressType, TensorAddress address, Set<String> retainDimensions) {
-        PartialAddress.Builder builder = new PartialAddress.Builder(retainDimensions.size());
-        for (int i = 0; i < addressType.dimensions().size(); i++)
-            if (retainDimensions.contains(addressType.dimensions().get(i).name()))
-                builder.add(addressType.dimensions().get(i).name(), address.numericLabel(i));
-        return builder.build();
-    }
-
-    /** Returns the sizes from the joined sizes which are present in the type argument */
-    private static DimensionSizes joinedSizeOf(TensorType type, TensorType joinedType, DimensionSizes joinedSizes) {
-        DimensionSizes.Builder builder = new DimensionSizes.Builder(type.dimensions().size());
-        int dimensionIndex = 0;
-        for (int i = 0; i < joinedType.dimensions().size(); i++) {
-            if (type.dimensionNames().contains(joinedType.dimensions().get(i).name()))
-                builder.set(dimensionIndex++, joinedSizes.size(i));
-        }
-        return builder.build();
-    }
-
     private static Tensor mappedGeneralJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
         int[] aToIndexes = mapIndexes(a.type(), joinedType);
         int[] bToIndexes = mapIndexes(b.type(), joinedType);
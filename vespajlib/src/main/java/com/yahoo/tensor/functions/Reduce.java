@@ -2,6 +2,7 @@
 package com.yahoo.tensor.functions;
 
 import com.google.common.collect.ImmutableList;
+import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
@@ -60,7 +61,7 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     public static TensorType outputType(TensorType inputType, List<String> reduceDimensions) {
-        TensorType.Builder b = new TensorType.Builder(inputType.valueType());
+        TensorType.Builder b = new TensorType.Builder(inputType.valueType().computationType());
         if (reduceDimensions.isEmpty()) return b.build(); // means reduce all
         for (TensorType.Dimension dimension : inputType.dimensions()) {
             if ( ! reduceDimensions.contains(dimension.name()))
@@ -108,7 +109,7 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
     }
 
     private static TensorType type(TensorType argumentType, List<String> dimensions) {
-        TensorType.Builder builder = new TensorType.Builder(argumentType.valueType());
+        TensorType.Builder builder = new TensorType.Builder(argumentType.valueType().computationType());
         if (dimensions.isEmpty()) return builder.build(); // means reduce all
         for (TensorType.Dimension dimension : argumentType.dimensions())
             if ( ! dimensions.contains(dimension.name())) // keep
@@ -128,13 +129,16 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
 
         // Special case: Reduce all
         if (dimensions.isEmpty() || dimensions.size() == argument.type().dimensions().size())
-            if (argument.type().dimensions().size() == 1 && argument instanceof IndexedTensor)
-                return reduceIndexedVector((IndexedTensor)argument, aggregator);
+            if (argument instanceof IndexedTensor)
+                return reduceAllIndexed((IndexedTensor)argument, aggregator);
             else
                 return reduceAllGeneral(argument, aggregator);
 
         TensorType reducedType = type(argument.type(), dimensions);
 
+        if (argument instanceof IndexedTensor && argument.size() > 0)
+            return reduceIndexed((IndexedTensor)argument, reducedType, dimensions, aggregator);
+
         // Reduce cells
         Map<TensorAddress, ValueAggregator> aggregatingCells = new HashMap<>();
         for (Iterator<Tensor.Cell> i = argument.cellIterator(); i.hasNext(); ) {
@@ -171,13 +175,54 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
-    private static Tensor reduceIndexedVector(IndexedTensor argument, Aggregator aggregator) {
+    private static Tensor reduceAllIndexed(IndexedTensor argument, Aggregator aggregator) {
         ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
-        for (int i = 0; i < argument.dimensionSizes().size(0); i++)
+        for (long i = 0; i < argument.size(); i++)
             valueAggregator.aggregate(argument.get(i));
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
+    /**
+     * Reduces some dimensions of a dense tensor in one pass over its values in standard value order,
+     * where the reduced cell of each value is found by stepping a direct index by the stride
+     * of each retained dimension. This does not box values or allocate per cell.
+     */
+    private static Tensor reduceIndexed(IndexedTensor argument, TensorType reducedType, List<String> dimensions,
+                                        Aggregator aggregator) {
+        int rank = argument.type().dimensions().size();
+        DimensionSizes sizes = argument.dimensionSizes();
+        DimensionSizes.Builder reducedSizes = new DimensionSizes.Builder(reducedType.dimensions().size());
+        long[] reducedStrides = new long[rank]; // the stride in the reduced tensor of each argument dimension, or 0
+        long stride = 1;
+        for (int i = rank - 1, reducedIndex = reducedType.dimensions().size() - 1; i >= 0; i--) {
+            if (dimensions.contains(argument.type().dimensions().get(i).name())) continue;
+            reducedSizes.set(reducedIndex--, sizes.size(i));
+            reducedStrides[i] = stride;
+            stride *= sizes.size(i);
+        }
+
+        ValueAggregator[] aggregators = new ValueAggregator[(int)stride];
+        for (int i = 0; i < aggregators.length; i++)
+            aggregators[i] = ValueAggregator.ofType(aggregator);
+
+        long[] indexes = new long[rank];
+        long reducedIndex = 0;
+        for (long i = 0; i < argument.size(); i++) {
+            aggregators[(int)reducedIndex].aggregate(argument.get(i));
+            for (int d = rank - 1; d >= 0; d--) { // step to the next cell
+                reducedIndex += reducedStrides[d];
+                if (++indexes[d] < sizes.size(d)) break;
+                reducedIndex -= reducedStrides[d] * indexes[d];
+                indexes[d] = 0;
+            }
+        }
+
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType, reducedSizes.build());
+        for (int i = 0; i < aggregators.length; i++)
+            builder.cellByDirectIndex(i, aggregators[i].aggregatedValue());
+        return builder.build();
+    }
+
     static abstract class ValueAggregator {
 
         static ValueAggregator ofType(Aggregator aggregator) {
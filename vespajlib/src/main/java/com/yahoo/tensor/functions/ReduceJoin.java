@@ -8,6 +8,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 
 import java.util.Arrays;
 import java.util.List;
@@ -71,12 +72,12 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
     public final Tensor evaluate(EvaluationContext<NAMETYPE> context) {
         Tensor a = argumentA.evaluate(context);
         Tensor b = argumentB.evaluate(context);
-        TensorType joinedType = new TensorType.Builder(a.type(), b.type()).build();
+        TensorType joinedType = new TensorType.Builder(a.type(), b.type()).build().computationType();
 
         if (canOptimize(a, b)) {
-            return evaluate((IndexedTensor)a, (IndexedTensor)b, joinedType);
+            return evaluate((IndexedTensor)a, (IndexedTensor)b, joinedType, context.parallelism());
         }
-        return Reduce.evaluate(Join.evaluate(a, b, joinedType, combinator), dimensions, aggregator);
+        return Reduce.evaluate(Join.evaluate(a, b, joinedType, combinator, context.parallelism()), dimensions, aggregator);
     }
 
     /**
@@ -118,8 +119,9 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
     /**
      * Evaluates the reduce-join. Special handling for common cases where the
      * reduce dimension is the innermost dimension in both tensors.
+     * Large vector-matrix and matrix-matrix products are split into ranges of rows computed in parallel.
      */
-    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType) {
+    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType, Parallelism parallelism) {
         TensorType reducedType = Reduce.outputType(joinedType, dimensions);
 
         if (reduceDimensionIsInnermost(a, b)) {
@@ -127,13 +129,13 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
                 return vectorVectorProduct(a, b, reducedType);
             }
             if (a.type().dimensions().size() == 1 && b.type().dimensions().size() == 2) {
-                return vectorMatrixProduct(a, b, reducedType, false);
+                return vectorMatrixProduct(a, b, reducedType, false, parallelism);
             }
             if (a.type().dimensions().size() == 2 && b.type().dimensions().size() == 1) {
-                return vectorMatrixProduct(b, a, reducedType, true);
+                return vectorMatrixProduct(b, a, reducedType, true, parallelism);
             }
             if (a.type().dimensions().size() == 2 && b.type().dimensions().size() == 2) {
-                return matrixMatrixProduct(a, b, reducedType);
+                return matrixMatrixProduct(a, b, reducedType, parallelism);
             }
         }
         return evaluateGeneral(a, b, reducedType);
@@ -147,16 +149,12 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long commonSize = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
 
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ic = 0; ic < commonSize; ++ic) {
-            double va = a.get(ic);
-            double vb = b.get(ic);
-            agg.aggregate(combinator.applyAsDouble(va, vb));
-        }
-        builder.cellByDirectIndex(0, agg.aggregatedValue());
+        builder.cellByDirectIndex(0, reduceJoinRow(a, 0, b, 0, commonSize, false, agg));
         return builder.build();
     }
 
-    private Tensor vectorMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, boolean swapped) {
+    private Tensor vectorMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, boolean swapped,
+                                       Parallelism parallelism) {
         if ( a.type().dimensions().size() != 1 || b.type().dimensions().size() != 2) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for vector-matrix product");
         }
@@ -164,21 +162,18 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
 
-        Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ib = 0; ib < sizesB.size(0); ++ib) {
-            agg.reset();
-            for (int ic = 0; ic < Math.min(sizesA.size(0), sizesB.size(1)); ++ic) {
-                double va = a.get(ic);
-                double vb = b.get(ib * sizesB.size(1) + ic);
-                double result = swapped ? combinator.applyAsDouble(vb, va) : combinator.applyAsDouble(va, vb);
-                agg.aggregate(result);
+        long commonSize = Math.min(sizesA.size(0), sizesB.size(1));
+        parallelism.forEachRange(sizesB.size(0), commonSize, (from, to) -> {
+            Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
+            for (long ib = from; ib < to; ++ib) {
+                double result = reduceJoinRow(a, 0, b, ib * sizesB.size(1), commonSize, swapped, agg);
+                builder.cellByDirectIndex(ib, result);
             }
-            builder.cellByDirectIndex(ib, agg.aggregatedValue());
-        }
+        });
         return builder.build();
     }
 
-    private Tensor matrixMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
+    private Tensor matrixMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, Parallelism parallelism) {
         if ( a.type().dimensions().size() != 2 || b.type().dimensions().size() != 2) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for matrix-matrix product");
         }
@@ -190,21 +185,75 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
 
-        Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ia = 0; ia < sizesA.size(0); ++ia) {
-            for (int ib = 0; ib < sizesB.size(0); ++ib) {
-                agg.reset();
-                for (int ic = 0; ic < Math.min(sizesA.size(1), sizesB.size(1)); ++ic) {
-                    double va = a.get(ia * sizesA.size(1) + ic);
-                    double vb = b.get(ib * sizesB.size(1) + ic);
-                    agg.aggregate(combinator.applyAsDouble(va, vb));
+        long commonSize = Math.min(sizesA.size(1), sizesB.size(1));
+        parallelism.forEachRange(sizesA.size(0), sizesB.size(0) * commonSize, (from, to) -> {
+            Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
+            for (long ia = from; ia < to; ++ia) {
+                for (long ib = 0; ib < sizesB.size(0); ++ib) {
+                    double result = reduceJoinRow(a, ia * sizesA.size(1), b, ib * sizesB.size(1), commonSize, false, agg);
+                    builder.cellByDirectIndex(ia * strideA + ib * strideB, result);
                 }
-                builder.cellByDirectIndex(ia * strideA + ib * strideB, agg.aggregatedValue());
             }
-        }
+        });
         return builder.build();
     }
 
+    /**
+     * Returns the aggregate of joining the given number of consecutive values in a and b starting at the given
+     * direct indexes. Sums of products (dot products) and sums of squared differences (squared L2 distances)
+     * are computed in a primitive loop over four independent partial sums, without calling the combinator
+     * or the aggregator per cell.
+     */
+    private double reduceJoinRow(IndexedTensor a, long aStart, IndexedTensor b, long bStart, long length,
+                                 boolean swapped, Reduce.ValueAggregator agg) {
+        if (aggregator == Reduce.Aggregator.sum && combinator instanceof ScalarFunctions.Multiply)
+            return dotProduct(a, aStart, b, bStart, length);
+        if (aggregator == Reduce.Aggregator.sum && combinator instanceof ScalarFunctions.SquaredDifference)
+            return squaredDistance(a, aStart, b, bStart, length);
+
+        agg.reset();
+        for (long i = 0; i < length; i++) {
+            double va = a.get(aStart + i);
+            double vb = b.get(bStart + i);
+            agg.aggregate(swapped ? combinator.applyAsDouble(vb, va) : combinator.applyAsDouble(va, vb));
+        }
+        return agg.aggregatedValue();
+    }
+
+    private static double dotProduct(IndexedTensor a, long aStart, IndexedTensor b, long bStart, long length) {
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        long i = 0;
+        for (; i + 3 < length; i += 4) {
+            sum0 += a.get(aStart + i)     * b.get(bStart + i);
+            sum1 += a.get(aStart + i + 1) * b.get(bStart + i + 1);
+            sum2 += a.get(aStart + i + 2) * b.get(bStart + i + 2);
+            sum3 += a.get(aStart + i + 3) * b.get(bStart + i + 3);
+        }
+        for (; i < length; i++)
+            sum0 += a.get(aStart + i) * b.get(bStart + i);
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    private static double squaredDistance(IndexedTensor a, long aStart, IndexedTensor b, long bStart, long length) {
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        long i = 0;
+        for (; i + 3 < length; i += 4) {
+            double d0 = a.get(aStart + i)     - b.get(bStart + i);
+            double d1 = a.get(aStart + i + 1) - b.get(bStart + i + 1);
+            double d2 = a.get(aStart + i + 2) - b.get(bStart + i + 2);
+            double d3 = a.get(aStart + i + 3) - b.get(bStart + i + 3);
+            sum0 += d0 * d0;
+            sum1 += d1 * d1;
+            sum2 += d2 * d2;
+            sum3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            double d = a.get(aStart + i) - b.get(bStart + i);
+            sum0 += d * d;
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
     private Tensor evaluateGeneral(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         TensorType onlyInA = Reduce.outputType(a.type(), dimensions);
@@ -2,15 +2,15 @@
 package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.CellValues;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
-import java.util.Iterator;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.util.Optional;
-import java.util.function.Consumer;
-import java.util.function.Supplier;
 
 /**
  * Implementation of a dense binary format for a tensor on the form:
@@ -53,6 +53,8 @@ public class DenseBinaryFormat implements BinaryFormat {
         switch (serializationValueType) {
             case DOUBLE: encodeDoubleCells(tensor, buffer); break;
             case FLOAT: encodeFloatCells(tensor, buffer); break;
+            case BFLOAT16: encodeBFloat16Cells(tensor, buffer); break;
+            case INT8: encodeInt8Cells(tensor, buffer); break;
         }
     }
 
@@ -66,29 +68,46 @@ public class DenseBinaryFormat implements BinaryFormat {
             buffer.putFloat(tensor.getFloat(i));
     }
 
+    private void encodeBFloat16Cells(IndexedTensor tensor, GrowableByteBuffer buffer) {
+        for (int i = 0; i < tensor.size(); i++)
+            buffer.putShort(CellValues.toBFloat16(tensor.getFloat(i)));
+    }
+
+    private void encodeInt8Cells(IndexedTensor tensor, GrowableByteBuffer buffer) {
+        for (int i = 0; i < tensor.size(); i++)
+            buffer.put(CellValues.toInt8(tensor.getFloat(i)));
+    }
+
     @Override
     public Tensor decode(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
-        TensorType type;
-        DimensionSizes sizes;
-        if (optionalType.isPresent()) {
-            type = optionalType.get();
-            if (type.valueType() != this.serializationValueType) {
-                throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
-                                                   " is not " + this.serializationValueType);
-            }
-            TensorType serializedType = decodeType(buffer);
-            if ( ! serializedType.isAssignableTo(type))
-                throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
-                                                   " cannot be assigned to type " + type);
-            sizes = sizesFromType(serializedType);
-        }
-        else {
-            type = decodeType(buffer);
-            sizes = sizesFromType(type);
+        TensorType serializedType = decodeType(buffer);
+        TensorType type = resolveType(optionalType, serializedType);
+        return decodeCells(type, sizesFromType(serializedType), buffer);
+    }
+
+    /**
+     * Returns a tensor reading its cell values from the remainder of the given buffer instead of copying them.
+     * The buffer must not be changed after this.
+     */
+    IndexedTensor decodeView(Optional<TensorType> optionalType, GrowableByteBuffer buffer) {
+        TensorType serializedType = decodeType(buffer);
+        TensorType type = resolveType(optionalType, serializedType);
+        return IndexedTensor.wrap(type, sizesFromType(serializedType), buffer.getByteBuffer());
+    }
+
+    /** Returns the type to decode to, given the type requested and the type in the data */
+    private TensorType resolveType(Optional<TensorType> optionalType, TensorType serializedType) {
+        if (optionalType.isEmpty()) return serializedType;
+
+        TensorType type = optionalType.get();
+        if (type.valueType() != this.serializationValueType) {
+            throw new IllegalArgumentException("Tensor value type mismatch. Value type " + type.valueType() +
+                                               " is not " + this.serializationValueType);
         }
-        Tensor.Builder builder = Tensor.Builder.of(type, sizes);
-        decodeCells(sizes, buffer, (IndexedTensor.BoundBuilder)builder);
-        return builder.build();
+        if ( ! serializedType.isAssignableTo(type))
+            throw new IllegalArgumentException("Type/instance mismatch: A tensor of type " + serializedType +
+                                               " cannot be assigned to type " + type);
+        return type;
     }
 
     private TensorType decodeType(GrowableByteBuffer buffer) {
@@ -107,21 +126,69 @@ public class DenseBinaryFormat implements BinaryFormat {
         return builder.build();
     }
 
-    private void decodeCells(DimensionSizes sizes, GrowableByteBuffer buffer, IndexedTensor.BoundBuilder builder) {
+    /**
+     * Decodes the cells of a dense tensor by bulk copying them from the buffer into the array
+     * holding the values of the tensor, without going through the builder cell by cell.
+     */
+    private Tensor decodeCells(TensorType type, DimensionSizes sizes, GrowableByteBuffer buffer) {
+        int size = (int)sizes.totalSize();
         switch (serializationValueType) {
-            case DOUBLE: decodeDoubleCells(sizes, builder, buffer); break;
-            case FLOAT: decodeFloatCells(sizes, builder, buffer); break;
+            case DOUBLE:
+                double[] doubles = new double[size];
+                buffer.asDoubleBuffer().get(doubles);
+                buffer.position(buffer.position() + size * Double.BYTES);
+                return IndexedTensor.Builder.of(type, sizes, doubles).build();
+            case FLOAT:
+                float[] floats = new float[size];
+                buffer.asFloatBuffer().get(floats);
+                buffer.position(buffer.position() + size * Float.BYTES);
+                return IndexedTensor.Builder.of(type, sizes, floats).build();
+            case BFLOAT16:
+                short[] shorts = new short[size];
+                buffer.asShortBuffer().get(shorts);
+                buffer.position(buffer.position() + size * Short.BYTES);
+                IndexedTensor.BoundBuilder bFloat16Builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(type, sizes);
+                for (int i = 0; i < size; i++)
+                    bFloat16Builder.cellByDirectIndex(i, CellValues.fromBFloat16(shorts[i]));
+                return bFloat16Builder.build();
+            case INT8:
+                byte[] bytes = new byte[size];
+                buffer.get(bytes);
+                IndexedTensor.BoundBuilder int8Builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(type, sizes);
+                for (int i = 0; i < size; i++)
+                    int8Builder.cellByDirectIndex(i, (float)bytes[i]);
+                return int8Builder.build();
+            default:
+                throw new IllegalArgumentException("Unexpected value type " + serializationValueType);
         }
     }
 
-    private void decodeDoubleCells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getDouble());
-    }
-
-    private void decodeFloatCells(DimensionSizes sizes, IndexedTensor.BoundBuilder builder, GrowableByteBuffer buffer) {
-        for (long i = 0; i < sizes.totalSize(); i++)
-            builder.cellByDirectIndex(i, buffer.getFloat());
+    /** Decodes the given number of values into the given array by a bulk copy from the buffer */
+    static void decodeValues(TensorType.Value valueType, GrowableByteBuffer buffer, double[] values) {
+        switch (valueType) {
+            case DOUBLE:
+                buffer.asDoubleBuffer().get(values);
+                buffer.position(buffer.position() + values.length * Double.BYTES);
+                break;
+            case FLOAT:
+                FloatBuffer floats = buffer.asFloatBuffer();
+                for (int i = 0; i < values.length; i++)
+                    values[i] = floats.get(i);
+                buffer.position(buffer.position() + values.length * Float.BYTES);
+                break;
+            case BFLOAT16:
+                ShortBuffer shorts = buffer.asShortBuffer();
+                for (int i = 0; i < values.length; i++)
+                    values[i] = CellValues.fromBFloat16(shorts.get(i));
+                buffer.position(buffer.position() + values.length * Short.BYTES);
+                break;
+            case INT8:
+                for (int i = 0; i < values.length; i++)
+                    values[i] = buffer.get();
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected value type " + valueType);
+        }
     }
 
 }
@@ -3,6 +3,7 @@
 package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.CellValues;
 import com.yahoo.tensor.MixedTensor;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
@@ -12,7 +13,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -64,6 +64,9 @@ class MixedBinaryFormat implements BinaryFormat {
         switch (serializationValueType) {
             case DOUBLE: encodeCells(buffer, tensor, buffer::putDouble); break;
             case FLOAT: encodeCells(buffer, tensor, (val) -> buffer.putFloat(val.floatValue())); break;
+            case BFLOAT16: encodeCells(buffer, tensor, (val) ->
+                    buffer.putShort(CellValues.toBFloat16(val.floatValue()))); break;
+            case INT8: encodeCells(buffer, tensor, (val) -> buffer.put(CellValues.toInt8(val.floatValue()))); break;
         }
     }
 
@@ -124,13 +127,6 @@ class MixedBinaryFormat implements BinaryFormat {
     }
 
     private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type) {
-        switch (serializationValueType) {
-            case DOUBLE: decodeCells(buffer, builder, type, buffer::getDouble); break;
-            case FLOAT: decodeCells(buffer, builder, type, () -> (double)buffer.getFloat()); break;
-        }
-    }
-
-    private void decodeCells(GrowableByteBuffer buffer, MixedTensor.BoundBuilder builder, TensorType type, Supplier<Double> supplier) {
         List<TensorType.Dimension> sparseDimensions = type.dimensions().stream().filter(d -> !d.isIndexed()).collect(Collectors.toList());
         TensorType sparseType = MixedTensor.createPartialType(type.valueType(), sparseDimensions);
         long denseSubspaceSize = builder.denseSubspaceSize();
@@ -146,9 +142,7 @@ class MixedBinaryFormat implements BinaryFormat {
             for (TensorType.Dimension sparseDimension : sparseDimensions) {
                 sparseAddress.add(sparseDimension.name(), buffer.getUtf8String());
             }
-            for (long denseOffset = 0; denseOffset < denseSubspaceSize; denseOffset++) {
-                denseSubspace[(int)denseOffset] = supplier.get();
-            }
+            DenseBinaryFormat.decodeValues(serializationValueType, buffer, denseSubspace);
             builder.block(sparseAddress.build(), denseSubspace);
         }
     }
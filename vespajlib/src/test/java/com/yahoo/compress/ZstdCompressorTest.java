@@ -0,0 +1,72 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.compress;
+
+import com.yahoo.text.Utf8;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZstdCompressorTest {
+
+    @Test
+    public void can_compress_and_decompress_partial_buffer_range() {
+        byte[] toCompress = "aaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaaa".getBytes();
+        int compressBytes = 30;
+        Compressor compressor = new Compressor(CompressionType.ZSTD);
+        Compressor.Compression compressed = compressor.compress(toCompress, compressBytes);
+        assertEquals(CompressionType.ZSTD, compressed.type());
+        assertEquals(compressBytes, compressed.uncompressedSize());
+        byte[] decompressed = compressor.decompress(compressed);
+        assertTrue(Arrays.equals(decompressed, Arrays.copyOf(toCompress, compressBytes)));
+    }
+
+    @Test
+    public void incompressible_data_is_returned_raw() {
+        byte[] toCompress = new byte[4096];
+        new Random(1).nextBytes(toCompress);
+        Compressor.Compression compressed = new Compressor(CompressionType.ZSTD).compress(toCompress);
+        assertEquals(CompressionType.INCOMPRESSIBLE, compressed.type());
+        assertArrayEquals(toCompress, compressed.data());
+    }
+
+    @Test
+    public void type_code_matches_other_implementations() {
+        assertEquals(7, CompressionType.ZSTD.getCode());
+        assertEquals(CompressionType.ZSTD, CompressionType.valueOf((byte) 7));
+        assertTrue(CompressionType.ZSTD.isCompressed());
+    }
+
+    @Test
+    public void dictionary_improves_compression_of_small_similar_data() {
+        Random random = new Random(1);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            samples.add(document(random));
+        byte[] dictionary = Compressor.trainDictionary(samples, 16 * 1024);
+        assertTrue(dictionary.length > 0);
+
+        byte[] toCompress = document(random);
+        Compressor plain = new Compressor(CompressionType.ZSTD, 3, 2.0, 0);
+        Compressor withDictionary = new Compressor(CompressionType.ZSTD, 3, 2.0, 0, dictionary);
+        Compressor.Compression compressed = withDictionary.compress(toCompress);
+        assertTrue(compressed.data().length < plain.compress(toCompress).data().length);
+        assertArrayEquals(toCompress, withDictionary.decompress(compressed));
+        assertArrayEquals(toCompress, withDictionary.decompress(plain.compress(toCompress)));
+    }
+
+    private static byte[] document(Random random) {
+        return Utf8.toBytes("{\"put\":\"id:music:music::" + random.nextInt() + "\",\"fields\":{" +
+                            "\"title\":\"Title " + random.nextInt(1000) + "\",\"artist\":\"Artist " + random.nextInt(100) + "\"," +
+                            "\"year\":" + (1950 + random.nextInt(70)) + ",\"popularity\":" + random.nextDouble() + "," +
+                            "\"genres\":[\"rock\",\"pop\"],\"label\":\"Some record label\"}}");
+    }
+
+}
@@ -0,0 +1,125 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class BufferPoolTestCase {
+
+    @Test
+    public void testSizeClasses() {
+        assertEquals(BufferPool.minSize, BufferPool.sizeClass(0));
+        assertEquals(BufferPool.minSize, BufferPool.sizeClass(BufferPool.minSize));
+        assertEquals(2 * BufferPool.minSize, BufferPool.sizeClass(BufferPool.minSize + 1));
+        assertEquals(65536, BufferPool.sizeClass(40000));
+        assertEquals(BufferPool.maxRetainedSize, BufferPool.sizeClass(BufferPool.maxRetainedSize));
+        assertEquals(BufferPool.maxRetainedSize + 1, BufferPool.sizeClass(BufferPool.maxRetainedSize + 1));
+    }
+
+    @Test
+    public void testReleasedBuffersAreReusedEmpty() throws Exception {
+        inNewThread(() -> {
+            GrowableByteBuffer buffer = BufferPool.acquire();
+            ByteBuffer underlying = buffer.getByteBuffer();
+            buffer.putLong(1);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            BufferPool.release(buffer);
+            BufferPool.release(buffer);
+
+            GrowableByteBuffer reused = BufferPool.acquire();
+            assertSame(underlying, reused.getByteBuffer());
+            assertEquals(0, reused.position());
+            assertEquals(reused.capacity(), reused.limit());
+            assertEquals(ByteOrder.BIG_ENDIAN, reused.order());
+            assertNotSame(underlying, BufferPool.acquire().getByteBuffer());
+            BufferPool.release(reused);
+        });
+    }
+
+    @Test
+    public void testGrownBuffersKeepTheirCapacity() throws Exception {
+        inNewThread(() -> {
+            GrowableByteBuffer buffer = BufferPool.acquire();
+            buffer.put(new byte[3 * BufferPool.minSize]);
+            int capacity = buffer.capacity();
+            BufferPool.release(buffer);
+
+            assertEquals(capacity, BufferPool.acquire(2 * BufferPool.minSize).capacity());
+        });
+    }
+
+    @Test
+    public void testSmallestSufficientBufferIsAcquired() throws Exception {
+        inNewThread(() -> {
+            List<GrowableByteBuffer> buffers = new ArrayList<>();
+            for (int size : new int[] { 8192, 65536, 16384 })
+                buffers.add(BufferPool.acquire(size));
+            buffers.forEach(BufferPool::release);
+
+            assertEquals(16384, BufferPool.acquire(10000).capacity());
+            assertEquals(65536, BufferPool.acquire(10000).capacity());
+            assertEquals(8192, BufferPool.acquire(10).capacity());
+        });
+    }
+
+    @Test
+    public void testRetainedBuffersAreBounded() throws Exception {
+        inNewThread(() -> {
+            BufferPool.release(BufferPool.acquire(BufferPool.maxRetainedSize + 1));
+            assertEquals(BufferPool.maxRetainedSize, BufferPool.acquire(BufferPool.maxRetainedSize).capacity());
+
+            List<GrowableByteBuffer> buffers = new ArrayList<>();
+            for (int i = 0; i <= BufferPool.maxRetained; i++)
+                buffers.add(BufferPool.acquire(BufferPool.minSize << i));
+            buffers.forEach(BufferPool::release);
+
+            // The smallest buffer was dropped
+            assertEquals(2 * BufferPool.minSize, BufferPool.acquire().capacity());
+        });
+    }
+
+    @Test
+    public void testBuffersAreThreadLocal() throws Exception {
+        inNewThread(() -> {
+            GrowableByteBuffer buffer = BufferPool.acquire();
+            ByteBuffer underlying = buffer.getByteBuffer();
+            BufferPool.release(buffer);
+
+            assertNotSame(underlying, CompletableFuture.supplyAsync(() -> BufferPool.acquire().getByteBuffer()).join());
+            assertSame(underlying, BufferPool.acquire().getByteBuffer());
+        });
+    }
+
+    /** Runs the given test in a new thread, to start with an empty pool */
+    private static void inNewThread(Runnable test) throws Exception {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                test.run();
+                result.complete(null);
+            }
+            catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        thread.start();
+        try {
+            result.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof Error) throw (Error)e.getCause();
+            throw e;
+        }
+    }
+
+}
@@ -161,6 +161,26 @@ public class IndexedTensorTestCase {
 
     }
 
+    @Test
+    public void testCompactValueTypes() {
+        Tensor bFloat16 = Tensor.from("tensor<bfloat16>(x[3]):[1.5, -2.0, 3.1415927]");
+        assertEquals(1.5, bFloat16.get(TensorAddress.of(0)), 0);
+        assertEquals(-2.0, bFloat16.get(TensorAddress.of(1)), 0);
+        assertEquals(3.140625, bFloat16.get(TensorAddress.of(2)), 0); // truncated to 8 bits of precision
+
+        Tensor int8 = Tensor.from("tensor<int8>(x[3]):[1, -128, 127]");
+        assertEquals(1.0, int8.get(TensorAddress.of(0)), 0);
+        assertEquals(-128.0, int8.get(TensorAddress.of(1)), 0);
+        assertEquals(127.0, int8.get(TensorAddress.of(2)), 0);
+        assertEquals("tensor<int8>(x[3]):[1.0, -128.0, 127.0]", int8.toString());
+
+        Tensor unbound = Tensor.from("tensor<int8>(x[]):{{x:0}:1, {x:1}:2.7}");
+        assertEquals(3.0, unbound.get(TensorAddress.of(1)), 0); // rounded
+
+        Tensor outOfRange = Tensor.from("tensor<int8>(x[4]):[300, -200, -2.6, 127.5]");
+        assertEquals("tensor<int8>(x[4]):[127.0, -128.0, -3.0, 127.0]", outOfRange.toString()); // clamped
+    }
+
     /** Returns a unique value for some given cell indexes */
     private int value(int v, int w, int x, int y, int z) {
         return v + 3 * w + 7 * x + 11 * y + 13 * z;
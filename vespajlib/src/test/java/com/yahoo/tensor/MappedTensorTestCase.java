@@ -4,8 +4,11 @@ package com.yahoo.tensor;
 import com.google.common.collect.Sets;
 import org.junit.Test;
 
+import java.util.Iterator;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Basic tensor tests. Tensor operations are tested in EvaluationTestCase
@@ -48,4 +51,45 @@ public class MappedTensorTestCase {
         assertEquals("tensor(x{},y{}):{{x:0,y:0}:1.0,{x:1,y:0}:2.0}", tensor.toString());
     }
 
+    @Test
+    public void testManyCells() {
+        TensorType type = new TensorType.Builder().mapped("x").mapped("y").build();
+        Tensor.Builder builder = Tensor.Builder.of(type);
+        for (int x = 0; x < 300; x++)
+            for (int y = 0; y < 30; y++)
+                builder.cell(TensorAddress.ofLabels("x" + x, "y" + y), x * 100 + y);
+        Tensor tensor = builder.build();
+        assertEquals(9000, tensor.size());
+        assertEquals(29929.0, tensor.get(TensorAddress.ofLabels("x299", "y29")), 0);
+        assertEquals(0.0, tensor.get(TensorAddress.ofLabels("x0", "y0")), 0);
+        assertTrue(Double.isNaN(tensor.get(TensorAddress.ofLabels("x0", "y30"))));
+        assertTrue(Double.isNaN(tensor.get(TensorAddress.ofLabels("y0", "x0"))));
+        assertTrue(Double.isNaN(tensor.get(TensorAddress.ofLabels("x0"))));
+
+        Iterator<Tensor.Cell> cells = tensor.cellIterator();
+        assertEquals(TensorAddress.ofLabels("x0", "y0"), cells.next().getKey());
+        assertEquals(TensorAddress.ofLabels("x0", "y1"), cells.next().getKey());
+        assertEquals(tensor.cells().hashCode(), tensor.hashCode());
+        assertEquals(tensor, Tensor.from(tensor.toString()));
+    }
+
+    @Test
+    public void testNumericLabels() {
+        Tensor tensor = Tensor.Builder.of(TensorType.fromSpec("tensor(x{},y{})")).cell(3.0, 1, 2).cell(4.0, 2, 1).build();
+        assertEquals(3.0, tensor.get(TensorAddress.of(1, 2)), 0);
+        assertEquals(4.0, tensor.get(TensorAddress.ofLabels("2", "1")), 0);
+        assertEquals(1, tensor.cellIterator().next().getKey().numericLabel(0));
+    }
+
+    @Test
+    public void testMultipleValuesForACell() {
+        try {
+            Tensor.Builder.of(TensorType.fromSpec("tensor(x{})")).cell(1.0, 1).cell(2.0, 2).cell(3.0, 1).build();
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Multiple values for the cell {x:1} in tensor(x{})", e.getMessage());
+        }
+    }
+
 }
@@ -98,6 +98,22 @@ public class TensorTypeTestCase {
         assertValueType(TensorType.Value.FLOAT, "tensor<float>(x[])");
         assertEquals("tensor(x[])", TensorType.fromSpec("tensor<double>(x[])").toString());
         assertEquals("tensor<float>(x[])", TensorType.fromSpec("tensor<float>(x[])").toString());
+        assertValueType(TensorType.Value.BFLOAT16, "tensor<bfloat16>(x[])");
+        assertValueType(TensorType.Value.INT8, "tensor<int8>(x[])");
+        assertEquals("tensor<bfloat16>(x[])", TensorType.fromSpec("tensor<bfloat16>(x[])").toString());
+        assertEquals("tensor<int8>(x[])", TensorType.fromSpec("tensor<int8>(x[])").toString());
+    }
+
+    @Test
+    public void testComputationType() {
+        assertEquals(TensorType.Value.DOUBLE, TensorType.Value.DOUBLE.computationType());
+        assertEquals(TensorType.Value.FLOAT, TensorType.Value.FLOAT.computationType());
+        assertEquals(TensorType.Value.FLOAT, TensorType.Value.BFLOAT16.computationType());
+        assertEquals(TensorType.Value.FLOAT, TensorType.Value.INT8.computationType());
+        assertEquals(TensorType.Value.BFLOAT16, TensorType.Value.largestOf(TensorType.Value.INT8, TensorType.Value.BFLOAT16));
+        assertEquals(TensorType.fromSpec("tensor<float>(x[3])"), TensorType.fromSpec("tensor<int8>(x[3])").computationType());
+        assertIsAssignableTo("tensor<int8>(x[3])", "tensor<float>(x[3])");
+        assertUnassignableTo("tensor<float>(x[3])", "tensor<bfloat16>(x[3])");
     }
 
     private static void assertTensorType(String typeSpec) {
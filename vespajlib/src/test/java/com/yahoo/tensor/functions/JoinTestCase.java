@@ -1,10 +1,21 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor.functions;
 
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.MapEvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 import org.junit.Test;
 
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author bratseth
@@ -46,4 +57,102 @@ public class JoinTestCase {
                              .divide(Tensor.from("tensor(y[],z[]):{ {y:0,z:0}:2, {y:1,z:0}:4, {y:2,z:0}:6 }")));
     }
 
+    @Test
+    public void testJoinOfCompactValueTypesIsWidened() {
+        Tensor int8 = Tensor.from("tensor<int8>(x[3]):[100, 100, -100]");
+        Tensor product = int8.multiply(Tensor.from("tensor<int8>(x[3]):[2, 0.5, 3]"));
+        assertEquals(TensorType.fromSpec("tensor<float>(x[3])"), product.type());
+        assertEquals(Tensor.from("tensor<float>(x[3]):[200, 0, -300]"), product);
+
+        Tensor bFloat16 = Tensor.from("tensor<bfloat16>(x[2]):[1.5, 2]");
+        Tensor mixed = bFloat16.multiply(Tensor.from("tensor<int8>(x[2]):[2, 3]"));
+        assertEquals(TensorType.fromSpec("tensor<float>(x[2])"), mixed.type());
+        assertEquals(Tensor.from("tensor<float>(x[2]):[3, 6]"), mixed);
+
+        assertEquals(TensorType.fromSpec("tensor(x[2])"),
+                     bFloat16.multiply(Tensor.from("tensor(x[2]):[1, 1]")).type());
+    }
+
+    /** Tests that joins of dense tensors, which use direct indexes, equals joins of the same cells in mapped tensors */
+    @Test
+    public void testIndexedJoinEqualsMappedJoin() {
+        Tensor xy = Tensor.from("tensor(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        assertIndexedJoinEqualsMappedJoin(xy, Tensor.from("tensor(x[2],y[3]):[[6, 5, 4], [3, 2, 1]]"));
+        assertIndexedJoinEqualsMappedJoin(xy, Tensor.from("tensor(x[2]):[10, 20]"));
+        assertIndexedJoinEqualsMappedJoin(xy, Tensor.from("tensor(y[3]):[10, 20, 30]"));
+        assertIndexedJoinEqualsMappedJoin(xy, Tensor.from("tensor(y[3],z[2]):[[1, 2], [3, 4], [5, 6]]"));
+        assertIndexedJoinEqualsMappedJoin(xy, Tensor.from("tensor(w[2]):[7, 8]"));
+        assertIndexedJoinEqualsMappedJoin(xy, Tensor.Builder.of(TensorType.empty).cell(3.0).build());
+        assertIndexedJoinEqualsMappedJoin(Tensor.from("tensor(x[],y[]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:1,y:0}:3,{x:1,y:1}:4}"),
+                                          Tensor.from("tensor(y[],z[]):{{y:0,z:0}:5,{y:0,z:1}:6}"));
+    }
+
+    @Test
+    public void testIndexedJoinOfDifferentSizes() {
+        Tensor a = Tensor.from("tensor(x[],y[]):{{x:0,y:0}:1,{x:0,y:1}:2,{x:0,y:2}:3,{x:1,y:0}:4,{x:1,y:1}:5,{x:1,y:2}:6}");
+        Tensor b = Tensor.from("tensor(y[],z[]):{{y:0,z:0}:10,{y:1,z:0}:20}");
+        assertEquals(Tensor.from("tensor(x[],y[],z[]):{{x:0,y:0,z:0}:11,{x:0,y:1,z:0}:22,{x:1,y:0,z:0}:14,{x:1,y:1,z:0}:25}"),
+                     a.add(b));
+        assertEquals(Tensor.from("tensor(x[],y[],z[]):{{x:0,y:0,z:0}:-9,{x:0,y:1,z:0}:-18,{x:1,y:0,z:0}:-6,{x:1,y:1,z:0}:-15}"),
+                     a.subtract(b));
+    }
+
+    @Test
+    public void testParallelIndexedJoin() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            EvaluationContext<Name> context = parallelContext(Parallelism.of(pool, 4, 1));
+            assertParallelJoinEqualsSequentialJoin(dense("tensor(x[7],y[5],z[3])"), dense("tensor(y[5],z[3])"), context);
+            assertParallelJoinEqualsSequentialJoin(dense("tensor(x[7],y[5])"), dense("tensor(w[4],y[5])"), context);
+            assertParallelJoinEqualsSequentialJoin(dense("tensor(x[9])"), dense("tensor(x[9])"), context);
+            assertParallelJoinEqualsSequentialJoin(dense("tensor(x[2])"), dense("tensor(y[1])"), context);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private void assertParallelJoinEqualsSequentialJoin(Tensor a, Tensor b, EvaluationContext<Name> context) {
+        Join<Name> join = new Join<>(new ConstantTensor<>(a), new ConstantTensor<>(b), ScalarFunctions.subtract());
+        assertEquals(join.evaluate(), join.evaluate(context));
+    }
+
+    private void assertIndexedJoinEqualsMappedJoin(Tensor a, Tensor b) {
+        assertTrue(a instanceof IndexedTensor && b instanceof IndexedTensor);
+        assertEquals(mapped(a).subtract(mapped(b)), a.subtract(b));
+        assertEquals(mapped(b).subtract(mapped(a)), b.subtract(a));
+        assertEquals(mapped(a).multiply(mapped(b)), a.multiply(b));
+    }
+
+    /** Returns a tensor of the given bound dense type where each cell has a distinct value */
+    static Tensor dense(String type) {
+        TensorType tensorType = TensorType.fromSpec(type);
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(tensorType);
+        long size = DimensionSizes.of(tensorType).totalSize();
+        for (long i = 0; i < size; i++)
+            builder.cellByDirectIndex(i, (i * 7 % 11) - 3.5);
+        return builder.build();
+    }
+
+    /** Returns an empty context which allows evaluation with the given parallelism */
+    static EvaluationContext<Name> parallelContext(Parallelism parallelism) {
+        return new MapEvaluationContext<>() {
+            @Override
+            public Parallelism parallelism() { return parallelism; }
+        };
+    }
+
+    /** Returns a tensor with the cells of the given tensor where all dimensions are mapped */
+    static Tensor mapped(Tensor tensor) {
+        TensorType.Builder type = new TensorType.Builder(tensor.type().valueType());
+        for (TensorType.Dimension dimension : tensor.type().dimensions())
+            type.mapped(dimension.name());
+        Tensor.Builder builder = Tensor.Builder.of(type.build());
+        for (Iterator<Tensor.Cell> i = tensor.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            builder.cell(cell.getKey(), cell.getValue());
+        }
+        return builder.build();
+    }
+
 }
@@ -2,8 +2,16 @@
 package com.yahoo.tensor.functions;
 
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.Parallelism;
 import org.junit.Test;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.DoubleBinaryOperator;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -28,6 +36,85 @@ public class ReduceTestCase {
         assertNan(Tensor.Builder.of("tensor(x[1])").cell(Double.NaN, 0).build().median());
     }
 
+    @Test
+    public void testReduceOfCompactValueTypesIsWidened() {
+        Tensor int8 = Tensor.from("tensor<int8>(x[2],y[3]):[[100, 100, 100], [-1, -2, -3]]");
+        Tensor sum = int8.sum("y");
+        assertEquals(TensorType.fromSpec("tensor<float>(x[2])"), sum.type());
+        assertEquals(Tensor.from("tensor<float>(x[2]):[300, -6]"), sum);
+        assertEquals(294.0, int8.sum().asDouble(), delta);
+
+        Tensor product = int8.matmul(Tensor.from("tensor<int8>(y[3]):[1, 2, 3]"), "y");
+        assertEquals(TensorType.fromSpec("tensor<float>(x[2])"), product.type());
+        assertEquals(Tensor.from("tensor<float>(x[2]):[600, -14]"), product);
+    }
+
+    /** Tests that reducing dense tensors, which use direct indexes, equals reducing the same cells in mapped tensors */
+    @Test
+    public void testIndexedReduceEqualsMappedReduce() {
+        Tensor xyz = Tensor.from("tensor(x[2],y[3],z[2]):[[[1, 2], [3, 4], [5, 6]], [[-1, 7], [8, 0.5], [2, 3]]]");
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            for (List<String> dimensions : List.of(List.of("x"), List.of("y"), List.of("z"), List.of("x", "z"),
+                                                   List.of("y", "z"), List.of("x", "y", "z"), List.<String>of())) {
+                assertEquals(aggregator + " over " + dimensions,
+                             JoinTestCase.mapped(xyz).reduce(aggregator, dimensions),
+                             xyz.reduce(aggregator, dimensions));
+            }
+        }
+        assertEquals(Tensor.from("tensor(x[2],z[2]):[[9, 12], [9, 10.5]]"), xyz.sum("y"));
+    }
+
+    @Test
+    public void testFusedReduceJoin() {
+        Tensor a = Tensor.from("tensor(x[5]):[1, 2, 3, 4, 5]");
+        Tensor b = Tensor.from("tensor(x[5]):[2, 0, -1, 0.5, 3]");
+        assertEquals(16.0, reduceJoin(a, b, ScalarFunctions.multiply(), "x").asDouble(), delta);
+        assertEquals(37.25, reduceJoin(a, b, ScalarFunctions.squareddifference(), "x").asDouble(), delta);
+        assertEquals(16.0, reduceJoin(a, b, ScalarFunctions.max(), "x").asDouble(), delta);
+
+        Tensor m = Tensor.from("tensor(x[5],y[2]):[[1, 0], [0, 1], [1, 1], [2, 0], [0, 3]]");
+        Tensor n = Tensor.from("tensor(y[2],z[3]):[[1, 2, 3], [0, 1, 0]]");
+        Tensor nTransposed = Tensor.from("tensor(z[3],y[2]):[[1, 0], [2, 1], [3, 0]]");
+        assertEquals(JoinTestCase.mapped(m).matmul(JoinTestCase.mapped(n), "y"), reduceJoin(m, n, ScalarFunctions.multiply(), "y"));
+        assertEquals(JoinTestCase.mapped(m).join(JoinTestCase.mapped(n), ScalarFunctions.squareddifference()).sum("y"),
+                     reduceJoin(m, n, ScalarFunctions.squareddifference(), "y"));
+        assertEquals(JoinTestCase.mapped(m).matmul(JoinTestCase.mapped(n), "y"), reduceJoin(m, nTransposed, ScalarFunctions.multiply(), "y"));
+        assertEquals(JoinTestCase.mapped(m).join(JoinTestCase.mapped(n), ScalarFunctions.squareddifference()).sum("y"),
+                     reduceJoin(m, nTransposed, ScalarFunctions.squareddifference(), "y"));
+    }
+
+    @Test
+    public void testParallelReduceJoin() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            EvaluationContext<Name> context = JoinTestCase.parallelContext(Parallelism.of(pool, 4, 1));
+            Tensor m = JoinTestCase.dense("tensor(x[7],y[5])");
+            Tensor n = JoinTestCase.dense("tensor(z[6],y[5])");
+            Tensor v = JoinTestCase.dense("tensor(y[5])");
+            for (DoubleBinaryOperator combinator : List.of(ScalarFunctions.multiply(), ScalarFunctions.squareddifference(), ScalarFunctions.max())) {
+                assertParallelReduceJoinEqualsSequential(m, n, combinator, context);
+                assertParallelReduceJoinEqualsSequential(n, m, combinator, context);
+                assertParallelReduceJoinEqualsSequential(v, m, combinator, context);
+                assertParallelReduceJoinEqualsSequential(m, v, combinator, context);
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private void assertParallelReduceJoinEqualsSequential(Tensor a, Tensor b, DoubleBinaryOperator combinator,
+                                                          EvaluationContext<Name> context) {
+        ReduceJoin<Name> reduceJoin = new ReduceJoin<>(new ConstantTensor<>(a), new ConstantTensor<>(b), combinator,
+                                                       Reduce.Aggregator.sum, List.of("y"));
+        assertEquals(reduceJoin.evaluate(), reduceJoin.evaluate(context));
+    }
+
+    private Tensor reduceJoin(Tensor a, Tensor b, DoubleBinaryOperator combinator, String dimension) {
+        return new ReduceJoin<>(new ConstantTensor<>(a), new ConstantTensor<>(b), combinator,
+                                Reduce.Aggregator.sum, List.of(dimension)).evaluate();
+    }
+
     private void assertNan(Tensor tensor) {
         assertTrue(tensor + " is NaN", Double.isNaN(tensor.asDouble()));
     }
@@ -3,10 +3,13 @@ package com.yahoo.tensor.serialization;
 
 import com.yahoo.io.GrowableByteBuffer;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.Assert.assertEquals;
@@ -67,10 +70,67 @@ public class DenseBinaryFormatTestCase {
         assertEquals(Arrays.toString(encodedTensor), Arrays.toString(TypedBinaryFormat.encode(tensor)));
     }
 
+    @Test
+    public void requireThatCompactSerializationFormatsDoNotChange() {
+        byte[] bFloat16EncodedTensor = new byte[]{6, // binary format type
+                2, // bfloat16 type
+                1, // dimension count
+                1, (byte) 'x', 2, // dimension x with size
+                64, 0, // value 1
+                -64, 96, // value 2
+        };
+        Tensor bFloat16Tensor = Tensor.from("tensor<bfloat16>(x[2]):[2.0, -3.5]");
+        assertEquals(Arrays.toString(bFloat16EncodedTensor), Arrays.toString(TypedBinaryFormat.encode(bFloat16Tensor)));
+
+        byte[] int8EncodedTensor = new byte[]{6, // binary format type
+                3, // int8 type
+                1, // dimension count
+                1, (byte) 'x', 2, // dimension x with size
+                2, // value 1
+                -128, // value 2
+        };
+        Tensor int8Tensor = Tensor.from("tensor<int8>(x[2]):[2, -128]");
+        assertEquals(Arrays.toString(int8EncodedTensor), Arrays.toString(TypedBinaryFormat.encode(int8Tensor)));
+    }
+
     @Test
     public void testSerializationOfDifferentValueTypes() {
         assertSerialization("tensor<double>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
         assertSerialization("tensor<float>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertSerialization("tensor<bfloat16>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertSerialization("tensor<int8>(x[],y[]):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:-128.0}");
+    }
+
+    @Test
+    public void testDecodingConsecutiveTensorsFromOneBuffer() {
+        List<Tensor> tensors = List.of(Tensor.from("tensor(x[3]):[1, 2, 3]"),
+                                       Tensor.from("tensor<float>(x[2],y[2]):[[4, 5], [6, 7]]"),
+                                       Tensor.from("tensor<bfloat16>(x[3]):[8, 9, 10]"),
+                                       Tensor.from("tensor<int8>(x[2]):[11, -12]"),
+                                       Tensor.from("tensor<float>(key{},x[2]):{a:[13, 14], b:[15, 16]}"));
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        for (Tensor tensor : tensors)
+            buffer.put(TypedBinaryFormat.encode(tensor));
+        buffer.flip();
+        for (Tensor tensor : tensors)
+            assertEquals(tensor, TypedBinaryFormat.decode(Optional.of(tensor.type()), buffer));
+        assertEquals(0, buffer.remaining());
+    }
+
+    @Test
+    public void testDecodeViewReadsValuesFromBuffer() {
+        Tensor tensor = Tensor.from("tensor<float>(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]");
+        byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(encodedTensor.length);
+        buffer.put(encodedTensor).flip();
+
+        Tensor view = TypedBinaryFormat.decodeView(Optional.of(tensor.type()), buffer);
+        assertEquals(tensor, view);
+        assertEquals(tensor.hashCode(), view.hashCode());
+        assertEquals(Tensor.from("tensor<float>(y[3]):[5, 7, 9]"), view.sum("x"));
+
+        buffer.putFloat(encodedTensor.length - 4, 7); // the buffer is not copied
+        assertEquals(7.0, view.get(TensorAddress.of(1, 2)), 0);
     }
 
     private void assertSerialization(String tensorString) {
@@ -85,6 +145,9 @@ public class DenseBinaryFormatTestCase {
         byte[] encodedTensor = TypedBinaryFormat.encode(tensor);
         Tensor decodedTensor = TypedBinaryFormat.decode(Optional.of(expectedType), GrowableByteBuffer.wrap(encodedTensor));
         assertEquals(tensor, decodedTensor);
+        Tensor view = TypedBinaryFormat.decodeView(Optional.of(expectedType), ByteBuffer.wrap(encodedTensor));
+        assertEquals(tensor, view);
+        assertEquals(decodedTensor.hashCode(), view.hashCode());
     }
 
 }
@@ -66,6 +66,22 @@ public class JsonFormatTestCase {
         assertEquals(tensor, decoded);
     }
 
+    @Test
+    public void testCompactDenseTensors() {
+        Tensor bFloat16 = Tensor.from("tensor<bfloat16>(x[2]):[1.5, -3.5]");
+        assertEquals(bFloat16, JsonFormat.decode(bFloat16.type(), JsonFormat.encode(bFloat16)));
+
+        Tensor int8 = Tensor.from("tensor<int8>(x[2]):[127, -128]");
+        byte[] json = JsonFormat.encode(int8);
+        assertEquals("{\"cells\":[" +
+                     "{\"address\":{\"x\":\"0\"},\"value\":127.0}," +
+                     "{\"address\":{\"x\":\"1\"},\"value\":-128.0}" +
+                     "]}",
+                     new String(json, StandardCharsets.UTF_8));
+        assertEquals(int8, JsonFormat.decode(int8.type(), json));
+        assertEquals(int8, JsonFormat.decode(int8.type(), "{\"values\":[127,-128]}".getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Test
     public void testDenseTensorInDenseForm() {
         Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor(x[2],y[3])"));
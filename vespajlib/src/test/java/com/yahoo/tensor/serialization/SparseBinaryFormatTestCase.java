@@ -84,6 +84,16 @@ public class SparseBinaryFormatTestCase {
     public void testSerializationOfDifferentValueTypes() {
         assertSerialization("tensor<double>(x{},y{}):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
         assertSerialization("tensor<float>(x{},y{}):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertSerialization("tensor<bfloat16>(x{},y{}):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:5.0}");
+        assertSerialization("tensor<int8>(x{},y{}):{{x:0,y:0}:2.0, {x:0,y:1}:3.0, {x:1,y:0}:4.0, {x:1,y:1}:-128.0}");
+    }
+
+    @Test
+    public void testInt8ValuesAreRoundedAndClamped() {
+        Tensor tensor = Tensor.from("tensor<int8>(x{}):{{x:a}:2.7, {x:b}:300, {x:c}:-200, {x:d}:-2.6}");
+        Tensor decoded = TypedBinaryFormat.decode(Optional.of(tensor.type()),
+                                                  GrowableByteBuffer.wrap(TypedBinaryFormat.encode(tensor)));
+        assertEquals(Tensor.from("tensor<int8>(x{}):{{x:a}:3, {x:b}:127, {x:c}:-128, {x:d}:-3}"), decoded);
     }
 
     private void assertSerialization(String tensorString) {